@@ -0,0 +1,49 @@
+package com.rolup.backend.service.dice;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Tiradas por segundo de una expresión ya parseada (lo que hace /api/dice/batch) y coste de parsearla.
+// Con -prof gc, roll tiene que dar ~0 B/op: ni la suma ni quedarse con los mejores dados reservan memoria
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiceBenchmark {
+
+    @Param({"1d20+5", "2d6+3", "8d6", "4d6kh3", "8d6r1"})
+    public String text;
+
+    private DiceExpression expression;
+    private SplittableRandom random;
+
+    @Setup
+    public void setup() {
+        expression = DiceExpression.parse(text);
+        random = new SplittableRandom(42);
+    }
+
+    @Benchmark
+    public int roll() {
+        return expression.roll(random);
+    }
+
+    @Benchmark
+    public DiceExpression parse() {
+        return DiceExpression.parse(text);
+    }
+}
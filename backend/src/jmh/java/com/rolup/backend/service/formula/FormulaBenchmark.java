@@ -0,0 +1,66 @@
+package com.rolup.backend.service.formula;
+
+import com.rolup.backend.model.character_related.Character;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Fórmulas de usos máximos: evaluar una ya compilada, sacarla de la caché del motor y parsearla de cero.
+// Con -prof gc, evaluate y cachedCompile tienen que dar ~0 B/op (son lo que se hace por fila en los listados)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormulaBenchmark {
+
+    @Param({"proficiencyBonus", "max(1, charismaMod)", "level / 2 + wisdomMod * 2 - 1"})
+    public String text;
+
+    private final FormulaEngine engine = new FormulaEngine();
+    private Character character;
+    private Formula formula;
+    private StatSnapshot snapshot;
+
+    @Setup
+    public void setup() {
+        character = new Character();
+        character.setLevel(7);
+        character.setCharisma(16);
+        character.setWisdom(14);
+        snapshot = StatSnapshot.of(character);
+        formula = engine.compile(text);
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return formula.evaluate(snapshot);
+    }
+
+    @Benchmark
+    public Formula cachedCompile() {
+        return engine.compile(text);
+    }
+
+    @Benchmark
+    public Formula parse() {
+        return FormulaParser.parse(text);
+    }
+
+    // Una vez por listado, no por fila
+    @Benchmark
+    public StatSnapshot snapshot() {
+        return StatSnapshot.of(character);
+    }
+}
@@ -0,0 +1,32 @@
+package com.rolup.backend.config.others;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Modo opcional de hilos virtuales (spring.threads.virtual.enabled=true, requiere Java 21).
+// Spring Boot ya se encarga de que Tomcat y el applicationTaskExecutor (el que usa @Async) usen hilos virtuales,
+// aquí solo añadimos el limitador para que el pool de conexiones no se vea desbordado
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    // Por defecto tantas peticiones concurrentes como conexiones tiene Hikari: con open-in-view cada petición
+    // se queda con su conexión hasta que termina, así que dejar pasar más solo mueve la cola al pool
+    @Bean
+    public FilterRegistrationBean<DbConcurrencyLimitFilter> dbConcurrencyLimitFilter(
+            @Value("${rolup.concurrency.max-db-requests:${spring.datasource.hikari.maximum-pool-size:10}}") int maxRequests,
+            @Value("${rolup.concurrency.acquire-timeout-ms:5000}") long acquireTimeoutMs) {
+
+        FilterRegistrationBean<DbConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new DbConcurrencyLimitFilter(maxRequests, acquireTimeoutMs));
+        registration.addUrlPatterns("/api/*");
+        // Antes que Spring Security, que ya consulta la base de datos al validar el JWT
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+}
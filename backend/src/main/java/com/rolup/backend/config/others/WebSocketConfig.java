@@ -0,0 +1,28 @@
+package com.rolup.backend.config.others;
+
+import com.rolup.backend.config.security.JwtHandshakeInterceptor;
+import com.rolup.backend.service.live.LiveWebSocketHandler;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final LiveWebSocketHandler liveWebSocketHandler;
+    private final JwtHandshakeInterceptor jwtHandshakeInterceptor;
+
+    public WebSocketConfig(LiveWebSocketHandler liveWebSocketHandler, JwtHandshakeInterceptor jwtHandshakeInterceptor) {
+        this.liveWebSocketHandler = liveWebSocketHandler;
+        this.jwtHandshakeInterceptor = jwtHandshakeInterceptor;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(liveWebSocketHandler, "/ws/live")
+                .addInterceptors(jwtHandshakeInterceptor)
+                .setAllowedOrigins("*"); // Igual que el CORS de la API
+    }
+}
@@ -31,6 +31,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 path.startsWith("/api/auth/login") ||
                 path.startsWith("/api/accounts/register") ||
                 path.startsWith("/h2-console") ||
+                path.startsWith("/ws/") ||
                 path.equals("/error") ||
                 path.equals("/favicon.ico");
     }
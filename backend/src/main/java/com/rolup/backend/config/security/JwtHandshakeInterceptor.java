@@ -0,0 +1,53 @@
+package com.rolup.backend.config.security;
+
+import com.rolup.backend.service.live.LiveWebSocketHandler;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+// El navegador no deja poner la cabecera Authorization al abrir un WebSocket, así que el JWT va en ?token=.
+// Se valida igual que en JwtAuthenticationFilter y se guarda el usuario en la sesión
+@Component
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+
+    private final JwtTokenProvider tokenProvider;
+    private final CustomUserDetailsService userDetailsService;
+
+    public JwtHandshakeInterceptor(JwtTokenProvider tokenProvider, CustomUserDetailsService userDetailsService) {
+        this.tokenProvider = tokenProvider;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String token = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst("token");
+        try {
+            if (token == null) throw new com.rolup.backend.exception.InvalidJwtException("Falta el token");
+            tokenProvider.validateToken(token);
+            UserDetails user = userDetailsService.loadUserByUsername(tokenProvider.getUsername(token));
+
+            attributes.put(LiveWebSocketHandler.USERNAME_ATTRIBUTE, user.getUsername());
+            attributes.put(LiveWebSocketHandler.ADMIN_ATTRIBUTE, user.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .anyMatch(role -> role.equals("ROLE_ADMIN")));
+            return true;
+        } catch (RuntimeException e) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
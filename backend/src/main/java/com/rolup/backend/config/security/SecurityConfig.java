@@ -37,6 +37,7 @@ public class SecurityConfig {
                         .requestMatchers(
                                 "/api/accounts/register",
                                 "/api/auth/login",
+                                "/ws/**", // El JWT se valida en el handshake (JwtHandshakeInterceptor)
                                 "/h2-console/**",
                                 "/error",
                                 "/favicon.ico"
@@ -56,6 +57,7 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(List.of("*")); // Cambiar al dominio en el futuro para mayor seguridad
         configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         configuration.setAllowedHeaders(List.of("*"));
+        configuration.setExposedHeaders(List.of("X-Total-Count", "X-Next-Cursor")); // Paginación de los listados
         configuration.setAllowCredentials(false);
         configuration.setMaxAge(3600L);
 
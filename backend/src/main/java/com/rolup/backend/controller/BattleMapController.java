@@ -0,0 +1,102 @@
+package com.rolup.backend.controller;
+
+import com.rolup.backend.config.security.SecurityUtils;
+import com.rolup.backend.dto.encounterDTOs.BattleMapDTO;
+import com.rolup.backend.dto.encounterDTOs.DoorDTO;
+import com.rolup.backend.dto.encounterDTOs.FogDTO;
+import com.rolup.backend.dto.encounterDTOs.MovementDTO;
+import com.rolup.backend.exception.ForbiddenException;
+import com.rolup.backend.service.BattleMapService;
+import com.rolup.backend.service.CharacterService;
+import com.rolup.backend.service.EncounterService;
+import com.rolup.backend.service.MovementService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/encounters/{encounterId}/map")
+public class BattleMapController {
+
+    @Autowired
+    private BattleMapService battleMapService;
+
+    @Autowired
+    private EncounterService encounterService;
+
+    @Autowired
+    private CharacterService characterService;
+
+    @Autowired
+    private MovementService movementService;
+
+    // Mapa del encuentro: entero para el admin; a quien participa solo lo que han descubierto sus personajes
+    @GetMapping
+    public ResponseEntity<BattleMapDTO> get(@PathVariable Long encounterId, Authentication auth) {
+        if (SecurityUtils.isAdmin(auth)) {
+            return ResponseEntity.ok(battleMapService.getMap(encounterId));
+        }
+        return ResponseEntity.ok(battleMapService.getExploredMap(encounterId,
+                encounterService.participantCharacterIds(encounterId, auth.getName())));
+    }
+
+    // Crear o sustituir el mapa (solo admin)
+    @PutMapping
+    public ResponseEntity<BattleMapDTO> save(@PathVariable Long encounterId, @Valid @RequestBody BattleMapDTO dto,
+                                             Authentication auth) {
+        requireAdmin(auth, "Solo los administradores pueden cambiar el mapa.");
+        return ResponseEntity.ok(battleMapService.saveMap(encounterId, dto));
+    }
+
+    // Abrir o cerrar una puerta (solo admin)
+    @PostMapping("/doors")
+    public ResponseEntity<DoorDTO> door(@PathVariable Long encounterId, @Valid @RequestBody DoorDTO dto,
+                                       Authentication auth) {
+        requireAdmin(auth, "Solo los administradores pueden abrir o cerrar puertas.");
+        return ResponseEntity.ok(battleMapService.setDoor(encounterId, dto));
+    }
+
+    // Lo que ha descubierto y lo que ve ahora un personaje: /api/encounters/3/map/fog?characterId=5
+    @GetMapping("/fog")
+    public ResponseEntity<FogDTO> fog(@PathVariable Long encounterId, @RequestParam Long characterId,
+                                      Authentication auth) {
+        if (!SecurityUtils.isAdmin(auth)) {
+            characterService.verifyCharacterOwnership(characterId, auth.getName());
+            encounterService.verifyParticipant(encounterId, auth.getName());
+        }
+        return ResponseEntity.ok(battleMapService.getFog(encounterId, characterId));
+    }
+
+    // Casillas a las que puede moverse un combatiente: /api/encounters/3/map/movement/7?dash=true
+    @GetMapping("/movement/{combatantId}")
+    public ResponseEntity<MovementDTO> movement(@PathVariable Long encounterId, @PathVariable Long combatantId,
+                                                @RequestParam(required = false) Integer speed,
+                                                @RequestParam(defaultValue = "false") boolean dash,
+                                                Authentication auth) {
+        if (!SecurityUtils.isAdmin(auth)) {
+            encounterService.verifyParticipant(encounterId, auth.getName());
+        }
+        return ResponseEntity.ok(movementService.reachable(encounterId, combatantId, speed, dash));
+    }
+
+    // Camino más barato hasta una casilla: /api/encounters/3/map/movement/7/path?x=4&y=9
+    @GetMapping("/movement/{combatantId}/path")
+    public ResponseEntity<MovementDTO> path(@PathVariable Long encounterId, @PathVariable Long combatantId,
+                                            @RequestParam int x, @RequestParam int y,
+                                            @RequestParam(required = false) Integer speed,
+                                            @RequestParam(defaultValue = "false") boolean dash,
+                                            Authentication auth) {
+        if (!SecurityUtils.isAdmin(auth)) {
+            encounterService.verifyParticipant(encounterId, auth.getName());
+        }
+        return ResponseEntity.ok(movementService.path(encounterId, combatantId, x, y, speed, dash));
+    }
+
+    private static void requireAdmin(Authentication auth, String message) {
+        if (!SecurityUtils.isAdmin(auth)) {
+            throw new ForbiddenException(message);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.rolup.backend.controller;
+
+import com.rolup.backend.config.security.SecurityUtils;
+import com.rolup.backend.dto.catalogDTOs.FuzzyMatchDTO;
+import com.rolup.backend.dto.catalogDTOs.SuggestionDTO;
+import com.rolup.backend.exception.BadRequestException;
+import com.rolup.backend.exception.ForbiddenException;
+import com.rolup.backend.service.CatalogService;
+import com.rolup.backend.service.CharacterService;
+import com.rolup.backend.service.catalog.CatalogEntryType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/catalog")
+public class CatalogController {
+
+    @Autowired
+    private CatalogService catalogService;
+    @Autowired
+    private CharacterService characterService;
+
+    // Autocompletado por nombre para los diálogos de asignación (admin).
+    // Ignora mayúsculas y tildes y ordena por lo que más se asigna a los personajes
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(required = false) List<CatalogEntryType> type,
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication auth) {
+
+        if (!SecurityUtils.isAdmin(auth)) {
+            throw new ForbiddenException("Solo los administradores pueden consultar el catálogo completo.");
+        }
+        return ResponseEntity.ok(catalogService.suggest(prefix, type, limit));
+    }
+
+    // Búsqueda por nombre tolerante a erratas y tildes ("bola de feugo" -> "Bola de Fuego").
+    // El admin busca en todo el catálogo, el jugador solo en lo de su personaje
+    @GetMapping("/fuzzy")
+    public ResponseEntity<List<FuzzyMatchDTO>> fuzzy(
+            @RequestParam String q,
+            @RequestParam(required = false) List<CatalogEntryType> type,
+            @RequestParam(required = false) Long characterId,
+            @RequestParam(defaultValue = "-1") int maxDistance,
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication auth) {
+
+        if (!SecurityUtils.isAdmin(auth)) {
+            if (characterId == null) {
+                throw new BadRequestException("El ID del personaje es obligatorio.");
+            }
+            characterService.verifyCharacterOwnership(characterId, auth.getName());
+        }
+        return ResponseEntity.ok(catalogService.fuzzy(q, type, characterId, maxDistance, limit));
+    }
+}
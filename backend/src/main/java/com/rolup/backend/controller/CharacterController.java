@@ -4,9 +4,18 @@ import com.rolup.backend.config.security.SecurityUtils;
 import com.rolup.backend.dto.characterDTOs.CharacterSummaryDTO;
 import com.rolup.backend.dto.ListOfIdsAndSourceDTO;
 import com.rolup.backend.dto.characterDTOs.CharacterDTO;
+import com.rolup.backend.dto.characterDTOs.CharacterRestDTO;
+import com.rolup.backend.dto.characterDTOs.CharacterSyncDTO;
+import com.rolup.backend.dto.characterDTOs.RestRequestDTO;
+import com.rolup.backend.dto.encounterDTOs.CharacterRewardDTO;
+import com.rolup.backend.dto.encounterDTOs.RewardDTO;
 import com.rolup.backend.exception.BadRequestException;
 import com.rolup.backend.exception.ForbiddenException;
 import com.rolup.backend.service.CharacterService;
+import com.rolup.backend.service.RestService;
+import com.rolup.backend.service.RewardService;
+import com.rolup.backend.service.live.CharacterSync;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -22,6 +31,15 @@ public class CharacterController {
     @Autowired
     private CharacterService characterService;
 
+    @Autowired
+    private RestService restService;
+
+    @Autowired
+    private RewardService rewardService;
+
+    @Autowired
+    private CharacterSync characterSync;
+
     // Obtener un personaje por id
     @GetMapping("/{characterId}")
     public ResponseEntity<CharacterDTO> getCharacterById(@PathVariable Long characterId, Authentication auth) {
@@ -35,6 +53,18 @@ public class CharacterController {
         return ResponseEntity.ok(dto);
     }
 
+    // Sincronización por versiones: sin "since" devuelve la ficha entera con su versión; con "since" solo los cambios
+    // desde ahí (JSON Patch), o la ficha entera si esa versión ya no está en el historial
+    @GetMapping("/{characterId}/sync")
+    public ResponseEntity<CharacterSyncDTO> syncCharacter(@PathVariable Long characterId,
+                                                          @RequestParam(required = false) Long since,
+                                                          Authentication auth) {
+        if (!SecurityUtils.isAdmin(auth)) {
+            characterService.verifyCharacterOwnership(characterId, auth.getName());
+        }
+        return ResponseEntity.ok(characterSync.sync(characterId, since));
+    }
+
     // Obtener todos los personajes en una lista
     @GetMapping
     public ResponseEntity<List<CharacterSummaryDTO>> getAllCharacters(Authentication auth) {
@@ -143,16 +173,36 @@ public class CharacterController {
 
     // Actualizar personaje
     @PatchMapping("/{characterId}/update")
-    public ResponseEntity<String> updateCharacter(@PathVariable Long characterId,
-                                                  @RequestBody CharacterDTO dto,
-                                                  Authentication auth) {
+    public ResponseEntity<Map<String, Object>> updateCharacter(@PathVariable Long characterId,
+                                                               @RequestBody CharacterDTO dto,
+                                                               Authentication auth) {
         String username = auth.getName();
         if (!SecurityUtils.isAdmin(auth)) {
             characterService.verifyCharacterOwnership(characterId, username);
         }
 
-        characterService.updateCharacter(characterId, dto);
-        return ResponseEntity.ok("Personaje actualizado");
+        // Devuelve solo lo que se ha recalculado en el servidor (modificadores, CA...)
+        return ResponseEntity.ok(characterService.updateCharacter(characterId, dto));
+    }
+
+    // Descanso corto o largo de uno o varios personajes (todo el grupo). Devuelve solo lo que ha cambiado
+    @PostMapping("/rest")
+    public ResponseEntity<List<CharacterRestDTO>> rest(@Valid @RequestBody RestRequestDTO request, Authentication auth) {
+        String username = auth.getName();
+        if (!SecurityUtils.isAdmin(auth)) {
+            request.getCharacterIds().forEach(id -> characterService.verifyCharacterOwnership(id, username));
+        }
+
+        return ResponseEntity.ok(restService.rest(request.getCharacterIds(), request.getRestType()));
+    }
+
+    // Recompensa fuera de un encuentro: experiencia y monedas repartidas entre characterIds e ítems (solo admin)
+    @PostMapping("/reward")
+    public ResponseEntity<List<CharacterRewardDTO>> reward(@Valid @RequestBody RewardDTO dto, Authentication auth) {
+        if (!SecurityUtils.isAdmin(auth)) {
+            throw new ForbiddenException("Solo los administradores pueden dar recompensas.");
+        }
+        return ResponseEntity.ok(rewardService.reward(null, dto));
     }
 
     // Eliminar personaje
@@ -0,0 +1,42 @@
+package com.rolup.backend.controller;
+
+import com.rolup.backend.dto.diceDTOs.DiceBatchResultDTO;
+import com.rolup.backend.dto.diceDTOs.DiceRollDTO;
+import com.rolup.backend.dto.diceDTOs.DiceRollRequestDTO;
+import com.rolup.backend.dto.diceDTOs.DiceStatsDTO;
+import com.rolup.backend.model.enums.RollMode;
+import com.rolup.backend.service.DiceService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/dice")
+public class DiceController {
+
+    @Autowired
+    private DiceService diceService;
+
+    // Una tirada con el detalle de los dados: {"expression": "1d20+5", "mode": "ADVANTAGE"}
+    @PostMapping("/roll")
+    public ResponseEntity<DiceRollDTO> roll(@Valid @RequestBody DiceRollRequestDTO request) {
+        return ResponseEntity.ok(diceService.rollDetailed(request.getExpression(), request.getMode()));
+    }
+
+    // Muchas tiradas de golpe, solo totales: [{"expression": "8d6", "times": 20}, ...]
+    @PostMapping("/batch")
+    public ResponseEntity<List<DiceBatchResultDTO>> batch(@Valid @RequestBody List<@Valid DiceRollRequestDTO> requests) {
+        return ResponseEntity.ok(diceService.rollBatch(requests));
+    }
+
+    // Distribución exacta de una expresión: /api/dice/stats?expression=1d20%2B5&mode=ADVANTAGE&target=15
+    @GetMapping("/stats")
+    public ResponseEntity<DiceStatsDTO> stats(@RequestParam String expression,
+                                              @RequestParam(required = false) RollMode mode,
+                                              @RequestParam(required = false) Integer target) {
+        return ResponseEntity.ok(diceService.stats(expression, mode, target));
+    }
+}
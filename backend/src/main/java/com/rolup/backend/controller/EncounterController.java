@@ -0,0 +1,127 @@
+package com.rolup.backend.controller;
+
+import com.rolup.backend.config.security.SecurityUtils;
+import com.rolup.backend.dto.encounterDTOs.AddCombatantDTO;
+import com.rolup.backend.dto.encounterDTOs.CharacterRewardDTO;
+import com.rolup.backend.dto.encounterDTOs.EncounterCommandDTO;
+import com.rolup.backend.dto.encounterDTOs.EncounterDTO;
+import com.rolup.backend.dto.encounterDTOs.EncounterReplayDTO;
+import com.rolup.backend.dto.encounterDTOs.RewardDTO;
+import com.rolup.backend.dto.encounterDTOs.SimulationRequestDTO;
+import com.rolup.backend.dto.encounterDTOs.SimulationResultDTO;
+import com.rolup.backend.exception.ForbiddenException;
+import com.rolup.backend.service.EncounterService;
+import com.rolup.backend.service.RewardService;
+import com.rolup.backend.service.SimulationService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/encounters")
+public class EncounterController {
+
+    @Autowired
+    private EncounterService encounterService;
+
+    @Autowired
+    private RewardService rewardService;
+
+    @Autowired
+    private SimulationService simulationService;
+
+    // Crear un encuentro (solo admin)
+    @PostMapping("/create")
+    public ResponseEntity<EncounterDTO> create(@Valid @RequestBody EncounterDTO dto, Authentication auth) {
+        requireAdmin(auth, "Solo los administradores pueden crear encuentros.");
+        return ResponseEntity.status(201).body(encounterService.createEncounter(dto));
+    }
+
+    // Admin: todos. Jugadores: en los que participa alguno de sus personajes
+    @GetMapping
+    public ResponseEntity<List<EncounterDTO>> getAll(Authentication auth) {
+        return ResponseEntity.ok(encounterService.getEncounters(auth.getName(), SecurityUtils.isAdmin(auth)));
+    }
+
+    // Estado actual del encuentro
+    @GetMapping("/{encounterId}")
+    public ResponseEntity<EncounterDTO> get(@PathVariable Long encounterId, Authentication auth) {
+        boolean isAdmin = SecurityUtils.isAdmin(auth);
+        if (!isAdmin) {
+            encounterService.verifyParticipant(encounterId, auth.getName());
+        }
+        return ResponseEntity.ok(encounterService.getEncounter(encounterId, isAdmin));
+    }
+
+    // Historial desde la versión que tiene el cliente: /api/encounters/3/events?since=41. Sin since, o si falta
+    // algo, devuelve el encuentro entero
+    @GetMapping("/{encounterId}/events")
+    public ResponseEntity<EncounterReplayDTO> events(@PathVariable Long encounterId,
+                                                     @RequestParam(required = false) Long since,
+                                                     Authentication auth) {
+        boolean isAdmin = SecurityUtils.isAdmin(auth);
+        if (!isAdmin) {
+            encounterService.verifyParticipant(encounterId, auth.getName());
+        }
+        return ResponseEntity.ok(encounterService.replay(encounterId, since, isAdmin));
+    }
+
+    // Añadir un personaje o una criatura (solo admin)
+    @PostMapping("/{encounterId}/combatants")
+    public ResponseEntity<EncounterDTO> addCombatant(@PathVariable Long encounterId,
+                                                     @RequestBody AddCombatantDTO dto,
+                                                     Authentication auth) {
+        requireAdmin(auth, "Solo los administradores pueden modificar encuentros.");
+        return ResponseEntity.ok(encounterService.addCombatant(encounterId, dto));
+    }
+
+    // Aplicar una orden: empezar, pasar turno, daño, curación, efectos... (solo admin)
+    @PostMapping("/{encounterId}/commands")
+    public ResponseEntity<EncounterDTO> execute(@PathVariable Long encounterId,
+                                                @Valid @RequestBody EncounterCommandDTO dto,
+                                                Authentication auth) {
+        requireAdmin(auth, "Solo los administradores pueden modificar encuentros.");
+        return ResponseEntity.ok(encounterService.execute(encounterId, dto));
+    }
+
+    // Terminar el encuentro (solo admin)
+    @PostMapping("/{encounterId}/finish")
+    public ResponseEntity<EncounterDTO> finish(@PathVariable Long encounterId, Authentication auth) {
+        requireAdmin(auth, "Solo los administradores pueden terminar encuentros.");
+        return ResponseEntity.ok(encounterService.finishEncounter(encounterId));
+    }
+
+    // Repartir la recompensa entre los personajes del encuentro, o entre characterIds si se indican (solo admin)
+    @PostMapping("/{encounterId}/reward")
+    public ResponseEntity<List<CharacterRewardDTO>> reward(@PathVariable Long encounterId,
+                                                           @Valid @RequestBody RewardDTO dto,
+                                                           Authentication auth) {
+        requireAdmin(auth, "Solo los administradores pueden dar recompensas.");
+        return ResponseEntity.ok(rewardService.rewardEncounter(encounterId, dto));
+    }
+
+    // Simular muchas veces un combate del grupo contra unos enemigos para ver cómo de difícil es (solo admin)
+    @PostMapping("/simulate")
+    public ResponseEntity<SimulationResultDTO> simulate(@Valid @RequestBody SimulationRequestDTO dto, Authentication auth) {
+        requireAdmin(auth, "Solo los administradores pueden simular combates.");
+        return ResponseEntity.ok(simulationService.simulate(dto));
+    }
+
+    // Eliminar un encuentro (solo admin)
+    @DeleteMapping("/{encounterId}")
+    public ResponseEntity<String> delete(@PathVariable Long encounterId, Authentication auth) {
+        requireAdmin(auth, "Solo los administradores pueden eliminar encuentros.");
+        encounterService.deleteEncounter(encounterId);
+        return ResponseEntity.ok("Encuentro eliminado");
+    }
+
+    private static void requireAdmin(Authentication auth, String message) {
+        if (!SecurityUtils.isAdmin(auth)) {
+            throw new ForbiddenException(message);
+        }
+    }
+}
@@ -1,18 +1,21 @@
 package com.rolup.backend.controller;
 
 import com.rolup.backend.config.security.SecurityUtils;
+import com.rolup.backend.exception.BadRequestException;
 import com.rolup.backend.exception.ForbiddenException;
 import com.rolup.backend.service.FileStorageService;
+import com.rolup.backend.service.files.StoredFileWriter;
+import com.rolup.backend.service.tiles.TilePyramidBuilder;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -22,6 +25,9 @@ public class FileStorageController {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private StoredFileWriter storedFileWriter;
+
     // Listar archivos en un directorio
     @GetMapping("/list")
     public ResponseEntity<List<FileStorageService.FileInfo>> listFiles(
@@ -40,27 +46,35 @@ public class FileStorageController {
         }
     }
 
-    // Servir imagen
+    // Servir imagen (admite Range, If-None-Match e If-Modified-Since)
     @GetMapping("/image/{filename:.+}")
-    public ResponseEntity<Resource> serveImage(
+    public void serveImage(
             @PathVariable String filename,
             @RequestParam(required = false) String path,
-            Authentication auth) {
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
 
-        try {
-            Resource resource = fileStorageService.loadFileAsResource(filename, path);
+        storedFileWriter.write(fileStorageService.getStoredFile(filename, path), request, response);
+    }
 
-            // Determinar content type usando MediaTypeFactory
-            String contentType = MediaTypeFactory.getMediaType(resource)
-                    .map(MediaType::toString)
-                    .orElse("application/octet-stream");
+    // Pirámide de teselas de una imagen grande (404 si no la tiene o aún se está generando)
+    @GetMapping("/tiles/info")
+    public ResponseEntity<TilePyramidBuilder.Pyramid> getTilePyramid(@RequestParam String file) {
+        return ResponseEntity.ok(fileStorageService.getTilePyramid(file));
+    }
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .body(resource);
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
-        }
+    // Tesela de una imagen: /api/file-manager/tiles/12/3/5?file=mapas/abc_mapa.jpg
+    // Cada subida tiene un nombre único, así que una tesela no cambia nunca
+    @GetMapping("/tiles/{level}/{column}/{row}")
+    public void getTile(
+            @PathVariable int level,
+            @PathVariable int column,
+            @PathVariable int row,
+            @RequestParam String file,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        storedFileWriter.write(fileStorageService.getTile(file, level, column, row), request, response);
     }
 
     // Subir archivo
@@ -87,6 +101,8 @@ public class FileStorageController {
             );
 
             return ResponseEntity.ok(response);
+        } catch (BadRequestException e) {
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -4,10 +4,15 @@ import com.rolup.backend.config.security.SecurityUtils;
 import com.rolup.backend.dto.ListOfIdsAndSourceDTO;
 import com.rolup.backend.dto.itemDTOs.ItemDTO;
 import com.rolup.backend.dto.itemDTOs.ItemPropertyDTO;
+import com.rolup.backend.dto.catalogDTOs.CatalogFacetsDTO;
+import com.rolup.backend.dto.catalogDTOs.CatalogFilterDTO;
 import com.rolup.backend.exception.BadRequestException;
 import com.rolup.backend.exception.ForbiddenException;
+import com.rolup.backend.service.CatalogQueryService;
 import com.rolup.backend.service.CharacterService;
 import com.rolup.backend.service.ItemService;
+import com.rolup.backend.service.catalog.CatalogEntryType;
+import com.rolup.backend.service.catalog.CatalogFacetIndex;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -24,6 +29,8 @@ public class ItemController {
     private ItemService itemService;
     @Autowired
     private CharacterService characterService;
+    @Autowired
+    private CatalogQueryService catalogQueryService;
 
     // Crear un ítem (admin)
     @PostMapping("/create")
@@ -34,18 +41,19 @@ public class ItemController {
         return ResponseEntity.status(201).body(itemService.createItem(dto));
     }
 
-    // Obtener todos los items en forma de lista
+    // Obtener todos los items en forma de lista.
+    // Admite filtros (nivel, escuela, categoría, rareza...) y paginación por cursor: after = último id recibido,
+    // el total y el cursor de la siguiente página vienen en las cabeceras X-Total-Count y X-Next-Cursor
     @GetMapping("/all")
     public ResponseEntity<List<ItemDTO>> getVisibleItems(
             @RequestParam(required = false) Long characterId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            CatalogFilterDTO filter,
             Authentication auth) {
 
         boolean isAdmin = SecurityUtils.isAdmin(auth);
 
-        if (isAdmin && characterId == null) {
-            return ResponseEntity.ok(itemService.getAllItems());
-        }
-
         if (!isAdmin) {
             if (characterId == null) {
                 throw new BadRequestException("El ID del personaje es obligatorio.");
@@ -55,7 +63,34 @@ public class ItemController {
             characterService.verifyCharacterOwnership(characterId, username);
         }
 
-        return ResponseEntity.ok(itemService.getAllItemsForCharacter(characterId));
+        // Sin filtros ni paginación se devuelve la lista completa
+        if (filter.isEmpty() && after == null && limit == null) {
+            return ResponseEntity.ok(characterId == null
+                    ? itemService.getAllItems()
+                    : itemService.getAllItemsForCharacter(characterId));
+        }
+
+        CatalogFacetIndex.Page page = catalogQueryService.page(CatalogEntryType.ITEM, filter, characterId, after, limit);
+        return ResponseEntity.ok()
+                .headers(CatalogQueryService.pageHeaders(page))
+                .body(itemService.getItemsByIds(page.ids(), characterId));
+    }
+
+    // Recuento de ítems por cada valor de cada filtro, con los filtros actuales aplicados
+    @GetMapping("/facets")
+    public ResponseEntity<CatalogFacetsDTO> getFacets(
+            @RequestParam(required = false) Long characterId,
+            CatalogFilterDTO filter,
+            Authentication auth) {
+
+        if (!SecurityUtils.isAdmin(auth)) {
+            if (characterId == null) {
+                throw new BadRequestException("El ID del personaje es obligatorio.");
+            }
+            characterService.verifyCharacterOwnership(characterId, auth.getName());
+        }
+
+        return ResponseEntity.ok(catalogQueryService.facets(CatalogEntryType.ITEM, filter, characterId));
     }
 
     // Obtener ítem específico (detalles completos) (INCOMPLETO)
@@ -0,0 +1,29 @@
+package com.rolup.backend.controller;
+
+import com.rolup.backend.config.security.SecurityUtils;
+import com.rolup.backend.dto.liveDTOs.LiveStatsDTO;
+import com.rolup.backend.exception.ForbiddenException;
+import com.rolup.backend.service.live.LiveSessionRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/live")
+public class LiveController {
+
+    @Autowired
+    private LiveSessionRegistry liveSessionRegistry;
+
+    // Estado del canal en vivo: sesiones, colas de salida y mensajes agrupados o descartados (solo admin)
+    @GetMapping("/stats")
+    public ResponseEntity<LiveStatsDTO> stats(Authentication auth) {
+        if (!SecurityUtils.isAdmin(auth)) {
+            throw new ForbiddenException("Solo los administradores pueden ver el estado del canal en vivo.");
+        }
+        return ResponseEntity.ok(liveSessionRegistry.stats());
+    }
+}
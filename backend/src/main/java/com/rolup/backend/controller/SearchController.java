@@ -0,0 +1,46 @@
+package com.rolup.backend.controller;
+
+import com.rolup.backend.config.security.SecurityUtils;
+import com.rolup.backend.dto.catalogDTOs.CatalogFilterDTO;
+import com.rolup.backend.dto.catalogDTOs.SearchResultDTO;
+import com.rolup.backend.exception.BadRequestException;
+import com.rolup.backend.service.CharacterService;
+import com.rolup.backend.service.SearchService;
+import com.rolup.backend.service.catalog.CatalogEntryType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    @Autowired
+    private SearchService searchService;
+    @Autowired
+    private CharacterService characterService;
+
+    // Búsqueda de texto completo sobre conjuros, habilidades e ítems.
+    // El admin busca en todo el catálogo (o en lo de un personaje si lo indica), el jugador solo en lo de su personaje
+    @GetMapping
+    public ResponseEntity<List<SearchResultDTO>> search(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(required = false) List<CatalogEntryType> type,
+            @RequestParam(required = false) Long characterId,
+            @RequestParam(defaultValue = "20") int limit,
+            CatalogFilterDTO filter,
+            Authentication auth) {
+
+        if (!SecurityUtils.isAdmin(auth)) {
+            if (characterId == null) {
+                throw new BadRequestException("El ID del personaje es obligatorio.");
+            }
+            characterService.verifyCharacterOwnership(characterId, auth.getName());
+        }
+
+        return ResponseEntity.ok(searchService.search(q, type, filter, characterId, limit));
+    }
+}
@@ -2,10 +2,15 @@ package com.rolup.backend.controller;
 
 import com.rolup.backend.config.security.SecurityUtils;
 import com.rolup.backend.dto.SkillDTO;
+import com.rolup.backend.dto.catalogDTOs.CatalogFacetsDTO;
+import com.rolup.backend.dto.catalogDTOs.CatalogFilterDTO;
 import com.rolup.backend.exception.BadRequestException;
 import com.rolup.backend.exception.ForbiddenException;
+import com.rolup.backend.service.CatalogQueryService;
 import com.rolup.backend.service.CharacterService;
 import com.rolup.backend.service.SkillService;
+import com.rolup.backend.service.catalog.CatalogEntryType;
+import com.rolup.backend.service.catalog.CatalogFacetIndex;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +27,8 @@ public class SkillController {
     private SkillService skillService;
     @Autowired
     private CharacterService characterService;
+    @Autowired
+    private CatalogQueryService catalogQueryService;
 
     // Crear habilidad
     @PostMapping("/create")
@@ -32,18 +39,19 @@ public class SkillController {
         return ResponseEntity.status(201).body(skillService.createSkill(dto));
     }
 
-    // Obtiene todas las habilidades visibles para un personaje
+    // Obtiene todas las habilidades visibles para un personaje.
+    // Admite filtros (nivel, escuela, categoría, rareza...) y paginación por cursor: after = último id recibido,
+    // el total y el cursor de la siguiente página vienen en las cabeceras X-Total-Count y X-Next-Cursor
     @GetMapping("/all")
     public ResponseEntity<List<SkillDTO>> getAllSkills(
             @RequestParam(required = false) Long characterId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            CatalogFilterDTO filter,
             Authentication auth) {
 
         boolean isAdmin = SecurityUtils.isAdmin(auth);
 
-        if (isAdmin && characterId == null) {
-            return ResponseEntity.ok(skillService.getAllSkillsForAdmin());
-        }
-
         if (!isAdmin) {
             if (characterId == null) {
                 throw new BadRequestException("El ID del personaje es obligatorio.");
@@ -53,7 +61,34 @@ public class SkillController {
             characterService.verifyCharacterOwnership(characterId, username);
         }
 
-        return ResponseEntity.ok(skillService.getSkillsForCharacter(characterId));
+        // Sin filtros ni paginación se devuelve la lista completa
+        if (filter.isEmpty() && after == null && limit == null) {
+            return ResponseEntity.ok(characterId == null
+                    ? skillService.getAllSkillsForAdmin()
+                    : skillService.getSkillsForCharacter(characterId));
+        }
+
+        CatalogFacetIndex.Page page = catalogQueryService.page(CatalogEntryType.SKILL, filter, characterId, after, limit);
+        return ResponseEntity.ok()
+                .headers(CatalogQueryService.pageHeaders(page))
+                .body(skillService.getSkillsByIds(page.ids(), characterId));
+    }
+
+    // Recuento de habilidades por cada valor de cada filtro, con los filtros actuales aplicados
+    @GetMapping("/facets")
+    public ResponseEntity<CatalogFacetsDTO> getFacets(
+            @RequestParam(required = false) Long characterId,
+            CatalogFilterDTO filter,
+            Authentication auth) {
+
+        if (!SecurityUtils.isAdmin(auth)) {
+            if (characterId == null) {
+                throw new BadRequestException("El ID del personaje es obligatorio.");
+            }
+            characterService.verifyCharacterOwnership(characterId, auth.getName());
+        }
+
+        return ResponseEntity.ok(catalogQueryService.facets(CatalogEntryType.SKILL, filter, characterId));
     }
 
     // Obtener una habilidad específica
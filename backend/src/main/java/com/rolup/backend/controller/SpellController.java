@@ -2,10 +2,15 @@ package com.rolup.backend.controller;
 
 import com.rolup.backend.config.security.SecurityUtils;
 import com.rolup.backend.dto.SpellDTO;
+import com.rolup.backend.dto.catalogDTOs.CatalogFacetsDTO;
+import com.rolup.backend.dto.catalogDTOs.CatalogFilterDTO;
 import com.rolup.backend.exception.BadRequestException;
 import com.rolup.backend.exception.ForbiddenException;
+import com.rolup.backend.service.CatalogQueryService;
 import com.rolup.backend.service.CharacterService;
 import com.rolup.backend.service.SpellService;
+import com.rolup.backend.service.catalog.CatalogEntryType;
+import com.rolup.backend.service.catalog.CatalogFacetIndex;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +27,8 @@ public class SpellController {
     private SpellService spellService;
     @Autowired
     private CharacterService characterService;
+    @Autowired
+    private CatalogQueryService catalogQueryService;
 
     // Crea un conjuro
     @PostMapping("/create")
@@ -32,18 +39,19 @@ public class SpellController {
         return ResponseEntity.status(201).body(spellService.createSpell(dto));
     }
 
-    // Obtiene todos los conjuros visibles para un personaje
+    // Obtiene todos los conjuros visibles para un personaje.
+    // Admite filtros (nivel, escuela, categoría, rareza...) y paginación por cursor: after = último id recibido,
+    // el total y el cursor de la siguiente página vienen en las cabeceras X-Total-Count y X-Next-Cursor
     @GetMapping("/all")
     public ResponseEntity<List<SpellDTO>> getAllSpells(
             @RequestParam(required = false) Long characterId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            CatalogFilterDTO filter,
             Authentication auth) {
 
         boolean isAdmin = SecurityUtils.isAdmin(auth);
 
-        if (isAdmin && characterId == null) {
-            return ResponseEntity.ok(spellService.getAllSpellsForAdmin());
-        }
-
         if (!isAdmin) {
             if (characterId == null) {
                 throw new BadRequestException("El ID del personaje es obligatorio.");
@@ -53,7 +61,34 @@ public class SpellController {
             characterService.verifyCharacterOwnership(characterId, username);
         }
 
-        return ResponseEntity.ok(spellService.getSpellsForCharacter(characterId));
+        // Sin filtros ni paginación se devuelve la lista completa
+        if (filter.isEmpty() && after == null && limit == null) {
+            return ResponseEntity.ok(characterId == null
+                    ? spellService.getAllSpellsForAdmin()
+                    : spellService.getSpellsForCharacter(characterId));
+        }
+
+        CatalogFacetIndex.Page page = catalogQueryService.page(CatalogEntryType.SPELL, filter, characterId, after, limit);
+        return ResponseEntity.ok()
+                .headers(CatalogQueryService.pageHeaders(page))
+                .body(spellService.getSpellsByIds(page.ids(), characterId));
+    }
+
+    // Recuento de conjuros por cada valor de cada filtro, con los filtros actuales aplicados
+    @GetMapping("/facets")
+    public ResponseEntity<CatalogFacetsDTO> getFacets(
+            @RequestParam(required = false) Long characterId,
+            CatalogFilterDTO filter,
+            Authentication auth) {
+
+        if (!SecurityUtils.isAdmin(auth)) {
+            if (characterId == null) {
+                throw new BadRequestException("El ID del personaje es obligatorio.");
+            }
+            characterService.verifyCharacterOwnership(characterId, auth.getName());
+        }
+
+        return ResponseEntity.ok(catalogQueryService.facets(CatalogEntryType.SPELL, filter, characterId));
     }
 
     // Obtiene un conjuro específico
@@ -24,6 +24,9 @@ public class SkillDTO {
 
     private String summaryTemplate;
 
+    private String renderedDescription; // Plantillas ya renderizadas para el personaje (null si no hay personaje)
+    private String renderedSummary;
+
     private String iconUrl;
 
     private String resetOn;
@@ -34,6 +37,8 @@ public class SkillDTO {
 
     private String autoFormula;
 
+    private Integer effectiveMaxUses; // Usos máximos ya calculados (con la fórmula evaluada si hay personaje)
+
     // CharacterSkill
     private Integer currentUses;
     private String source;
@@ -28,6 +28,9 @@ public class SpellDTO {
 
     private String summaryTemplate;
 
+    private String renderedDescription; // Plantillas ya renderizadas para el personaje (null si no hay personaje)
+    private String renderedSummary;
+
     private String iconUrl;
 
     @NotNull
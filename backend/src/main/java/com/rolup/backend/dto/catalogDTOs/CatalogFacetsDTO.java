@@ -0,0 +1,15 @@
+package com.rolup.backend.dto.catalogDTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class CatalogFacetsDTO {
+    private int total; // Resultados con todos los filtros aplicados
+    private Map<String, Map<String, Integer>> facets; // faceta (nombre del query param) -> valor -> nº de resultados
+}
@@ -0,0 +1,49 @@
+package com.rolup.backend.dto.catalogDTOs;
+
+import com.rolup.backend.model.enums.Category;
+import com.rolup.backend.model.enums.ItemCategory;
+import com.rolup.backend.model.enums.Rarity;
+import com.rolup.backend.model.enums.RestType;
+import com.rolup.backend.model.enums.School;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+// Filtros comunes a las consultas sobre el catálogo, se rellenan a partir de los query params.
+// Un filtro vacío no filtra; un filtro con valores deja fuera a las entradas que no tengan ese atributo
+@Getter
+@Setter
+public class CatalogFilterDTO {
+
+    public enum CategoryMatch {
+        ANY, // Tiene alguna de las categorías pedidas
+        ALL  // Tiene todas las categorías pedidas
+    }
+
+    private List<Integer> level;
+    private Integer minLevel;
+    private Integer maxLevel;
+    private List<School> school;
+    private Boolean concentration;
+    private List<Category> category;
+    private CategoryMatch categoryMatch;
+    private List<Rarity> rarity;
+    private List<ItemCategory> itemCategory;
+    private List<RestType> resetOn;
+    private Boolean requiresAttunement;
+
+    public boolean isEmpty() {
+        return isEmpty(level) && minLevel == null && maxLevel == null && isEmpty(school) && concentration == null
+                && isEmpty(category) && isEmpty(rarity) && isEmpty(itemCategory) && isEmpty(resetOn)
+                && requiresAttunement == null;
+    }
+
+    public boolean matchAllCategories() {
+        return categoryMatch == CategoryMatch.ALL;
+    }
+
+    private static boolean isEmpty(List<?> values) {
+        return values == null || values.isEmpty();
+    }
+}
@@ -0,0 +1,17 @@
+package com.rolup.backend.dto.catalogDTOs;
+
+import com.rolup.backend.service.catalog.CatalogEntryType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class FuzzyMatchDTO {
+    private CatalogEntryType type;
+    private Long id;
+    private String name;
+    private String iconUrl;
+    private int distance; // Nº de letras cambiadas, añadidas o quitadas respecto a lo escrito
+}
@@ -0,0 +1,18 @@
+package com.rolup.backend.dto.catalogDTOs;
+
+import com.rolup.backend.service.catalog.CatalogEntryType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class SearchResultDTO {
+    private CatalogEntryType type;
+    private Long id; // Id del conjuro, habilidad o ítem (no el de la relación con el personaje)
+    private String name;
+    private String summary;
+    private String iconUrl;
+    private double score;
+}
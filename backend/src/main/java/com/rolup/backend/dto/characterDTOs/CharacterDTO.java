@@ -34,6 +34,7 @@ public class CharacterDTO {
     private Integer charisma;
 
     private Integer armorClass;
+    private Boolean armorClassManual;
     private Integer currentHp;
     private Integer maxHp;
     private Integer tempHp;
@@ -0,0 +1,30 @@
+package com.rolup.backend.dto.characterDTOs;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Lo que ha cambiado en un personaje tras un descanso. Solo se envían los campos que han cambiado
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class CharacterRestDTO {
+
+    private Long characterId;
+
+    private Integer currentHp;
+    private Integer tempHp;
+    private Integer hitDiceCurrentAmount;
+
+    private Map<Integer, Integer> spellSlots = new LinkedHashMap<>();      // Nivel -> huecos actuales
+    private Map<Long, Integer> skills = new LinkedHashMap<>();             // Id de la habilidad -> usos actuales
+    private Map<Long, Integer> items = new LinkedHashMap<>();              // Id del CharacterItem -> usos actuales
+    private Map<Long, Integer> itemProperties = new LinkedHashMap<>();     // Id del CharacterItemProperty -> usos actuales
+
+    public CharacterRestDTO(Long characterId) {
+        this.characterId = characterId;
+    }
+}
@@ -0,0 +1,34 @@
+package com.rolup.backend.dto.characterDTOs;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Respuesta de la sincronización de una ficha: o un JSON Patch desde la versión que tiene el cliente,
+// o la ficha entera si el cliente no tiene versión o se ha quedado demasiado atrás
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CharacterSyncDTO {
+
+    private long version;
+
+    private Long fromVersion;   // Solo con patch
+
+    private JsonNode patch;    // Operaciones JSON Patch (add / remove / replace)
+
+    private JsonNode snapshot; // CharacterDTO entero
+
+    public static CharacterSyncDTO patch(long fromVersion, long version, JsonNode patch) {
+        return new CharacterSyncDTO(version, fromVersion, patch, null);
+    }
+
+    public static CharacterSyncDTO snapshot(long version, JsonNode snapshot) {
+        return new CharacterSyncDTO(version, null, null, snapshot);
+    }
+}
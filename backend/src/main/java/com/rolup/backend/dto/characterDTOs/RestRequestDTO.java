@@ -0,0 +1,20 @@
+package com.rolup.backend.dto.characterDTOs;
+
+import com.rolup.backend.model.enums.RestType;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class RestRequestDTO {
+
+    @NotEmpty
+    private List<Long> characterIds;
+
+    @NotNull
+    private RestType restType; // SHORT_REST o LONG_REST
+}
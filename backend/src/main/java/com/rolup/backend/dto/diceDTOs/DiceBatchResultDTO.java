@@ -0,0 +1,15 @@
+package com.rolup.backend.dto.diceDTOs;
+
+import com.rolup.backend.model.enums.RollMode;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class DiceBatchResultDTO {
+    private String expression;
+    private RollMode mode;
+    private int[] totals; // Un total por tirada, en orden
+}
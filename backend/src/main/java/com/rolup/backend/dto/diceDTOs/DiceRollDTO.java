@@ -0,0 +1,20 @@
+package com.rolup.backend.dto.diceDTOs;
+
+import com.rolup.backend.model.enums.RollMode;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class DiceRollDTO {
+    private String expression;
+    private RollMode mode;
+    private int total;
+    private List<List<Integer>> dice; // Dados que cuentan de cada término (con ventaja/desventaja, los de la tirada elegida)
+    private int min;
+    private int max;
+}
@@ -0,0 +1,18 @@
+package com.rolup.backend.dto.diceDTOs;
+
+import com.rolup.backend.model.enums.RollMode;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class DiceRollRequestDTO {
+
+    @NotBlank
+    private String expression; // Ej: "2d6+3", "4d6kh3", "1d20+5"
+
+    private RollMode mode;     // null = NORMAL
+
+    private Integer times;     // Solo en lotes: cuántas veces se tira (1 por defecto)
+}
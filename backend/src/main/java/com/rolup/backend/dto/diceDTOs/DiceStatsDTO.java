@@ -0,0 +1,22 @@
+package com.rolup.backend.dto.diceDTOs;
+
+import com.rolup.backend.model.enums.RollMode;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class DiceStatsDTO {
+    private String expression;
+    private RollMode mode;
+    private int min;
+    private int max;
+    private double mean;
+    private double variance;
+    private double standardDeviation;
+    private double[] probabilities; // probabilities[i] = P(total = min + i)
+    private Integer target;         // CD o CA contra la que se tira (opcional)
+    private Double chanceAtLeast;   // P(total >= target)
+}
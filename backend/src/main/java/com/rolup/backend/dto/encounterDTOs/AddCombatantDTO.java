@@ -0,0 +1,29 @@
+package com.rolup.backend.dto.encounterDTOs;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Con characterId se añade ese personaje con sus datos; sin él, una criatura con los datos de aquí
+@Getter
+@Setter
+public class AddCombatantDTO {
+
+    private Long characterId;
+
+    private String name;
+
+    private String iconUrl;
+
+    private Integer maxHp;
+
+    private Integer currentHp; // Por defecto maxHp
+
+    private Integer armorClass;
+
+    private Integer initiativeBonus;
+
+    private Integer initiative; // Si es null se tira al empezar el combate (o al entrar si ya ha empezado)
+
+    private Integer x; // Casilla en la que se coloca; sin ella entra sin colocar
+    private Integer y;
+}
@@ -0,0 +1,33 @@
+package com.rolup.backend.dto.encounterDTOs;
+
+import com.rolup.backend.model.enums.AreaShapeType;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+// Área de un conjuro sobre la cuadrícula. Las medidas van en pies, como en los conjuros (5 pies por casilla)
+@Getter
+@Setter
+public class AreaShapeDTO {
+
+    @NotNull
+    private AreaShapeType shape;
+
+    @NotNull
+    private Integer originX;      // SPHERE: centro; CUBE: esquina de arriba a la izquierda; CONE y LINE: quien lo lanza
+    @NotNull
+    private Integer originY;
+
+    private Integer targetX;      // CONE y LINE: hacia dónde
+    private Integer targetY;
+
+    @Min(5)
+    @Max(1000)
+    private int size;             // Radio, lado o largo
+
+    @Min(5)
+    @Max(100)
+    private int width = 5;        // Ancho de LINE
+}
@@ -0,0 +1,26 @@
+package com.rolup.backend.dto.encounterDTOs;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Mapa de un encuentro, una fila por String: '#' muro, '.' suelo, '~' terreno difícil, 'D' puerta cerrada,
+// 'O' puerta abierta. A los jugadores lo que no han descubierto les llega como ' '
+@Getter
+@Setter
+public class BattleMapDTO {
+
+    private Long encounterId;
+
+    private Integer width;
+    private Integer height;
+
+    private Long version;
+
+    @NotEmpty
+    private List<@NotNull String> rows = new ArrayList<>();
+}
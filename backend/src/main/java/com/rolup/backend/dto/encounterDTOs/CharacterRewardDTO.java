@@ -0,0 +1,30 @@
+package com.rolup.backend.dto.encounterDTOs;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Lo que le ha tocado a un personaje de una recompensa y cómo queda
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class CharacterRewardDTO {
+
+    private Long characterId;
+
+    private int experienceGained;
+    private List<Integer> coinsGained;          // [cobre, plata, electrum, oro, platino]
+
+    private int experience;                     // Totales tras la recompensa
+    private List<Integer> coins;
+
+    private Map<Long, Integer> items = new LinkedHashMap<>(); // Id del ítem -> cantidad recibida
+
+    public CharacterRewardDTO(Long characterId) {
+        this.characterId = characterId;
+    }
+}
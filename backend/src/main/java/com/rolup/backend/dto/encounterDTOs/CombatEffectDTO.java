@@ -0,0 +1,25 @@
+package com.rolup.backend.dto.encounterDTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CombatEffectDTO {
+
+    private String name;
+
+    private String iconUrl;
+
+    private Integer remainingTurns; // null = hasta que se quite
+
+    private Integer totalDuration;
+
+    private boolean totalDurationIsAssaults; // remainingTurns y totalDuration van en asaltos
+
+    private boolean endsAtTurnStart;
+}
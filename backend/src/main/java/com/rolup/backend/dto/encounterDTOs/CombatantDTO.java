@@ -0,0 +1,36 @@
+package com.rolup.backend.dto.encounterDTOs;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class CombatantDTO {
+
+    private Long id; // Id del EncounterEntity
+
+    private Long characterId; // null si es una criatura
+
+    private String name;
+
+    private String iconUrl;
+
+    private Integer initiative;
+
+    private Integer initiativeBonus;
+
+    // Los jugadores no ven los PG ni la CA de las criaturas
+    private Integer currentHp;
+    private Integer maxHp;
+    private Integer tempHp;
+    private Integer armorClass;
+
+    private boolean defeated;
+
+    private Integer x; // Casilla en la cuadrícula; null si no está colocado
+    private Integer y;
+
+    private List<CombatEffectDTO> effects;
+}
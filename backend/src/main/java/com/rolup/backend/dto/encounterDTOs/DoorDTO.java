@@ -0,0 +1,20 @@
+package com.rolup.backend.dto.encounterDTOs;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class DoorDTO {
+
+    @NotNull
+    private Integer x;
+
+    @NotNull
+    private Integer y;
+
+    private boolean open;
+
+    private Long mapVersion; // En la respuesta y en el aviso a los clientes
+}
@@ -0,0 +1,43 @@
+package com.rolup.backend.dto.encounterDTOs;
+
+import com.rolup.backend.model.enums.EncounterCommandType;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Orden sobre un encuentro en curso. Cada tipo usa solo algunos campos
+@Getter
+@Setter
+public class EncounterCommandDTO {
+
+    @NotNull
+    private EncounterCommandType type;
+
+    private Long combatantId;     // Todas menos START, NEXT_TURN y AREA_EFFECT
+
+    private Integer amount;       // DAMAGE, HEAL, AREA_EFFECT
+
+    private Integer initiative;   // SET_INITIATIVE
+
+    private String effectName;    // APPLY_EFFECT, REMOVE_EFFECT
+    private String iconUrl;
+    private Integer duration;     // Turnos del combatiente (o asaltos); null = hasta que se quite
+    private boolean durationIsAssaults;
+    private boolean endsAtTurnStart;
+
+    private Integer x;            // MOVE; sin x ni y se quita de la cuadrícula
+    private Integer y;
+
+    @Valid
+    private AreaShapeDTO area;    // AREA_EFFECT
+    private Integer saveDc;       // null = sin salvación, todos reciben amount
+    private boolean halfOnSave;
+    private Map<Long, @NotNull Integer> saveBonuses = new HashMap<>();   // Id del combatiente -> bonificador a la salvación
+    private Set<@NotNull Long> excludedCombatantIds = new HashSet<>();   // Ej: quien lo lanza
+}
@@ -0,0 +1,30 @@
+package com.rolup.backend.dto.encounterDTOs;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.rolup.backend.model.enums.EncounterStatus;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class EncounterDTO {
+
+    private Long id;
+
+    @NotBlank
+    private String name;
+
+    private EncounterStatus status;
+
+    private Integer round;
+
+    private Long activeCombatantId;
+
+    private Long version; // Nº de órdenes aplicadas
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<CombatantDTO> combatants; // En orden de iniciativa. No se incluye en los listados
+}
@@ -0,0 +1,40 @@
+package com.rolup.backend.dto.encounterDTOs;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.rolup.backend.model.enums.EncounterEventType;
+import com.rolup.backend.model.enums.EncounterStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.List;
+
+// Una entrada del historial de un encuentro. Aplicada sobre la versión sequence - 1 deja el encuentro en la versión
+// sequence: se sustituyen los combatientes de combatants, se quitan los de removedCombatantIds y, si viene order, se
+// ordenan así
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EncounterEventDTO {
+
+    private long sequence;
+
+    private EncounterEventType type;
+
+    // Datos de la orden (los que tenga)
+    private Long combatantId;
+    private Integer amount;
+    private String effectName;
+
+    private EncounterStatus status;
+    private int round;
+    private Long activeCombatantId;
+
+    private List<CombatantDTO> combatants; // Los que han cambiado, como quedan
+
+    private List<Long> removedCombatantIds;
+
+    private List<Long> order; // Ids en orden de iniciativa, solo si ha cambiado
+
+    private Instant createdAt;
+}
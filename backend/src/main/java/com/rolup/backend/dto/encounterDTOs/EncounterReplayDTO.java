@@ -0,0 +1,35 @@
+package com.rolup.backend.dto.encounterDTOs;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// Lo que le falta a un cliente que tiene el encuentro en la versión fromVersion: el historial desde ahí, o el encuentro
+// entero si se ha quedado demasiado atrás o falta algo del historial
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EncounterReplayDTO {
+
+    private long version;
+
+    private Long fromVersion;             // Solo con events
+
+    private List<EncounterEventDTO> events;
+
+    private EncounterDTO snapshot;
+
+    public static EncounterReplayDTO events(long fromVersion, long version, List<EncounterEventDTO> events) {
+        return new EncounterReplayDTO(version, fromVersion, events, null);
+    }
+
+    public static EncounterReplayDTO snapshot(EncounterDTO snapshot) {
+        return new EncounterReplayDTO(snapshot.getVersion(), null, null, snapshot);
+    }
+}
@@ -0,0 +1,22 @@
+package com.rolup.backend.dto.encounterDTOs;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+// Niebla de guerra de un personaje. Las casillas van como tramos [inicio, largo, inicio, largo...] sobre el índice
+// y * width + x. Por el canal en vivo solo llega revealed (lo que acaba de descubrir); al pedirla, explored y visible
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FogDTO {
+
+    private Long encounterId;
+    private Long characterId;
+    private Long mapVersion;
+    private Integer width;
+
+    private int[] revealed;
+    private int[] explored;  // Todo lo que ha visto alguna vez
+    private int[] visible;   // Lo que ve ahora
+}
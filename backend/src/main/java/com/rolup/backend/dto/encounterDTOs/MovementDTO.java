@@ -0,0 +1,26 @@
+package com.rolup.backend.dto.encounterDTOs;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+// Hasta dónde puede moverse un combatiente (reachable, como tramos [inicio, largo...] sobre y * width + x) o el
+// camino más barato a una casilla (path, [x0, y0, x1, y1...] desde donde está)
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MovementDTO {
+
+    private Long combatantId;
+    private Integer x;
+    private Integer y;
+    private Integer speed;          // Pies, ya doblados si corre
+    private Long mapVersion;
+    private Integer width;
+
+    private int[] reachable;
+
+    private int[] path;
+    private Integer cost;           // Pies que cuesta el camino
+    private Boolean withinSpeed;
+}
@@ -0,0 +1,46 @@
+package com.rolup.backend.dto.encounterDTOs;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Recompensa para el grupo: la experiencia y las monedas se reparten a partes iguales entre characterIds (en un
+// encuentro, si no se indican, entre los personajes que participan); los ítems van a quien se diga
+@Getter
+@Setter
+public class RewardDTO {
+
+    private List<Long> characterIds = new ArrayList<>();
+
+    @PositiveOrZero
+    private int experience;
+
+    @Size(max = 5)
+    private List<@PositiveOrZero Integer> coins = new ArrayList<>(); // [cobre, plata, electrum, oro, platino]
+
+    @Valid
+    @Size(max = 100)
+    private List<ItemGrant> items = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class ItemGrant {
+        @NotNull
+        private Long characterId;
+
+        @NotNull
+        private Long itemId;
+
+        @Min(1)
+        @Max(100) // Los ítems no apilables se crean de uno en uno
+        private int quantity = 1;
+    }
+}
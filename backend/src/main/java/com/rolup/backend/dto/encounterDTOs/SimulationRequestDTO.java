@@ -0,0 +1,100 @@
+package com.rolup.backend.dto.encounterDTOs;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Combate a simular: el grupo sale de los personajes (sus PG, CA, iniciativa y arma equipada) y los enemigos se
+// describen aquí. Se simula hasta iterations veces o hasta timeBudgetMs, lo que llegue antes
+@Getter
+@Setter
+public class SimulationRequestDTO {
+
+    @NotEmpty
+    @Size(max = 20)
+    private List<@NotNull Long> characterIds = new ArrayList<>();
+
+    private boolean fullHealth;                                 // true = con los PG máximos en vez de los actuales
+
+    private Map<Long, @Min(1) @Max(10) Integer> attacksPerTurn = new HashMap<>(); // Id del personaje -> ataques (1 por defecto)
+
+    @Valid
+    @Size(max = 50)
+    private List<SpellOption> spells = new ArrayList<>();
+
+    @Valid
+    @NotEmpty
+    @Size(max = 20)
+    private List<Opponent> opponents = new ArrayList<>();
+
+    @Min(1)
+    @Max(200000)
+    private int iterations = 20000;
+
+    @Min(10)
+    @Max(5000)
+    private int timeBudgetMs = 1000;
+
+    // Conjuro de daño que puede lanzar un personaje (tiene que conocerlo). Los conjuros no guardan su daño, así que
+    // se indica aquí
+    @Getter
+    @Setter
+    public static class SpellOption {
+        @NotNull
+        private Long characterId;
+
+        @NotNull
+        private Long spellId;
+
+        @NotBlank
+        private String damage;      // Ej: "8d6"
+
+        @Min(1)
+        @Max(20)
+        private int targets = 1;
+
+        private boolean save;       // true = salvación contra su CD, false = tirada de ataque de conjuro
+
+        private boolean halfOnSave;
+    }
+
+    @Getter
+    @Setter
+    public static class Opponent {
+        @NotBlank
+        private String name;
+
+        @Min(1)
+        @Max(50)
+        private int count = 1;
+
+        @Min(1)
+        private int maxHp;
+
+        private int armorClass = 10;
+
+        private int attackBonus;
+
+        @NotBlank
+        private String damage;      // Con el modificador incluido, ej: "1d6+2"
+
+        @Min(1)
+        @Max(10)
+        private int attacks = 1;
+
+        private int initiativeBonus;
+
+        private int saveBonus;
+    }
+}
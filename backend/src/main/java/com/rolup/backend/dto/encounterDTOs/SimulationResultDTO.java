@@ -0,0 +1,43 @@
+package com.rolup.backend.dto.encounterDTOs;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Resultado de simular un combate muchas veces. Los porcentajes van de 0 a 1
+@Getter
+@Setter
+public class SimulationResultDTO {
+
+    private long iterations;            // Las que dio tiempo a hacer
+    private long elapsedMs;
+    private boolean budgetExhausted;    // true = se acabó el tiempo antes de hacer todas las pedidas
+
+    private double partyWinRate;
+    private double opponentWinRate;
+    private double stalemateRate;       // Nadie cayó en el máximo de asaltos
+
+    private double averageRounds;
+    private Map<Integer, Double> rounds = new LinkedHashMap<>(); // Asaltos -> porcentaje de combates que acabaron ahí
+
+    private List<Double> partyHpRemaining = new ArrayList<>();   // Tramos del 10 % de los PG máximos del grupo
+
+    private List<MemberResult> members = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class MemberResult {
+        private Long characterId;
+        private String name;
+        private int startingHp;
+        private double survivalRate;
+        private double averageHp;       // PG al acabar (0 si cayó)
+        private int hpP10;
+        private int hpP50;
+        private int hpP90;
+    }
+}
@@ -25,6 +25,9 @@ public class ItemDTO {
 
     private String summaryTemplate;
 
+    private String renderedDescription; // Plantillas ya renderizadas para el personaje (null si no hay personaje)
+    private String renderedSummary;
+
     private String iconUrl;
 
     private CostDTO cost;
@@ -48,6 +51,8 @@ public class ItemDTO {
 
     private String MaxUsesAutoFormula;
 
+    private Integer effectiveMaxUses; // Usos máximos ya calculados (con la fórmula evaluada si hay personaje)
+
     private Boolean stackable; // Si se puede stackear en un CharacterItem
 
     // Campos específicos para Weapon
@@ -13,6 +13,8 @@ public class ItemPropertyDTO {
 
     private String description;
 
+    private String renderedDescription; // Descripción ya renderizada para el personaje
+
     private Integer baseMaxUses; // null o 0 = pasiva
 
     private String resetOn; // Enum
@@ -0,0 +1,41 @@
+package com.rolup.backend.dto.liveDTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class LiveStatsDTO {
+    private int sessions;
+    private int topics;
+    private int queueCapacity;      // Mensajes pendientes por sesión antes de forzar un resync
+    private int queued;             // Pendientes entre todas las sesiones
+    private int maxQueueDepth;
+    private int pendingEvents;      // Eventos esperando al hilo de reparto
+    private long events;
+    private long rejectedEvents;    // Descartados con el reparto saturado
+    private long enqueued;
+    private long coalesced;         // Sustituidos por un estado más nuevo antes de salir
+    private long dropped;
+    private long resyncs;
+    private long sent;
+    private long slowDisconnects;   // Sesiones cerradas por no dar abasto o fallar el envío
+    private List<SessionStats> perSession; // De más a menos cola
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class SessionStats {
+        private String id;
+        private String username;
+        private int topics;
+        private int queueDepth;
+        private long sent;
+        private long dropped;
+        private long resyncs;
+    }
+}
@@ -30,6 +30,7 @@ public class CharacterMapper {
         dto.setCharisma(character.getCharisma());
 
         dto.setArmorClass(character.getArmorClass());
+        dto.setArmorClassManual(character.isArmorClassManual());
         dto.setCurrentHp(character.getCurrentHp());
         dto.setMaxHp(character.getMaxHp());
         dto.setTempHp(character.getTempHp());
@@ -102,6 +103,7 @@ public class CharacterMapper {
         if (dto.getCharisma() != null) character.setCharisma(dto.getCharisma());
 
         if (dto.getArmorClass() != null) character.setArmorClass(dto.getArmorClass());
+        if (dto.getArmorClassManual() != null) character.setArmorClassManual(dto.getArmorClassManual());
         if (dto.getCurrentHp() != null) character.setCurrentHp(dto.getCurrentHp());
         if (dto.getMaxHp() != null) character.setMaxHp(dto.getMaxHp());
         if (dto.getTempHp() != null) character.setTempHp(dto.getTempHp());
@@ -204,7 +206,7 @@ public class CharacterMapper {
         if (dto.getPassivePerception() != null) skills.setPassivePerception(toSkillValueEntity(dto.getPassivePerception()));
     }
 
-    private static CharacterAbilityStatsDTO toSkillsDTO(CharacterAbilityStats skills) {
+    public static CharacterAbilityStatsDTO toSkillsDTO(CharacterAbilityStats skills) {
         if (skills == null) return null;
 
         CharacterAbilityStatsDTO dto = new CharacterAbilityStatsDTO();
@@ -0,0 +1,88 @@
+package com.rolup.backend.mapper;
+
+import com.rolup.backend.dto.encounterDTOs.CombatEffectDTO;
+import com.rolup.backend.dto.encounterDTOs.CombatantDTO;
+import com.rolup.backend.dto.encounterDTOs.EncounterDTO;
+import com.rolup.backend.dto.encounterDTOs.EncounterEventDTO;
+import com.rolup.backend.model.combat.Encounter;
+import com.rolup.backend.service.combat.EncounterChange;
+import com.rolup.backend.service.combat.EncounterSnapshot;
+
+public class EncounterMapper {
+
+    // Para los listados, sin combatientes
+    public static EncounterDTO toSummaryDTO(Encounter encounter) {
+        EncounterDTO dto = new EncounterDTO();
+        dto.setId(encounter.getId());
+        dto.setName(encounter.getName());
+        dto.setStatus(encounter.getStatus());
+        dto.setRound(encounter.getTurn().getRound());
+        dto.setActiveCombatantId(encounter.getTurn().getActiveEntityId());
+        dto.setVersion(encounter.getVersion());
+        return dto;
+    }
+
+    public static EncounterDTO toSummaryDTO(EncounterSnapshot snapshot) {
+        EncounterDTO dto = toDTO(snapshot, true);
+        dto.setCombatants(null);
+        return dto;
+    }
+
+    // hideCreatureStats: para los jugadores, que no deben ver los PG ni la CA de las criaturas
+    public static EncounterDTO toDTO(EncounterSnapshot snapshot, boolean hideCreatureStats) {
+        EncounterDTO dto = new EncounterDTO();
+        dto.setId(snapshot.id());
+        dto.setName(snapshot.name());
+        dto.setStatus(snapshot.status());
+        dto.setRound(snapshot.round());
+        dto.setActiveCombatantId(snapshot.activeCombatantId());
+        dto.setVersion(snapshot.version());
+        dto.setCombatants(snapshot.combatants().stream()
+                .map(c -> toCombatantDTO(c, hideCreatureStats && c.characterId() == null))
+                .toList());
+        return dto;
+    }
+
+    public static EncounterEventDTO toEventDTO(EncounterChange change, boolean hideCreatureStats) {
+        EncounterEventDTO dto = new EncounterEventDTO();
+        dto.setSequence(change.sequence());
+        dto.setType(change.type());
+        dto.setCombatantId(change.combatantId());
+        dto.setAmount(change.amount());
+        dto.setEffectName(change.effectName());
+        dto.setStatus(change.status());
+        dto.setRound(change.round());
+        dto.setActiveCombatantId(change.activeCombatantId());
+        dto.setCombatants(change.delta().changed().stream()
+                .map(c -> toCombatantDTO(c, hideCreatureStats && c.characterId() == null))
+                .toList());
+        dto.setRemovedCombatantIds(change.delta().removed());
+        dto.setOrder(change.delta().order());
+        dto.setCreatedAt(change.createdAt());
+        return dto;
+    }
+
+    private static CombatantDTO toCombatantDTO(EncounterSnapshot.CombatantView view, boolean hideStats) {
+        CombatantDTO dto = new CombatantDTO();
+        dto.setId(view.id());
+        dto.setCharacterId(view.characterId());
+        dto.setName(view.name());
+        dto.setIconUrl(view.iconUrl());
+        dto.setInitiative(view.initiative());
+        dto.setInitiativeBonus(view.initiativeBonus());
+        if (!hideStats) {
+            dto.setCurrentHp(view.currentHp());
+            dto.setMaxHp(view.maxHp());
+            dto.setTempHp(view.tempHp());
+            dto.setArmorClass(view.armorClass());
+        }
+        dto.setDefeated(view.defeated());
+        dto.setX(view.x());
+        dto.setY(view.y());
+        dto.setEffects(view.effects().stream()
+                .map(e -> new CombatEffectDTO(e.name(), e.iconUrl(), e.remainingTurns(), e.totalDuration(),
+                        e.totalDurationIsAssaults(), e.endsAtTurnStart()))
+                .toList());
+        return dto;
+    }
+}
@@ -56,6 +56,8 @@ public class Character {
     private int charisma;
 
     private int armorClass;
+    @Column(columnDefinition = "boolean default true") // Los personajes que ya existían conservan su CA a mano
+    private boolean armorClassManual; // true = usa el valor de arriba, false = se calcula con las armaduras equipadas
     private int currentHp;
     private int maxHp;
     private int tempHp;
@@ -0,0 +1,44 @@
+package com.rolup.backend.model.combat;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// Cuadrícula de un encuentro: muros, puertas y terreno difícil como bitsets (una casilla por bit, índice y * width + x).
+// Se borra con el encuentro
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "battle_maps")
+public class BattleMap {
+
+    private static final int MAX_BYTES = 1000 * 1000 / 8; // Mapa de 1000x1000
+
+    @Id
+    private Long encounterId;
+
+    private int width;
+    private int height;
+
+    @Column(length = MAX_BYTES)
+    private byte[] walls;
+
+    @Column(length = MAX_BYTES)
+    private byte[] doors;
+
+    @Column(length = MAX_BYTES)
+    private byte[] openDoors;
+
+    @Column(length = MAX_BYTES)
+    private byte[] difficultTerrain; // null en los mapas de antes del terreno difícil
+
+    private long version; // Sube con cada cambio (también al abrir o cerrar una puerta)
+
+    private Instant updatedAt;
+}
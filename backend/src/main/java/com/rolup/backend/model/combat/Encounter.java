@@ -1,4 +1,44 @@
 package com.rolup.backend.model.combat;
 
+import com.rolup.backend.model.enums.EncounterStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Mientras el encuentro está en curso el estado vivo está en memoria (EncounterEngine); estas filas son la
+// última foto guardada, que se usa para recuperarlo si se reinicia el servidor
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "encounters")
 public class Encounter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "encounter_seq")
+    @SequenceGenerator(name = "encounter_seq", sequenceName = "encounter_seq", allocationSize = 1)
+    private Long id;
+
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    private EncounterStatus status;
+
+    @Embedded
+    private Turn turn = new Turn();
+
+    private long version; // Nº de órdenes aplicadas cuando se guardó la foto
+
+    private Instant updatedAt;
+
+    @OneToMany(mappedBy = "encounter", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id")
+    private List<EncounterEntity> entities = new ArrayList<>();
 }
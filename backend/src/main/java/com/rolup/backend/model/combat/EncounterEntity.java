@@ -1,4 +1,55 @@
 package com.rolup.backend.model.combat;
 
+import com.rolup.backend.model.character_related.Character;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Participante de un encuentro: un personaje (character != null) o una criatura que solo existe en el encuentro
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "encounter_entities")
 public class EncounterEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "encounter_entity_seq")
+    @SequenceGenerator(name = "encounter_entity_seq", sequenceName = "encounter_entity_seq", allocationSize = 1)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "encounter_id")
+    private Encounter encounter;
+
+    @ManyToOne
+    @JoinColumn(name = "character_id")
+    private Character character;
+
+    private String name;
+    private String iconUrl;
+
+    private Integer initiative;    // null hasta que se tira
+    private int initiativeBonus;   // Se suma a la tirada y desempata
+
+    private int currentHp;
+    private int maxHp;
+    private int tempHp;
+    private int armorClass;
+
+    private boolean defeated;
+
+    private Integer positionX;     // Casilla en la cuadrícula del encuentro; null si no está colocado
+    private Integer positionY;
+
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "encounter_entity_id")
+    @OrderBy("id")
+    private List<Effect> effects = new ArrayList<>();
 }
@@ -0,0 +1,53 @@
+package com.rolup.backend.model.combat;
+
+import com.rolup.backend.model.enums.EncounterEventType;
+import com.rolup.backend.model.enums.EncounterStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// Historial de un encuentro: una fila por orden aplicada, que no se modifica nunca. sequence es la versión del
+// encuentro tras la orden, así que un cliente que tenga la versión N puede pedir lo que ha pasado desde N
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "encounter_events",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"encounter_id", "sequence"}))
+public class EncounterEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "encounter_event_seq")
+    @SequenceGenerator(name = "encounter_event_seq", sequenceName = "encounter_event_seq", allocationSize = 50) // Se insertan por lotes
+    private Long id;
+
+    @Column(name = "encounter_id", nullable = false)
+    private Long encounterId; // Sin relación: el historial se escribe aparte del encuentro y se borra con él
+
+    @Column(nullable = false)
+    private long sequence;
+
+    @Enumerated(EnumType.STRING)
+    private EncounterEventType type;
+
+    // Datos de la orden (los que tenga)
+    private Long combatantId;
+    private Integer amount;
+    private String effectName;
+
+    // Cómo queda el encuentro
+    @Enumerated(EnumType.STRING)
+    private EncounterStatus status;
+    private int round;
+    private Long activeCombatantId;
+
+    @Column(length = 65535)
+    private String delta; // JSON con los combatientes que han cambiado, los quitados y el orden si ha cambiado
+
+    private Instant createdAt;
+}
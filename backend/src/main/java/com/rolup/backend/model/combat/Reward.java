@@ -1,4 +1,56 @@
 package com.rolup.backend.model.combat;
 
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Recompensa repartida al grupo (al final de un encuentro o fuera de combate). Es solo el registro de lo que se dio:
+// la experiencia, las monedas y los ítems ya están sumados en cada personaje
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "rewards")
 public class Reward {
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Embeddable
+    public static class GrantedItem {
+        private Long characterId;
+        private Long itemId;
+        private int quantity;
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reward_seq")
+    @SequenceGenerator(name = "reward_seq", sequenceName = "reward_seq", allocationSize = 1)
+    private Long id;
+
+    private Long encounterId; // null si no viene de un encuentro. Sin relación para poder borrar el encuentro
+
+    private int experience; // Total repartido
+
+    @Column(name = "coins")
+    private List<Integer> coins; // Total repartido [cobre, plata, electrum, oro, platino]
+
+    @ElementCollection
+    @CollectionTable(name = "reward_characters", joinColumns = @JoinColumn(name = "reward_id"))
+    @Column(name = "character_id")
+    private List<Long> characterIds = new ArrayList<>(); // Entre los que se repartió
+
+    @ElementCollection
+    @CollectionTable(name = "reward_items", joinColumns = @JoinColumn(name = "reward_id"))
+    private List<GrantedItem> items = new ArrayList<>();
+
+    private Instant createdAt;
 }
@@ -1,4 +1,19 @@
 package com.rolup.backend.model.combat;
 
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Turno actual de un encuentro
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
 public class Turn {
+
+    private int round;            // Asalto (empieza en 1 al iniciar el combate, 0 mientras se prepara)
+    private Long activeEntityId;  // EncounterEntity al que le toca
 }
@@ -0,0 +1,5 @@
+package com.rolup.backend.model.enums;
+
+public enum AreaShapeType {
+    SPHERE, CUBE, CONE, LINE
+}
@@ -0,0 +1,6 @@
+package com.rolup.backend.model.enums;
+
+public enum EncounterCommandType {
+    START, NEXT_TURN, DAMAGE, HEAL, APPLY_EFFECT, REMOVE_EFFECT, SET_INITIATIVE, REMOVE_COMBATANT, MOVE,
+    AREA_EFFECT
+}
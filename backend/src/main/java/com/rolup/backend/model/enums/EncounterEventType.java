@@ -0,0 +1,6 @@
+package com.rolup.backend.model.enums;
+
+public enum EncounterEventType {
+    COMBATANT_ADDED, COMBATANT_REMOVED, COMBAT_STARTED, TURN_ADVANCED, DAMAGE_DEALT, HEALED, EFFECT_APPLIED,
+    EFFECT_REMOVED, INITIATIVE_SET, ENCOUNTER_FINISHED, COMBATANT_MOVED, AREA_EFFECT
+}
@@ -0,0 +1,5 @@
+package com.rolup.backend.model.enums;
+
+public enum EncounterStatus {
+    PREPARING, ACTIVE, FINISHED
+}
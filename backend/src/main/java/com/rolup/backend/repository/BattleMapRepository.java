@@ -0,0 +1,7 @@
+package com.rolup.backend.repository;
+
+import com.rolup.backend.model.combat.BattleMap;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface BattleMapRepository extends JpaRepository<BattleMap, Long> {
+}
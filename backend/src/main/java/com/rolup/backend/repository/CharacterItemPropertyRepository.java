@@ -2,11 +2,15 @@ package com.rolup.backend.repository;
 
 import com.rolup.backend.model.character_related.CharacterItem;
 import com.rolup.backend.model.character_related.CharacterItemProperty;
+import com.rolup.backend.model.enums.RestType;
 import com.rolup.backend.model.item_related.ItemProperty;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 
@@ -20,4 +24,26 @@ public interface CharacterItemPropertyRepository extends JpaRepository<Character
             @Param("characterItem") CharacterItem characterItem,
             @Param("property") ItemProperty property
     );
-}
\ No newline at end of file
+
+    // Nº de personajes que tienen un ítem con cada propiedad: filas [propertyId, count]
+    @Query("SELECT cip.property.id, COUNT(DISTINCT cip.characterItem.character.id) FROM CharacterItemProperty cip GROUP BY cip.property.id")
+    List<Object[]> countAssignmentsPerProperty();
+
+    @Query("SELECT cip.property.id, COUNT(DISTINCT cip.characterItem.character.id) FROM CharacterItemProperty cip " +
+            "WHERE cip.property.id IN :propertyIds GROUP BY cip.property.id")
+    List<Object[]> countAssignmentsForProperties(Collection<Long> propertyIds);
+
+    // Descansos. Propiedades que no están al máximo: filas [characterItemPropertyId, characterId, baseMaxUses]
+    @Query("SELECT cip.id, ci.character.id, p.baseMaxUses FROM CharacterItemProperty cip " +
+            "JOIN cip.characterItem ci JOIN cip.property p " +
+            "WHERE ci.character.id IN :characterIds AND p.resetOn IN :resets AND p.baseMaxUses > 0 " +
+            "AND (cip.currentUses IS NULL OR cip.currentUses <> p.baseMaxUses)")
+    List<Object[]> findUsesToRestore(Collection<Long> characterIds, Collection<RestType> resets);
+
+    @Modifying
+    @Query("UPDATE CharacterItemProperty cip " +
+            "SET cip.currentUses = (SELECT p.baseMaxUses FROM ItemProperty p WHERE p = cip.property) " +
+            "WHERE cip.characterItem IN (SELECT ci FROM CharacterItem ci WHERE ci.character.id IN :characterIds) " +
+            "AND cip.property IN (SELECT p FROM ItemProperty p WHERE p.resetOn IN :resets AND p.baseMaxUses > 0)")
+    int restoreUses(Collection<Long> characterIds, Collection<RestType> resets);
+}
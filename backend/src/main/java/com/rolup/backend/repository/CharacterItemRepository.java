@@ -1,9 +1,13 @@
 package com.rolup.backend.repository;
+import com.rolup.backend.model.character_related.Character;
 import com.rolup.backend.model.character_related.CharacterItem;
+import com.rolup.backend.model.enums.RestType;
 import com.rolup.backend.model.character_related.CharacterSpell;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,4 +24,55 @@ public interface CharacterItemRepository extends JpaRepository<CharacterItem, Lo
 
     @Query("SELECT ci FROM CharacterItem ci WHERE ci.item.id = :itemId")
     List<CharacterItem> findByItemId(Long itemId);
+
+    // Personajes que llevan equipado el ítem (hay que recalcular su CA si cambia la armadura)
+    @Query("SELECT DISTINCT ci.character FROM CharacterItem ci WHERE ci.item.id = :itemId AND ci.equipped = true")
+    List<Character> findCharactersWithEquippedItem(Long itemId);
+
+    @Query("SELECT DISTINCT ci.item.id FROM CharacterItem ci WHERE ci.character.id = :characterId")
+    List<Long> findItemIdsByCharacterId(Long characterId);
+
+    @Query("SELECT ci FROM CharacterItem ci JOIN FETCH ci.item WHERE ci.character.id = :characterId AND ci.item.id IN :itemIds ORDER BY ci.id")
+    List<CharacterItem> findByCharacterIdAndItemIds(Long characterId, Collection<Long> itemIds);
+
+    // Nº de personajes que tienen cada ítem (sin contar cantidades): filas [itemId, count]
+    @Query("SELECT ci.item.id, COUNT(DISTINCT ci.character.id) FROM CharacterItem ci GROUP BY ci.item.id")
+    List<Object[]> countAssignmentsPerItem();
+
+    @Query("SELECT ci.item.id, COUNT(DISTINCT ci.character.id) FROM CharacterItem ci WHERE ci.item.id IN :itemIds GROUP BY ci.item.id")
+    List<Object[]> countAssignmentsForItems(Collection<Long> itemIds);
+
+    // Descansos. Ítems con usos fijos que no están al máximo: filas [characterItemId, characterId, maxUses]
+    @Query("SELECT ci.id, ci.character.id, i.maxUses FROM CharacterItem ci JOIN ci.item i " +
+            "WHERE ci.character.id IN :characterIds AND i.resetOn IN :resets AND i.maxUsesAutoCalculated = false " +
+            "AND i.maxUses > 0 AND ci.currentUses <> i.maxUses")
+    List<Object[]> findFixedUsesToRestore(Collection<Long> characterIds, Collection<RestType> resets);
+
+    @Modifying
+    @Query("UPDATE CharacterItem ci SET ci.currentUses = (SELECT i.maxUses FROM Item i WHERE i = ci.item) " +
+            "WHERE ci.character.id IN :characterIds AND ci.item IN " +
+            "(SELECT i FROM Item i WHERE i.resetOn IN :resets AND i.maxUsesAutoCalculated = false AND i.maxUses > 0)")
+    int restoreFixedUses(Collection<Long> characterIds, Collection<RestType> resets);
+
+    // Ítems con fórmula: filas [characterItemId, characterId, maxUsesAutoFormula, currentUses]
+    @Query("SELECT ci.id, ci.character.id, i.maxUsesAutoFormula, ci.currentUses FROM CharacterItem ci JOIN ci.item i " +
+            "WHERE ci.character.id IN :characterIds AND i.resetOn IN :resets AND i.maxUsesAutoCalculated = true")
+    List<Object[]> findFormulaUsesToRestore(Collection<Long> characterIds, Collection<RestType> resets);
+
+    @Modifying
+    @Query("UPDATE CharacterItem ci SET ci.currentUses = :uses WHERE ci.id IN :ids")
+    int setCurrentUses(Collection<Long> ids, int uses);
+
+    @Query("SELECT DISTINCT ci.character.id FROM CharacterItem ci WHERE ci.item.id = :itemId")
+    List<Long> findCharacterIdsByItemId(Long itemId);
+
+    // Filas [characterId, itemId] de los ítems que ya tienen los personajes
+    @Query("SELECT ci.character.id, ci.item.id FROM CharacterItem ci " +
+            "WHERE ci.character.id IN :characterIds AND ci.item.id IN :itemIds")
+    List<Object[]> findHeldItems(Collection<Long> characterIds, Collection<Long> itemIds);
+
+    @Modifying
+    @Query("UPDATE CharacterItem ci SET ci.quantity = ci.quantity + :quantity " +
+            "WHERE ci.character.id IN :characterIds AND ci.item.id = :itemId")
+    int addQuantity(Collection<Long> characterIds, Long itemId, int quantity);
 }
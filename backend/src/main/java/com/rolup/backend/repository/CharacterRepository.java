@@ -2,11 +2,40 @@ package com.rolup.backend.repository;
 
 import com.rolup.backend.model.character_related.Character;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CharacterRepository extends JpaRepository<Character, Long> {
     List<Character> findByAccountUsername(String username);
 
     boolean existsByIdAndAccountUsername(Long id, String username);
+
+    // Descanso largo: PG al máximo, se pierden los temporales y se recupera la mitad de los dados de golpe (mínimo 1)
+    @Modifying
+    @Query("UPDATE Character c SET c.currentHp = c.maxHp, c.tempHp = 0, " +
+            "c.hitDiceCurrentAmount = least(c.hitDiceMaxAmount, c.hitDiceCurrentAmount + greatest(1, c.hitDiceMaxAmount / 2)) " +
+            "WHERE c.id IN :characterIds")
+    int restoreHitPointsAndHitDice(Collection<Long> characterIds);
+
+    // Huecos de conjuro que no están llenos: filas [characterId, nivel, huecos totales]
+    @Query(value = "SELECT character_id, spell_level, max_slots FROM character_spell_slots " +
+            "WHERE character_id IN (:characterIds) AND current_slots <> max_slots", nativeQuery = true)
+    List<Object[]> findSpellSlotsToRestore(Collection<Long> characterIds);
+
+    @Modifying
+    @Query(value = "UPDATE character_spell_slots SET current_slots = max_slots WHERE character_id IN (:characterIds)",
+            nativeQuery = true)
+    int restoreSpellSlots(Collection<Long> characterIds);
+
+    // Recompensa: suma la experiencia y las monedas [cobre, plata, electrum, oro, platino] a todos a la vez
+    @Modifying
+    @Query("UPDATE Character c SET c.experience = c.experience + :experience, c.coins = array(" +
+            "coalesce(array_get(c.coins, 1), 0) + :copper, coalesce(array_get(c.coins, 2), 0) + :silver, " +
+            "coalesce(array_get(c.coins, 3), 0) + :electrum, coalesce(array_get(c.coins, 4), 0) + :gold, " +
+            "coalesce(array_get(c.coins, 5), 0) + :platinum) WHERE c.id IN :characterIds")
+    int addExperienceAndCoins(Collection<Long> characterIds, int experience, int copper, int silver, int electrum,
+                              int gold, int platinum);
 }
@@ -1,9 +1,12 @@
 package com.rolup.backend.repository;
 
 import com.rolup.backend.model.character_related.CharacterSkill;
+import com.rolup.backend.model.enums.RestType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,4 +14,41 @@ public interface CharacterSkillRepository extends JpaRepository<CharacterSkill,
     @Query("SELECT cs FROM CharacterSkill cs JOIN FETCH cs.skill WHERE cs.character.id = :characterId")
     List<CharacterSkill> findByCharacterId(Long characterId);
     Optional<CharacterSkill> findByCharacterIdAndSkillId(Long characterId, Long skillId);
+
+    @Query("SELECT cs.skill.id FROM CharacterSkill cs WHERE cs.character.id = :characterId")
+    List<Long> findSkillIdsByCharacterId(Long characterId);
+
+    @Query("SELECT cs FROM CharacterSkill cs JOIN FETCH cs.skill WHERE cs.character.id = :characterId AND cs.skill.id IN :skillIds")
+    List<CharacterSkill> findByCharacterIdAndSkillIds(Long characterId, Collection<Long> skillIds);
+
+    // Nº de personajes que tienen cada habilidad: filas [skillId, count]
+    @Query("SELECT cs.skill.id, COUNT(cs) FROM CharacterSkill cs GROUP BY cs.skill.id")
+    List<Object[]> countAssignmentsPerSkill();
+
+    @Query("SELECT cs.skill.id, COUNT(cs) FROM CharacterSkill cs WHERE cs.skill.id IN :skillIds GROUP BY cs.skill.id")
+    List<Object[]> countAssignmentsForSkills(Collection<Long> skillIds);
+
+    // Descansos. Habilidades con usos fijos que no están al máximo: filas [characterId, skillId, maxUses]
+    @Query("SELECT cs.character.id, s.id, s.maxUses FROM CharacterSkill cs JOIN cs.skill s " +
+            "WHERE cs.character.id IN :characterIds AND s.resetOn IN :resets AND s.autoCalculated = false AND s.maxUses > 0 " +
+            "AND (cs.currentUses IS NULL OR cs.currentUses <> s.maxUses)")
+    List<Object[]> findFixedUsesToRestore(Collection<Long> characterIds, Collection<RestType> resets);
+
+    @Modifying
+    @Query("UPDATE CharacterSkill cs SET cs.currentUses = (SELECT s.maxUses FROM Skill s WHERE s = cs.skill) " +
+            "WHERE cs.character.id IN :characterIds AND cs.skill IN " +
+            "(SELECT s FROM Skill s WHERE s.resetOn IN :resets AND s.autoCalculated = false AND s.maxUses > 0)")
+    int restoreFixedUses(Collection<Long> characterIds, Collection<RestType> resets);
+
+    // Habilidades con fórmula: filas [characterSkillId, characterId, skillId, autoFormula, currentUses]
+    @Query("SELECT cs.id, cs.character.id, s.id, s.autoFormula, cs.currentUses FROM CharacterSkill cs JOIN cs.skill s " +
+            "WHERE cs.character.id IN :characterIds AND s.resetOn IN :resets AND s.autoCalculated = true")
+    List<Object[]> findFormulaUsesToRestore(Collection<Long> characterIds, Collection<RestType> resets);
+
+    @Modifying
+    @Query("UPDATE CharacterSkill cs SET cs.currentUses = :uses WHERE cs.id IN :ids")
+    int setCurrentUses(Collection<Long> ids, int uses);
+
+    @Query("SELECT DISTINCT cs.character.id FROM CharacterSkill cs WHERE cs.skill.id = :skillId")
+    List<Long> findCharacterIdsBySkillId(Long skillId);
 }
@@ -4,6 +4,7 @@ import com.rolup.backend.model.character_related.CharacterSpell;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,4 +12,21 @@ public interface CharacterSpellRepository extends JpaRepository<CharacterSpell,
     @Query("SELECT cs FROM CharacterSpell cs JOIN FETCH cs.spell WHERE cs.character.id = :characterId")
     List<CharacterSpell> findByCharacterId(Long characterId);
     Optional<CharacterSpell> findByCharacterIdAndSpellId(Long characterId, Long spellId);
+
+    @Query("SELECT cs.spell.id FROM CharacterSpell cs WHERE cs.character.id = :characterId")
+    List<Long> findSpellIdsByCharacterId(Long characterId);
+
+    @Query("SELECT cs FROM CharacterSpell cs JOIN FETCH cs.spell WHERE cs.character.id = :characterId AND cs.spell.id IN :spellIds")
+    List<CharacterSpell> findByCharacterIdAndSpellIds(Long characterId, Collection<Long> spellIds);
+
+    // Nº de personajes que tienen cada conjuro: filas [spellId, count]
+    @Query("SELECT cs.spell.id, COUNT(cs) FROM CharacterSpell cs GROUP BY cs.spell.id")
+    List<Object[]> countAssignmentsPerSpell();
+
+    @Query("SELECT cs.spell.id, COUNT(cs) FROM CharacterSpell cs WHERE cs.spell.id IN :spellIds GROUP BY cs.spell.id")
+    List<Object[]> countAssignmentsForSpells(Collection<Long> spellIds);
+
+    // Personajes a los que avisar cuando cambia un conjuro del catálogo
+    @Query("SELECT DISTINCT cs.character.id FROM CharacterSpell cs WHERE cs.spell.id = :spellId")
+    List<Long> findCharacterIdsBySpellId(Long spellId);
 }
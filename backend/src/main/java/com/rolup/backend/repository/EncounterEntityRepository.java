@@ -0,0 +1,26 @@
+package com.rolup.backend.repository;
+
+import com.rolup.backend.model.combat.EncounterEntity;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface EncounterEntityRepository extends JpaRepository<EncounterEntity, Long> {
+
+    boolean existsByEncounterIdAndCharacterAccountUsername(Long encounterId, String username);
+
+    boolean existsByEncounterIdAndCharacterId(Long encounterId, Long characterId);
+
+    @Query("SELECT ee.character.id FROM EncounterEntity ee " +
+            "WHERE ee.encounter.id = :encounterId AND ee.character.account.username = :username")
+    List<Long> findCharacterIdsByEncounterIdAndUsername(Long encounterId, String username);
+
+    // Al borrar un personaje sigue en los encuentros como una criatura más
+    @Transactional
+    @Modifying
+    @Query("UPDATE EncounterEntity ee SET ee.character = null WHERE ee.character.id = :characterId")
+    int detachCharacter(Long characterId);
+}
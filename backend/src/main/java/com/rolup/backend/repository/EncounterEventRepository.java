@@ -0,0 +1,25 @@
+package com.rolup.backend.repository;
+
+import com.rolup.backend.model.combat.EncounterEvent;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface EncounterEventRepository extends JpaRepository<EncounterEvent, Long> {
+
+    List<EncounterEvent> findByEncounterIdAndSequenceGreaterThanOrderBySequence(Long encounterId, long sequence);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM EncounterEvent e WHERE e.encounterId = :encounterId")
+    int deleteByEncounterId(Long encounterId);
+
+    // Lo que quedó escrito por encima de la última foto guardada (el servidor se cayó entre una y otra)
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM EncounterEvent e WHERE e.encounterId = :encounterId AND e.sequence > :sequence")
+    int deleteAfter(Long encounterId, long sequence);
+}
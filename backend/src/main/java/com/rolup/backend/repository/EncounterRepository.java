@@ -0,0 +1,16 @@
+package com.rolup.backend.repository;
+
+import com.rolup.backend.model.combat.Encounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface EncounterRepository extends JpaRepository<Encounter, Long> {
+
+    List<Encounter> findAllByOrderByIdDesc();
+
+    // Encuentros en los que participa algún personaje del usuario
+    @Query("SELECT DISTINCT e FROM Encounter e JOIN e.entities ee WHERE ee.character.account.username = :username ORDER BY e.id DESC")
+    List<Encounter> findByParticipantUsername(String username);
+}
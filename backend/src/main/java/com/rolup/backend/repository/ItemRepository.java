@@ -4,6 +4,7 @@ import com.rolup.backend.model.item_related.Item;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
@@ -14,4 +15,8 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
     @Query("SELECT COUNT(ci) > 0 FROM CharacterItem ci WHERE ci.character.id = :characterId AND ci.item.id = :itemId")
     boolean existsByCharacterIdAndItemId(Long characterId, Long itemId);
 
+    // Propiedades de unos ítems del catálogo (los personajes tienen una copia de cada una por ítem)
+    @Query("SELECT DISTINCT p.id FROM Item i JOIN i.properties p WHERE i.id IN :itemIds")
+    List<Long> findPropertyIds(Collection<Long> itemIds);
+
 }
\ No newline at end of file
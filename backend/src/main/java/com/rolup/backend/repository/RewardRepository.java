@@ -0,0 +1,7 @@
+package com.rolup.backend.repository;
+
+import com.rolup.backend.model.combat.Reward;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface RewardRepository extends JpaRepository<Reward, Long> {
+}
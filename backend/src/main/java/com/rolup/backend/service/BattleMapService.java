@@ -0,0 +1,200 @@
+package com.rolup.backend.service;
+
+import com.rolup.backend.dto.encounterDTOs.BattleMapDTO;
+import com.rolup.backend.dto.encounterDTOs.DoorDTO;
+import com.rolup.backend.dto.encounterDTOs.FogDTO;
+import com.rolup.backend.exception.NotFoundException;
+import com.rolup.backend.model.combat.BattleMap;
+import com.rolup.backend.repository.BattleMapRepository;
+import com.rolup.backend.repository.EncounterRepository;
+import com.rolup.backend.service.battlemap.EncounterVision;
+import com.rolup.backend.service.battlemap.MapGrid;
+import com.rolup.backend.service.combat.EncounterEngine;
+import com.rolup.backend.service.combat.EncounterSnapshot;
+import com.rolup.backend.service.combat.EncounterState;
+import com.rolup.backend.service.live.LiveEvent;
+import com.rolup.backend.service.live.LiveEventType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Mapa de los encuentros y lo que ve cada personaje en él. El mapa se guarda en la base de datos; la visión y la
+// niebla de guerra solo están en memoria (se vuelven a calcular desde las posiciones si se reinicia el servidor).
+// Cada personaje recibe por su tema solo las casillas que acaba de descubrir
+@Service
+public class BattleMapService {
+
+    private final BattleMapRepository battleMapRepository;
+    private final EncounterRepository encounterRepository;
+    private final EncounterEngine encounterEngine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<Long, EncounterVision> visions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BattleMapService(BattleMapRepository battleMapRepository,
+                            EncounterRepository encounterRepository,
+                            EncounterEngine encounterEngine,
+                            ApplicationEventPublisher eventPublisher) {
+        this.battleMapRepository = battleMapRepository;
+        this.encounterRepository = encounterRepository;
+        this.encounterEngine = encounterEngine;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public BattleMapDTO getMap(Long encounterId) {
+        MapGrid grid = vision(encounterId).grid();
+        if (grid == null) {
+            throw new NotFoundException("El encuentro no tiene mapa");
+        }
+        return toDTO(encounterId, grid);
+    }
+
+    // Lo que pueden ver del mapa los jugadores: solo las casillas que han descubierto sus personajes
+    public BattleMapDTO getExploredMap(Long encounterId, Collection<Long> characterIds) {
+        EncounterVision vision = vision(encounterId);
+        BitSet explored = new BitSet();
+        MapGrid grid;
+        synchronized (vision) {
+            grid = vision.grid();
+            if (grid == null) {
+                throw new NotFoundException("El encuentro no tiene mapa");
+            }
+            vision.update(encounterEngine.snapshot(encounterId)); // Por si es la primera vez que se mira
+            characterIds.forEach(characterId -> explored.or(vision.explored(characterId)));
+        }
+        BattleMapDTO dto = toDTO(encounterId, grid);
+        dto.setRows(grid.rows(explored));
+        return dto;
+    }
+
+    // Sustituye el mapa entero; lo descubierto hasta ahora se olvida
+    public BattleMapDTO saveMap(Long encounterId, BattleMapDTO dto) {
+        if (!encounterRepository.existsById(encounterId)) {
+            throw new NotFoundException("Encuentro no encontrado");
+        }
+        EncounterVision vision = vision(encounterId);
+        MapGrid grid;
+        Map<Long, BitSet> revealed;
+        synchronized (vision) {
+            long version = vision.grid() == null ? 1 : vision.grid().version() + 1;
+            grid = MapGrid.parse(dto.getRows(), version, EncounterState.MAX_GRID_SIZE);
+            save(encounterId, grid);
+            revealed = vision.replaceGrid(grid, encounterEngine.snapshot(encounterId));
+        }
+        eventPublisher.publishEvent(LiveEvent.encounter(encounterId, LiveEventType.ENCOUNTER_MAP_CHANGED,
+                Map.of("version", grid.version()), null));
+        publishRevealed(encounterId, grid, revealed);
+        return toDTO(encounterId, grid);
+    }
+
+    public DoorDTO setDoor(Long encounterId, DoorDTO dto) {
+        EncounterVision vision = vision(encounterId);
+        MapGrid grid;
+        Map<Long, BitSet> revealed;
+        synchronized (vision) {
+            if (vision.grid() == null) {
+                throw new NotFoundException("El encuentro no tiene mapa");
+            }
+            grid = vision.grid().withDoor(dto.getX(), dto.getY(), dto.isOpen());
+            save(encounterId, grid);
+            revealed = vision.changeDoor(grid, grid.index(dto.getX(), dto.getY()));
+        }
+        dto.setMapVersion(grid.version());
+        // A los jugadores no se les dice dónde está la puerta: les llega con la niebla si la ven
+        eventPublisher.publishEvent(LiveEvent.encounter(encounterId, LiveEventType.DOOR_CHANGED, dto,
+                Map.of("mapVersion", grid.version())));
+        publishRevealed(encounterId, grid, revealed);
+        return dto;
+    }
+
+    // Mapa actual para quien necesite leerlo (es inmutable); null si el encuentro no tiene
+    public MapGrid grid(Long encounterId) {
+        return vision(encounterId).grid();
+    }
+
+    public FogDTO getFog(Long encounterId, Long characterId) {
+        EncounterVision vision = vision(encounterId);
+        FogDTO dto = new FogDTO();
+        dto.setEncounterId(encounterId);
+        dto.setCharacterId(characterId);
+        synchronized (vision) {
+            MapGrid grid = vision.grid();
+            if (grid == null) {
+                throw new NotFoundException("El encuentro no tiene mapa");
+            }
+            vision.update(encounterEngine.snapshot(encounterId)); // Por si es la primera vez que se mira
+            dto.setMapVersion(grid.version());
+            dto.setWidth(grid.width());
+            dto.setExplored(MapGrid.runs(vision.explored(characterId)));
+            dto.setVisible(MapGrid.runs(vision.visible(characterId)));
+        }
+        return dto;
+    }
+
+    // Tras cada orden del encuentro: los personajes que se han movido miran desde su casilla nueva
+    public void onSnapshot(EncounterSnapshot snapshot) {
+        EncounterVision vision = vision(snapshot.id());
+        MapGrid grid = vision.grid();
+        if (grid == null) return;
+        publishRevealed(snapshot.id(), grid, vision.update(snapshot));
+    }
+
+    public void forget(Long encounterId) {
+        visions.remove(encounterId);
+        battleMapRepository.deleteById(encounterId);
+    }
+
+    private EncounterVision vision(Long encounterId) {
+        return visions.computeIfAbsent(encounterId, id -> new EncounterVision(battleMapRepository.findById(id)
+                .map(BattleMapService::toGrid)
+                .orElse(null)));
+    }
+
+    private void save(Long encounterId, MapGrid grid) {
+        BattleMap map = battleMapRepository.findById(encounterId).orElseGet(BattleMap::new);
+        map.setEncounterId(encounterId);
+        map.setWidth(grid.width());
+        map.setHeight(grid.height());
+        map.setWalls(grid.wallBytes());
+        map.setDoors(grid.doorBytes());
+        map.setOpenDoors(grid.openDoorBytes());
+        map.setDifficultTerrain(grid.difficultBytes());
+        map.setVersion(grid.version());
+        map.setUpdatedAt(Instant.now());
+        battleMapRepository.save(map);
+    }
+
+    private void publishRevealed(Long encounterId, MapGrid grid, Map<Long, BitSet> revealed) {
+        revealed.forEach((characterId, cells) -> {
+            FogDTO dto = new FogDTO();
+            dto.setEncounterId(encounterId);
+            dto.setCharacterId(characterId);
+            dto.setMapVersion(grid.version());
+            dto.setWidth(grid.width());
+            dto.setRevealed(MapGrid.runs(cells));
+            eventPublisher.publishEvent(LiveEvent.character(characterId, LiveEventType.FOG_REVEALED, dto));
+        });
+    }
+
+    private static MapGrid toGrid(BattleMap map) {
+        return new MapGrid(map.getWidth(), map.getHeight(), map.getVersion(), BitSet.valueOf(map.getWalls()),
+                BitSet.valueOf(map.getDoors()), BitSet.valueOf(map.getOpenDoors()),
+                map.getDifficultTerrain() == null ? new BitSet() : BitSet.valueOf(map.getDifficultTerrain()));
+    }
+
+    private static BattleMapDTO toDTO(Long encounterId, MapGrid grid) {
+        BattleMapDTO dto = new BattleMapDTO();
+        dto.setEncounterId(encounterId);
+        dto.setWidth(grid.width());
+        dto.setHeight(grid.height());
+        dto.setVersion(grid.version());
+        dto.setRows(grid.rows());
+        return dto;
+    }
+}
@@ -0,0 +1,81 @@
+package com.rolup.backend.service;
+
+import com.rolup.backend.dto.catalogDTOs.CatalogFacetsDTO;
+import com.rolup.backend.dto.catalogDTOs.CatalogFilterDTO;
+import com.rolup.backend.repository.CharacterItemRepository;
+import com.rolup.backend.repository.CharacterSkillRepository;
+import com.rolup.backend.repository.CharacterSpellRepository;
+import com.rolup.backend.service.catalog.CatalogEntryType;
+import com.rolup.backend.service.catalog.CatalogFacetIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Filtrado, facetas y paginación de los listados del catálogo (/all y /facets de conjuros, habilidades e ítems)
+@Service
+public class CatalogQueryService {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    private final CatalogFacetIndex facetIndex;
+    private final CharacterSpellRepository characterSpellRepository;
+    private final CharacterSkillRepository characterSkillRepository;
+    private final CharacterItemRepository characterItemRepository;
+
+    @Autowired
+    public CatalogQueryService(CatalogFacetIndex facetIndex,
+                               CharacterSpellRepository characterSpellRepository,
+                               CharacterSkillRepository characterSkillRepository,
+                               CharacterItemRepository characterItemRepository) {
+        this.facetIndex = facetIndex;
+        this.characterSpellRepository = characterSpellRepository;
+        this.characterSkillRepository = characterSkillRepository;
+        this.characterItemRepository = characterItemRepository;
+    }
+
+    // characterId != null limita el listado a lo que tiene asignado ese personaje
+    public CatalogFacetIndex.Page page(CatalogEntryType type, CatalogFilterDTO filter, Long characterId,
+                                       Long after, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Set<Long> visibleIds = characterId == null ? null : visibleIds(type, characterId);
+        return facetIndex.page(type, filter, visibleIds, after, pageSize);
+    }
+
+    public CatalogFacetsDTO facets(CatalogEntryType type, CatalogFilterDTO filter, Long characterId) {
+        Set<Long> visibleIds = characterId == null ? null : visibleIds(type, characterId);
+        CatalogFacetIndex.FacetCounts counts = facetIndex.facets(type, filter, visibleIds);
+
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        counts.counts().forEach((facet, values) -> facets.put(facet.paramName(), values));
+        return new CatalogFacetsDTO(counts.total(), facets);
+    }
+
+    // Ids de catálogo (no de la relación) que tiene asignados un personaje
+    public Set<Long> visibleIds(CatalogEntryType type, Long characterId) {
+        return switch (type) {
+            case SPELL -> new HashSet<>(characterSpellRepository.findSpellIdsByCharacterId(characterId));
+            case SKILL -> new HashSet<>(characterSkillRepository.findSkillIdsByCharacterId(characterId));
+            case ITEM -> new HashSet<>(characterItemRepository.findItemIdsByCharacterId(characterId));
+            default -> Set.of();
+        };
+    }
+
+    // Total y cursor de la siguiente página (si la hay) van en cabeceras para que el cuerpo siga siendo una lista
+    public static HttpHeaders pageHeaders(CatalogFacetIndex.Page page) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(TOTAL_COUNT_HEADER, String.valueOf(page.total()));
+        if (page.nextCursor() != null) {
+            headers.add(NEXT_CURSOR_HEADER, String.valueOf(page.nextCursor()));
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,73 @@
+package com.rolup.backend.service;
+
+import com.rolup.backend.dto.catalogDTOs.FuzzyMatchDTO;
+import com.rolup.backend.dto.catalogDTOs.SuggestionDTO;
+import com.rolup.backend.service.catalog.CatalogDocument;
+import com.rolup.backend.service.catalog.CatalogEntryType;
+import com.rolup.backend.service.catalog.CatalogFuzzyIndex;
+import com.rolup.backend.service.catalog.CatalogSuggestIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+@Service
+public class CatalogService {
+
+    private static final int MAX_FUZZY_LIMIT = 50;
+
+    private final CatalogSuggestIndex suggestIndex;
+    private final CatalogFuzzyIndex fuzzyIndex;
+    private final CatalogQueryService catalogQueryService;
+
+    @Autowired
+    public CatalogService(CatalogSuggestIndex suggestIndex, CatalogFuzzyIndex fuzzyIndex,
+                          CatalogQueryService catalogQueryService) {
+        this.suggestIndex = suggestIndex;
+        this.fuzzyIndex = fuzzyIndex;
+        this.catalogQueryService = catalogQueryService;
+    }
+
+    // Sin tipos se sugiere de todo el catálogo
+    public List<SuggestionDTO> suggest(String prefix, List<CatalogEntryType> types, int limit) {
+        EnumSet<CatalogEntryType> selected = types == null || types.isEmpty()
+                ? EnumSet.allOf(CatalogEntryType.class)
+                : EnumSet.copyOf(types);
+
+        return suggestIndex.suggest(prefix, selected, limit).stream()
+                .map(suggestion -> {
+                    CatalogDocument doc = suggestion.document();
+                    return new SuggestionDTO(doc.type(), doc.id(), doc.name(), doc.iconUrl(), suggestion.popularity());
+                })
+                .toList();
+    }
+
+    // Nombres parecidos a lo escrito aunque tenga erratas. characterId != null busca solo en lo que tiene ese personaje
+    public List<FuzzyMatchDTO> fuzzy(String text, List<CatalogEntryType> types, Long characterId, int maxDistance, int limit) {
+        EnumSet<CatalogEntryType> selected = types == null || types.isEmpty()
+                ? EnumSet.allOf(CatalogEntryType.class)
+                : EnumSet.copyOf(types);
+        Predicate<CatalogDocument> filter = doc -> selected.contains(doc.type());
+
+        if (characterId != null) {
+            Map<CatalogEntryType, Set<Long>> visible = new EnumMap<>(CatalogEntryType.class);
+            for (CatalogEntryType type : selected) {
+                visible.put(type, catalogQueryService.visibleIds(type, characterId));
+            }
+            filter = filter.and(doc -> visible.get(doc.type()).contains(doc.id()));
+        }
+
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_FUZZY_LIMIT));
+        return fuzzyIndex.search(text, filter, maxDistance, boundedLimit).stream()
+                .map(match -> {
+                    CatalogDocument doc = match.document();
+                    return new FuzzyMatchDTO(doc.type(), doc.id(), doc.name(), doc.iconUrl(), match.distance());
+                })
+                .toList();
+    }
+}
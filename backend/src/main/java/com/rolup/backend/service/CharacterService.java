@@ -14,10 +14,23 @@ import com.rolup.backend.model.enums.Source;
 import com.rolup.backend.model.item_related.Item;
 import com.rolup.backend.model.item_related.ItemProperty;
 import com.rolup.backend.repository.*;
+import com.rolup.backend.service.catalog.CatalogAssignmentsChangedEvent;
+import com.rolup.backend.service.catalog.CatalogEntryType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-
+import com.rolup.backend.service.formula.ArmorClassCalculator;
+import com.rolup.backend.service.formula.FormulaEngine;
+import com.rolup.backend.service.formula.StatSnapshot;
+import com.rolup.backend.service.formula.StatVariable;
+import com.rolup.backend.service.sheet.CharacterSheetGraph;
+import com.rolup.backend.service.sheet.SheetNode;
+import com.rolup.backend.service.live.LiveEvent;
+import com.rolup.backend.service.live.LiveEventType;
+
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -31,6 +44,10 @@ public class CharacterService {
     private final CharacterRepository characterRepository;
     private final CharacterItemRepository characterItemRepository;
     private final AccountRepository accountRepository;
+    private final EncounterEntityRepository encounterEntityRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FormulaEngine formulaEngine;
+    private final ArmorClassCalculator armorClassCalculator;
 
     @Autowired
     public CharacterService(SpellRepository spellRepository,
@@ -38,13 +55,21 @@ public class CharacterService {
                             SkillRepository skillRepository,
                             CharacterRepository characterRepository,
                             CharacterItemRepository characterItemRepository,
-                            AccountRepository accountRepository) {
+                            AccountRepository accountRepository,
+                            EncounterEntityRepository encounterEntityRepository,
+                            ApplicationEventPublisher eventPublisher,
+                            FormulaEngine formulaEngine,
+                            ArmorClassCalculator armorClassCalculator) {
         this.spellRepository = spellRepository;
         this.itemRepository = itemRepository;
         this.skillRepository = skillRepository;
         this.characterRepository = characterRepository;
         this.characterItemRepository = characterItemRepository;
         this.accountRepository = accountRepository;
+        this.encounterEntityRepository = encounterEntityRepository;
+        this.eventPublisher = eventPublisher;
+        this.formulaEngine = formulaEngine;
+        this.armorClassCalculator = armorClassCalculator;
     }
 
     public CharacterDTO getCharacterById(Long characterId) {
@@ -83,7 +108,9 @@ public class CharacterService {
         character.setName(dto.getName());
         character.setAccount(account);
 
-        // El resto de campos quedan por defecto
+        // El resto de campos quedan por defecto (los derivados y la CA ya se calculan solos)
+        CharacterSheetGraph.recomputeAll(character);
+        armorClassCalculator.recompute(character);
         characterRepository.save(character);
 
         return CharacterMapper.toDTO(character);
@@ -112,6 +139,8 @@ public class CharacterService {
         }
 
         characterRepository.save(character);
+        eventPublisher.publishEvent(new CatalogAssignmentsChangedEvent(CatalogEntryType.SPELL, spellIds));
+        eventPublisher.publishEvent(LiveEvent.changed(characterId, LiveEventType.SPELLS_CHANGED, spellIds));
     }
 
     public void removeSpellsFromCharacter(Long characterId, List<Long> spellIds) {
@@ -123,6 +152,8 @@ public class CharacterService {
         );
 
         characterRepository.save(character);
+        eventPublisher.publishEvent(new CatalogAssignmentsChangedEvent(CatalogEntryType.SPELL, spellIds));
+        eventPublisher.publishEvent(LiveEvent.changed(characterId, LiveEventType.SPELLS_CHANGED, spellIds));
     }
 
     public void addItemsToCharacter(Long characterId, List<Long> itemIds) {
@@ -130,6 +161,7 @@ public class CharacterService {
                 .orElseThrow(() -> new NotFoundException("Personaje no encontrado"));
 
         List<Item> items = itemRepository.findAllById(itemIds);
+        StatSnapshot snapshot = StatSnapshot.of(character);
 
         for (Item item : items) {
             // Verificar si el personaje ya tiene este ítem usando el repositorio
@@ -143,26 +175,36 @@ public class CharacterService {
                 characterItemRepository.save(existingCharacterItem);
             } else {
                 // Si no existe o no es stackable, crear un nuevo CharacterItem
-                CharacterItem ci = new CharacterItem();
-                ci.setCharacter(character);
-                ci.setItem(item);
-                ci.setCurrentUses(item.getMaxUses());
-                ci.setQuantity(1);
-
-                // Creamos un CharacterItemProperty para cada propiedad del item
-                if (item.getProperties() != null) {
-                    for (ItemProperty property : item.getProperties()) {
-                        CharacterItemProperty cip = new CharacterItemProperty();
-                        cip.setCharacterItem(ci);
-                        cip.setProperty(property);
-                        cip.setCurrentUses(property.getBaseMaxUses() != null ? property.getBaseMaxUses() : 0);
-                        ci.getProperties().add(cip);
-                    }
-                }
+                characterItemRepository.save(newCharacterItem(character, item, snapshot));
+            }
+        }
 
-                characterItemRepository.save(ci);
+        eventPublisher.publishEvent(new CatalogAssignmentsChangedEvent(CatalogEntryType.ITEM, itemIds));
+        eventPublisher.publishEvent(LiveEvent.changed(characterId, LiveEventType.ITEMS_CHANGED, itemIds));
+    }
+
+    // Ítem nuevo para el personaje, con cantidad 1 y los usos al máximo (sin guardar)
+    CharacterItem newCharacterItem(Character character, Item item, StatSnapshot snapshot) {
+        CharacterItem ci = new CharacterItem();
+        ci.setCharacter(character);
+        ci.setItem(item);
+        // Se empieza con los usos al máximo (evaluando la fórmula si es automático)
+        Integer maxUses = formulaEngine.effectiveMaxUses(item.isMaxUsesAutoCalculated(),
+                item.getMaxUsesAutoFormula(), item.getMaxUses(), snapshot);
+        ci.setCurrentUses(maxUses != null ? maxUses : 0);
+        ci.setQuantity(1);
+
+        // Creamos un CharacterItemProperty para cada propiedad del item
+        if (item.getProperties() != null) {
+            for (ItemProperty property : item.getProperties()) {
+                CharacterItemProperty cip = new CharacterItemProperty();
+                cip.setCharacterItem(ci);
+                cip.setProperty(property);
+                cip.setCurrentUses(property.getBaseMaxUses() != null ? property.getBaseMaxUses() : 0);
+                ci.getProperties().add(cip);
             }
         }
+        return ci;
     }
 
     // Método auxiliar para buscar un CharacterItem por itemId en el personaje
@@ -177,11 +219,18 @@ public class CharacterService {
         Character character = characterRepository.findById(characterId)
                 .orElseThrow(() -> new NotFoundException("Personaje no encontrado"));
 
+        boolean removedArmor = character.getCharacterItems().stream()
+                .anyMatch(ci -> itemIds.contains(ci.getItem().getId()) && ci.isEquipped() && armorClassCalculator.affectsArmorClass(ci));
         character.getCharacterItems().removeIf(ci ->
                 itemIds.contains(ci.getItem().getId())
         );
+        if (removedArmor) {
+            armorClassCalculator.recompute(character);
+        }
 
         characterRepository.save(character);
+        eventPublisher.publishEvent(new CatalogAssignmentsChangedEvent(CatalogEntryType.ITEM, itemIds));
+        eventPublisher.publishEvent(LiveEvent.changed(characterId, LiveEventType.ITEMS_CHANGED, itemIds));
     }
 
     public void addSkillsToCharacter(Long characterId, List<Long> skillIds, Source source) {
@@ -189,6 +238,7 @@ public class CharacterService {
                 .orElseThrow(() -> new NotFoundException("Personaje no encontrado"));
 
         List<Skill> skills = skillRepository.findAllById(skillIds);
+        StatSnapshot snapshot = StatSnapshot.of(character);
 
         Set<Long> existingSkillIds = character.getExtraSkills().stream()
                 .map(cs -> cs.getSkill().getId())
@@ -203,12 +253,15 @@ public class CharacterService {
             cs.setCharacter(character);
             cs.setSkill(skill);
             cs.setSource(source);
-            cs.setCurrentUses(skill.getMaxUses());
+            cs.setCurrentUses(formulaEngine.effectiveMaxUses(skill.isAutoCalculated(),
+                    skill.getAutoFormula(), skill.getMaxUses(), snapshot));
 
             character.getExtraSkills().add(cs);
         }
 
         characterRepository.save(character);
+        eventPublisher.publishEvent(new CatalogAssignmentsChangedEvent(CatalogEntryType.SKILL, skillIds));
+        eventPublisher.publishEvent(LiveEvent.changed(characterId, LiveEventType.SKILLS_CHANGED, skillIds));
     }
 
     public void removeSkillsFromCharacter(Long characterId, List<Long> skillIds) {
@@ -220,21 +273,77 @@ public class CharacterService {
         );
 
         characterRepository.save(character);
+        eventPublisher.publishEvent(new CatalogAssignmentsChangedEvent(CatalogEntryType.SKILL, skillIds));
+        eventPublisher.publishEvent(LiveEvent.changed(characterId, LiveEventType.SKILLS_CHANGED, skillIds));
     }
 
-    public void updateCharacter(Long characterId, CharacterDTO dto) {
+    // Devuelve los valores derivados que se han recalculado, con los mismos nombres que CharacterDTO
+    public Map<String, Object> updateCharacter(Long characterId, CharacterDTO dto) {
         Character character = characterRepository.findById(characterId)
                 .orElseThrow(() -> new NotFoundException("Personaje no encontrado"));
 
+        // Lo que había antes del cambio, para saber qué hay que recalcular
+        CharacterSheetGraph.State sheetBefore = CharacterSheetGraph.capture(character);
+        Set<StatVariable> armorClassDependencies = armorClassCalculator.dependencies(character);
+        StatSnapshot before = StatSnapshot.of(character);
+        boolean wasManual = character.isArmorClassManual();
+
+        // La CA que manda el cliente solo se guarda si es manual (ya lo era o se pide con armorClassManual=true);
+        // si es calculada se ignora y se le devuelve la que tiene
+        boolean armorClassIgnored = dto.getArmorClass() != null
+                && !(dto.getArmorClassManual() != null ? dto.getArmorClassManual() : wasManual);
+        if (armorClassIgnored) dto.setArmorClass(null);
+
         CharacterMapper.updateEntity(character, dto);
+
+        Map<String, Object> delta = toDelta(character, CharacterSheetGraph.update(character, sheetBefore));
+
+        // Solo se recalcula si ha cambiado algo de lo que depende o ha dejado de ser manual
+        StatSnapshot after = StatSnapshot.of(character);
+        if (wasManual != character.isArmorClassManual()
+                || armorClassDependencies.stream().anyMatch(variable -> before.get(variable) != after.get(variable))) {
+            if (armorClassCalculator.recompute(character)) {
+                delta.put("armorClass", character.getArmorClass());
+            }
+        }
+        if (armorClassIgnored) delta.put("armorClass", character.getArmorClass());
         characterRepository.save(character);
+        eventPublisher.publishEvent(LiveEvent.character(characterId, LiveEventType.CHARACTER_UPDATED,
+                CharacterMapper.toDTO(character)));
+        return delta;
+    }
+
+    private static Map<String, Object> toDelta(Character character, Map<SheetNode, Integer> changes) {
+        Map<String, Object> delta = new LinkedHashMap<>();
+        changes.forEach((node, value) -> {
+            switch (node) {
+                case PROFICIENCY_BONUS -> delta.put("proficiencyBonus", value);
+                case INITIATIVE -> delta.put("initiative", value);
+                case MAX_WEIGHT -> delta.put("maxWeight", value);
+                case SPELL_CASTING_MODIFIER -> delta.put("spellCastingModifier", value);
+                case SPELL_SAVE_DC -> delta.put("spellSaveDC", value);
+                // Las habilidades van todas juntas, igual que en CharacterDTO
+                default -> delta.computeIfAbsent("skills", key -> CharacterMapper.toSkillsDTO(character.getSkills()));
+            }
+        });
+        return delta;
     }
 
     public void deleteCharacter(Long characterId) {
         Character character = characterRepository.findById(characterId)
                 .orElseThrow(() -> new NotFoundException("Personaje no encontrado"));
 
+        // Lo que tenía el personaje pierde popularidad en el autocompletado
+        List<Long> spellIds = character.getCharacterSpells().stream().map(cs -> cs.getSpell().getId()).toList();
+        List<Long> skillIds = character.getExtraSkills().stream().map(cs -> cs.getSkill().getId()).toList();
+        List<Long> itemIds = character.getCharacterItems().stream().map(ci -> ci.getItem().getId()).distinct().toList();
+
+        encounterEntityRepository.detachCharacter(characterId);
         characterRepository.delete(character);
+        eventPublisher.publishEvent(new CatalogAssignmentsChangedEvent(CatalogEntryType.SPELL, spellIds));
+        eventPublisher.publishEvent(new CatalogAssignmentsChangedEvent(CatalogEntryType.SKILL, skillIds));
+        eventPublisher.publishEvent(new CatalogAssignmentsChangedEvent(CatalogEntryType.ITEM, itemIds));
+        eventPublisher.publishEvent(LiveEvent.character(characterId, LiveEventType.CHARACTER_DELETED, null));
     }
 
     public void verifyCharacterOwnership(Long characterId, String username) {
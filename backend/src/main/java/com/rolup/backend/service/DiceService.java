@@ -0,0 +1,130 @@
+package com.rolup.backend.service;
+
+import com.rolup.backend.dto.diceDTOs.DiceBatchResultDTO;
+import com.rolup.backend.dto.diceDTOs.DiceRollDTO;
+import com.rolup.backend.dto.diceDTOs.DiceRollRequestDTO;
+import com.rolup.backend.dto.diceDTOs.DiceStatsDTO;
+import com.rolup.backend.exception.BadRequestException;
+import com.rolup.backend.model.enums.RollMode;
+import com.rolup.backend.service.dice.DiceException;
+import com.rolup.backend.service.dice.DiceExpression;
+import com.rolup.backend.service.dice.Distribution;
+import com.rolup.backend.service.dice.DistributionCalculator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Tiradas de dados en el servidor (daño de armas, dados de golpe, bolas de fuego contra 20 objetivos...).
+// Las expresiones se parsean una vez y se cachean por texto. Cada hilo tira con su propio SplittableRandom, sacado del
+// generador raíz con split(): no hay contención entre peticiones y las secuencias de cada hilo son independientes
+@Service
+public class DiceService {
+
+    public static final int MAX_BATCH_ROLLS = 10_000; // Tiradas en total por lote
+    private static final int MAX_CACHED = 10_000;
+
+    private static final SplittableRandom ROOT = new SplittableRandom();
+    private static final ThreadLocal<SplittableRandom> RANDOM = ThreadLocal.withInitial(DiceService::split);
+
+    private final Map<String, DiceExpression> cache = new ConcurrentHashMap<>();
+    private final DistributionCalculator distributionCalculator;
+
+    @Autowired
+    public DiceService(DistributionCalculator distributionCalculator) {
+        this.distributionCalculator = distributionCalculator;
+    }
+
+    private static synchronized SplittableRandom split() {
+        return ROOT.split(); // SplittableRandom no es thread-safe, el raíz solo se toca aquí
+    }
+
+    public DiceExpression compile(String text) {
+        String key = text == null ? "" : text.trim();
+        DiceExpression cached = cache.get(key);
+        if (cached != null) return cached;
+
+        DiceExpression expression;
+        try {
+            expression = DiceExpression.parse(key);
+        } catch (DiceException e) {
+            throw new BadRequestException("Expresión de dados no válida: " + e.getMessage());
+        }
+        if (cache.size() >= MAX_CACHED) {
+            cache.clear(); // Las expresiones vienen de los usuarios, así no crece sin límite
+        }
+        cache.put(key, expression);
+        return expression;
+    }
+
+    public int roll(String text, RollMode mode) {
+        return compile(text).roll(RANDOM.get(), mode == null ? RollMode.NORMAL : mode);
+    }
+
+    // Una tirada con el detalle de cada dado
+    public DiceRollDTO rollDetailed(String text, RollMode mode) {
+        DiceExpression expression = compile(text);
+        RollMode rollMode = mode == null ? RollMode.NORMAL : mode;
+        SplittableRandom random = RANDOM.get();
+
+        List<List<Integer>> dice = new ArrayList<>();
+        int total = expression.roll(random, dice);
+        if (rollMode != RollMode.NORMAL) {
+            List<List<Integer>> other = new ArrayList<>();
+            int second = expression.roll(random, other);
+            if (rollMode == RollMode.ADVANTAGE ? second > total : second < total) {
+                total = second;
+                dice = other;
+            }
+        }
+        return new DiceRollDTO(expression.text(), rollMode, total, dice, expression.min(), expression.max());
+    }
+
+    // Distribución exacta del total (media, varianza, probabilidad de cada resultado) y, si hay target,
+    // probabilidad de igualarlo o superarlo. Para equilibrar encuentros: daño de un arma, salvación contra una CD...
+    public DiceStatsDTO stats(String text, RollMode mode, Integer target) {
+        DiceExpression expression = compile(text);
+        RollMode rollMode = mode == null ? RollMode.NORMAL : mode;
+
+        Distribution distribution;
+        try {
+            distribution = distributionCalculator.of(expression, rollMode);
+        } catch (DiceException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+        double variance = distribution.variance();
+        return new DiceStatsDTO(expression.text(), rollMode, distribution.min(), distribution.max(),
+                distribution.mean(), variance, Math.sqrt(variance), distribution.probabilities(),
+                target, target == null ? null : distribution.atLeast(target));
+    }
+
+    // Varias expresiones, cada una tirada "times" veces. Solo totales, sin detalle por dado
+    public List<DiceBatchResultDTO> rollBatch(List<DiceRollRequestDTO> requests) {
+        long totalRolls = 0;
+        for (DiceRollRequestDTO request : requests) {
+            int times = request.getTimes() == null ? 1 : request.getTimes();
+            if (times < 1) throw new BadRequestException("El número de tiradas debe ser al menos 1");
+            totalRolls += times;
+        }
+        if (totalRolls > MAX_BATCH_ROLLS) {
+            throw new BadRequestException("Demasiadas tiradas en un lote (máximo " + MAX_BATCH_ROLLS + ")");
+        }
+
+        SplittableRandom random = RANDOM.get();
+        List<DiceBatchResultDTO> results = new ArrayList<>(requests.size());
+        for (DiceRollRequestDTO request : requests) {
+            DiceExpression expression = compile(request.getExpression());
+            RollMode mode = request.getMode() == null ? RollMode.NORMAL : request.getMode();
+            int[] totals = new int[request.getTimes() == null ? 1 : request.getTimes()];
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] = expression.roll(random, mode);
+            }
+            results.add(new DiceBatchResultDTO(expression.text(), mode, totals));
+        }
+        return results;
+    }
+}
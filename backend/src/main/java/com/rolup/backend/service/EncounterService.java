@@ -0,0 +1,295 @@
+package com.rolup.backend.service;
+
+import com.rolup.backend.dto.encounterDTOs.AddCombatantDTO;
+import com.rolup.backend.dto.encounterDTOs.AreaShapeDTO;
+import com.rolup.backend.dto.encounterDTOs.EncounterCommandDTO;
+import com.rolup.backend.dto.encounterDTOs.EncounterDTO;
+import com.rolup.backend.dto.encounterDTOs.EncounterReplayDTO;
+import com.rolup.backend.exception.BadRequestException;
+import com.rolup.backend.exception.ForbiddenException;
+import com.rolup.backend.exception.NotFoundException;
+import com.rolup.backend.mapper.EncounterMapper;
+import com.rolup.backend.model.character_related.Character;
+import com.rolup.backend.model.combat.Encounter;
+import com.rolup.backend.model.combat.EncounterEntity;
+import com.rolup.backend.model.enums.AreaShapeType;
+import com.rolup.backend.model.enums.EncounterStatus;
+import com.rolup.backend.repository.CharacterRepository;
+import com.rolup.backend.repository.EncounterEntityRepository;
+import com.rolup.backend.repository.EncounterRepository;
+import com.rolup.backend.service.combat.AreaShape;
+import com.rolup.backend.service.combat.EncounterChange;
+import com.rolup.backend.service.combat.EncounterCommand;
+import com.rolup.backend.service.combat.EncounterEngine;
+import com.rolup.backend.service.combat.EncounterPersistence;
+import com.rolup.backend.service.combat.EncounterSnapshot;
+import com.rolup.backend.service.combat.EncounterState;
+import com.rolup.backend.service.live.LiveEvent;
+import com.rolup.backend.service.live.LiveEventType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Crear, listar y borrar encuentros pasa por la base de datos; el combate en sí (órdenes y estado) lo lleva
+// EncounterEngine en memoria
+@Service
+public class EncounterService {
+
+    private static final int MAX_REPLAY_EVENTS = 500; // Con más, el encuentro entero ocupa menos
+    private static final int FEET_PER_CELL = 5;
+
+    private final EncounterRepository encounterRepository;
+    private final EncounterEntityRepository encounterEntityRepository;
+    private final CharacterRepository characterRepository;
+    private final EncounterEngine encounterEngine;
+    private final BattleMapService battleMapService;
+    private final MovementService movementService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public EncounterService(EncounterRepository encounterRepository,
+                            EncounterEntityRepository encounterEntityRepository,
+                            CharacterRepository characterRepository,
+                            EncounterEngine encounterEngine,
+                            BattleMapService battleMapService,
+                            MovementService movementService,
+                            ApplicationEventPublisher eventPublisher) {
+        this.encounterRepository = encounterRepository;
+        this.encounterEntityRepository = encounterEntityRepository;
+        this.characterRepository = characterRepository;
+        this.encounterEngine = encounterEngine;
+        this.battleMapService = battleMapService;
+        this.movementService = movementService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public EncounterDTO createEncounter(EncounterDTO dto) {
+        Encounter encounter = new Encounter();
+        encounter.setName(dto.getName().trim());
+        encounter.setStatus(EncounterStatus.PREPARING);
+        encounter.setUpdatedAt(Instant.now());
+        return EncounterMapper.toSummaryDTO(encounterRepository.save(encounter));
+    }
+
+    public List<EncounterDTO> getEncounters(String username, boolean isAdmin) {
+        List<Encounter> encounters = isAdmin
+                ? encounterRepository.findAllByOrderByIdDesc()
+                : encounterRepository.findByParticipantUsername(username);
+        // Los que están en memoria pueden ir por delante de la última foto guardada
+        return encounters.stream()
+                .map(encounter -> {
+                    EncounterSnapshot live = encounterEngine.liveSnapshot(encounter.getId());
+                    return live == null ? EncounterMapper.toSummaryDTO(encounter) : EncounterMapper.toSummaryDTO(live);
+                })
+                .toList();
+    }
+
+    public EncounterDTO getEncounter(Long encounterId, boolean isAdmin) {
+        return EncounterMapper.toDTO(encounterEngine.snapshot(encounterId), !isAdmin);
+    }
+
+    // Lo que le falta a un cliente que tiene la versión since: el historial desde ahí si está completo, si no el
+    // encuentro entero
+    public EncounterReplayDTO replay(Long encounterId, Long since, boolean isAdmin) {
+        EncounterSnapshot snapshot = encounterEngine.snapshot(encounterId); // Todo lo que lleva ya está en el historial
+        long version = snapshot.version();
+        if (since == null || since > version || version - since > MAX_REPLAY_EVENTS) {
+            return EncounterReplayDTO.snapshot(EncounterMapper.toDTO(snapshot, !isAdmin));
+        }
+
+        List<EncounterChange> changes = encounterEngine.history(encounterId, since).stream()
+                .filter(change -> change.sequence() <= version)
+                .toList();
+        for (int i = 0; i < changes.size(); i++) {
+            if (changes.get(i).sequence() != since + i + 1) {
+                return EncounterReplayDTO.snapshot(EncounterMapper.toDTO(snapshot, !isAdmin)); // Hueco en el historial
+            }
+        }
+        if (since + changes.size() != version) {
+            return EncounterReplayDTO.snapshot(EncounterMapper.toDTO(snapshot, !isAdmin));
+        }
+        return EncounterReplayDTO.events(since, version, changes.stream()
+                .map(change -> EncounterMapper.toEventDTO(change, !isAdmin))
+                .toList());
+    }
+
+    // Los jugadores solo pueden ver los encuentros en los que participa alguno de sus personajes
+    public void verifyParticipant(Long encounterId, String username) {
+        if (!encounterRepository.existsById(encounterId)) {
+            throw new NotFoundException("Encuentro no encontrado");
+        }
+        if (!encounterEntityRepository.existsByEncounterIdAndCharacterAccountUsername(encounterId, username)) {
+            throw new ForbiddenException("No participas en este encuentro");
+        }
+    }
+
+    // Personajes del usuario que participan en el encuentro (al menos uno, si no no participa)
+    public List<Long> participantCharacterIds(Long encounterId, String username) {
+        if (!encounterRepository.existsById(encounterId)) {
+            throw new NotFoundException("Encuentro no encontrado");
+        }
+        List<Long> characterIds = encounterEntityRepository.findCharacterIdsByEncounterIdAndUsername(encounterId, username);
+        if (characterIds.isEmpty()) {
+            throw new ForbiddenException("No participas en este encuentro");
+        }
+        return characterIds;
+    }
+
+    public EncounterDTO addCombatant(Long encounterId, AddCombatantDTO dto) {
+        if (encounterEngine.snapshot(encounterId).status() == EncounterStatus.FINISHED) {
+            throw new BadRequestException("El encuentro ha terminado");
+        }
+
+        EncounterEntity entity = dto.getCharacterId() != null
+                ? fromCharacter(encounterId, dto)
+                : fromCreature(dto);
+        entity.setEncounter(encounterRepository.getReferenceById(encounterId));
+        entity.setInitiative(dto.getInitiative());
+        if (dto.getX() != null && dto.getY() != null) {
+            EncounterState.requireOnGrid(dto.getX(), dto.getY());
+            entity.setPositionX(dto.getX());
+            entity.setPositionY(dto.getY());
+        }
+        EncounterEntity saved = encounterEntityRepository.save(entity);
+
+        try {
+            EncounterSnapshot snapshot = encounterEngine.submit(encounterId,
+                    new EncounterCommand.AddCombatant(EncounterPersistence.toCombatant(saved)));
+            return publish(snapshot);
+        } catch (RuntimeException e) {
+            encounterEntityRepository.delete(saved);
+            throw e;
+        }
+    }
+
+    private EncounterEntity fromCharacter(Long encounterId, AddCombatantDTO dto) {
+        Character character = characterRepository.findById(dto.getCharacterId())
+                .orElseThrow(() -> new NotFoundException("Personaje no encontrado"));
+        if (encounterEntityRepository.existsByEncounterIdAndCharacterId(encounterId, character.getId())) {
+            throw new BadRequestException("El personaje ya está en el encuentro");
+        }
+
+        EncounterEntity entity = new EncounterEntity();
+        entity.setCharacter(character);
+        entity.setName(character.getName());
+        entity.setIconUrl(character.getIconUrl());
+        entity.setInitiativeBonus(dto.getInitiativeBonus() != null ? dto.getInitiativeBonus() : character.getInitiative());
+        entity.setCurrentHp(character.getCurrentHp());
+        entity.setMaxHp(character.getMaxHp());
+        entity.setTempHp(character.getTempHp());
+        entity.setArmorClass(character.getArmorClass());
+        return entity;
+    }
+
+    private EncounterEntity fromCreature(AddCombatantDTO dto) {
+        if (dto.getName() == null || dto.getName().isBlank()) {
+            throw new BadRequestException("La criatura necesita un nombre");
+        }
+        if (dto.getMaxHp() == null || dto.getMaxHp() < 1) {
+            throw new BadRequestException("La criatura necesita al menos 1 PG máximo");
+        }
+
+        EncounterEntity entity = new EncounterEntity();
+        entity.setName(dto.getName().trim());
+        entity.setIconUrl(dto.getIconUrl());
+        entity.setInitiativeBonus(dto.getInitiativeBonus() != null ? dto.getInitiativeBonus() : 0);
+        entity.setMaxHp(dto.getMaxHp());
+        entity.setCurrentHp(dto.getCurrentHp() != null ? Math.min(dto.getCurrentHp(), dto.getMaxHp()) : dto.getMaxHp());
+        entity.setArmorClass(dto.getArmorClass() != null ? dto.getArmorClass() : 10);
+        return entity;
+    }
+
+    public EncounterDTO execute(Long encounterId, EncounterCommandDTO dto) {
+        return publish(encounterEngine.submit(encounterId, toCommand(dto)));
+    }
+
+    private static EncounterCommand toCommand(EncounterCommandDTO dto) {
+        return switch (dto.getType()) {
+            case START -> new EncounterCommand.Start();
+            case NEXT_TURN -> new EncounterCommand.NextTurn();
+            case DAMAGE -> new EncounterCommand.Damage(combatantId(dto), required(dto.getAmount(), "amount"));
+            case HEAL -> new EncounterCommand.Heal(combatantId(dto), required(dto.getAmount(), "amount"));
+            case APPLY_EFFECT -> new EncounterCommand.ApplyEffect(combatantId(dto), dto.getEffectName(), dto.getIconUrl(),
+                    dto.getDuration(), dto.isDurationIsAssaults(), dto.isEndsAtTurnStart());
+            case REMOVE_EFFECT -> new EncounterCommand.RemoveEffect(combatantId(dto), dto.getEffectName());
+            case SET_INITIATIVE -> new EncounterCommand.SetInitiative(combatantId(dto), required(dto.getInitiative(), "initiative"));
+            case REMOVE_COMBATANT -> new EncounterCommand.RemoveCombatant(combatantId(dto));
+            case MOVE -> new EncounterCommand.Move(combatantId(dto), dto.getX(), dto.getY());
+            case AREA_EFFECT -> new EncounterCommand.AreaEffect(toShape(dto.getArea()), required(dto.getAmount(), "amount"),
+                    dto.getSaveDc(), dto.isHalfOnSave(),
+                    dto.getSaveBonuses() == null ? Map.of() : Map.copyOf(dto.getSaveBonuses()), // "saveBonuses": null
+                    dto.getExcludedCombatantIds() == null ? Set.of() : Set.copyOf(dto.getExcludedCombatantIds()));
+        };
+    }
+
+    // Pies a casillas, redondeando hacia arriba
+    private static AreaShape toShape(AreaShapeDTO dto) {
+        if (dto == null) {
+            throw new BadRequestException("Falta el área (area)");
+        }
+        EncounterState.requireOnGrid(dto.getOriginX(), dto.getOriginY());
+        boolean directed = dto.getShape() == AreaShapeType.CONE || dto.getShape() == AreaShapeType.LINE;
+        int targetX = dto.getOriginX();
+        int targetY = dto.getOriginY();
+        if (directed) {
+            if (dto.getTargetX() == null || dto.getTargetY() == null) {
+                throw new BadRequestException("Los conos y las líneas necesitan una dirección (targetX, targetY)");
+            }
+            targetX = dto.getTargetX();
+            targetY = dto.getTargetY();
+            if (targetX == dto.getOriginX() && targetY == dto.getOriginY()) {
+                throw new BadRequestException("La dirección no puede ser la casilla de origen");
+            }
+        }
+        return new AreaShape(dto.getShape(), dto.getOriginX(), dto.getOriginY(), targetX, targetY,
+                cells(dto.getSize()), cells(dto.getWidth()));
+    }
+
+    private static int cells(int feet) {
+        return (feet + FEET_PER_CELL - 1) / FEET_PER_CELL;
+    }
+
+    private static long combatantId(EncounterCommandDTO dto) {
+        if (dto.getCombatantId() == null) {
+            throw new BadRequestException("Falta el combatiente (combatantId)");
+        }
+        return dto.getCombatantId();
+    }
+
+    private static int required(Integer value, String field) {
+        if (value == null) {
+            throw new BadRequestException("Falta el campo " + field);
+        }
+        return value;
+    }
+
+    public EncounterDTO finishEncounter(Long encounterId) {
+        return publish(encounterEngine.finish(encounterId));
+    }
+
+    public void deleteEncounter(Long encounterId) {
+        if (!encounterRepository.existsById(encounterId)) {
+            throw new NotFoundException("Encuentro no encontrado");
+        }
+        encounterEngine.forget(encounterId);
+        battleMapService.forget(encounterId);
+        movementService.forget(encounterId);
+        encounterRepository.deleteById(encounterId);
+        eventPublisher.publishEvent(LiveEvent.encounter(encounterId, LiveEventType.ENCOUNTER_DELETED, null, null));
+    }
+
+    // Manda la foto a los suscritos al encuentro (los jugadores sin los PG ni la CA de las criaturas) y devuelve la
+    // del DM. Si alguien se ha movido, cada jugador recibe aparte lo que descubre
+    private EncounterDTO publish(EncounterSnapshot snapshot) {
+        EncounterDTO dto = EncounterMapper.toDTO(snapshot, false);
+        eventPublisher.publishEvent(LiveEvent.encounter(snapshot.id(), LiveEventType.ENCOUNTER_UPDATED, dto,
+                EncounterMapper.toDTO(snapshot, true)));
+        battleMapService.onSnapshot(snapshot);
+        return dto;
+    }
+}
@@ -1,8 +1,14 @@
 package com.rolup.backend.service;
 
+import com.rolup.backend.exception.BadRequestException;
+import com.rolup.backend.exception.NotFoundException;
+import com.rolup.backend.service.files.StoredFile;
+import com.rolup.backend.service.tiles.TilePyramidBuilder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
@@ -10,16 +16,25 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Service
 public class FileStorageService {
 
+    private static final long RECHECK_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final int MAX_STORED_FILES = 4096;
+
     private final Path fileStorageLocation;
+    private final TilePyramidBuilder tilePyramidBuilder;
+    private final Map<Path, StoredFile> storedFiles = new ConcurrentHashMap<>();
 
-    public FileStorageService(@Value("${file.upload-dir}") String uploadDir) {
+    public FileStorageService(@Value("${file.upload-dir}") String uploadDir, TilePyramidBuilder tilePyramidBuilder) {
+        this.tilePyramidBuilder = tilePyramidBuilder;
         // Usar ruta relativa al directorio de trabajo
         this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
 
@@ -33,20 +48,49 @@ public class FileStorageService {
         }
     }
 
-    public Resource loadFileAsResource(String filename, String path) throws Exception {
+    // Datos de un archivo para servirlo. Se guardan y solo se vuelven a mirar en disco (un stat) pasados unos
+    // segundos; lo que se borra desde aquí se quita al momento
+    public StoredFile getStoredFile(String filename, String path) {
+        String filePath = path != null && !path.isEmpty() ? path + "/" + filename : filename;
+        return storedFile(resolveInside(filePath));
+    }
+
+    private StoredFile storedFile(Path fullPath) {
+        long now = System.nanoTime();
+        StoredFile cached = storedFiles.get(fullPath);
+        if (cached != null && now - cached.checkedAt() < RECHECK_NANOS) return cached;
+
+        BasicFileAttributes attributes;
         try {
-            String filePath = path != null && !path.isEmpty() ? path + "/" + filename : filename;
-            Path fullPath = this.fileStorageLocation.resolve(filePath).normalize();
-            Resource resource = new UrlResource(fullPath.toUri());
+            attributes = Files.readAttributes(fullPath, BasicFileAttributes.class);
+        } catch (IOException ex) {
+            storedFiles.remove(fullPath);
+            throw new NotFoundException("Archivo no encontrado");
+        }
+        if (!attributes.isRegularFile()) {
+            throw new NotFoundException("Archivo no encontrado");
+        }
 
-            if (resource.exists() && resource.isReadable()) {
-                return resource;
-            } else {
-                throw new Exception("File not found: " + filename);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        StoredFile file;
+        if (cached != null && cached.size() == attributes.size() && cached.lastModified() == lastModified) {
+            file = cached.checked(now);
+        } else {
+            String canonicalPath;
+            try {
+                canonicalPath = fullPath.toFile().getCanonicalPath();
+            } catch (IOException ex) {
+                throw new NotFoundException("Archivo no encontrado");
             }
-        } catch (MalformedURLException ex) {
-            throw new Exception("File not found: " + filename, ex);
+            String fileName = fullPath.getFileName().toString();
+            file = new StoredFile(fullPath, canonicalPath, attributes.size(), lastModified,
+                    "\"" + Long.toHexString(attributes.size()) + "-" + Long.toHexString(lastModified) + "\"",
+                    MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM), now);
         }
+
+        if (storedFiles.size() >= MAX_STORED_FILES) storedFiles.clear(); // Se vuelven a llenar con lo que se pide
+        storedFiles.put(fullPath, file);
+        return file;
     }
 
     public String storeFile(MultipartFile file, String relativePath) {
@@ -70,6 +114,12 @@ public class FileStorageService {
             Path targetLocation = targetDir.resolve(uniqueFileName);
 
             Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            try {
+                tilePyramidBuilder.schedule(targetLocation); // Solo hace algo con las imágenes grandes (mapas)
+            } catch (BadRequestException e) {
+                Files.deleteIfExists(targetLocation); // Demasiado grande para servirla
+                throw e;
+            }
 
             return relativePath.isEmpty() ? uniqueFileName : relativePath + "/" + uniqueFileName;
         } catch (IOException ex) {
@@ -96,11 +146,42 @@ public class FileStorageService {
         try {
             Path fullPath = this.fileStorageLocation.resolve(filePath).normalize();
             Files.deleteIfExists(fullPath);
+            tilePyramidBuilder.forget(fullPath);
+            storedFiles.keySet().removeIf(path -> path.startsWith(fullPath)
+                    || path.startsWith(TilePyramidBuilder.tilesDirectory(fullPath)));
         } catch (IOException ex) {
             throw new RuntimeException("Could not delete file: " + filePath, ex);
         }
     }
 
+    // Pirámide de teselas de una imagen subida (solo la tienen las grandes, y cuando ya se ha generado)
+    public TilePyramidBuilder.Pyramid getTilePyramid(String filePath) {
+        TilePyramidBuilder.Pyramid pyramid = tilePyramidBuilder.pyramid(resolveInside(filePath));
+        if (pyramid == null) {
+            throw new NotFoundException("La imagen no tiene teselas");
+        }
+        return pyramid;
+    }
+
+    public StoredFile getTile(String filePath, int level, int column, int row) {
+        TilePyramidBuilder.Pyramid pyramid = getTilePyramid(filePath);
+        if (level < 0 || level > pyramid.maxLevel() || column < 0 || row < 0) {
+            throw new NotFoundException("Tesela no encontrada");
+        }
+        return storedFile(TilePyramidBuilder.tilesDirectory(resolveInside(filePath))
+                .resolve(String.valueOf(level))
+                .resolve(column + "_" + row + "." + pyramid.format()));
+    }
+
+    // Las rutas de las teselas vienen del cliente: que no se salgan del directorio de subidas
+    private Path resolveInside(String filePath) {
+        Path fullPath = this.fileStorageLocation.resolve(filePath).normalize();
+        if (!fullPath.startsWith(this.fileStorageLocation)) {
+            throw new NotFoundException("Archivo no encontrado");
+        }
+        return fullPath;
+    }
+
     public List<FileInfo> listFiles(String relativePath) {
         Path directory = this.fileStorageLocation.resolve(relativePath);
 
@@ -109,7 +190,8 @@ public class FileStorageService {
         }
 
         try (Stream<Path> paths = Files.list(directory)) {
-            return paths.map(path -> {
+            return paths.filter(path -> !isTilesDirectory(path))
+                    .map(path -> {
                         String fileName = path.getFileName().toString();
                         boolean isDirectory = Files.isDirectory(path);
                         long size = isDirectory ? 0 : path.toFile().length();
@@ -147,8 +229,10 @@ public class FileStorageService {
 
     public void deleteDirectory(String relativePath) {
         try {
-            Path directory = this.fileStorageLocation.resolve(relativePath);
+            Path directory = this.fileStorageLocation.resolve(relativePath).normalize();
             if (Files.exists(directory) && Files.isDirectory(directory)) {
+                tilePyramidBuilder.forgetUnder(directory);
+                storedFiles.keySet().removeIf(path -> path.startsWith(directory));
                 try (Stream<Path> paths = Files.walk(directory)) {
                     paths.sorted(Comparator.reverseOrder())
                             .forEach(path -> {
@@ -165,6 +249,14 @@ public class FileStorageService {
         }
     }
 
+    // Las teselas de una imagen no se enseñan en el gestor: se borran con ella
+    private static boolean isTilesDirectory(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.endsWith(TilePyramidBuilder.TILES_SUFFIX) || !Files.isDirectory(path)) return false;
+        return Files.isRegularFile(path.resolveSibling(
+                name.substring(0, name.length() - TilePyramidBuilder.TILES_SUFFIX.length())));
+    }
+
     private String getFileExtension(String filename) {
         int lastDotIndex = filename.lastIndexOf('.');
         return lastDotIndex == -1 ? "" : filename.substring(lastDotIndex + 1);
@@ -5,7 +5,12 @@ import com.rolup.backend.exception.NotFoundException;
 import com.rolup.backend.mapper.ItemPropertyMapper;
 import com.rolup.backend.model.item_related.ItemProperty;
 import com.rolup.backend.repository.ItemPropertyRepository;
+import com.rolup.backend.service.catalog.CatalogChangedEvent;
+import com.rolup.backend.service.catalog.CatalogDocument;
+import com.rolup.backend.service.catalog.CatalogEntryType;
+import com.rolup.backend.service.formula.TemplateEngine;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -14,15 +19,22 @@ import java.util.List;
 public class ItemPropertyService {
 
     private final ItemPropertyRepository itemPropertyRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TemplateEngine templateEngine;
 
     @Autowired
-    public ItemPropertyService(ItemPropertyRepository itemPropertyRepository) {
+    public ItemPropertyService(ItemPropertyRepository itemPropertyRepository, ApplicationEventPublisher eventPublisher,
+                               TemplateEngine templateEngine) {
         this.itemPropertyRepository = itemPropertyRepository;
+        this.templateEngine = templateEngine;
+        this.eventPublisher = eventPublisher;
     }
 
     public ItemPropertyDTO create(ItemPropertyDTO dto) {
         ItemProperty property = ItemPropertyMapper.toEntity(dto);
+        templateEngine.validate(property.getDescription(), "la descripción");
         ItemProperty saved = itemPropertyRepository.save(property);
+        eventPublisher.publishEvent(CatalogChangedEvent.saved(CatalogDocument.of(saved)));
         return ItemPropertyMapper.toDTO(saved);
     }
 
@@ -42,8 +54,11 @@ public class ItemPropertyService {
         ItemProperty existing = itemPropertyRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Propiedad de ítem no encontrada"));
 
+        String descriptionBefore = existing.getDescription();
         ItemPropertyMapper.updateEntity(existing, dto);
+        templateEngine.validateChanged(descriptionBefore, existing.getDescription(), "la descripción");
         ItemProperty updated = itemPropertyRepository.save(existing);
+        eventPublisher.publishEvent(CatalogChangedEvent.saved(CatalogDocument.of(updated)));
         return ItemPropertyMapper.toDTO(updated);
     }
 
@@ -52,5 +67,6 @@ public class ItemPropertyService {
             throw new NotFoundException("Propiedad de ítem no encontrada");
         }
         itemPropertyRepository.deleteById(id);
+        eventPublisher.publishEvent(CatalogChangedEvent.deleted(CatalogEntryType.ITEM_PROPERTY, id));
     }
 }
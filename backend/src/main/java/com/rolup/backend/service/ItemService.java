@@ -15,14 +15,28 @@ import com.rolup.backend.repository.CharacterItemPropertyRepository;
 import com.rolup.backend.repository.CharacterItemRepository;
 import com.rolup.backend.repository.ItemPropertyRepository;
 import com.rolup.backend.repository.ItemRepository;
+import com.rolup.backend.service.catalog.CatalogChangedEvent;
+import com.rolup.backend.service.catalog.CatalogDocument;
+import com.rolup.backend.service.catalog.CatalogEntryType;
+import com.rolup.backend.service.formula.ArmorClassCalculator;
+import com.rolup.backend.service.formula.FormulaEngine;
+import com.rolup.backend.service.formula.StatSnapshot;
+import com.rolup.backend.service.formula.TemplateEngine;
 import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import com.rolup.backend.mapper.ItemPropertyMapper;
+import com.rolup.backend.mapper.CharacterMapper;
+import com.rolup.backend.service.live.LiveEvent;
+import com.rolup.backend.service.live.LiveEventType;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,6 +46,10 @@ public class ItemService {
     private final ItemPropertyRepository itemPropertyRepository;
     private final CharacterItemRepository characterItemRepository;
     private final CharacterItemPropertyRepository characterItemPropertyRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FormulaEngine formulaEngine;
+    private final ArmorClassCalculator armorClassCalculator;
+    private final TemplateEngine templateEngine;
 
     @Autowired
     private EntityManager entityManager;
@@ -40,11 +58,19 @@ public class ItemService {
     public ItemService(ItemRepository itemRepository,
                        ItemPropertyRepository itemPropertyRepository,
                        CharacterItemRepository characterItemRepository,
-                       CharacterItemPropertyRepository characterItemPropertyRepository) {
+                       CharacterItemPropertyRepository characterItemPropertyRepository,
+                       ApplicationEventPublisher eventPublisher,
+                       FormulaEngine formulaEngine,
+                       ArmorClassCalculator armorClassCalculator,
+                       TemplateEngine templateEngine) {
         this.itemRepository = itemRepository;
         this.itemPropertyRepository = itemPropertyRepository;
         this.characterItemRepository = characterItemRepository;
         this.characterItemPropertyRepository = characterItemPropertyRepository;
+        this.eventPublisher = eventPublisher;
+        this.formulaEngine = formulaEngine;
+        this.armorClassCalculator = armorClassCalculator;
+        this.templateEngine = templateEngine;
     }
 
     // Este método debe revisarse
@@ -54,60 +80,124 @@ public class ItemService {
 
     public ItemDTO createItem(ItemDTO dto) {
         Item item = ItemMapper.toEntity(dto);
-        return ItemMapper.toDTO(itemRepository.save(item));
+        validateFormula(item, null, null);
+        if (item instanceof Armor armor) {
+            armorClassCalculator.validate(armor.getArmorClassFormula());
+        }
+        Item saved = itemRepository.save(item);
+        eventPublisher.publishEvent(CatalogChangedEvent.saved(CatalogDocument.of(saved)));
+        return toDTO(saved);
     }
 
     public List<ItemDTO> getAllItems() {
         return itemRepository.findAll().stream()
-                .map(item -> {
-                    ItemDTO dto = ItemMapper.toDTO(item);
-                    // Mapear las propiedades base del ítem
-                    List<ItemPropertyDTO> propertyDTOs = item.getProperties().stream()
-                            .map(ItemPropertyMapper::toDTO)
-                            .toList();
-                    dto.setPropertyDTOList(propertyDTOs);
-                    return dto;
-                })
+                .map(this::toDTOWithProperties)
                 .toList();
     }
 
     public List<ItemDTO> getAllItemsForCharacter(Long characterId) {
         List<CharacterItem> characterItems = characterItemRepository.findByCharacterId(characterId);
 
+        StatSnapshot snapshot = snapshotOf(characterItems);
         return characterItems.stream()
-                .map(ci -> {
-                    // Base: datos del Item
-                    ItemDTO dto = ItemMapper.toDTO(ci.getItem());
-
-                    // Datos específicos de CharacterItem
-                    dto.setId(ci.getId()); // No es el id del Item, sino del CharacterItem
-                    dto.setCurrentUses(ci.getCurrentUses());
-                    dto.setQuantity(ci.getQuantity());
-                    dto.setEquipped(ci.isEquipped());
-                    dto.setAttuned(ci.isAttuned());
-
-                    // Propiedades: datos del Item + CharacterItemProperty
-                    List<ItemPropertyDTO> propertyDTOs = ci.getItem().getProperties().stream()
-                            .map(property -> {
-                                ItemPropertyDTO propDTO = ItemPropertyMapper.toDTO(property);
-                                characterItemPropertyRepository
-                                        .findByCharacterItemAndProperty(ci, property)
-                                        .ifPresent(charItemProp -> {
-                                            propDTO.setId(charItemProp.getId()); // usamos ID de CharacterItemProperty
-                                            propDTO.setCurrentUses(charItemProp.getCurrentUses());
-                                        });
-                                return propDTO;
-                            })
-                            .toList();
-
-                    dto.setPropertyDTOList(propertyDTOs);
-                    return dto;
+                .map(ci -> toCharacterDTO(ci, snapshot))
+                .toList();
+    }
+
+    // Ítems de una página del listado, en el mismo orden que los ids.
+    // Con characterId se devuelven sus CharacterItem (puede haber varios por ítem), igual que getAllItemsForCharacter
+    public List<ItemDTO> getItemsByIds(List<Long> ids, Long characterId) {
+        if (ids.isEmpty()) return List.of();
+
+        if (characterId == null) {
+            Map<Long, Item> items = itemRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Item::getId, Function.identity()));
+            return ids.stream()
+                    .map(items::get)
+                    .filter(Objects::nonNull)
+                    .map(this::toDTOWithProperties)
+                    .toList();
+        }
+
+        List<CharacterItem> found = characterItemRepository.findByCharacterIdAndItemIds(characterId, ids);
+        StatSnapshot snapshot = snapshotOf(found);
+        Map<Long, List<CharacterItem>> characterItems = found.stream()
+                .collect(Collectors.groupingBy(ci -> ci.getItem().getId()));
+        return ids.stream()
+                .flatMap(id -> characterItems.getOrDefault(id, List.of()).stream())
+                .map(ci -> toCharacterDTO(ci, snapshot))
+                .toList();
+    }
+
+    private ItemDTO toDTO(Item item) {
+        ItemDTO dto = ItemMapper.toDTO(item);
+        dto.setEffectiveMaxUses(effectiveMaxUses(item, null));
+        return dto;
+    }
+
+    private ItemDTO toDTOWithProperties(Item item) {
+        ItemDTO dto = toDTO(item);
+        // Mapear las propiedades base del ítem
+        List<ItemPropertyDTO> propertyDTOs = item.getProperties().stream()
+                .map(ItemPropertyMapper::toDTO)
+                .toList();
+        dto.setPropertyDTOList(propertyDTOs);
+        return dto;
+    }
+
+    private ItemDTO toCharacterDTO(CharacterItem ci, StatSnapshot snapshot) {
+        // Base: datos del Item
+        ItemDTO dto = ItemMapper.toDTO(ci.getItem());
+        dto.setEffectiveMaxUses(effectiveMaxUses(ci.getItem(), snapshot));
+        dto.setRenderedDescription(templateEngine.render(ci.getItem().getDescriptionTemplate(), snapshot));
+        dto.setRenderedSummary(templateEngine.render(ci.getItem().getSummaryTemplate(), snapshot));
+
+        // Datos específicos de CharacterItem
+        dto.setId(ci.getId()); // No es el id del Item, sino del CharacterItem
+        dto.setCurrentUses(ci.getCurrentUses());
+        dto.setQuantity(ci.getQuantity());
+        dto.setEquipped(ci.isEquipped());
+        dto.setAttuned(ci.isAttuned());
+
+        // Propiedades: datos del Item + CharacterItemProperty
+        List<ItemPropertyDTO> propertyDTOs = ci.getItem().getProperties().stream()
+                .map(property -> {
+                    ItemPropertyDTO propDTO = ItemPropertyMapper.toDTO(property);
+                    propDTO.setRenderedDescription(templateEngine.render(property.getDescription(), snapshot));
+                    characterItemPropertyRepository
+                            .findByCharacterItemAndProperty(ci, property)
+                            .ifPresent(charItemProp -> {
+                                propDTO.setId(charItemProp.getId()); // usamos ID de CharacterItemProperty
+                                propDTO.setCurrentUses(charItemProp.getCurrentUses());
+                            });
+                    return propDTO;
                 })
                 .toList();
+
+        dto.setPropertyDTOList(propertyDTOs);
+        return dto;
     }
 
+    // Todas las relaciones son del mismo personaje, basta con una copia de sus estadísticas
+    private static StatSnapshot snapshotOf(List<CharacterItem> characterItems) {
+        return characterItems.isEmpty() ? null : StatSnapshot.of(characterItems.get(0).getCharacter());
+    }
+
+    public Integer effectiveMaxUses(Item item, StatSnapshot snapshot) {
+        return formulaEngine.effectiveMaxUses(item.isMaxUsesAutoCalculated(), item.getMaxUsesAutoFormula(), item.getMaxUses(), snapshot);
+    }
+
+    // Las plantillas solo si cambian respecto a las anteriores (null al crear)
+    private void validateFormula(Item item, String descriptionBefore, String summaryBefore) {
+        if (item.isMaxUsesAutoCalculated()) {
+            formulaEngine.validate(item.getMaxUsesAutoFormula(), "usos máximos del ítem");
+        }
+        templateEngine.validateChanged(descriptionBefore, item.getDescriptionTemplate(), "la descripción");
+        templateEngine.validateChanged(summaryBefore, item.getSummaryTemplate(), "el resumen");
+    }
 
-    public ItemDTO getItemDTOById(Long id) { return ItemMapper.toDTO(getItemById(id)); }
+
+    public ItemDTO getItemDTOById(Long id) { return toDTO(getItemById(id)); }
 
     public Item getItemById(Long id) {
         return itemRepository.findById(id)
@@ -122,9 +212,16 @@ public class ItemService {
 
         // 2) Verificar si la categoría ha cambiado
         boolean categoryChanged = !existingItem.getCategory().equals(dto.getCategory());
+        boolean wasArmor = existingItem instanceof Armor;
 
         // 3) Actualizar campos comunes (sin tocar propiedades)
+        String descriptionBefore = existingItem.getDescriptionTemplate();
+        String summaryBefore = existingItem.getSummaryTemplate();
         ItemMapper.updateEntity(existingItem, dto);
+        validateFormula(existingItem, descriptionBefore, summaryBefore);
+        if (dto.getCategory() == ItemCategory.ARMOR) {
+            armorClassCalculator.validate(dto.getArmorClassFormula());
+        }
 
         // 4) Manejar el cambio de categoría si es necesario
         if (categoryChanged) {
@@ -170,7 +267,15 @@ public class ItemService {
         }
 
         // 5) Guardar el item (las propiedades se mantienen intactas)
-        itemRepository.save(existingItem);
+        Item saved = itemRepository.save(existingItem);
+        eventPublisher.publishEvent(CatalogChangedEvent.saved(CatalogDocument.of(saved)));
+
+        // 6) Recalcular la CA de quien la lleve equipada (ha podido cambiar la fórmula o dejar de ser armadura)
+        if (wasArmor || saved instanceof Armor) {
+            characterItemRepository.findCharactersWithEquippedItem(id)
+                    .forEach(armorClassCalculator::recompute);
+        }
+        publishToHolders(id);
     }
 
 
@@ -178,7 +283,17 @@ public class ItemService {
         if (!itemRepository.existsById(id)) {
             throw new NotFoundException("Ítem no encontrado");
         }
+        List<Long> holders = characterItemRepository.findCharacterIdsByItemId(id);
         itemRepository.deleteById(id);
+        eventPublisher.publishEvent(CatalogChangedEvent.deleted(CatalogEntryType.ITEM, id));
+        holders.forEach(characterId ->
+                eventPublisher.publishEvent(LiveEvent.changed(characterId, LiveEventType.ITEMS_CHANGED, List.of(id))));
+    }
+
+    // Avisa a los personajes que tienen el ítem de que lo vuelvan a pedir
+    private void publishToHolders(Long itemId) {
+        characterItemRepository.findCharacterIdsByItemId(itemId).forEach(characterId ->
+                eventPublisher.publishEvent(LiveEvent.changed(characterId, LiveEventType.ITEMS_CHANGED, List.of(itemId))));
     }
 
     // Propiedades
@@ -203,6 +318,7 @@ public class ItemService {
 
             // Actualizar todos los CharacterItem existentes que tengan este ítem
             updateExistingCharacterItemsWithNewProperties(itemId, propertiesToAdd);
+            publishToHolders(itemId);
         }
     }
 
@@ -236,6 +352,7 @@ public class ItemService {
         item.getProperties().removeIf(prop -> propertyIds.contains(prop.getId()));
 
         itemRepository.save(item);
+        publishToHolders(itemId);
     }
 
 
@@ -258,6 +375,7 @@ public class ItemService {
         return characterItemProperty.getCharacterItem().getCharacter().getId();
     }
 
+    @Transactional
     public void updateCharacterItem(Long characterItemId, ItemDTO dto) {
         CharacterItem characterItem = characterItemRepository.findById(characterItemId)
                 .orElseThrow(() -> new NotFoundException("CharacterItem no encontrado"));
@@ -269,6 +387,7 @@ public class ItemService {
         if (dto.getQuantity() != null) {
             characterItem.setQuantity(dto.getQuantity());
         }
+        boolean equipChanged = dto.getEquipped() != null && dto.getEquipped() != characterItem.isEquipped();
         if (dto.getEquipped() != null) {
             characterItem.setEquipped(dto.getEquipped());
         }
@@ -277,6 +396,17 @@ public class ItemService {
         }
 
         characterItemRepository.save(characterItem);
+
+        // Ponerse o quitarse una armadura cambia la CA; el personaje ya está cargado con el CharacterItem
+        Long characterId = characterItem.getCharacter().getId();
+        eventPublisher.publishEvent(LiveEvent.changed(characterId, LiveEventType.ITEMS_CHANGED,
+                List.of(characterItem.getItem().getId())));
+        if (equipChanged && armorClassCalculator.affectsArmorClass(characterItem)) {
+            if (armorClassCalculator.recompute(characterItem.getCharacter())) {
+                eventPublisher.publishEvent(LiveEvent.character(characterId, LiveEventType.CHARACTER_UPDATED,
+                        CharacterMapper.toDTO(characterItem.getCharacter())));
+            }
+        }
     }
 
     public void updateCharacterItemProperty(Long characterItemPropertyId, ItemPropertyDTO dto) {
@@ -289,6 +419,9 @@ public class ItemService {
         }
 
         characterItemPropertyRepository.save(characterItemProperty);
+        CharacterItem characterItem = characterItemProperty.getCharacterItem();
+        eventPublisher.publishEvent(LiveEvent.changed(characterItem.getCharacter().getId(),
+                LiveEventType.ITEMS_CHANGED, List.of(characterItem.getItem().getId())));
     }
 
 }
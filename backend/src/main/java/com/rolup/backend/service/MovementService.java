@@ -0,0 +1,175 @@
+package com.rolup.backend.service;
+
+import com.rolup.backend.dto.encounterDTOs.MovementDTO;
+import com.rolup.backend.exception.BadRequestException;
+import com.rolup.backend.exception.NotFoundException;
+import com.rolup.backend.model.character_related.Character;
+import com.rolup.backend.repository.CharacterRepository;
+import com.rolup.backend.service.battlemap.MapGrid;
+import com.rolup.backend.service.battlemap.PathFinder;
+import com.rolup.backend.service.combat.EncounterEngine;
+import com.rolup.backend.service.combat.EncounterSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Movimiento de los combatientes por el mapa del encuentro: casillas a las que llegan con su velocidad (la de la
+// ficha para los personajes) y caminos. Lo alcanzable se guarda por casilla de salida, velocidad y casillas ocupadas
+// hasta que cambia el mapa, así que marcarlo otra vez en el cliente no vuelve a buscar
+@Service
+public class MovementService {
+
+    private static final int DEFAULT_SPEED = 30; // Pies, para las criaturas y las fichas sin velocidad
+    private static final int MAX_CACHED = 128;   // Por encuentro
+
+    private final BattleMapService battleMapService;
+    private final EncounterEngine encounterEngine;
+    private final CharacterRepository characterRepository;
+    private final PathFinder pathFinder;
+    private final Map<Long, ReachCache> caches = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MovementService(BattleMapService battleMapService,
+                           EncounterEngine encounterEngine,
+                           CharacterRepository characterRepository,
+                           PathFinder pathFinder) {
+        this.battleMapService = battleMapService;
+        this.encounterEngine = encounterEngine;
+        this.characterRepository = characterRepository;
+        this.pathFinder = pathFinder;
+    }
+
+    // speed: pies a usar en vez de los de la ficha; dash: correr (el doble)
+    public MovementDTO reachable(Long encounterId, Long combatantId, Integer speed, boolean dash) {
+        Mover mover = mover(encounterId, combatantId);
+        int budget = speed(mover.view(), speed) * (dash ? 2 : 1);
+
+        ReachCache cache = caches.computeIfAbsent(encounterId, id -> new ReachCache());
+        ReachKey key = new ReachKey(mover.start(), budget, mover.impassable(), mover.occupied());
+        BitSet reachable = cache.get(mover.grid().version(), key);
+        if (reachable == null) {
+            reachable = pathFinder.reachable(mover.grid(), mover.impassable(), mover.occupied(), mover.start(), budget);
+            cache.put(mover.grid().version(), key, reachable);
+        }
+
+        MovementDTO dto = base(mover, budget);
+        dto.setReachable(MapGrid.runs(reachable));
+        return dto;
+    }
+
+    public MovementDTO path(Long encounterId, Long combatantId, int x, int y, Integer speed, boolean dash) {
+        Mover mover = mover(encounterId, combatantId);
+        if (!mover.grid().inside(x, y)) {
+            throw new BadRequestException("La casilla está fuera del mapa");
+        }
+        PathFinder.Path path = pathFinder.path(mover.grid(), mover.impassable(), mover.occupied(), mover.start(),
+                mover.grid().index(x, y));
+        if (path == null) {
+            throw new BadRequestException("No se puede llegar a esa casilla");
+        }
+
+        int budget = speed(mover.view(), speed) * (dash ? 2 : 1);
+        MovementDTO dto = base(mover, budget);
+        int width = mover.grid().width();
+        int[] cells = new int[path.cells().length * 2];
+        for (int i = 0; i < path.cells().length; i++) {
+            cells[2 * i] = path.cells()[i] % width;
+            cells[2 * i + 1] = path.cells()[i] / width;
+        }
+        dto.setPath(cells);
+        dto.setCost(path.cost());
+        dto.setWithinSpeed(path.cost() <= budget);
+        return dto;
+    }
+
+    public void forget(Long encounterId) {
+        caches.remove(encounterId);
+    }
+
+    // Lo que hace falta para buscar: el mapa, dónde está y qué casillas ocupan los demás (las de los enemigos no se
+    // pueden atravesar; las de los aliados sí, pero no se puede acabar en ellas). Las criaturas derrotadas no estorban
+    private record Mover(EncounterSnapshot.CombatantView view, MapGrid grid, int start, BitSet impassable,
+                         BitSet occupied) {
+    }
+
+    private Mover mover(Long encounterId, Long combatantId) {
+        MapGrid grid = battleMapService.grid(encounterId);
+        if (grid == null) {
+            throw new NotFoundException("El encuentro no tiene mapa");
+        }
+        EncounterSnapshot snapshot = encounterEngine.snapshot(encounterId);
+        EncounterSnapshot.CombatantView mover = snapshot.combatants().stream()
+                .filter(view -> view.id() == combatantId)
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Combatiente no encontrado"));
+        if (mover.x() == null || !grid.inside(mover.x(), mover.y())) {
+            throw new BadRequestException("El combatiente no está en el mapa");
+        }
+
+        BitSet impassable = new BitSet();
+        BitSet occupied = new BitSet();
+        boolean player = mover.characterId() != null;
+        for (EncounterSnapshot.CombatantView other : snapshot.combatants()) {
+            if (other.id() == combatantId || other.x() == null || !grid.inside(other.x(), other.y())) continue;
+            if (other.defeated() && other.characterId() == null) continue;
+            int cell = grid.index(other.x(), other.y());
+            occupied.set(cell);
+            if ((other.characterId() != null) != player) impassable.set(cell);
+        }
+        return new Mover(mover, grid, grid.index(mover.x(), mover.y()), impassable, occupied);
+    }
+
+    private int speed(EncounterSnapshot.CombatantView view, Integer requested) {
+        if (requested != null) {
+            if (requested < 0) throw new BadRequestException("La velocidad no puede ser negativa");
+            return requested;
+        }
+        if (view.characterId() == null) return DEFAULT_SPEED;
+        int speed = characterRepository.findById(view.characterId()).map(Character::getSpeed).orElse(0);
+        return speed > 0 ? speed : DEFAULT_SPEED;
+    }
+
+    private static MovementDTO base(Mover mover, int budget) {
+        MovementDTO dto = new MovementDTO();
+        dto.setCombatantId(mover.view().id());
+        dto.setX(mover.view().x());
+        dto.setY(mover.view().y());
+        dto.setSpeed(budget);
+        dto.setMapVersion(mover.grid().version());
+        dto.setWidth(mover.grid().width());
+        return dto;
+    }
+
+    // BitSet compara por contenido, así que dos búsquedas con los mismos obstáculos dan la misma clave
+    private record ReachKey(int start, int budget, BitSet impassable, BitSet occupied) {
+    }
+
+    // Se vacía en cuanto llega una versión del mapa distinta
+    private static final class ReachCache {
+
+        private long mapVersion = -1;
+        private final Map<ReachKey, BitSet> entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ReachKey, BitSet> eldest) {
+                return size() > MAX_CACHED;
+            }
+        };
+
+        synchronized BitSet get(long version, ReachKey key) {
+            if (version != mapVersion) return null;
+            return entries.get(key);
+        }
+
+        synchronized void put(long version, ReachKey key, BitSet reachable) {
+            if (version != mapVersion) {
+                entries.clear();
+                mapVersion = version;
+            }
+            entries.put(key, reachable);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.rolup.backend.service;
+
+import com.rolup.backend.dto.characterDTOs.CharacterRestDTO;
+import com.rolup.backend.exception.BadRequestException;
+import com.rolup.backend.exception.NotFoundException;
+import com.rolup.backend.model.character_related.Character;
+import com.rolup.backend.model.enums.RestType;
+import com.rolup.backend.repository.CharacterItemPropertyRepository;
+import com.rolup.backend.repository.CharacterItemRepository;
+import com.rolup.backend.repository.CharacterRepository;
+import com.rolup.backend.repository.CharacterSkillRepository;
+import com.rolup.backend.service.formula.FormulaEngine;
+import com.rolup.backend.service.formula.StatSnapshot;
+import com.rolup.backend.service.live.LiveEvent;
+import com.rolup.backend.service.live.LiveEventType;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Descansos de uno o varios personajes a la vez (todo el grupo).
+// Cada tipo de dato se restaura con un UPDATE sobre todos los personajes que toma el máximo del catálogo; antes se
+// lee lo que no está al máximo para devolver solo lo que cambia. Los usos con fórmula se evalúan por personaje y se
+// guardan con un UPDATE por cada valor distinto
+@Service
+public class RestService {
+
+    private final CharacterRepository characterRepository;
+    private final CharacterSkillRepository characterSkillRepository;
+    private final CharacterItemRepository characterItemRepository;
+    private final CharacterItemPropertyRepository characterItemPropertyRepository;
+    private final FormulaEngine formulaEngine;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public RestService(CharacterRepository characterRepository,
+                       CharacterSkillRepository characterSkillRepository,
+                       CharacterItemRepository characterItemRepository,
+                       CharacterItemPropertyRepository characterItemPropertyRepository,
+                       FormulaEngine formulaEngine,
+                       ApplicationEventPublisher eventPublisher) {
+        this.characterRepository = characterRepository;
+        this.characterSkillRepository = characterSkillRepository;
+        this.characterItemRepository = characterItemRepository;
+        this.characterItemPropertyRepository = characterItemPropertyRepository;
+        this.formulaEngine = formulaEngine;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional
+    public List<CharacterRestDTO> rest(List<Long> characterIds, RestType restType) {
+        Set<RestType> resets = switch (restType) {
+            case SHORT_REST -> EnumSet.of(RestType.SHORT_REST);
+            case LONG_REST -> EnumSet.of(RestType.SHORT_REST, RestType.LONG_REST); // Un descanso largo incluye uno corto
+            default -> throw new BadRequestException("Solo se puede hacer un descanso corto o largo");
+        };
+
+        Set<Long> ids = new LinkedHashSet<>(characterIds);
+        List<Character> characters = characterRepository.findAllById(ids);
+        if (characters.size() != ids.size()) {
+            throw new NotFoundException("Personaje no encontrado");
+        }
+
+        Map<Long, CharacterRestDTO> deltas = new LinkedHashMap<>();
+        Map<Long, StatSnapshot> snapshots = new HashMap<>();
+        for (Character character : characters) {
+            deltas.put(character.getId(), new CharacterRestDTO(character.getId()));
+            snapshots.put(character.getId(), StatSnapshot.of(character));
+        }
+
+        if (restType == RestType.LONG_REST) {
+            restoreHitPointsAndSpellSlots(characters, deltas);
+        }
+        restoreSkills(ids, resets, deltas, snapshots);
+        restoreItems(ids, resets, deltas, snapshots);
+        restoreItemProperties(ids, resets, deltas);
+
+        // Salen al hacer commit: cada jugador recibe solo lo de su personaje
+        deltas.forEach((characterId, delta) ->
+                eventPublisher.publishEvent(LiveEvent.character(characterId, LiveEventType.CHARACTER_RESTED, delta)));
+        return new ArrayList<>(deltas.values());
+    }
+
+    private void restoreHitPointsAndSpellSlots(List<Character> characters, Map<Long, CharacterRestDTO> deltas) {
+        for (Character character : characters) {
+            CharacterRestDTO delta = deltas.get(character.getId());
+            if (character.getCurrentHp() != character.getMaxHp()) delta.setCurrentHp(character.getMaxHp());
+            if (character.getTempHp() != 0) delta.setTempHp(0);
+
+            // Misma cuenta que el UPDATE
+            int max = character.getHitDiceMaxAmount();
+            int hitDice = Math.min(max, character.getHitDiceCurrentAmount() + Math.max(1, max / 2));
+            if (hitDice != character.getHitDiceCurrentAmount()) delta.setHitDiceCurrentAmount(hitDice);
+        }
+
+        for (Object[] row : characterRepository.findSpellSlotsToRestore(deltas.keySet())) {
+            deltas.get(((Number) row[0]).longValue()).getSpellSlots()
+                    .put(((Number) row[1]).intValue(), ((Number) row[2]).intValue());
+        }
+
+        characterRepository.restoreHitPointsAndHitDice(deltas.keySet());
+        characterRepository.restoreSpellSlots(deltas.keySet());
+    }
+
+    private void restoreSkills(Set<Long> ids, Set<RestType> resets, Map<Long, CharacterRestDTO> deltas,
+                               Map<Long, StatSnapshot> snapshots) {
+        for (Object[] row : characterSkillRepository.findFixedUsesToRestore(ids, resets)) {
+            deltas.get((Long) row[0]).getSkills().put((Long) row[1], (Integer) row[2]);
+        }
+        characterSkillRepository.restoreFixedUses(ids, resets);
+
+        // [characterSkillId, characterId, skillId, autoFormula, currentUses]
+        Map<Integer, List<Long>> byUses = new HashMap<>();
+        for (Object[] row : characterSkillRepository.findFormulaUsesToRestore(ids, resets)) {
+            Integer uses = formulaEngine.effectiveMaxUses(true, (String) row[3], null, snapshots.get((Long) row[1]));
+            if (uses == null || Objects.equals(uses, row[4])) continue;
+
+            deltas.get((Long) row[1]).getSkills().put((Long) row[2], uses);
+            byUses.computeIfAbsent(uses, u -> new ArrayList<>()).add((Long) row[0]);
+        }
+        byUses.forEach((uses, characterSkillIds) -> characterSkillRepository.setCurrentUses(characterSkillIds, uses));
+    }
+
+    private void restoreItems(Set<Long> ids, Set<RestType> resets, Map<Long, CharacterRestDTO> deltas,
+                              Map<Long, StatSnapshot> snapshots) {
+        for (Object[] row : characterItemRepository.findFixedUsesToRestore(ids, resets)) {
+            deltas.get((Long) row[1]).getItems().put((Long) row[0], (Integer) row[2]);
+        }
+        characterItemRepository.restoreFixedUses(ids, resets);
+
+        // [characterItemId, characterId, maxUsesAutoFormula, currentUses]
+        Map<Integer, List<Long>> byUses = new HashMap<>();
+        for (Object[] row : characterItemRepository.findFormulaUsesToRestore(ids, resets)) {
+            Integer uses = formulaEngine.effectiveMaxUses(true, (String) row[2], null, snapshots.get((Long) row[1]));
+            if (uses == null || Objects.equals(uses, row[3])) continue;
+
+            deltas.get((Long) row[1]).getItems().put((Long) row[0], uses);
+            byUses.computeIfAbsent(uses, u -> new ArrayList<>()).add((Long) row[0]);
+        }
+        byUses.forEach((uses, characterItemIds) -> characterItemRepository.setCurrentUses(characterItemIds, uses));
+    }
+
+    private void restoreItemProperties(Set<Long> ids, Set<RestType> resets, Map<Long, CharacterRestDTO> deltas) {
+        for (Object[] row : characterItemPropertyRepository.findUsesToRestore(ids, resets)) {
+            deltas.get((Long) row[1]).getItemProperties().put((Long) row[0], (Integer) row[2]);
+        }
+        characterItemPropertyRepository.restoreUses(ids, resets);
+    }
+}
@@ -0,0 +1,256 @@
+package com.rolup.backend.service;
+
+import com.rolup.backend.dto.encounterDTOs.CharacterRewardDTO;
+import com.rolup.backend.dto.encounterDTOs.RewardDTO;
+import com.rolup.backend.exception.BadRequestException;
+import com.rolup.backend.exception.NotFoundException;
+import com.rolup.backend.model.character_related.Character;
+import com.rolup.backend.model.character_related.CharacterItem;
+import com.rolup.backend.model.combat.Reward;
+import com.rolup.backend.model.item_related.Item;
+import com.rolup.backend.repository.CharacterItemRepository;
+import com.rolup.backend.repository.CharacterRepository;
+import com.rolup.backend.repository.ItemRepository;
+import com.rolup.backend.repository.RewardRepository;
+import com.rolup.backend.service.catalog.CatalogAssignmentsChangedEvent;
+import com.rolup.backend.service.catalog.CatalogEntryType;
+import com.rolup.backend.service.combat.EncounterEngine;
+import com.rolup.backend.service.combat.EncounterSnapshot;
+import com.rolup.backend.service.formula.StatSnapshot;
+import com.rolup.backend.service.live.LiveEvent;
+import com.rolup.backend.service.live.LiveEventType;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Recompensas para el grupo: experiencia y monedas repartidas a partes iguales e ítems para quien se diga.
+// Todo va en una transacción: la experiencia y las monedas con un UPDATE por cada reparto distinto (como mucho tres:
+// los restos se dan de uno en uno a los primeros), y los ítems apilables que ya se tienen con un UPDATE por ítem y
+// cantidad. Solo los ítems nuevos se insertan fila a fila. Cada personaje recibe un único aviso con todo lo suyo
+@Service
+public class RewardService {
+
+    private static final int COPPER = 0, SILVER = 1, ELECTRUM = 2, GOLD = 3, PLATINUM = 4;
+
+    private final CharacterRepository characterRepository;
+    private final CharacterItemRepository characterItemRepository;
+    private final ItemRepository itemRepository;
+    private final RewardRepository rewardRepository;
+    private final CharacterService characterService;
+    private final EncounterEngine encounterEngine;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public RewardService(CharacterRepository characterRepository,
+                         CharacterItemRepository characterItemRepository,
+                         ItemRepository itemRepository,
+                         RewardRepository rewardRepository,
+                         CharacterService characterService,
+                         EncounterEngine encounterEngine,
+                         ApplicationEventPublisher eventPublisher) {
+        this.characterRepository = characterRepository;
+        this.characterItemRepository = characterItemRepository;
+        this.itemRepository = itemRepository;
+        this.rewardRepository = rewardRepository;
+        this.characterService = characterService;
+        this.encounterEngine = encounterEngine;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // Sin characterIds se reparte entre los personajes que hay en el encuentro
+    @Transactional
+    public List<CharacterRewardDTO> rewardEncounter(Long encounterId, RewardDTO dto) {
+        if (dto.getCharacterIds().isEmpty()) {
+            EncounterSnapshot snapshot = encounterEngine.snapshot(encounterId);
+            dto.setCharacterIds(snapshot.combatants().stream()
+                    .map(EncounterSnapshot.CombatantView::characterId)
+                    .filter(Objects::nonNull)
+                    .toList());
+        }
+        return reward(encounterId, dto);
+    }
+
+    @Transactional
+    public List<CharacterRewardDTO> reward(Long encounterId, RewardDTO dto) {
+        Set<Long> sharers = new LinkedHashSet<>(dto.getCharacterIds());
+        int[] coins = new int[5];
+        for (int i = 0; i < dto.getCoins().size(); i++) {
+            coins[i] = Objects.requireNonNullElse(dto.getCoins().get(i), 0);
+        }
+        boolean sharesSomething = dto.getExperience() > 0 || Arrays.stream(coins).anyMatch(c -> c > 0);
+        if (sharesSomething && sharers.isEmpty()) {
+            throw new BadRequestException("No hay personajes entre los que repartir");
+        }
+        if (!sharesSomething && dto.getItems().isEmpty()) {
+            throw new BadRequestException("La recompensa está vacía");
+        }
+
+        Set<Long> ids = new LinkedHashSet<>(sharers);
+        dto.getItems().forEach(grant -> ids.add(grant.getCharacterId()));
+        Map<Long, Character> characters = characterRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Character::getId, Function.identity()));
+        if (characters.size() != ids.size()) {
+            throw new NotFoundException("Personaje no encontrado");
+        }
+
+        Map<Long, CharacterRewardDTO> results = new LinkedHashMap<>();
+        for (Long id : ids) {
+            CharacterRewardDTO result = new CharacterRewardDTO(id);
+            result.setExperience(characters.get(id).getExperience());
+            result.setCoins(coinsOf(characters.get(id)));
+            results.put(id, result);
+        }
+
+        shareExperienceAndCoins(new ArrayList<>(sharers), dto.getExperience(), coins, results);
+        List<Long> itemIds = grantItems(dto.getItems(), characters, results);
+
+        Reward reward = new Reward();
+        reward.setEncounterId(encounterId);
+        reward.setExperience(dto.getExperience());
+        reward.setCoins(Arrays.stream(coins).boxed().toList());
+        reward.setCharacterIds(new ArrayList<>(sharers));
+        dto.getItems().forEach(grant -> reward.getItems().add(
+                new Reward.GrantedItem(grant.getCharacterId(), grant.getItemId(), grant.getQuantity())));
+        reward.setCreatedAt(Instant.now());
+        rewardRepository.save(reward);
+
+        // Salen al hacer commit
+        if (!itemIds.isEmpty()) {
+            eventPublisher.publishEvent(new CatalogAssignmentsChangedEvent(CatalogEntryType.ITEM, itemIds));
+        }
+        results.forEach((characterId, result) ->
+                eventPublisher.publishEvent(LiveEvent.character(characterId, LiveEventType.CHARACTER_REWARDED, result)));
+        return new ArrayList<>(results.values());
+    }
+
+    private void shareExperienceAndCoins(List<Long> sharers, int experience, int[] coins,
+                                         Map<Long, CharacterRewardDTO> results) {
+        if (sharers.isEmpty()) return;
+
+        // Reparto de cada uno: [experiencia, cobre, plata, electrum, oro, platino]
+        int n = sharers.size();
+        int[][] shares = new int[n][6];
+        split(experience, n, shares, 0);
+
+        // Lo que no se puede repartir de una moneda se cambia a la inferior para no perderlo
+        int[] left = coins.clone();
+        for (int[] share : shares) share[1 + PLATINUM] = left[PLATINUM] / n;
+        left[GOLD] += left[PLATINUM] % n * 10;
+        for (int[] share : shares) share[1 + GOLD] = left[GOLD] / n;
+        left[SILVER] += left[GOLD] % n * 10;
+        for (int[] share : shares) share[1 + ELECTRUM] = left[ELECTRUM] / n;
+        left[SILVER] += left[ELECTRUM] % n * 5;
+        for (int[] share : shares) share[1 + SILVER] = left[SILVER] / n;
+        left[COPPER] += left[SILVER] % n * 10;
+        split(left[COPPER], n, shares, 1 + COPPER);
+
+        Map<List<Integer>, List<Long>> byShare = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            List<Integer> share = Arrays.stream(shares[i]).boxed().toList();
+            byShare.computeIfAbsent(share, s -> new ArrayList<>()).add(sharers.get(i));
+
+            CharacterRewardDTO result = results.get(sharers.get(i));
+            result.setExperienceGained(share.get(0));
+            result.setCoinsGained(share.subList(1, 6));
+            result.setExperience(result.getExperience() + share.get(0));
+            for (int c = 0; c < 5; c++) {
+                result.getCoins().set(c, result.getCoins().get(c) + share.get(1 + c));
+            }
+        }
+
+        byShare.forEach((share, characterIds) -> characterRepository.addExperienceAndCoins(characterIds, share.get(0),
+                share.get(1 + COPPER), share.get(1 + SILVER), share.get(1 + ELECTRUM), share.get(1 + GOLD),
+                share.get(1 + PLATINUM)));
+    }
+
+    // Siempre 5 valores (puede que el personaje no tenga monedas o tenga menos)
+    private static List<Integer> coinsOf(Character character) {
+        List<Integer> coins = new ArrayList<>();
+        for (int c = 0; c < 5; c++) {
+            Integer had = character.getCoins() != null && c < character.getCoins().size()
+                    ? character.getCoins().get(c)
+                    : null;
+            coins.add(Objects.requireNonNullElse(had, 0));
+        }
+        return coins;
+    }
+
+    // A partes iguales; el resto, de uno en uno a los primeros
+    private static void split(int total, int n, int[][] shares, int column) {
+        for (int i = 0; i < n; i++) {
+            shares[i][column] = total / n + (i < total % n ? 1 : 0);
+        }
+    }
+
+    private List<Long> grantItems(List<RewardDTO.ItemGrant> grants, Map<Long, Character> characters,
+                                  Map<Long, CharacterRewardDTO> results) {
+        if (grants.isEmpty()) return List.of();
+
+        // Cantidad por personaje e ítem
+        Map<Long, Map<Long, Integer>> quantities = new LinkedHashMap<>();
+        for (RewardDTO.ItemGrant grant : grants) {
+            quantities.computeIfAbsent(grant.getCharacterId(), id -> new LinkedHashMap<>())
+                    .merge(grant.getItemId(), grant.getQuantity(), Integer::sum);
+        }
+        Set<Long> itemIds = new LinkedHashSet<>();
+        quantities.values().forEach(perItem -> itemIds.addAll(perItem.keySet()));
+
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        if (items.size() != itemIds.size()) {
+            throw new NotFoundException("Ítem no encontrado");
+        }
+
+        Set<List<Long>> held = new HashSet<>(); // [characterId, itemId]
+        for (Object[] row : characterItemRepository.findHeldItems(quantities.keySet(), itemIds)) {
+            held.add(List.of((Long) row[0], (Long) row[1]));
+        }
+
+        // Los apilables que ya se tienen: un UPDATE por ítem y cantidad; el resto son filas nuevas
+        Map<List<Object>, List<Long>> increments = new LinkedHashMap<>(); // [itemId, cantidad] -> personajes
+        List<CharacterItem> created = new ArrayList<>();
+        quantities.forEach((characterId, perItem) -> {
+            Character character = characters.get(characterId);
+            StatSnapshot snapshot = null;
+            for (Map.Entry<Long, Integer> entry : perItem.entrySet()) {
+                Item item = items.get(entry.getKey());
+                int quantity = entry.getValue();
+                results.get(characterId).getItems().put(item.getId(), quantity);
+
+                if (item.isStackable() && held.contains(List.of(characterId, item.getId()))) {
+                    increments.computeIfAbsent(List.of(item.getId(), quantity), k -> new ArrayList<>()).add(characterId);
+                    continue;
+                }
+                if (snapshot == null) snapshot = StatSnapshot.of(character);
+                if (item.isStackable()) {
+                    CharacterItem ci = characterService.newCharacterItem(character, item, snapshot);
+                    ci.setQuantity(quantity);
+                    created.add(ci);
+                } else {
+                    for (int i = 0; i < quantity; i++) {
+                        created.add(characterService.newCharacterItem(character, item, snapshot));
+                    }
+                }
+            }
+        });
+
+        increments.forEach((key, characterIds) ->
+                characterItemRepository.addQuantity(characterIds, (Long) key.get(0), (Integer) key.get(1)));
+        characterItemRepository.saveAll(created);
+        return new ArrayList<>(itemIds);
+    }
+}
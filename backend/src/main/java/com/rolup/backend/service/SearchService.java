@@ -0,0 +1,63 @@
+package com.rolup.backend.service;
+
+import com.rolup.backend.dto.catalogDTOs.CatalogFilterDTO;
+import com.rolup.backend.dto.catalogDTOs.SearchResultDTO;
+import com.rolup.backend.service.catalog.CatalogDocument;
+import com.rolup.backend.service.catalog.CatalogEntryType;
+import com.rolup.backend.service.catalog.CatalogFilters;
+import com.rolup.backend.service.catalog.CatalogSearchIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+@Service
+public class SearchService {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final CatalogSearchIndex searchIndex;
+    private final CatalogQueryService catalogQueryService;
+
+    @Autowired
+    public SearchService(CatalogSearchIndex searchIndex, CatalogQueryService catalogQueryService) {
+        this.searchIndex = searchIndex;
+        this.catalogQueryService = catalogQueryService;
+    }
+
+    // characterId != null restringe los resultados a lo que ese personaje tiene asignado
+    public List<SearchResultDTO> search(String text, List<CatalogEntryType> types, CatalogFilterDTO filter,
+                                        Long characterId, int limit) {
+        Predicate<CatalogDocument> predicate = CatalogFilters.from(filter);
+
+        if (types != null && !types.isEmpty()) {
+            predicate = predicate.and(doc -> types.contains(doc.type()));
+        }
+        if (characterId != null) {
+            predicate = predicate.and(visibleTo(characterId));
+        }
+
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        return searchIndex.search(text, predicate, boundedLimit).stream()
+                .map(result -> {
+                    CatalogDocument doc = result.document();
+                    return new SearchResultDTO(doc.type(), doc.id(), doc.name(), doc.summary(), doc.iconUrl(), result.score());
+                })
+                .toList();
+    }
+
+    private Predicate<CatalogDocument> visibleTo(Long characterId) {
+        Set<Long> spellIds = catalogQueryService.visibleIds(CatalogEntryType.SPELL, characterId);
+        Set<Long> skillIds = catalogQueryService.visibleIds(CatalogEntryType.SKILL, characterId);
+        Set<Long> itemIds = catalogQueryService.visibleIds(CatalogEntryType.ITEM, characterId);
+
+        return doc -> switch (doc.type()) {
+            case SPELL -> spellIds.contains(doc.id());
+            case SKILL -> skillIds.contains(doc.id());
+            case ITEM -> itemIds.contains(doc.id());
+            default -> false;
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.rolup.backend.service;
+
+import com.rolup.backend.dto.encounterDTOs.SimulationRequestDTO;
+import com.rolup.backend.dto.encounterDTOs.SimulationResultDTO;
+import com.rolup.backend.service.simulation.CombatSimulator;
+import com.rolup.backend.service.simulation.SimulationSetup;
+import com.rolup.backend.service.simulation.SimulationSetupLoader;
+import com.rolup.backend.service.simulation.SimulationTally;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+// Simula un combate del grupo contra unos enemigos para que el DM vea cómo de difícil es antes de lanzarlo.
+// Los datos se cargan en una transacción corta (SimulationSetupLoader) y las tiradas las hace CombatSimulator fuera
+// de ella, sin ocupar una conexión mientras dura
+@Service
+public class SimulationService {
+
+    private final SimulationSetupLoader simulationSetupLoader;
+    private final CombatSimulator combatSimulator;
+
+    @Autowired
+    public SimulationService(SimulationSetupLoader simulationSetupLoader, CombatSimulator combatSimulator) {
+        this.simulationSetupLoader = simulationSetupLoader;
+        this.combatSimulator = combatSimulator;
+    }
+
+    public SimulationResultDTO simulate(SimulationRequestDTO dto) {
+        SimulationSetup setup = simulationSetupLoader.load(dto);
+        long start = System.nanoTime();
+        SimulationTally tally = combatSimulator.run(setup, dto.getIterations(), dto.getTimeBudgetMs());
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        return toResult(setup, tally, dto.getIterations(), elapsedMs);
+    }
+
+    private static SimulationResultDTO toResult(SimulationSetup setup, SimulationTally tally, int requested, long elapsedMs) {
+        SimulationResultDTO result = new SimulationResultDTO();
+        long total = tally.simulations();
+        result.setIterations(total);
+        result.setElapsedMs(elapsedMs);
+        result.setBudgetExhausted(total < requested);
+        if (total == 0) return result;
+
+        result.setPartyWinRate((double) tally.partyWins() / total);
+        result.setOpponentWinRate((double) tally.opponentWins() / total);
+        result.setStalemateRate((double) tally.stalemates() / total);
+        result.setAverageRounds((double) tally.roundsTotal() / total);
+        long[] rounds = tally.rounds();
+        for (int round = 0; round < rounds.length; round++) {
+            if (rounds[round] > 0) result.getRounds().put(round, (double) rounds[round] / total);
+        }
+        for (long bucket : tally.partyHp()) {
+            result.getPartyHpRemaining().add((double) bucket / total);
+        }
+
+        for (int i = 0; i < setup.partySize(); i++) {
+            SimulationSetup.Fighter fighter = setup.fighters().get(i);
+            SimulationResultDTO.MemberResult member = new SimulationResultDTO.MemberResult();
+            member.setCharacterId(fighter.characterId());
+            member.setName(fighter.name());
+            member.setStartingHp(fighter.hp());
+            member.setSurvivalRate((double) tally.survived(i) / total);
+            member.setAverageHp((double) tally.hpTotal(i) / total);
+            long[] hp = tally.hp(i);
+            member.setHpP10(percentile(hp, total, 0.1));
+            member.setHpP50(percentile(hp, total, 0.5));
+            member.setHpP90(percentile(hp, total, 0.9));
+            result.getMembers().add(member);
+        }
+        return result;
+    }
+
+    // Los PG por debajo de los que quedan el p % de los combates, sacados del histograma
+    private static int percentile(long[] histogram, long total, double p) {
+        long needed = Math.max(1, (long) Math.ceil(total * p));
+        long seen = 0;
+        for (int hp = 0; hp < histogram.length; hp++) {
+            seen += histogram[hp];
+            if (seen >= needed) return hp;
+        }
+        return histogram.length - 1;
+    }
+}
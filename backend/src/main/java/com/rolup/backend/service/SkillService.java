@@ -7,10 +7,22 @@ import com.rolup.backend.model.Skill;
 import com.rolup.backend.model.character_related.CharacterSkill;
 import com.rolup.backend.repository.CharacterSkillRepository;
 import com.rolup.backend.repository.SkillRepository;
+import com.rolup.backend.service.catalog.CatalogChangedEvent;
+import com.rolup.backend.service.catalog.CatalogDocument;
+import com.rolup.backend.service.catalog.CatalogEntryType;
+import com.rolup.backend.service.formula.FormulaEngine;
+import com.rolup.backend.service.formula.StatSnapshot;
+import com.rolup.backend.service.formula.TemplateEngine;
+import com.rolup.backend.service.live.LiveEvent;
+import com.rolup.backend.service.live.LiveEventType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,22 +30,32 @@ public class SkillService {
 
     private final SkillRepository skillRepository;
     private final CharacterSkillRepository characterSkillRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FormulaEngine formulaEngine;
+    private final TemplateEngine templateEngine;
 
     @Autowired
-    public SkillService(SkillRepository skillRepository, CharacterSkillRepository characterSkillRepository) {
+    public SkillService(SkillRepository skillRepository, CharacterSkillRepository characterSkillRepository,
+                        ApplicationEventPublisher eventPublisher, FormulaEngine formulaEngine,
+                        TemplateEngine templateEngine) {
         this.skillRepository = skillRepository;
         this.characterSkillRepository = characterSkillRepository;
+        this.eventPublisher = eventPublisher;
+        this.formulaEngine = formulaEngine;
+        this.templateEngine = templateEngine;
     }
 
     public SkillDTO createSkill(SkillDTO dto) {
         Skill skill = SkillMapper.toEntity(dto);
+        validateFormula(skill, null, null);
         Skill saved = skillRepository.save(skill);
-        return SkillMapper.toDTO(saved);
+        eventPublisher.publishEvent(CatalogChangedEvent.saved(CatalogDocument.of(saved)));
+        return toDTO(saved);
     }
 
     public List<SkillDTO> getAllSkillsForAdmin() {
         return skillRepository.findAll().stream()
-                .map(SkillMapper::toDTO)
+                .map(this::toDTO)
                 .toList();
     }
 
@@ -42,22 +64,77 @@ public class SkillService {
         List<CharacterSkill> characterSpells = characterSkillRepository.findByCharacterId(characterId);
 
         // 2. Mapear a DTO incluyendo el origen
+        StatSnapshot snapshot = snapshotOf(characterSpells);
         return characterSpells.stream()
-                .map(cs -> {
-                    Skill skill = cs.getSkill();
-                    SkillDTO dto = SkillMapper.toDTO(skill);
+                .map(cs -> toCharacterDTO(cs, snapshot))
+                .collect(Collectors.toList());
+    }
 
-                    dto.setSource(String.valueOf(cs.getSource()));
-                    dto.setCurrentUses(cs.getCurrentUses());
+    // Habilidades de una página del listado, en el mismo orden que los ids.
+    // Con characterId se devuelven con los datos de la relación, igual que getSkillsForCharacter
+    public List<SkillDTO> getSkillsByIds(List<Long> ids, Long characterId) {
+        if (ids.isEmpty()) return List.of();
+
+        if (characterId == null) {
+            Map<Long, Skill> skills = skillRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Skill::getId, Function.identity()));
+            return ids.stream()
+                    .map(skills::get)
+                    .filter(Objects::nonNull)
+                    .map(this::toDTO)
+                    .toList();
+        }
 
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        List<CharacterSkill> found = characterSkillRepository.findByCharacterIdAndSkillIds(characterId, ids);
+        StatSnapshot snapshot = snapshotOf(found);
+        Map<Long, CharacterSkill> characterSkills = found.stream()
+                .collect(Collectors.toMap(cs -> cs.getSkill().getId(), Function.identity(), (a, b) -> a));
+        return ids.stream()
+                .map(characterSkills::get)
+                .filter(Objects::nonNull)
+                .map(cs -> toCharacterDTO(cs, snapshot))
+                .toList();
+    }
+
+    private SkillDTO toDTO(Skill skill) {
+        SkillDTO dto = SkillMapper.toDTO(skill);
+        dto.setEffectiveMaxUses(effectiveMaxUses(skill, null));
+        return dto;
+    }
+
+    private SkillDTO toCharacterDTO(CharacterSkill cs, StatSnapshot snapshot) {
+        SkillDTO dto = SkillMapper.toDTO(cs.getSkill());
+
+        dto.setSource(String.valueOf(cs.getSource()));
+        dto.setCurrentUses(cs.getCurrentUses());
+        dto.setEffectiveMaxUses(effectiveMaxUses(cs.getSkill(), snapshot));
+        dto.setRenderedDescription(templateEngine.render(cs.getSkill().getDescriptionTemplate(), snapshot));
+        dto.setRenderedSummary(templateEngine.render(cs.getSkill().getSummaryTemplate(), snapshot));
+
+        return dto;
+    }
+
+    // Todas las relaciones son del mismo personaje, basta con una copia de sus estadísticas
+    private static StatSnapshot snapshotOf(List<CharacterSkill> characterSkills) {
+        return characterSkills.isEmpty() ? null : StatSnapshot.of(characterSkills.get(0).getCharacter());
+    }
+
+    public Integer effectiveMaxUses(Skill skill, StatSnapshot snapshot) {
+        return formulaEngine.effectiveMaxUses(skill.isAutoCalculated(), skill.getAutoFormula(), skill.getMaxUses(), snapshot);
+    }
+
+    // Las plantillas solo si cambian respecto a las anteriores (null al crear)
+    private void validateFormula(Skill skill, String descriptionBefore, String summaryBefore) {
+        if (skill.isAutoCalculated()) {
+            formulaEngine.validate(skill.getAutoFormula(), "la habilidad");
+        }
+        templateEngine.validateChanged(descriptionBefore, skill.getDescriptionTemplate(), "la descripción");
+        templateEngine.validateChanged(summaryBefore, skill.getSummaryTemplate(), "el resumen");
     }
 
     public SkillDTO getSkillDTOById(Long id) {
         Skill skill = getSkillById(id);
-        return SkillMapper.toDTO(skill);
+        return toDTO(skill);
     }
 
     public Skill getSkillById(Long id) {
@@ -67,16 +144,30 @@ public class SkillService {
 
     public SkillDTO updateSkill(Long id, SkillDTO dto) {
         Skill existing = getSkillById(id);
+        String descriptionBefore = existing.getDescriptionTemplate();
+        String summaryBefore = existing.getSummaryTemplate();
         SkillMapper.updateEntity(existing, dto);
+        validateFormula(existing, descriptionBefore, summaryBefore);
         Skill updated = skillRepository.save(existing);
-        return SkillMapper.toDTO(updated);
+        eventPublisher.publishEvent(CatalogChangedEvent.saved(CatalogDocument.of(updated)));
+        publishToHolders(id);
+        return toDTO(updated);
     }
 
     public void deleteSkill(Long id) {
         if (!skillRepository.existsById(id)) {
             throw new NotFoundException("Habilidad no encontrada");
         }
+        List<Long> holders = characterSkillRepository.findCharacterIdsBySkillId(id);
         skillRepository.deleteById(id);
+        eventPublisher.publishEvent(CatalogChangedEvent.deleted(CatalogEntryType.SKILL, id));
+        holders.forEach(characterId ->
+                eventPublisher.publishEvent(LiveEvent.changed(characterId, LiveEventType.SKILLS_CHANGED, List.of(id))));
+    }
+
+    private void publishToHolders(Long skillId) {
+        characterSkillRepository.findCharacterIdsBySkillId(skillId).forEach(characterId ->
+                eventPublisher.publishEvent(LiveEvent.changed(characterId, LiveEventType.SKILLS_CHANGED, List.of(skillId))));
     }
 
     public boolean isSkillVisibleToCharacter(Long skillId, Long characterId) {
@@ -93,5 +184,6 @@ public class SkillService {
         // Cambiar los usos
         characterSkill.setCurrentUses(uses);
         characterSkillRepository.save(characterSkill);
+        eventPublisher.publishEvent(LiveEvent.changed(characterId, LiveEventType.SKILLS_CHANGED, List.of(skillId)));
     }
 }
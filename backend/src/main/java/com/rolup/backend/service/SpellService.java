@@ -8,10 +8,21 @@ import com.rolup.backend.model.character_related.CharacterSpell;
 import com.rolup.backend.repository.CharacterSpellRepository;
 import com.rolup.backend.repository.SpellRepository;
 import com.rolup.backend.repository.CharacterRepository;
+import com.rolup.backend.service.catalog.CatalogChangedEvent;
+import com.rolup.backend.service.catalog.CatalogDocument;
+import com.rolup.backend.service.catalog.CatalogEntryType;
+import com.rolup.backend.service.formula.StatSnapshot;
+import com.rolup.backend.service.formula.TemplateEngine;
+import com.rolup.backend.service.live.LiveEvent;
+import com.rolup.backend.service.live.LiveEventType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,16 +30,23 @@ public class SpellService {
 
     private final SpellRepository spellRepository;
     private final CharacterSpellRepository characterSpellRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TemplateEngine templateEngine;
 
     @Autowired
-    public SpellService(SpellRepository spellRepository, CharacterRepository characterRepository, CharacterSpellRepository characterSpellRepository) {
+    public SpellService(SpellRepository spellRepository, CharacterRepository characterRepository, CharacterSpellRepository characterSpellRepository,
+                        ApplicationEventPublisher eventPublisher, TemplateEngine templateEngine) {
         this.spellRepository = spellRepository;
         this.characterSpellRepository = characterSpellRepository;
+        this.eventPublisher = eventPublisher;
+        this.templateEngine = templateEngine;
     }
 
     public SpellDTO createSpell(SpellDTO dto) {
         Spell spell = SpellMapper.toEntity(dto);
+        validateTemplates(spell, null, null);
         Spell saved = spellRepository.save(spell);
+        eventPublisher.publishEvent(CatalogChangedEvent.saved(CatalogDocument.of(saved)));
         return SpellMapper.toDTO(saved);
     }
 
@@ -43,18 +61,59 @@ public class SpellService {
         List<CharacterSpell> characterSpells = characterSpellRepository.findByCharacterId(characterId);
 
         // 2. Mapear a DTO incluyendo el origen
+        StatSnapshot snapshot = snapshotOf(characterSpells);
         return characterSpells.stream()
-                .map(cs -> {
-                    Spell spell = cs.getSpell();
-                    SpellDTO dto = SpellMapper.toDTO(spell);
+                .map(cs -> toCharacterDTO(cs, snapshot))
+                .collect(Collectors.toList());
+    }
 
-                    dto.setSource(String.valueOf(cs.getSource()));
-                    dto.setPrepared(cs.isPrepared());
-                    dto.setFavourite(cs.isFavourite());
+    // Conjuros de una página del listado, en el mismo orden que los ids.
+    // Con characterId se devuelven con los datos de la relación, igual que getSpellsForCharacter
+    public List<SpellDTO> getSpellsByIds(List<Long> ids, Long characterId) {
+        if (ids.isEmpty()) return List.of();
+
+        if (characterId == null) {
+            Map<Long, Spell> spells = spellRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Spell::getId, Function.identity()));
+            return ids.stream()
+                    .map(spells::get)
+                    .filter(Objects::nonNull)
+                    .map(SpellMapper::toDTO)
+                    .toList();
+        }
 
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        List<CharacterSpell> found = characterSpellRepository.findByCharacterIdAndSpellIds(characterId, ids);
+        StatSnapshot snapshot = snapshotOf(found);
+        Map<Long, CharacterSpell> characterSpells = found.stream()
+                .collect(Collectors.toMap(cs -> cs.getSpell().getId(), Function.identity(), (a, b) -> a));
+        return ids.stream()
+                .map(characterSpells::get)
+                .filter(Objects::nonNull)
+                .map(cs -> toCharacterDTO(cs, snapshot))
+                .toList();
+    }
+
+    private SpellDTO toCharacterDTO(CharacterSpell cs, StatSnapshot snapshot) {
+        SpellDTO dto = SpellMapper.toDTO(cs.getSpell());
+
+        dto.setSource(String.valueOf(cs.getSource()));
+        dto.setPrepared(cs.isPrepared());
+        dto.setFavourite(cs.isFavourite());
+        dto.setRenderedDescription(templateEngine.render(cs.getSpell().getDescriptionTemplate(), snapshot));
+        dto.setRenderedSummary(templateEngine.render(cs.getSpell().getSummaryTemplate(), snapshot));
+
+        return dto;
+    }
+
+    // Todas las relaciones son del mismo personaje, basta con una copia de sus estadísticas
+    private static StatSnapshot snapshotOf(List<CharacterSpell> characterSpells) {
+        return characterSpells.isEmpty() ? null : StatSnapshot.of(characterSpells.get(0).getCharacter());
+    }
+
+    // Solo las plantillas que cambian respecto a las anteriores (null al crear)
+    private void validateTemplates(Spell spell, String descriptionBefore, String summaryBefore) {
+        templateEngine.validateChanged(descriptionBefore, spell.getDescriptionTemplate(), "la descripción");
+        templateEngine.validateChanged(summaryBefore, spell.getSummaryTemplate(), "el resumen");
     }
 
     public SpellDTO getSpellDTOById(Long id) {
@@ -69,8 +128,13 @@ public class SpellService {
 
     public SpellDTO updateSpell(Long id, SpellDTO dto) {
         Spell existing = getSpellById(id);
+        String descriptionBefore = existing.getDescriptionTemplate();
+        String summaryBefore = existing.getSummaryTemplate();
         SpellMapper.updateEntity(existing, dto);
+        validateTemplates(existing, descriptionBefore, summaryBefore);
         Spell updated = spellRepository.save(existing);
+        eventPublisher.publishEvent(CatalogChangedEvent.saved(CatalogDocument.of(updated)));
+        publishToHolders(id);
         return SpellMapper.toDTO(updated);
     }
 
@@ -82,6 +146,7 @@ public class SpellService {
         // Alternar el estado
         characterSpell.setPrepared(!characterSpell.isPrepared());
         characterSpellRepository.save(characterSpell);
+        eventPublisher.publishEvent(LiveEvent.changed(characterId, LiveEventType.SPELLS_CHANGED, List.of(spellId)));
     }
 
     public void toggleSpellFavouriteStatus(Long characterId, Long spellId) {
@@ -92,13 +157,24 @@ public class SpellService {
         // Alternar el estado
         characterSpell.setFavourite(!characterSpell.isFavourite());
         characterSpellRepository.save(characterSpell);
+        eventPublisher.publishEvent(LiveEvent.changed(characterId, LiveEventType.SPELLS_CHANGED, List.of(spellId)));
     }
 
     public void deleteSpell(Long id) {
         if (!spellRepository.existsById(id)) {
             throw new NotFoundException("Conjuro no encontrado");
         }
+        List<Long> holders = characterSpellRepository.findCharacterIdsBySpellId(id);
         spellRepository.deleteById(id);
+        eventPublisher.publishEvent(CatalogChangedEvent.deleted(CatalogEntryType.SPELL, id));
+        holders.forEach(characterId ->
+                eventPublisher.publishEvent(LiveEvent.changed(characterId, LiveEventType.SPELLS_CHANGED, List.of(id))));
+    }
+
+    // Avisa a los personajes que tienen el conjuro de que lo vuelvan a pedir (su texto se renderiza por personaje)
+    private void publishToHolders(Long spellId) {
+        characterSpellRepository.findCharacterIdsBySpellId(spellId).forEach(characterId ->
+                eventPublisher.publishEvent(LiveEvent.changed(characterId, LiveEventType.SPELLS_CHANGED, List.of(spellId))));
     }
 
     public boolean isSpellVisibleToCharacter(Long spellId, Long characterId) {
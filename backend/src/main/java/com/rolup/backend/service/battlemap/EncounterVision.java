@@ -0,0 +1,117 @@
+package com.rolup.backend.service.battlemap;
+
+import com.rolup.backend.service.combat.EncounterSnapshot;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Lo que ve cada personaje de un encuentro y lo que ya ha descubierto (niebla de guerra).
+// El campo de visión depende solo del mapa y de la casilla, así que se guarda por casilla y lo comparten los que
+// pasan por ella. Mover a alguien solo calcula su casilla nueva; una puerta solo invalida las vistas desde las que
+// se ve esa puerta (desde las demás no cambia nada). Cada método devuelve, por personaje, las casillas que acaba de
+// descubrir
+public final class EncounterVision {
+
+    private static final int MAX_CACHED_VIEWS = 64;
+
+    private MapGrid grid; // null = el encuentro no tiene mapa
+    private long snapshotVersion = -1;
+    private final Map<Long, Integer> tokens = new HashMap<>();   // Id del personaje -> casilla
+    private final Map<Long, BitSet> explored = new HashMap<>();  // Id del personaje -> casillas descubiertas
+    private final Map<Integer, BitSet> views = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, BitSet> eldest) {
+            return size() > MAX_CACHED_VIEWS;
+        }
+    };
+
+    public EncounterVision(MapGrid grid) {
+        this.grid = grid;
+    }
+
+    public synchronized MapGrid grid() {
+        return grid;
+    }
+
+    // Mapa nuevo: lo descubierto era de otro mapa, se empieza de cero y se vuelve a colocar a todos
+    public synchronized Map<Long, BitSet> replaceGrid(MapGrid next, EncounterSnapshot snapshot) {
+        grid = next;
+        views.clear();
+        explored.clear();
+        tokens.clear();
+        snapshotVersion = -1;
+        return update(snapshot);
+    }
+
+    public synchronized Map<Long, BitSet> changeDoor(MapGrid next, int door) {
+        grid = next;
+        Set<Integer> stale = new HashSet<>();
+        views.entrySet().removeIf(entry -> entry.getValue().get(door) && stale.add(entry.getKey()));
+        Map<Long, BitSet> revealed = new HashMap<>();
+        tokens.forEach((characterId, cell) -> {
+            // Sin vista guardada (la echó la caché) no se sabe si le afecta: se calcula
+            if (stale.contains(cell) || !views.containsKey(cell)) reveal(characterId, cell, revealed);
+        });
+        return revealed;
+    }
+
+    // Las fotos pueden llegar desordenadas; las que son más viejas que la última vista se ignoran
+    public synchronized Map<Long, BitSet> update(EncounterSnapshot snapshot) {
+        if (snapshot.version() <= snapshotVersion) return Map.of();
+        snapshotVersion = snapshot.version();
+
+        Map<Long, BitSet> revealed = new HashMap<>();
+        Map<Long, Integer> placed = new HashMap<>();
+        for (EncounterSnapshot.CombatantView view : snapshot.combatants()) {
+            if (view.characterId() == null || view.x() == null) continue;
+            placed.put(view.characterId(), grid == null || !grid.inside(view.x(), view.y())
+                    ? -1
+                    : grid.index(view.x(), view.y()));
+        }
+        tokens.keySet().retainAll(placed.keySet());
+        placed.forEach((characterId, cell) -> {
+            Integer previous = tokens.put(characterId, cell);
+            if (grid != null && cell >= 0 && (previous == null || previous.intValue() != cell)) {
+                reveal(characterId, cell, revealed);
+            }
+        });
+        return revealed;
+    }
+
+    public synchronized BitSet explored(long characterId) {
+        BitSet cells = explored.get(characterId);
+        return cells == null ? new BitSet() : (BitSet) cells.clone();
+    }
+
+    public synchronized BitSet visible(long characterId) {
+        Integer cell = tokens.get(characterId);
+        if (grid == null || cell == null || cell < 0) return new BitSet();
+        return (BitSet) view(cell).clone();
+    }
+
+    private void reveal(long characterId, int cell, Map<Long, BitSet> revealed) {
+        if (cell < 0) return;
+        BitSet fresh = (BitSet) view(cell).clone();
+        BitSet known = explored.computeIfAbsent(characterId, id -> new BitSet(grid.cells()));
+        fresh.andNot(known);
+        if (fresh.isEmpty()) return;
+        known.or(fresh);
+        revealed.merge(characterId, fresh, (a, b) -> {
+            a.or(b);
+            return a;
+        });
+    }
+
+    private BitSet view(int cell) {
+        BitSet view = views.get(cell);
+        if (view == null) {
+            view = ShadowCaster.fieldOfView(grid, cell % grid.width(), cell / grid.width());
+            views.put(cell, view);
+        }
+        return view;
+    }
+}
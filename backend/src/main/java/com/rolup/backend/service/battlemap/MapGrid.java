@@ -0,0 +1,178 @@
+package com.rolup.backend.service.battlemap;
+
+import com.rolup.backend.exception.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+// Mapa de un encuentro en memoria: una casilla por bit (índice y * width + x). Es inmutable, así que se puede leer
+// desde cualquier hilo; abrir o cerrar una puerta da otro MapGrid con la versión siguiente.
+// En texto cada fila es un String: '#' muro, '.' suelo, '~' terreno difícil, 'D' puerta cerrada, 'O' puerta abierta
+public final class MapGrid {
+
+    public static final char WALL = '#', FLOOR = '.', DIFFICULT = '~', DOOR = 'D', OPEN_DOOR = 'O';
+    public static final char UNKNOWN = ' '; // Solo en lo que se manda a los jugadores: casilla sin descubrir
+
+    private final int width;
+    private final int height;
+    private final long version;
+    private final BitSet walls;
+    private final BitSet doors;
+    private final BitSet open;
+    private final BitSet difficult;
+    private final BitSet blocking; // Muros y puertas cerradas: no dejan ver ni pasar
+
+    public MapGrid(int width, int height, long version, BitSet walls, BitSet doors, BitSet open, BitSet difficult) {
+        this.width = width;
+        this.height = height;
+        this.version = version;
+        this.walls = walls;
+        this.doors = doors;
+        this.open = open;
+        this.difficult = difficult;
+        this.blocking = (BitSet) doors.clone();
+        this.blocking.andNot(open);
+        this.blocking.or(walls);
+    }
+
+    public static MapGrid parse(List<String> rows, long version, int maxSize) {
+        if (rows == null || rows.isEmpty()) {
+            throw new BadRequestException("El mapa no tiene filas");
+        }
+        int height = rows.size();
+        int width = rows.get(0).length();
+        if (width == 0 || width > maxSize || height > maxSize) {
+            throw new BadRequestException("El mapa puede tener como mucho " + maxSize + " casillas por lado");
+        }
+
+        BitSet walls = new BitSet(width * height);
+        BitSet doors = new BitSet();
+        BitSet open = new BitSet();
+        BitSet difficult = new BitSet();
+        for (int y = 0; y < height; y++) {
+            String row = rows.get(y);
+            if (row.length() != width) {
+                throw new BadRequestException("Todas las filas del mapa deben tener el mismo largo (fila " + y + ")");
+            }
+            for (int x = 0; x < width; x++) {
+                int cell = y * width + x;
+                switch (row.charAt(x)) {
+                    case WALL -> walls.set(cell);
+                    case OPEN_DOOR -> {
+                        doors.set(cell);
+                        open.set(cell);
+                    }
+                    case DOOR -> doors.set(cell);
+                    case DIFFICULT -> difficult.set(cell);
+                    case FLOOR -> {
+                    }
+                    default -> throw new BadRequestException("Casilla no válida '" + row.charAt(x) + "' en la fila " + y);
+                }
+            }
+        }
+        return new MapGrid(width, height, version, walls, doors, open, difficult);
+    }
+
+    public List<String> rows() {
+        return rows(null);
+    }
+
+    // known: casillas que se pueden enseñar (null = todas); el resto sale como UNKNOWN
+    public List<String> rows(BitSet known) {
+        List<String> rows = new ArrayList<>(height);
+        StringBuilder row = new StringBuilder(width);
+        for (int y = 0; y < height; y++) {
+            row.setLength(0);
+            for (int x = 0; x < width; x++) {
+                int cell = index(x, y);
+                row.append(known != null && !known.get(cell) ? UNKNOWN
+                        : walls.get(cell) ? WALL
+                        : doors.get(cell) ? (open.get(cell) ? OPEN_DOOR : DOOR)
+                        : difficult.get(cell) ? DIFFICULT : FLOOR);
+            }
+            rows.add(row.toString());
+        }
+        return rows;
+    }
+
+    public MapGrid withDoor(int x, int y, boolean opened) {
+        int cell = index(x, y);
+        if (!inside(x, y) || !doors.get(cell)) {
+            throw new BadRequestException("En esa casilla no hay ninguna puerta");
+        }
+        BitSet nextOpen = (BitSet) open.clone();
+        nextOpen.set(cell, opened);
+        return new MapGrid(width, height, version + 1, walls, doors, nextOpen, difficult);
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int cells() {
+        return width * height;
+    }
+
+    public int index(int x, int y) {
+        return y * width + x;
+    }
+
+    public boolean inside(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    // Fuera del mapa cuenta como muro
+    public boolean blocksSight(int x, int y) {
+        return !inside(x, y) || blocking.get(index(x, y));
+    }
+
+    // Por celda, para los bucles de búsqueda de caminos
+    public boolean blocksMovement(int cell) {
+        return blocking.get(cell);
+    }
+
+    public boolean isDifficult(int cell) {
+        return difficult.get(cell);
+    }
+
+    // Copias para guardarlas: BitSet es mutable
+    public byte[] wallBytes() {
+        return walls.toByteArray();
+    }
+
+    public byte[] doorBytes() {
+        return doors.toByteArray();
+    }
+
+    public byte[] openDoorBytes() {
+        return open.toByteArray();
+    }
+
+    public byte[] difficultBytes() {
+        return difficult.toByteArray();
+    }
+
+    // Las casillas marcadas como tramos [inicio, largo, inicio, largo...]: lo que se ve suele ir en bloques por filas
+    public static int[] runs(BitSet cells) {
+        int[] runs = new int[16];
+        int size = 0;
+        for (int start = cells.nextSetBit(0); start >= 0; start = cells.nextSetBit(start)) {
+            int end = cells.nextClearBit(start);
+            if (size + 2 > runs.length) runs = Arrays.copyOf(runs, runs.length * 2);
+            runs[size++] = start;
+            runs[size++] = end - start;
+            start = end;
+        }
+        return Arrays.copyOf(runs, size);
+    }
+}
@@ -0,0 +1,200 @@
+package com.rolup.backend.service.battlemap;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Movimiento por la cuadrícula: Dijkstra para saber hasta dónde se llega con unos pies y A* para el camino más
+// barato a una casilla. Todo va sobre arrays de int (coste, casilla de la que se viene y un montículo binario) que
+// se sacan de un pool y se reutilizan, así que una búsqueda no crea objetos por casilla. Para no tener que limpiar
+// los arrays entre búsquedas cada casilla guarda el número de la búsqueda que la tocó por última vez.
+// Reglas: 5 pies por casilla (también en diagonal), el doble al entrar en terreno difícil, no se atraviesan muros,
+// puertas cerradas ni enemigos, no se cortan esquinas de muros y no se puede acabar en una casilla ocupada
+@Component
+public class PathFinder {
+
+    public static final int FEET_PER_CELL = 5;
+
+    private static final int[] DX = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] DY = {0, 0, 1, -1, 1, -1, 1, -1};
+    private static final int MAX_POOLED = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final Queue<Search> pool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    public record Path(int cost, int[] cells) {
+    }
+
+    // Casillas en las que se puede acabar gastando como mucho budget pies (incluida la de salida).
+    // impassable: casillas de enemigos; occupied: todas las ocupadas por otros
+    public BitSet reachable(MapGrid grid, BitSet impassable, BitSet occupied, int start, int budget) {
+        BitSet reached = new BitSet(grid.cells());
+        Search search = acquire(grid.cells());
+        try {
+            search.run(grid, impassable, occupied, start, -1, budget, reached);
+        } finally {
+            release(search);
+        }
+        return reached;
+    }
+
+    // null si no se puede llegar
+    public Path path(MapGrid grid, BitSet impassable, BitSet occupied, int start, int goal) {
+        if (occupied.get(goal) || grid.blocksMovement(goal)) return null;
+        Search search = acquire(grid.cells());
+        try {
+            int cost = search.run(grid, impassable, occupied, start, goal, Integer.MAX_VALUE / 2, null);
+            return cost < 0 ? null : new Path(cost, search.trace(start, goal));
+        } finally {
+            release(search);
+        }
+    }
+
+    private Search acquire(int cells) {
+        Search search;
+        while ((search = pool.poll()) != null) {
+            pooled.decrementAndGet();
+            if (search.capacity() >= cells) return search;
+        }
+        return new Search(cells);
+    }
+
+    private void release(Search search) {
+        if (pooled.incrementAndGet() <= MAX_POOLED) {
+            pool.offer(search);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+
+    private static final class Search {
+
+        private final int[] cost;
+        private final int[] parent;
+        private final int[] seen;   // seen[cell] == stamp: cost y parent son de esta búsqueda
+        private int stamp;
+        private int[] heapCells;    // Montículo con repetidos: una casilla se vuelve a meter si se mejora su coste
+        private int[] heapKeys;
+        private int size;
+
+        Search(int cells) {
+            cost = new int[cells];
+            parent = new int[cells];
+            seen = new int[cells];
+            heapCells = new int[Math.max(16, cells)];
+            heapKeys = new int[heapCells.length];
+        }
+
+        int capacity() {
+            return cost.length;
+        }
+
+        // Coste hasta goal, o -1. Sin goal (-1) recorre todo lo que cabe en budget y lo apunta en reached
+        int run(MapGrid grid, BitSet impassable, BitSet occupied, int start, int goal, int budget, BitSet reached) {
+            if (++stamp == Integer.MAX_VALUE) {
+                Arrays.fill(seen, 0);
+                stamp = 1;
+            }
+            size = 0;
+            int width = grid.width();
+            int goalX = goal < 0 ? 0 : goal % width;
+            int goalY = goal < 0 ? 0 : goal / width;
+
+            seen[start] = stamp;
+            cost[start] = 0;
+            parent[start] = -1;
+            push(start, 0);
+            while (size > 0) {
+                int key = heapKeys[0];
+                int cell = pop();
+                int x = cell % width;
+                int y = cell / width;
+                int current = cost[cell];
+                if (key - heuristic(goal, x, y, goalX, goalY) > current) continue; // Repetido con un coste peor
+                if (cell == goal) return current;
+                if (reached != null && (cell == start || !occupied.get(cell))) reached.set(cell);
+
+                for (int direction = 0; direction < DX.length; direction++) {
+                    int nextX = x + DX[direction];
+                    int nextY = y + DY[direction];
+                    if (!grid.inside(nextX, nextY)) continue;
+                    int next = grid.index(nextX, nextY);
+                    if (grid.blocksMovement(next) || impassable.get(next)) continue;
+                    if (direction >= 4 && (grid.blocksMovement(grid.index(nextX, y)) || grid.blocksMovement(grid.index(x, nextY)))) {
+                        continue; // Esquina de muro
+                    }
+
+                    int nextCost = current + (grid.isDifficult(next) ? 2 * FEET_PER_CELL : FEET_PER_CELL);
+                    if (nextCost > budget) continue;
+                    if (seen[next] != stamp || nextCost < cost[next]) {
+                        seen[next] = stamp;
+                        cost[next] = nextCost;
+                        parent[next] = cell;
+                        push(next, nextCost + heuristic(goal, nextX, nextY, goalX, goalY));
+                    }
+                }
+            }
+            return -1;
+        }
+
+        // Cada paso cuesta al menos 5 pies y en diagonal se avanza en los dos ejes: nunca se pasa del coste real
+        private static int heuristic(int goal, int x, int y, int goalX, int goalY) {
+            if (goal < 0) return 0;
+            return Math.max(Math.abs(x - goalX), Math.abs(y - goalY)) * FEET_PER_CELL;
+        }
+
+        int[] trace(int start, int goal) {
+            int steps = 1;
+            for (int cell = goal; cell != start; cell = parent[cell]) steps++;
+            int[] path = new int[steps];
+            int cell = goal;
+            for (int i = steps - 1; i >= 0; i--) {
+                path[i] = cell;
+                if (i > 0) cell = parent[cell];
+            }
+            return path;
+        }
+
+        private void push(int cell, int key) {
+            if (size == heapCells.length) {
+                heapCells = Arrays.copyOf(heapCells, size * 2);
+                heapKeys = Arrays.copyOf(heapKeys, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int up = (i - 1) >>> 1;
+                if (heapKeys[up] <= key) break;
+                heapCells[i] = heapCells[up];
+                heapKeys[i] = heapKeys[up];
+                i = up;
+            }
+            heapCells[i] = cell;
+            heapKeys[i] = key;
+        }
+
+        private int pop() {
+            int top = heapCells[0];
+            int lastCell = heapCells[--size];
+            int lastKey = heapKeys[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && heapKeys[child + 1] < heapKeys[child]) child++;
+                if (heapKeys[child] >= lastKey) break;
+                heapCells[i] = heapCells[child];
+                heapKeys[i] = heapKeys[child];
+                i = child;
+            }
+            if (size > 0) {
+                heapCells[i] = lastCell;
+                heapKeys[i] = lastKey;
+            }
+            return top;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.rolup.backend.service.battlemap;
+
+import java.util.BitSet;
+
+// Campo de visión desde una casilla por sombras recursivas: se recorre cada octante fila a fila y cada casilla que
+// bloquea abre una sombra (un rango de pendientes) que tapa lo que hay detrás. Solo se visitan las casillas que se
+// pueden ver, no todo el mapa. Los muros se ven pero no dejan ver a través
+public final class ShadowCaster {
+
+    // Transformaciones de cada octante a coordenadas del mapa
+    private static final int[] XX = {1, 0, 0, -1, -1, 0, 0, 1};
+    private static final int[] XY = {0, 1, -1, 0, 0, -1, 1, 0};
+    private static final int[] YX = {0, 1, 1, 0, 0, -1, -1, 0};
+    private static final int[] YY = {1, 0, 0, 1, -1, 0, 0, -1};
+
+    private ShadowCaster() {
+    }
+
+    // Sin límite de distancia: el radio tiene que cubrir la diagonal del mapa, no solo el lado mayor
+    public static BitSet fieldOfView(MapGrid grid, int originX, int originY) {
+        return fieldOfView(grid, originX, originY, grid.width() + grid.height());
+    }
+
+    public static BitSet fieldOfView(MapGrid grid, int originX, int originY, int radius) {
+        BitSet visible = new BitSet(grid.cells());
+        if (!grid.inside(originX, originY)) return visible;
+
+        visible.set(grid.index(originX, originY));
+        for (int octant = 0; octant < 8; octant++) {
+            cast(grid, visible, originX, originY, radius, 1, 1.0, 0.0,
+                    XX[octant], XY[octant], YX[octant], YY[octant]);
+        }
+        return visible;
+    }
+
+    private static void cast(MapGrid grid, BitSet visible, int originX, int originY, int radius, int row,
+                             double start, double end, int xx, int xy, int yx, int yy) {
+        if (start < end) return;
+        long radiusSquared = (long) radius * radius;
+        double nextStart = 0;
+        for (int distance = row; distance <= radius; distance++) {
+            boolean blocked = false;
+            int dy = -distance;
+            for (int dx = -distance; dx <= 0; dx++) {
+                double leftSlope = (dx - 0.5) / (dy + 0.5);
+                double rightSlope = (dx + 0.5) / (dy - 0.5);
+                if (start < rightSlope) continue;
+                if (end > leftSlope) break;
+
+                int x = originX + dx * xx + dy * xy;
+                int y = originY + dx * yx + dy * yy;
+                if ((long) dx * dx + (long) dy * dy <= radiusSquared && grid.inside(x, y)) {
+                    visible.set(grid.index(x, y));
+                }
+
+                boolean opaque = grid.blocksSight(x, y);
+                if (blocked) {
+                    if (opaque) {
+                        nextStart = rightSlope;
+                    } else {
+                        blocked = false;
+                        start = nextStart;
+                    }
+                } else if (opaque && distance < radius) {
+                    blocked = true;
+                    cast(grid, visible, originX, originY, radius, distance + 1, start, leftSlope, xx, xy, yx, yy);
+                    nextStart = rightSlope;
+                }
+            }
+            if (blocked) return;
+        }
+    }
+}
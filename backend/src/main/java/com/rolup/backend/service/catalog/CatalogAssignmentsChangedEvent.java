@@ -0,0 +1,8 @@
+package com.rolup.backend.service.catalog;
+
+import java.util.Collection;
+
+// Lo publica CharacterService al asignar o quitar entradas del catálogo a un personaje.
+// Los índices que ordenan por popularidad lo usan para recontar solo esas entradas
+public record CatalogAssignmentsChangedEvent(CatalogEntryType type, Collection<Long> ids) {
+}
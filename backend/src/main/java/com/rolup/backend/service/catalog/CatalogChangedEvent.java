@@ -0,0 +1,18 @@
+package com.rolup.backend.service.catalog;
+
+// Lo publican los servicios del catálogo al crear, actualizar o borrar una entrada.
+// document es null cuando la entrada se ha borrado
+public record CatalogChangedEvent(CatalogEntryType type, Long id, CatalogDocument document) {
+
+    public static CatalogChangedEvent saved(CatalogDocument document) {
+        return new CatalogChangedEvent(document.type(), document.id(), document);
+    }
+
+    public static CatalogChangedEvent deleted(CatalogEntryType type, Long id) {
+        return new CatalogChangedEvent(type, id, null);
+    }
+
+    public boolean isDeletion() {
+        return document == null;
+    }
+}
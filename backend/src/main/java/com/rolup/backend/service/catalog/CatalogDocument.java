@@ -0,0 +1,69 @@
+package com.rolup.backend.service.catalog;
+
+import com.rolup.backend.model.Skill;
+import com.rolup.backend.model.Spell;
+import com.rolup.backend.model.enums.Category;
+import com.rolup.backend.model.enums.ItemCategory;
+import com.rolup.backend.model.enums.Rarity;
+import com.rolup.backend.model.enums.RestType;
+import com.rolup.backend.model.enums.School;
+import com.rolup.backend.model.item_related.Item;
+import com.rolup.backend.model.item_related.ItemProperty;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+// Copia plana e inmutable de una entrada del catálogo.
+// Se construye mientras la sesión de JPA sigue abierta para que los índices nunca toquen colecciones lazy
+public record CatalogDocument(
+        CatalogEntryType type,
+        Long id,
+        String name,
+        String summary,
+        String description,
+        String iconUrl,
+        Integer level,          // Solo conjuros
+        School school,          // Solo conjuros
+        Boolean concentration,  // Solo conjuros
+        Set<Category> categories,
+        Rarity rarity,          // Solo ítems
+        ItemCategory itemCategory,
+        RestType resetOn,
+        Boolean requiresAttunement
+) {
+
+    public static CatalogDocument of(Spell spell) {
+        return new CatalogDocument(CatalogEntryType.SPELL, spell.getId(), spell.getName(),
+                spell.getSummaryTemplate(), spell.getDescriptionTemplate(), spell.getIconUrl(),
+                spell.getLevel(), spell.getSchool(), spell.isConcentration(), toSet(spell.getCategories()),
+                null, null, null, null);
+    }
+
+    public static CatalogDocument of(Skill skill) {
+        return new CatalogDocument(CatalogEntryType.SKILL, skill.getId(), skill.getName(),
+                skill.getSummaryTemplate(), skill.getDescriptionTemplate(), skill.getIconUrl(),
+                null, null, null, toSet(skill.getCategories()),
+                null, null, skill.getResetOn(), null);
+    }
+
+    public static CatalogDocument of(Item item) {
+        return new CatalogDocument(CatalogEntryType.ITEM, item.getId(), item.getName(),
+                item.getSummaryTemplate(), item.getDescriptionTemplate(), item.getIconUrl(),
+                null, null, null, EnumSet.noneOf(Category.class),
+                item.getRarity(), item.getCategory(), item.getResetOn(), item.isRequiresAttunement());
+    }
+
+    public static CatalogDocument of(ItemProperty property) {
+        return new CatalogDocument(CatalogEntryType.ITEM_PROPERTY, property.getId(), property.getName(),
+                null, property.getDescription(), null,
+                null, null, null, EnumSet.noneOf(Category.class),
+                null, null, property.getResetOn(), null);
+    }
+
+    private static Set<Category> toSet(List<Category> categories) {
+        return categories == null || categories.isEmpty()
+                ? EnumSet.noneOf(Category.class)
+                : EnumSet.copyOf(categories);
+    }
+}
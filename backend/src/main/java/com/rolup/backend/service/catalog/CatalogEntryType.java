@@ -0,0 +1,6 @@
+package com.rolup.backend.service.catalog;
+
+// Tipos de entrada del catálogo que se indexan en memoria (búsqueda, facetas, sugerencias...)
+public enum CatalogEntryType {
+    SPELL, SKILL, ITEM, ITEM_PROPERTY
+}
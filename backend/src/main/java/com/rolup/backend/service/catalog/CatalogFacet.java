@@ -0,0 +1,70 @@
+package com.rolup.backend.service.catalog;
+
+import com.rolup.backend.model.enums.Category;
+import com.rolup.backend.model.enums.ItemCategory;
+import com.rolup.backend.model.enums.Rarity;
+import com.rolup.backend.model.enums.RestType;
+import com.rolup.backend.model.enums.School;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+// Atributos por los que se puede filtrar y contar el catálogo.
+// El nombre coincide con el query param y los valores son los nombres de los enums (o el número/booleano en texto)
+public enum CatalogFacet {
+
+    LEVEL("level", IntStream.rangeClosed(0, 9).mapToObj(String::valueOf).toList(),
+            doc -> single(doc.level())),
+    SCHOOL("school", names(School.values()), doc -> single(doc.school())),
+    CONCENTRATION("concentration", List.of("true", "false"), doc -> single(doc.concentration())),
+    CATEGORY("category", names(Category.values()),
+            doc -> doc.categories().stream().map(Enum::name).toList()),
+    RARITY("rarity", names(Rarity.values()), doc -> single(doc.rarity())),
+    ITEM_CATEGORY("itemCategory", names(ItemCategory.values()), doc -> single(doc.itemCategory())),
+    RESET_ON("resetOn", names(RestType.values()), doc -> single(doc.resetOn())),
+    REQUIRES_ATTUNEMENT("requiresAttunement", List.of("true", "false"), doc -> single(doc.requiresAttunement()));
+
+    private final String paramName;
+    private final List<String> values;
+    private final Function<CatalogDocument, Collection<String>> extractor;
+
+    CatalogFacet(String paramName, List<String> values, Function<CatalogDocument, Collection<String>> extractor) {
+        this.paramName = paramName;
+        this.values = values;
+        this.extractor = extractor;
+    }
+
+    public String paramName() {
+        return paramName;
+    }
+
+    // Todos los valores posibles, para devolver también los que tienen 0 resultados
+    public List<String> allValues() {
+        return values;
+    }
+
+    public Collection<String> valuesOf(CatalogDocument document) {
+        return extractor.apply(document);
+    }
+
+    // Facetas que tienen sentido para cada tipo de entrada
+    public static List<CatalogFacet> forType(CatalogEntryType type) {
+        return switch (type) {
+            case SPELL -> List.of(LEVEL, SCHOOL, CONCENTRATION, CATEGORY);
+            case SKILL -> List.of(CATEGORY, RESET_ON);
+            case ITEM -> List.of(RARITY, ITEM_CATEGORY, RESET_ON, REQUIRES_ATTUNEMENT);
+            case ITEM_PROPERTY -> List.of();
+        };
+    }
+
+    private static Collection<String> single(Object value) {
+        return value == null ? List.of() : List.of(value instanceof Enum<?> e ? e.name() : value.toString());
+    }
+
+    private static List<String> names(Enum<?>[] constants) {
+        return Arrays.stream(constants).map(Enum::name).toList();
+    }
+}
@@ -0,0 +1,330 @@
+package com.rolup.backend.service.catalog;
+
+import com.rolup.backend.dto.catalogDTOs.CatalogFilterDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Índice de facetas del catálogo: por cada tipo y cada valor de cada faceta (escuela EVOCATION, rareza RARE...)
+// guarda un BitSet con las entradas que lo tienen. Filtrar es hacer AND/OR de bitsets y contar es cardinality(),
+// así no hace falta un GROUP BY por faceta. Las posiciones del bitset van ordenadas por id, que es lo que usa
+// la paginación por cursor (after = último id de la página anterior)
+@Component
+public class CatalogFacetIndex implements CatalogIndex {
+
+    private static final Set<CatalogEntryType> INDEXED_TYPES =
+            EnumSet.of(CatalogEntryType.SPELL, CatalogEntryType.SKILL, CatalogEntryType.ITEM);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<CatalogEntryType, FacetTable> tables = new EnumMap<>(CatalogEntryType.class);
+
+    public record Page(List<Long> ids, Long nextCursor, int total) {
+    }
+
+    public record FacetCounts(int total, Map<CatalogFacet, Map<String, Integer>> counts) {
+    }
+
+    public CatalogFacetIndex() {
+        for (CatalogEntryType type : INDEXED_TYPES) {
+            tables.put(type, new FacetTable(List.of()));
+        }
+    }
+
+    @Override
+    public void rebuild(List<CatalogDocument> all) {
+        Map<CatalogEntryType, List<CatalogDocument>> byType = new EnumMap<>(CatalogEntryType.class);
+        for (CatalogEntryType type : INDEXED_TYPES) {
+            byType.put(type, new ArrayList<>());
+        }
+        for (CatalogDocument document : all) {
+            List<CatalogDocument> documents = byType.get(document.type());
+            if (documents != null) documents.add(document);
+        }
+
+        lock.writeLock().lock();
+        try {
+            byType.forEach((type, documents) -> tables.put(type, new FacetTable(documents)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onChange(CatalogChangedEvent event) {
+        if (!INDEXED_TYPES.contains(event.type())) return;
+
+        lock.writeLock().lock();
+        try {
+            FacetTable table = tables.get(event.type());
+            if (event.isDeletion()) {
+                table.remove(event.id());
+            } else if (!table.put(event.document())) {
+                // El id es menor que el último indexado: se rehace la tabla para mantener el orden por id.
+                // La tabla nueva ya sale compacta, así que no hace falta mirar si hay que compactarla
+                List<CatalogDocument> documents = table.liveDocuments();
+                documents.removeIf(doc -> doc.id().equals(event.id()));
+                documents.add(event.document());
+                tables.put(event.type(), new FacetTable(documents));
+                return;
+            }
+
+            if (table.needsCompaction()) {
+                tables.put(event.type(), new FacetTable(table.liveDocuments()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Una página de ids que cumplen los filtros, ordenados por id.
+    // visibleIds != null limita el resultado a esos ids (lo que tiene asignado un personaje)
+    public Page page(CatalogEntryType type, CatalogFilterDTO filter, Collection<Long> visibleIds, Long after, int limit) {
+        lock.readLock().lock();
+        try {
+            FacetTable table = tables.get(type);
+            BitSet matches = table.base(visibleIds);
+            for (BitSet selection : table.selections(filter).values()) {
+                matches.and(selection);
+            }
+
+            List<Long> ids = new ArrayList<>(Math.min(limit, 64));
+            Long nextCursor = null;
+            for (int slot = matches.nextSetBit(table.firstSlotAfter(after)); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+                if (ids.size() == limit) {
+                    nextCursor = ids.get(ids.size() - 1);
+                    break;
+                }
+                ids.add(table.ids[slot]);
+            }
+            return new Page(ids, nextCursor, matches.cardinality());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Recuento por valor de cada faceta del tipo. Para cada faceta se aplican los filtros de las demás pero no
+    // el suyo, así el cliente ve cuántos resultados tendría al marcar otro valor de la misma faceta.
+    // La excepción es CATEGORY en modo ALL: ahí marcar otra categoría restringe más, así que se cuenta sobre el resultado
+    public FacetCounts facets(CatalogEntryType type, CatalogFilterDTO filter, Collection<Long> visibleIds) {
+        lock.readLock().lock();
+        try {
+            FacetTable table = tables.get(type);
+            BitSet base = table.base(visibleIds);
+            Map<CatalogFacet, BitSet> selections = table.selections(filter);
+
+            BitSet matches = (BitSet) base.clone();
+            for (BitSet selection : selections.values()) {
+                matches.and(selection);
+            }
+
+            Map<CatalogFacet, Map<String, Integer>> counts = new LinkedHashMap<>();
+            for (CatalogFacet facet : CatalogFacet.forType(type)) {
+                BitSet others;
+                if (facet == CatalogFacet.CATEGORY && filter != null && filter.matchAllCategories()) {
+                    others = matches;
+                } else {
+                    others = (BitSet) base.clone();
+                    for (Map.Entry<CatalogFacet, BitSet> entry : selections.entrySet()) {
+                        if (entry.getKey() != facet) others.and(entry.getValue());
+                    }
+                }
+
+                Map<String, Integer> valueCounts = new LinkedHashMap<>();
+                for (String value : facet.allValues()) {
+                    BitSet bits = table.bits(facet, value);
+                    if (bits == null) {
+                        valueCounts.put(value, 0);
+                        continue;
+                    }
+                    BitSet intersection = (BitSet) bits.clone();
+                    intersection.and(others);
+                    valueCounts.put(value, intersection.cardinality());
+                }
+                counts.put(facet, valueCounts);
+            }
+            return new FacetCounts(matches.cardinality(), counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Bitsets de un tipo de entrada. Cada documento ocupa una posición (slot) y los slots están ordenados por id.
+    // Al borrar, el slot se queda vacío (el id sigue en ids[] para no romper la búsqueda binaria del cursor)
+    private static final class FacetTable {
+
+        private long[] ids;
+        private CatalogDocument[] documents;
+        private int size;
+        private int removed;
+        private final Map<Long, Integer> slots = new HashMap<>();
+        private final BitSet alive = new BitSet();
+        private final Map<CatalogFacet, Map<String, BitSet>> bits = new EnumMap<>(CatalogFacet.class);
+
+        FacetTable(List<CatalogDocument> initial) {
+            List<CatalogDocument> sorted = new ArrayList<>(initial);
+            sorted.sort(Comparator.comparing(CatalogDocument::id));
+            ids = new long[Math.max(16, sorted.size())];
+            documents = new CatalogDocument[ids.length];
+            for (CatalogDocument document : sorted) {
+                put(document);
+            }
+        }
+
+        // Devuelve false si el documento es nuevo y su id no va al final (hay que rehacer la tabla)
+        boolean put(CatalogDocument document) {
+            Integer slot = slots.get(document.id());
+            if (slot == null) {
+                if (size > 0 && document.id() <= ids[size - 1]) return false;
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                    documents = Arrays.copyOf(documents, size * 2);
+                }
+                slot = size++;
+                ids[slot] = document.id();
+                slots.put(document.id(), slot);
+            } else {
+                clear(slot);
+            }
+
+            documents[slot] = document;
+            alive.set(slot);
+            for (CatalogFacet facet : CatalogFacet.values()) {
+                for (String value : facet.valuesOf(document)) {
+                    bits.computeIfAbsent(facet, f -> new HashMap<>())
+                            .computeIfAbsent(value, v -> new BitSet())
+                            .set(slot);
+                }
+            }
+            return true;
+        }
+
+        void remove(long id) {
+            Integer slot = slots.remove(id);
+            if (slot == null) return;
+            clear(slot);
+            removed++;
+        }
+
+        private void clear(int slot) {
+            CatalogDocument previous = documents[slot];
+            if (previous == null) return;
+            for (CatalogFacet facet : CatalogFacet.values()) {
+                for (String value : facet.valuesOf(previous)) {
+                    bits.get(facet).get(value).clear(slot);
+                }
+            }
+            documents[slot] = null;
+            alive.clear(slot);
+        }
+
+        boolean needsCompaction() {
+            return removed > 64 && removed > size / 2;
+        }
+
+        List<CatalogDocument> liveDocuments() {
+            List<CatalogDocument> live = new ArrayList<>(size - removed);
+            for (int slot = alive.nextSetBit(0); slot >= 0; slot = alive.nextSetBit(slot + 1)) {
+                live.add(documents[slot]);
+            }
+            return live;
+        }
+
+        BitSet bits(CatalogFacet facet, String value) {
+            Map<String, BitSet> byValue = bits.get(facet);
+            return byValue == null ? null : byValue.get(value);
+        }
+
+        // Primer slot cuyo id es mayor que el cursor
+        int firstSlotAfter(Long after) {
+            if (after == null) return 0;
+            int index = Arrays.binarySearch(ids, 0, size, after);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+
+        BitSet base(Collection<Long> visibleIds) {
+            if (visibleIds == null) return (BitSet) alive.clone();
+
+            BitSet base = new BitSet(size);
+            for (Long id : visibleIds) {
+                Integer slot = slots.get(id);
+                if (slot != null) base.set(slot);
+            }
+            return base;
+        }
+
+        // Un bitset por faceta filtrada: OR de los valores pedidos (AND para categorías en modo ALL)
+        Map<CatalogFacet, BitSet> selections(CatalogFilterDTO filter) {
+            Map<CatalogFacet, BitSet> selections = new EnumMap<>(CatalogFacet.class);
+            if (filter == null) return selections;
+
+            Set<String> levels = levelValues(filter);
+            if (levels != null) selections.put(CatalogFacet.LEVEL, anyOf(CatalogFacet.LEVEL, levels));
+
+            putAny(selections, CatalogFacet.SCHOOL, filter.getSchool());
+            putAny(selections, CatalogFacet.CONCENTRATION, filter.getConcentration() == null ? null : List.of(filter.getConcentration()));
+            if (filter.getCategory() != null && !filter.getCategory().isEmpty()) {
+                Set<String> categories = names(filter.getCategory());
+                selections.put(CatalogFacet.CATEGORY, filter.matchAllCategories()
+                        ? allOf(CatalogFacet.CATEGORY, categories)
+                        : anyOf(CatalogFacet.CATEGORY, categories));
+            }
+            putAny(selections, CatalogFacet.RARITY, filter.getRarity());
+            putAny(selections, CatalogFacet.ITEM_CATEGORY, filter.getItemCategory());
+            putAny(selections, CatalogFacet.RESET_ON, filter.getResetOn());
+            putAny(selections, CatalogFacet.REQUIRES_ATTUNEMENT,
+                    filter.getRequiresAttunement() == null ? null : List.of(filter.getRequiresAttunement()));
+            return selections;
+        }
+
+        private void putAny(Map<CatalogFacet, BitSet> selections, CatalogFacet facet, Collection<?> values) {
+            if (values == null || values.isEmpty()) return;
+            selections.put(facet, anyOf(facet, names(values)));
+        }
+
+        private BitSet anyOf(CatalogFacet facet, Set<String> values) {
+            BitSet result = new BitSet(size);
+            for (String value : values) {
+                BitSet valueBits = bits(facet, value);
+                if (valueBits != null) result.or(valueBits);
+            }
+            return result;
+        }
+
+        private BitSet allOf(CatalogFacet facet, Set<String> values) {
+            BitSet result = (BitSet) alive.clone();
+            for (String value : values) {
+                BitSet valueBits = bits(facet, value);
+                if (valueBits == null) return new BitSet();
+                result.and(valueBits);
+            }
+            return result;
+        }
+
+        // Los niveles pedidos explícitamente, recortados por minLevel/maxLevel. null si no se filtra por nivel
+        private static Set<String> levelValues(CatalogFilterDTO filter) {
+            if ((filter.getLevel() == null || filter.getLevel().isEmpty())
+                    && filter.getMinLevel() == null && filter.getMaxLevel() == null) {
+                return null;
+            }
+
+            int min = filter.getMinLevel() == null ? Integer.MIN_VALUE : filter.getMinLevel();
+            int max = filter.getMaxLevel() == null ? Integer.MAX_VALUE : filter.getMaxLevel();
+            Set<String> levels = new HashSet<>();
+            for (String value : CatalogFacet.LEVEL.allValues()) {
+                int level = Integer.parseInt(value);
+                boolean listed = filter.getLevel() == null || filter.getLevel().isEmpty() || filter.getLevel().contains(level);
+                if (listed && level >= min && level <= max) levels.add(value);
+            }
+            return levels;
+        }
+
+        private static Set<String> names(Collection<?> values) {
+            Set<String> names = new HashSet<>();
+            for (Object value : values) {
+                names.add(value instanceof Enum<?> e ? e.name() : String.valueOf(value));
+            }
+            return names;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.rolup.backend.service.catalog;
+
+import com.rolup.backend.dto.catalogDTOs.CatalogFilterDTO;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.Predicate;
+
+// Traduce los filtros que llegan por query params a un predicado sobre CatalogDocument
+public final class CatalogFilters {
+
+    private CatalogFilters() {
+    }
+
+    public static Predicate<CatalogDocument> from(CatalogFilterDTO filter) {
+        Predicate<CatalogDocument> predicate = doc -> true;
+        if (filter == null) return predicate;
+
+        if (isSet(filter.getLevel())) {
+            predicate = predicate.and(doc -> filter.getLevel().contains(doc.level()));
+        }
+        if (filter.getMinLevel() != null) {
+            predicate = predicate.and(doc -> doc.level() != null && doc.level() >= filter.getMinLevel());
+        }
+        if (filter.getMaxLevel() != null) {
+            predicate = predicate.and(doc -> doc.level() != null && doc.level() <= filter.getMaxLevel());
+        }
+        if (isSet(filter.getSchool())) {
+            predicate = predicate.and(doc -> filter.getSchool().contains(doc.school()));
+        }
+        if (filter.getConcentration() != null) {
+            predicate = predicate.and(doc -> filter.getConcentration().equals(doc.concentration()));
+        }
+        if (isSet(filter.getCategory())) {
+            predicate = filter.matchAllCategories()
+                    ? predicate.and(doc -> doc.categories().containsAll(filter.getCategory()))
+                    : predicate.and(doc -> !Collections.disjoint(doc.categories(), filter.getCategory()));
+        }
+        if (isSet(filter.getRarity())) {
+            predicate = predicate.and(doc -> filter.getRarity().contains(doc.rarity()));
+        }
+        if (isSet(filter.getItemCategory())) {
+            predicate = predicate.and(doc -> filter.getItemCategory().contains(doc.itemCategory()));
+        }
+        if (isSet(filter.getResetOn())) {
+            predicate = predicate.and(doc -> filter.getResetOn().contains(doc.resetOn()));
+        }
+        if (filter.getRequiresAttunement() != null) {
+            predicate = predicate.and(doc -> filter.getRequiresAttunement().equals(doc.requiresAttunement()));
+        }
+        return predicate;
+    }
+
+    private static boolean isSet(Collection<?> values) {
+        return values != null && !values.isEmpty();
+    }
+}
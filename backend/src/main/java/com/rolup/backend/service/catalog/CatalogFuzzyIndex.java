@@ -0,0 +1,263 @@
+package com.rolup.backend.service.catalog;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+// Búsqueda tolerante a erratas sobre los nombres del catálogo con un BK-tree (distancia de Levenshtein).
+// Se indexa el nombre normalizado completo y cada una de sus palabras, así "escudo" encuentra "Escudo +1" y
+// "bola de feugo" encuentra "Bola de Fuego". El árbol solo permite descartar ramas por la desigualdad triangular,
+// y los términos se reparten en un árbol por longitud, así que la consulta visita una fracción pequeña de los
+// términos en vez de recorrerlos todos
+@Component
+public class CatalogFuzzyIndex implements CatalogIndex {
+
+    private static final int MIN_WORD_LENGTH = 3; // Las palabras cortas ("de", "la") solo se indexan dentro del nombre
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Node> nodes = new HashMap<>();
+    private final Map<DocKey, Entry> entries = new HashMap<>();
+    private final Map<Integer, Node> roots = new HashMap<>(); // Un árbol por longitud del término
+    private int deadTerms; // Nodos sin entradas: en un BK-tree no se puede borrar, se rehace cuando hay muchos
+
+    private record DocKey(CatalogEntryType type, long id) {
+    }
+
+    private record Entry(CatalogDocument document, String name, Set<String> words) {
+    }
+
+    public record Match(CatalogDocument document, int distance, boolean wholeName) {
+    }
+
+    private static final class Node {
+        private final String term;
+        private final Set<DocKey> names = new HashSet<>(); // Entradas cuyo nombre completo es el término
+        private final Set<DocKey> words = new HashSet<>(); // Entradas con una palabra igual al término
+        private Node[] children = new Node[0]; // Indexado por distancia al término del nodo
+
+        private Node(String term) {
+            this.term = term;
+        }
+
+        private boolean isEmpty() {
+            return names.isEmpty() && words.isEmpty();
+        }
+    }
+
+    @Override
+    public void rebuild(List<CatalogDocument> all) {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            for (CatalogDocument document : all) {
+                Entry entry = entryOf(document);
+                if (entry != null) entries.put(new DocKey(document.type(), document.id()), entry);
+            }
+            rebuildTree();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onChange(CatalogChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            DocKey key = new DocKey(event.type(), event.id());
+            remove(key);
+            if (!event.isDeletion()) {
+                Entry entry = entryOf(event.document());
+                if (entry != null) {
+                    entries.put(key, entry);
+                    insert(key, entry);
+                }
+            }
+
+            if (deadTerms > 256 && deadTerms > nodes.size() / 2) {
+                rebuildTree();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Candidatos a menos de maxDistance ediciones, los más cercanos primero.
+    // maxDistance < 0 usa el máximo que tiene sentido para la longitud del texto buscado
+    public List<Match> search(String text, Predicate<CatalogDocument> filter, int maxDistance, int limit) {
+        String query = normalize(text);
+        int k = maxDistance < 0 ? defaultMaxDistance(query.length()) : Math.min(maxDistance, defaultMaxDistance(query.length()));
+        if (query.isEmpty() || k < 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            // Mejor coincidencia de cada entrada (puede coincidir por el nombre y por varias palabras)
+            Map<DocKey, Match> best = new HashMap<>();
+            int[] previous = new int[query.length() + 1];
+            int[] current = new int[query.length() + 1];
+
+            // Dos términos a <= k ediciones no pueden diferir en más de k letras de longitud
+            Deque<Node> pending = new ArrayDeque<>();
+            for (int length = query.length() - k; length <= query.length() + k; length++) {
+                Node root = roots.get(length);
+                if (root != null) pending.push(root);
+            }
+            while (!pending.isEmpty()) {
+                Node node = pending.pop();
+                // Más allá de k + (nº de hijos) la distancia exacta da igual: ni coincide ni se baja por ninguna rama
+                int cutoff = k + node.children.length;
+                int distance = levenshtein(query, node.term, cutoff, previous, current);
+                if (distance > cutoff) continue;
+
+                if (distance <= k && !node.isEmpty()) {
+                    collect(best, node.names, distance, true, filter);
+                    collect(best, node.words, distance, false, filter);
+                }
+
+                // Solo los hijos a distancia [d - k, d + k] pueden tener términos a <= k de la consulta
+                int from = Math.max(0, distance - k);
+                int to = Math.min(node.children.length - 1, distance + k);
+                for (int i = from; i <= to; i++) {
+                    if (node.children[i] != null) pending.push(node.children[i]);
+                }
+            }
+
+            List<Match> matches = new ArrayList<>(best.values());
+            matches.sort(Comparator.comparingInt(Match::distance)
+                    .thenComparing(match -> !match.wholeName())
+                    .thenComparingInt(match -> entries.get(key(match.document())).name().length())
+                    .thenComparing(match -> entries.get(key(match.document())).name()));
+            return matches.size() > limit ? matches.subList(0, limit) : matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 1 errata hasta 4 letras, 2 hasta 10 y 3 a partir de ahí. Con menos de 3 letras no se busca
+    public static int defaultMaxDistance(int length) {
+        if (length < 3) return -1;
+        if (length <= 4) return 1;
+        if (length <= 10) return 2;
+        return 3;
+    }
+
+    private void collect(Map<DocKey, Match> best, Set<DocKey> keys, int distance, boolean wholeName,
+                         Predicate<CatalogDocument> filter) {
+        for (DocKey key : keys) {
+            Match current = best.get(key);
+            if (current == null || distance < current.distance()
+                    || (distance == current.distance() && wholeName && !current.wholeName())) {
+                CatalogDocument document = entries.get(key).document();
+                if (filter.test(document)) best.put(key, new Match(document, distance, wholeName));
+            }
+        }
+    }
+
+    private void rebuildTree() {
+        roots.clear();
+        nodes.clear();
+        deadTerms = 0;
+        entries.forEach(this::insert);
+    }
+
+    private void insert(DocKey key, Entry entry) {
+        node(entry.name()).names.add(key);
+        for (String word : entry.words()) {
+            node(word).words.add(key);
+        }
+    }
+
+    private void remove(DocKey key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) return;
+
+        release(entry.name(), key);
+        for (String word : entry.words()) {
+            release(word, key);
+        }
+    }
+
+    private void release(String term, DocKey key) {
+        Node node = nodes.get(term);
+        if (node == null || node.isEmpty()) return;
+        node.names.remove(key);
+        node.words.remove(key);
+        if (node.isEmpty()) deadTerms++;
+    }
+
+    // Nodo del término, creándolo en su sitio del árbol si no existe
+    private Node node(String term) {
+        Node existing = nodes.get(term);
+        if (existing != null) {
+            if (existing.isEmpty()) deadTerms--;
+            return existing;
+        }
+
+        Node created = new Node(term);
+        nodes.put(term, created);
+        Node root = roots.get(term.length());
+        if (root == null) {
+            roots.put(term.length(), created);
+            return created;
+        }
+
+        int[] previous = new int[term.length() + 1];
+        int[] current = new int[term.length() + 1];
+        Node node = root;
+        while (true) {
+            int distance = levenshtein(term, node.term, Integer.MAX_VALUE, previous, current);
+            if (distance >= node.children.length) {
+                node.children = Arrays.copyOf(node.children, distance + 1);
+            }
+            if (node.children[distance] == null) {
+                node.children[distance] = created;
+                return created;
+            }
+            node = node.children[distance];
+        }
+    }
+
+    // Levenshtein con dos filas reutilizables (tamaño a.length() + 1).
+    // Si la distancia supera max se corta en cuanto toda una fila lo supera y se devuelve max + 1
+    private static int levenshtein(String a, String b, int max, int[] previous, int[] current) {
+        int n = a.length();
+        if (Math.abs(n - b.length()) > max) return max + 1;
+        for (int i = 0; i <= n; i++) previous[i] = i;
+
+        for (int j = 1; j <= b.length(); j++) {
+            current[0] = j;
+            int rowMin = j;
+            char cb = b.charAt(j - 1);
+            for (int i = 1; i <= n; i++) {
+                int cost = a.charAt(i - 1) == cb ? 0 : 1;
+                current[i] = Math.min(Math.min(current[i - 1] + 1, previous[i] + 1), previous[i - 1] + cost);
+                if (current[i] < rowMin) rowMin = current[i];
+            }
+            if (rowMin > max) return max + 1;
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[n];
+    }
+
+    private static Entry entryOf(CatalogDocument document) {
+        List<String> words = TextNormalizer.words(document.name());
+        if (words.isEmpty()) return null;
+
+        Set<String> indexedWords = new HashSet<>();
+        for (String word : words) {
+            if (word.length() >= MIN_WORD_LENGTH) indexedWords.add(word);
+        }
+        return new Entry(document, String.join(" ", words), indexedWords);
+    }
+
+    private static DocKey key(CatalogDocument document) {
+        return new DocKey(document.type(), document.id());
+    }
+
+    private static String normalize(String text) {
+        return String.join(" ", TextNormalizer.words(text));
+    }
+}
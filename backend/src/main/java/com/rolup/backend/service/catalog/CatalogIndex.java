@@ -0,0 +1,12 @@
+package com.rolup.backend.service.catalog;
+
+import java.util.List;
+
+// Índice en memoria sobre el catálogo. CatalogIndexer lo construye al arrancar y le reenvía cada cambio,
+// así todos los índices se invalidan a la vez y desde el mismo sitio
+public interface CatalogIndex {
+
+    void rebuild(List<CatalogDocument> documents);
+
+    void onChange(CatalogChangedEvent event);
+}
@@ -0,0 +1,61 @@
+package com.rolup.backend.service.catalog;
+
+import com.rolup.backend.repository.ItemPropertyRepository;
+import com.rolup.backend.repository.ItemRepository;
+import com.rolup.backend.repository.SkillRepository;
+import com.rolup.backend.repository.SpellRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class CatalogIndexer {
+
+    private final SpellRepository spellRepository;
+    private final SkillRepository skillRepository;
+    private final ItemRepository itemRepository;
+    private final ItemPropertyRepository itemPropertyRepository;
+    private final List<CatalogIndex> indexes;
+
+    @Autowired
+    public CatalogIndexer(SpellRepository spellRepository,
+                          SkillRepository skillRepository,
+                          ItemRepository itemRepository,
+                          ItemPropertyRepository itemPropertyRepository,
+                          List<CatalogIndex> indexes) {
+        this.spellRepository = spellRepository;
+        this.skillRepository = skillRepository;
+        this.itemRepository = itemRepository;
+        this.itemPropertyRepository = itemPropertyRepository;
+        this.indexes = indexes;
+    }
+
+    // Carga completa una sola vez al arrancar, a partir de aquí todo es incremental
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildAll() {
+        List<CatalogDocument> documents = new ArrayList<>();
+        spellRepository.findAll().forEach(spell -> documents.add(CatalogDocument.of(spell)));
+        skillRepository.findAll().forEach(skill -> documents.add(CatalogDocument.of(skill)));
+        itemRepository.findAll().forEach(item -> documents.add(CatalogDocument.of(item)));
+        itemPropertyRepository.findAll().forEach(property -> documents.add(CatalogDocument.of(property)));
+
+        for (CatalogIndex index : indexes) {
+            index.rebuild(documents);
+        }
+    }
+
+    // Después del commit: si la transacción se deshace el índice no se entera (sin transacción, al momento)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        for (CatalogIndex index : indexes) {
+            index.onChange(event);
+        }
+    }
+}
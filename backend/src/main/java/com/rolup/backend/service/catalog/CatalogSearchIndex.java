@@ -0,0 +1,171 @@
+package com.rolup.backend.service.catalog;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+// Índice invertido de texto completo sobre nombre, resumen y descripción de conjuros, habilidades e ítems.
+// La puntuación es BM25 con un peso por campo (el nombre cuenta más que la descripción)
+@Component
+public class CatalogSearchIndex implements CatalogIndex {
+
+    private static final float NAME_WEIGHT = 3f;
+    private static final float SUMMARY_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final Set<CatalogEntryType> INDEXED_TYPES =
+            EnumSet.of(CatalogEntryType.SPELL, CatalogEntryType.SKILL, CatalogEntryType.ITEM);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<DocKey, IndexedDoc> documents = new HashMap<>();
+    private final Map<String, Map<DocKey, Float>> postings = new HashMap<>(); // término -> documento -> tf ponderada
+    private long totalLength;
+
+    private record DocKey(CatalogEntryType type, long id) {
+    }
+
+    private record IndexedDoc(CatalogDocument document, Map<String, Float> termWeights, int length) {
+    }
+
+    public record ScoredDocument(CatalogDocument document, double score) {
+    }
+
+    @Override
+    public void rebuild(List<CatalogDocument> all) {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            postings.clear();
+            totalLength = 0;
+            for (CatalogDocument document : all) {
+                if (INDEXED_TYPES.contains(document.type())) {
+                    add(document);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onChange(CatalogChangedEvent event) {
+        if (!INDEXED_TYPES.contains(event.type())) return;
+
+        lock.writeLock().lock();
+        try {
+            remove(new DocKey(event.type(), event.id()));
+            if (!event.isDeletion()) {
+                add(event.document());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<ScoredDocument> search(String text, Predicate<CatalogDocument> filter, int limit) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(TextNormalizer.terms(text)));
+
+        lock.readLock().lock();
+        try {
+            if (queryTerms.isEmpty()) {
+                return listAll(filter, limit);
+            }
+
+            int n = documents.size();
+            double avgLength = n == 0 ? 1 : Math.max(1.0, (double) totalLength / n);
+
+            // score[0] = BM25 acumulado, score[1] = términos de la consulta que aparecen en el documento
+            Map<DocKey, double[]> scores = new HashMap<>();
+            for (String term : queryTerms) {
+                Map<DocKey, Float> posting = postings.get(term);
+                if (posting == null) continue;
+
+                double idf = Math.log(1 + (n - posting.size() + 0.5) / (posting.size() + 0.5));
+                for (Map.Entry<DocKey, Float> entry : posting.entrySet()) {
+                    IndexedDoc doc = documents.get(entry.getKey());
+                    double tf = entry.getValue();
+                    double norm = tf + K1 * (1 - B + B * doc.length() / avgLength);
+                    double[] score = scores.computeIfAbsent(entry.getKey(), k -> new double[2]);
+                    score[0] += idf * (tf * (K1 + 1)) / norm;
+                    score[1]++;
+                }
+            }
+
+            // Min-heap con los mejores resultados
+            PriorityQueue<ScoredDocument> top = new PriorityQueue<>(Comparator.comparingDouble(ScoredDocument::score));
+            for (Map.Entry<DocKey, double[]> entry : scores.entrySet()) {
+                CatalogDocument document = documents.get(entry.getKey()).document();
+                if (!filter.test(document)) continue;
+
+                // Se premian los documentos que contienen todas las palabras buscadas
+                double[] score = entry.getValue();
+                double finalScore = score[0] * (score[1] / queryTerms.size());
+                if (top.size() < limit) {
+                    top.add(new ScoredDocument(document, finalScore));
+                } else if (finalScore > top.peek().score()) {
+                    top.poll();
+                    top.add(new ScoredDocument(document, finalScore));
+                }
+            }
+
+            List<ScoredDocument> result = new ArrayList<>(top);
+            result.sort(Comparator.comparingDouble(ScoredDocument::score).reversed());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Sin texto de búsqueda solo se aplican los filtros y se ordena por nombre
+    private List<ScoredDocument> listAll(Predicate<CatalogDocument> filter, int limit) {
+        return documents.values().stream()
+                .map(IndexedDoc::document)
+                .filter(filter)
+                .sorted(Comparator.comparing(doc -> TextNormalizer.fold(doc.name())))
+                .limit(limit)
+                .map(doc -> new ScoredDocument(doc, 0))
+                .toList();
+    }
+
+    private void add(CatalogDocument document) {
+        Map<String, Float> weights = new HashMap<>();
+        int length = 0;
+        length += addField(weights, document.name(), NAME_WEIGHT);
+        length += addField(weights, document.summary(), SUMMARY_WEIGHT);
+        length += addField(weights, document.description(), DESCRIPTION_WEIGHT);
+
+        DocKey key = new DocKey(document.type(), document.id());
+        documents.put(key, new IndexedDoc(document, weights, length));
+        totalLength += length;
+        for (Map.Entry<String, Float> entry : weights.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(key, entry.getValue());
+        }
+    }
+
+    private void remove(DocKey key) {
+        IndexedDoc previous = documents.remove(key);
+        if (previous == null) return;
+
+        totalLength -= previous.length();
+        for (String term : previous.termWeights().keySet()) {
+            Map<DocKey, Float> posting = postings.get(term);
+            if (posting == null) continue;
+            posting.remove(key);
+            if (posting.isEmpty()) postings.remove(term);
+        }
+    }
+
+    private static int addField(Map<String, Float> weights, String text, float weight) {
+        List<String> terms = TextNormalizer.terms(text);
+        for (String term : terms) {
+            weights.merge(term, weight, Float::sum);
+        }
+        return terms.size();
+    }
+}
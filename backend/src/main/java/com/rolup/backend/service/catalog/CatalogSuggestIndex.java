@@ -0,0 +1,290 @@
+package com.rolup.backend.service.catalog;
+
+import com.rolup.backend.repository.CharacterItemPropertyRepository;
+import com.rolup.backend.repository.CharacterItemRepository;
+import com.rolup.backend.repository.CharacterSkillRepository;
+import com.rolup.backend.repository.CharacterSpellRepository;
+import com.rolup.backend.repository.ItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Autocompletado por prefijo sobre los nombres del catálogo (conjuros, habilidades, ítems y propiedades).
+// Hay un trie por tipo con el nombre normalizado insertado desde el inicio de cada palabra, así "fue" encuentra
+// "Bola de fuego". Cada nodo guarda en caché el top-k de su subárbol ordenado por popularidad (nº de personajes que
+// tienen la entrada); al cambiar una entrada solo se invalidan los nodos de sus caminos
+@Component
+public class CatalogSuggestIndex implements CatalogIndex {
+
+    public static final int MAX_SUGGESTIONS = 20;
+    private static final int MAX_KEY_LENGTH = 48; // Los sufijos largos no aportan nada al autocompletado
+
+    private final CharacterSpellRepository characterSpellRepository;
+    private final CharacterSkillRepository characterSkillRepository;
+    private final CharacterItemRepository characterItemRepository;
+    private final CharacterItemPropertyRepository characterItemPropertyRepository;
+    private final ItemRepository itemRepository;
+
+    // Un único lock (no de lectura/escritura) porque las consultas también escriben: rellenan la caché de los nodos
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<CatalogEntryType, Node> roots = new EnumMap<>(CatalogEntryType.class);
+    private final Map<DocKey, Entry> entries = new HashMap<>();
+    private final Map<DocKey, Long> popularity = new HashMap<>();
+
+    private record DocKey(CatalogEntryType type, long id) {
+    }
+
+    private record Entry(CatalogDocument document, String foldedName, List<String> keys) {
+    }
+
+    public record Suggestion(CatalogDocument document, long popularity) {
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private final Set<DocKey> terminals = new HashSet<>(); // Entradas cuyo sufijo termina justo aquí
+        private List<DocKey> top; // null = hay que recalcular
+    }
+
+    @Autowired
+    public CatalogSuggestIndex(CharacterSpellRepository characterSpellRepository,
+                               CharacterSkillRepository characterSkillRepository,
+                               CharacterItemRepository characterItemRepository,
+                               CharacterItemPropertyRepository characterItemPropertyRepository,
+                               ItemRepository itemRepository) {
+        this.characterSpellRepository = characterSpellRepository;
+        this.characterSkillRepository = characterSkillRepository;
+        this.characterItemRepository = characterItemRepository;
+        this.characterItemPropertyRepository = characterItemPropertyRepository;
+        this.itemRepository = itemRepository;
+        for (CatalogEntryType type : CatalogEntryType.values()) {
+            roots.put(type, new Node());
+        }
+    }
+
+    @Override
+    public void rebuild(List<CatalogDocument> all) {
+        Map<DocKey, Long> counts = new HashMap<>();
+        putCounts(counts, CatalogEntryType.SPELL, characterSpellRepository.countAssignmentsPerSpell());
+        putCounts(counts, CatalogEntryType.SKILL, characterSkillRepository.countAssignmentsPerSkill());
+        putCounts(counts, CatalogEntryType.ITEM, characterItemRepository.countAssignmentsPerItem());
+        putCounts(counts, CatalogEntryType.ITEM_PROPERTY, characterItemPropertyRepository.countAssignmentsPerProperty());
+
+        lock.lock();
+        try {
+            entries.clear();
+            popularity.clear();
+            popularity.putAll(counts);
+            for (CatalogEntryType type : CatalogEntryType.values()) {
+                roots.put(type, new Node());
+            }
+            for (CatalogDocument document : all) {
+                add(document);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onChange(CatalogChangedEvent event) {
+        lock.lock();
+        try {
+            DocKey key = new DocKey(event.type(), event.id());
+            remove(key);
+            if (event.isDeletion()) {
+                popularity.remove(key);
+            } else {
+                add(event.document());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Se recuenta después del commit para leer las asignaciones ya guardadas
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssignmentsChanged(CatalogAssignmentsChangedEvent event) {
+        if (event.ids() == null || event.ids().isEmpty()) return;
+
+        Map<DocKey, Long> counts = new HashMap<>();
+        for (Long id : event.ids()) {
+            counts.put(new DocKey(event.type(), id), 0L); // Si ya no lo tiene nadie la consulta no devuelve fila
+        }
+        switch (event.type()) {
+            case SPELL -> putCounts(counts, CatalogEntryType.SPELL, characterSpellRepository.countAssignmentsForSpells(event.ids()));
+            case SKILL -> putCounts(counts, CatalogEntryType.SKILL, characterSkillRepository.countAssignmentsForSkills(event.ids()));
+            case ITEM -> {
+                putCounts(counts, CatalogEntryType.ITEM, characterItemRepository.countAssignmentsForItems(event.ids()));
+                // Las propiedades llegan a los personajes a través de los ítems: solo cambian las de estos ítems
+                List<Long> propertyIds = itemRepository.findPropertyIds(event.ids());
+                if (!propertyIds.isEmpty()) {
+                    for (Long id : propertyIds) counts.put(new DocKey(CatalogEntryType.ITEM_PROPERTY, id), 0L);
+                    putCounts(counts, CatalogEntryType.ITEM_PROPERTY,
+                            characterItemPropertyRepository.countAssignmentsForProperties(propertyIds));
+                }
+            }
+            default -> {
+            }
+        }
+
+        lock.lock();
+        try {
+            counts.forEach((key, count) -> {
+                Long previous = popularity.put(key, count);
+                if (!Objects.equals(previous, count) && !(previous == null && count == 0)) {
+                    invalidate(key);
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<Suggestion> suggest(String prefix, Collection<CatalogEntryType> types, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty()) return List.of();
+
+        int k = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        lock.lock();
+        try {
+            List<DocKey> candidates = new ArrayList<>();
+            for (CatalogEntryType type : types) {
+                Node node = find(roots.get(type), normalized);
+                if (node != null) candidates.addAll(top(node));
+            }
+            if (types.size() > 1) {
+                candidates.sort(ranking());
+            }
+
+            List<Suggestion> result = new ArrayList<>(k);
+            for (DocKey key : candidates) {
+                if (result.size() == k) break;
+                result.add(new Suggestion(entries.get(key).document(), popularity.getOrDefault(key, 0L)));
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void add(CatalogDocument document) {
+        String foldedName = normalize(document.name());
+        if (foldedName.isEmpty()) return;
+
+        DocKey key = new DocKey(document.type(), document.id());
+        List<String> keys = keysOf(foldedName);
+        entries.put(key, new Entry(document, foldedName, keys));
+
+        Node root = roots.get(document.type());
+        for (String suffix : keys) {
+            Node node = root;
+            node.top = null;
+            for (int i = 0; i < suffix.length(); i++) {
+                node = node.children.computeIfAbsent(suffix.charAt(i), c -> new Node());
+                node.top = null;
+            }
+            node.terminals.add(key);
+        }
+    }
+
+    private void remove(DocKey key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) return;
+
+        Node root = roots.get(key.type());
+        for (String suffix : entry.keys()) {
+            removePath(root, suffix, 0, key);
+        }
+    }
+
+    // Quita la entrada del nodo final y poda las ramas que se quedan vacías
+    private boolean removePath(Node node, String suffix, int depth, DocKey key) {
+        node.top = null;
+        if (depth == suffix.length()) {
+            node.terminals.remove(key);
+        } else {
+            Node child = node.children.get(suffix.charAt(depth));
+            if (child != null && removePath(child, suffix, depth + 1, key)) {
+                node.children.remove(suffix.charAt(depth));
+            }
+        }
+        return node.terminals.isEmpty() && node.children.isEmpty();
+    }
+
+    // Marca como sucios los nodos de todos los caminos de una entrada (ha cambiado su popularidad)
+    private void invalidate(DocKey key) {
+        Entry entry = entries.get(key);
+        if (entry == null) return;
+
+        for (String suffix : entry.keys()) {
+            Node node = roots.get(key.type());
+            node.top = null;
+            for (int i = 0; i < suffix.length() && node != null; i++) {
+                node = node.children.get(suffix.charAt(i));
+                if (node != null) node.top = null;
+            }
+        }
+    }
+
+    private List<DocKey> top(Node node) {
+        if (node.top != null) return node.top;
+
+        // Los hijos ya tienen su top-k, basta con mezclarlos con las entradas de este nodo
+        List<DocKey> candidates = new ArrayList<>(node.terminals);
+        for (Node child : node.children.values()) {
+            candidates.addAll(top(child));
+        }
+        candidates.sort(ranking());
+
+        List<DocKey> top = new ArrayList<>(Math.min(candidates.size(), MAX_SUGGESTIONS));
+        Set<DocKey> seen = new HashSet<>();
+        for (DocKey key : candidates) {
+            if (top.size() == MAX_SUGGESTIONS) break;
+            if (seen.add(key)) top.add(key); // Una entrada puede llegar por varias palabras de su nombre
+        }
+        node.top = top;
+        return top;
+    }
+
+    private Node find(Node root, String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        return node;
+    }
+
+    // Más asignada primero; a igualdad, el nombre más corto (suele ser el más parecido a lo escrito) y luego alfabético
+    private Comparator<DocKey> ranking() {
+        return Comparator.<DocKey>comparingLong(key -> -popularity.getOrDefault(key, 0L))
+                .thenComparingInt(key -> entries.get(key).foldedName().length())
+                .thenComparing(key -> entries.get(key).foldedName());
+    }
+
+    // Nombre normalizado desde el inicio de cada palabra: "bola de fuego" -> "bola de fuego", "de fuego", "fuego"
+    private static List<String> keysOf(String foldedName) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < foldedName.length(); i++) {
+            if (i == 0 || foldedName.charAt(i - 1) == ' ') {
+                String suffix = foldedName.substring(i);
+                keys.add(suffix.length() > MAX_KEY_LENGTH ? suffix.substring(0, MAX_KEY_LENGTH) : suffix);
+            }
+        }
+        return keys;
+    }
+
+    // Minúsculas, sin tildes ni puntuación y con un solo espacio entre palabras
+    private static String normalize(String text) {
+        return String.join(" ", TextNormalizer.words(text));
+    }
+
+    private static void putCounts(Map<DocKey, Long> counts, CatalogEntryType type, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            counts.put(new DocKey(type, ((Number) row[0]).longValue()), ((Number) row[1]).longValue());
+        }
+    }
+}
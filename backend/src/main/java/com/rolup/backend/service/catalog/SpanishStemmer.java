@@ -0,0 +1,39 @@
+package com.rolup.backend.service.catalog;
+
+// Stemmer ligero para español (basado en el de J. Savoy que usa Lucene), pensado para texto ya normalizado.
+// Solo quita plurales, género y algún sufijo muy común: "conjuros" -> "conjur", "curaciones" -> "curacion",
+// "rapidamente" -> "rapid". Para buscar en un catálogo de rol es suficiente y no destroza los nombres propios
+public final class SpanishStemmer {
+
+    private SpanishStemmer() {
+    }
+
+    public static String stem(String word) {
+        int len = word.length();
+        if (len < 4) return word;
+
+        if (word.endsWith("mente") && len > 8) {
+            word = word.substring(0, len - 5);
+            len = word.length();
+        }
+
+        if (word.endsWith("ciones") && len > 7) {
+            return word.substring(0, len - 2);
+        }
+
+        switch (word.charAt(len - 1)) {
+            case 'o':
+            case 'a':
+            case 'e':
+                return word.substring(0, len - 1);
+            case 's':
+                if (word.endsWith("eses")) return word.substring(0, len - 2);
+                if (word.endsWith("ces")) return word.substring(0, len - 3) + "z";
+                char prev = word.charAt(len - 2);
+                if ((prev == 'o' || prev == 'a' || prev == 'e') && len > 4) return word.substring(0, len - 2);
+                return word;
+            default:
+                return word;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.rolup.backend.service.catalog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Normalización de texto común a todos los índices del catálogo: minúsculas y sin tildes
+// ("Bola de Fuego" y "bola de fuego" deben ser lo mismo, igual que "Curación" y "curacion")
+public final class TextNormalizer {
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "es", "la", "las", "lo", "los", "o",
+            "para", "por", "que", "se", "su", "sus", "un", "una", "unas", "unos", "y"
+    );
+
+    private TextNormalizer() {
+    }
+
+    // Pasa a minúsculas y quita los diacríticos (la ñ se queda como n, igual que en los teclados sin ñ)
+    public static String fold(String text) {
+        if (text == null) return "";
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            sb.append(foldChar(text.charAt(i)));
+        }
+        return sb.toString();
+    }
+
+    public static char foldChar(char c) {
+        if (c < 128) return Character.toLowerCase(c);
+        switch (Character.toLowerCase(c)) {
+            case 'á': case 'à': case 'ä': case 'â': return 'a';
+            case 'é': case 'è': case 'ë': case 'ê': return 'e';
+            case 'í': case 'ì': case 'ï': case 'î': return 'i';
+            case 'ó': case 'ò': case 'ö': case 'ô': return 'o';
+            case 'ú': case 'ù': case 'ü': case 'û': return 'u';
+            case 'ñ': return 'n';
+            case 'ç': return 'c';
+            default: return Character.toLowerCase(c);
+        }
+    }
+
+    // Palabras normalizadas, sin signos de puntuación
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean letterOrDigit = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (letterOrDigit && start < 0) {
+                start = i;
+            } else if (!letterOrDigit && start >= 0) {
+                words.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    // Términos para el índice de texto completo: palabras sin stopwords y con el stemmer aplicado
+    public static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String word : words(text)) {
+            if (STOPWORDS.contains(word)) continue;
+            terms.add(SpanishStemmer.stem(word));
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,68 @@
+package com.rolup.backend.service.combat;
+
+import com.rolup.backend.model.enums.AreaShapeType;
+
+// Área de un efecto sobre la cuadrícula, en casillas. Una casilla está dentro si lo está su centro:
+// - SPHERE: a size casillas o menos del centro de la casilla de origen (incluida)
+// - CUBE: size x size casillas con la de origen en la esquina de arriba a la izquierda
+// - CONE: desde la casilla de origen hacia la de destino, de largo size y tan ancho como largo (la de origen no entra)
+// - LINE: desde la casilla de origen hacia la de destino, de largo size y ancho width (la de origen no entra)
+public record AreaShape(AreaShapeType type, int originX, int originY, int targetX, int targetY, int size, int width) {
+
+    private static final double CONE_HALF_ANGLE_COS = Math.cos(Math.atan(0.5)); // El ancho es igual a la distancia
+
+    public boolean contains(int x, int y) {
+        double dx = x - originX;
+        double dy = y - originY;
+        return switch (type) {
+            case SPHERE -> dx * dx + dy * dy <= (double) size * size;
+            case CUBE -> x >= originX && x < originX + size && y >= originY && y < originY + size;
+            case CONE -> {
+                double distance = Math.sqrt(dx * dx + dy * dy);
+                double along = (dx * directionX() + dy * directionY());
+                yield distance > 0 && distance <= size && along >= distance * CONE_HALF_ANGLE_COS;
+            }
+            case LINE -> {
+                double along = dx * directionX() + dy * directionY();
+                double across = Math.abs(dx * directionY() - dy * directionX());
+                yield along > 0 && along <= size && across <= width / 2.0;
+            }
+        };
+    }
+
+    // Caja que contiene el área, para mirar solo las zonas de la cuadrícula que toca
+    public int minX() {
+        return switch (type) {
+            case CUBE -> originX;
+            default -> originX - size;
+        };
+    }
+
+    public int minY() {
+        return switch (type) {
+            case CUBE -> originY;
+            default -> originY - size;
+        };
+    }
+
+    public int maxX() {
+        return originX + size;
+    }
+
+    public int maxY() {
+        return originY + size;
+    }
+
+    // Dirección unitaria del cono o la línea
+    private double directionX() {
+        return (targetX - originX) / length();
+    }
+
+    private double directionY() {
+        return (targetY - originY) / length();
+    }
+
+    private double length() {
+        return Math.hypot(targetX - originX, targetY - originY);
+    }
+}
@@ -0,0 +1,28 @@
+package com.rolup.backend.service.combat;
+
+// Efecto activo sobre un combatiente. Solo lo modifica el hilo que procesa el encuentro.
+// Lo que le queda no se descuenta turno a turno: lo lleva la EffectWheel del encuentro
+final class CombatEffect {
+
+    final String name;
+    final String iconUrl;
+    final Integer totalDuration;  // null = hasta que se quite
+    final boolean rounds;         // true = la duración es en asaltos, false = en turnos del combatiente
+    final boolean endsAtTurnStart;
+    final Integer startingTurns;  // Lo que le quedaba al crearlo o al cargarlo
+    EffectWheel.Timer timer;      // null si no caduca o ya no está programado
+
+    CombatEffect(String name, String iconUrl, Integer totalDuration, Integer startingTurns, boolean rounds,
+                 boolean endsAtTurnStart) {
+        this.name = name;
+        this.iconUrl = iconUrl;
+        this.totalDuration = totalDuration;
+        this.startingTurns = startingTurns;
+        this.rounds = rounds;
+        this.endsAtTurnStart = endsAtTurnStart;
+    }
+
+    EncounterSnapshot.EffectView view(Integer remainingTurns) {
+        return new EncounterSnapshot.EffectView(name, iconUrl, remainingTurns, totalDuration, rounds, endsAtTurnStart);
+    }
+}
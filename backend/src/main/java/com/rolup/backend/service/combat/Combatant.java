@@ -0,0 +1,79 @@
+package com.rolup.backend.service.combat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Proyección ligera de un participante: solo lo que hace falta para el combate, sin la entidad Character.
+// Solo la modifica el hilo que procesa el encuentro
+public final class Combatant {
+
+    final long id;             // Id del EncounterEntity
+    final Long characterId;    // null si es una criatura
+    final String name;
+    final String iconUrl;
+    final int initiativeBonus;
+    final int armorClass;
+    final int maxHp;
+
+    Integer initiative;
+    int currentHp;
+    int tempHp;
+    boolean defeated;
+    Integer x;                 // Casilla en la cuadrícula; null si no está colocado. Solo la cambia SpatialGrid
+    Integer y;
+    final Set<CombatEffect> effects = new LinkedHashSet<>(); // En orden de aplicación; quitar uno es O(1)
+
+    public Combatant(long id, Long characterId, String name, String iconUrl, Integer initiative, int initiativeBonus,
+                     int currentHp, int maxHp, int tempHp, int armorClass, boolean defeated, Integer x, Integer y) {
+        this.id = id;
+        this.characterId = characterId;
+        this.name = name;
+        this.iconUrl = iconUrl;
+        this.initiative = initiative;
+        this.initiativeBonus = initiativeBonus;
+        this.currentHp = currentHp;
+        this.maxHp = maxHp;
+        this.tempHp = tempHp;
+        this.armorClass = armorClass;
+        this.defeated = defeated;
+        this.x = y == null ? null : x;
+        this.y = x == null ? null : y;
+    }
+
+    // Hasta que no se mete en un EncounterState no se programa su caducidad
+    public void addEffect(String name, String iconUrl, Integer totalDuration, Integer remainingTurns, boolean rounds,
+                          boolean endsAtTurnStart) {
+        effects.add(new CombatEffect(name, iconUrl, totalDuration, remainingTurns, rounds, endsAtTurnStart));
+    }
+
+    boolean isPlayer() {
+        return characterId != null;
+    }
+
+    // Las criaturas derrotadas no tienen turno; los personajes a 0 PG sí (tiradas de salvación contra la muerte)
+    boolean skipsTurn() {
+        return defeated && !isPlayer();
+    }
+
+    // Los PG temporales se gastan primero
+    void damage(int amount) {
+        int absorbed = Math.min(tempHp, amount);
+        tempHp -= absorbed;
+        currentHp = Math.max(0, currentHp - (amount - absorbed));
+        if (currentHp == 0) defeated = true;
+    }
+
+    void heal(int amount) {
+        currentHp = Math.min(maxHp, currentHp + amount);
+        if (currentHp > 0) defeated = false;
+    }
+
+    EncounterSnapshot.CombatantView view(EffectWheel wheel) {
+        List<EncounterSnapshot.EffectView> effectViews = new ArrayList<>(effects.size());
+        for (CombatEffect effect : effects) effectViews.add(effect.view(wheel.remaining(effect)));
+        return new EncounterSnapshot.CombatantView(id, characterId, name, iconUrl, initiative, initiativeBonus,
+                currentHp, maxHp, tempHp, armorClass, defeated, x, y, List.copyOf(effectViews));
+    }
+}
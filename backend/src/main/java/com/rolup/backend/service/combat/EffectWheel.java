@@ -0,0 +1,162 @@
+package com.rolup.backend.service.combat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Rueda de tiempos jerárquica para que caduquen los efectos sin recorrerlos en cada turno.
+// Al aplicar un efecto se calcula cuándo vence y se engancha en la ranura de ese momento:
+//  - Duración en turnos: turnos del propio combatiente. Cada combatiente tiene su rueda fina indexada por su nº de
+//    turno; al empezar o terminar su turno solo se mira la ranura de ese turno.
+//  - Duración en asaltos: rueda gruesa indexada por asalto. Al empezar un asalto sus entradas bajan a los cubos del
+//    asalto de cada combatiente y vencen al empezar o terminar su turno (o al empezar el asalto siguiente si no
+//    ha llegado a tener turno).
+// Las listas son intrusivas (cada efecto guarda su nodo), así que programar, cancelar y caducar son O(1). Una ranura
+// puede tener entradas de vueltas posteriores de la rueda; esas se saltan sin tocarlas
+final class EffectWheel {
+
+    private static final int TURN_SLOTS = 8;   // Potencias de 2
+    private static final int ROUND_SLOTS = 16;
+
+    static final class Timer {
+        final Combatant owner;
+        final CombatEffect effect;
+        final boolean rounds;
+        final long due;
+        private TimerList list;
+        private Timer prev;
+        private Timer next;
+
+        private Timer(Combatant owner, CombatEffect effect, boolean rounds, long due) {
+            this.owner = owner;
+            this.effect = effect;
+            this.rounds = rounds;
+            this.due = due;
+        }
+    }
+
+    private static final class TimerList {
+        private Timer head;
+
+        void add(Timer timer) {
+            timer.list = this;
+            timer.prev = null;
+            timer.next = head;
+            if (head != null) head.prev = timer;
+            head = timer;
+        }
+
+        void remove(Timer timer) {
+            if (timer.prev != null) timer.prev.next = timer.next; else head = timer.next;
+            if (timer.next != null) timer.next.prev = timer.prev;
+            timer.list = null;
+            timer.prev = timer.next = null;
+        }
+
+        // Quita y entrega las entradas que cumplen la condición; las demás se quedan
+        void drain(java.util.function.Predicate<Timer> due, Consumer<Timer> action) {
+            Timer timer = head;
+            while (timer != null) {
+                Timer next = timer.next;
+                if (due.test(timer)) {
+                    remove(timer);
+                    action.accept(timer);
+                }
+                timer = next;
+            }
+        }
+    }
+
+    // Reloj y ranuras de un combatiente
+    private static final class Clock {
+        long turns; // Turnos empezados
+        final TimerList[] turnStart = lists(TURN_SLOTS);
+        final TimerList[] turnEnd = lists(TURN_SLOTS);
+        final TimerList roundStart = new TimerList(); // Vencen en su turno de este asalto
+        final TimerList roundEnd = new TimerList();
+    }
+
+    private final Map<Long, Clock> clocks = new HashMap<>();
+    private final TimerList[] rounds = lists(ROUND_SLOTS);
+    private long round;
+
+    EffectWheel(long round) {
+        this.round = round;
+    }
+
+    // Programa la caducidad dentro de "remaining" turnos del combatiente (o asaltos). null = no caduca
+    void schedule(Combatant owner, CombatEffect effect, Integer remaining) {
+        if (remaining == null) return;
+
+        Clock clock = clock(owner.id);
+        Timer timer;
+        if (effect.rounds) {
+            timer = new Timer(owner, effect, true, round + remaining);
+            if (timer.due <= round) {
+                (effect.endsAtTurnStart ? clock.roundStart : clock.roundEnd).add(timer); // Vence en este asalto
+            } else {
+                rounds[(int) (timer.due & (ROUND_SLOTS - 1))].add(timer);
+            }
+        } else {
+            timer = new Timer(owner, effect, false, clock.turns + remaining);
+            int slot = (int) (timer.due & (TURN_SLOTS - 1));
+            (effect.endsAtTurnStart ? clock.turnStart : clock.turnEnd)[slot].add(timer);
+        }
+        effect.timer = timer;
+    }
+
+    void cancel(CombatEffect effect) {
+        Timer timer = effect.timer;
+        if (timer != null && timer.list != null) timer.list.remove(timer);
+        effect.timer = null;
+    }
+
+    void forget(long combatantId) {
+        clocks.remove(combatantId);
+    }
+
+    // Lo que le queda a un efecto: turnos del combatiente o asaltos. null si no caduca
+    Integer remaining(CombatEffect effect) {
+        Timer timer = effect.timer;
+        if (timer == null) return null;
+        long now = timer.rounds ? round : clock(timer.owner.id).turns;
+        return (int) Math.max(0, timer.due - now);
+    }
+
+    // Nuevo asalto: caduca lo del asalto anterior que no llegó a vencer (su dueño no tuvo turno) y baja lo del nuevo
+    void roundStarted(long newRound, Consumer<Timer> expire) {
+        for (Clock clock : clocks.values()) {
+            clock.roundStart.drain(timer -> true, expire);
+            clock.roundEnd.drain(timer -> true, expire);
+        }
+        round = newRound;
+        rounds[(int) (newRound & (ROUND_SLOTS - 1))].drain(timer -> timer.due == newRound, timer -> {
+            Clock clock = clock(timer.owner.id);
+            (timer.effect.endsAtTurnStart ? clock.roundStart : clock.roundEnd).add(timer);
+        });
+    }
+
+    void turnStarted(Combatant combatant, Consumer<Timer> expire) {
+        Clock clock = clock(combatant.id);
+        long turn = ++clock.turns;
+        clock.turnStart[(int) (turn & (TURN_SLOTS - 1))].drain(timer -> timer.due == turn, expire);
+        clock.roundStart.drain(timer -> true, expire);
+    }
+
+    void turnEnded(Combatant combatant, Consumer<Timer> expire) {
+        Clock clock = clock(combatant.id);
+        long turn = clock.turns;
+        clock.turnEnd[(int) (turn & (TURN_SLOTS - 1))].drain(timer -> timer.due == turn, expire);
+        clock.roundEnd.drain(timer -> true, expire);
+    }
+
+    private Clock clock(long combatantId) {
+        return clocks.computeIfAbsent(combatantId, id -> new Clock());
+    }
+
+    private static TimerList[] lists(int size) {
+        TimerList[] lists = new TimerList[size];
+        for (int i = 0; i < size; i++) lists[i] = new TimerList();
+        return lists;
+    }
+}
@@ -0,0 +1,143 @@
+package com.rolup.backend.service.combat;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// Un encuentro en curso: las órdenes llegan a un buzón y se aplican de una en una, así que el estado tiene un único
+// escritor y no necesita locks. El buzón se vacía en el executor compartido; nunca hay dos hilos vaciando el mismo.
+// Tras cada orden se publica una foto inmutable que se puede leer desde cualquier hilo, y lo que ha cambiado va al
+// historial antes de publicarla (quien ve la versión N puede pedir el historial hasta N).
+// Para sacarlo de memoria se le retira por el propio buzón: lo que llegue detrás falla con Retired y se reintenta
+// con otro actor una vez guardado el estado, así que ninguna orden se aplica a un actor que ya no está en el mapa
+final class EncounterActor {
+
+    // Sin traza: no es un error, solo le dice a quien mandó la orden que la repita
+    static final class Retired extends RuntimeException {
+        private Retired() {
+            super("El encuentro se ha sacado de memoria", null, false, false);
+        }
+    }
+
+    private static final Retired RETIRED = new Retired();
+
+    private final EncounterState state;
+    private final Executor executor;
+    private final Consumer<EncounterChange> history;
+    private final Queue<Task> mailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private volatile EncounterSnapshot published;
+    private volatile long lastActivity = System.currentTimeMillis();
+    private volatile long persistedVersion; // Lo actualiza EncounterEngine al guardar, sincronizado sobre el actor
+    private volatile boolean retired;       // Solo lo escribe drain
+    private final CompletableFuture<Void> evicted = new CompletableFuture<>();
+
+    // command null: retirar el actor
+    private record Task(EncounterCommand command, CompletableFuture<EncounterSnapshot> result) {
+    }
+
+    EncounterActor(EncounterState state, Executor executor, Consumer<EncounterChange> history) {
+        this.state = state;
+        this.executor = executor;
+        this.history = history;
+        this.published = state.snapshot();
+        this.persistedVersion = published.version();
+    }
+
+    // Otro actor sobre el mismo estado, para cuando se ha retirado este pero no se ha podido guardar
+    EncounterActor successor() {
+        EncounterActor successor = new EncounterActor(state, executor, history);
+        successor.persistedVersion = persistedVersion;
+        return successor;
+    }
+
+    CompletableFuture<EncounterSnapshot> tell(EncounterCommand command) {
+        return enqueue(command);
+    }
+
+    // Se completa cuando se han aplicado todas las órdenes anteriores; las que lleguen después fallan con Retired
+    CompletableFuture<EncounterSnapshot> retire() {
+        return enqueue(null);
+    }
+
+    boolean retired() {
+        return retired;
+    }
+
+    // Lo llama EncounterEngine cuando ha terminado de sacarlo (o de sustituirlo); quien espera ya puede recargarlo
+    void evicted() {
+        evicted.complete(null);
+    }
+
+    void awaitEvicted() {
+        evicted.join();
+    }
+
+    private CompletableFuture<EncounterSnapshot> enqueue(EncounterCommand command) {
+        CompletableFuture<EncounterSnapshot> result = new CompletableFuture<>();
+        mailbox.add(new Task(command, result));
+        lastActivity = System.currentTimeMillis();
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+        return result;
+    }
+
+    EncounterSnapshot snapshot() {
+        return published;
+    }
+
+    long lastActivity() {
+        return lastActivity;
+    }
+
+    long persistedVersion() {
+        return persistedVersion;
+    }
+
+    void markPersisted(long version) {
+        persistedVersion = Math.max(persistedVersion, version);
+    }
+
+    private void drain() {
+        try {
+            Task task;
+            while ((task = mailbox.poll()) != null) {
+                if (task.command() == null) {
+                    retired = true;
+                    task.result().complete(published);
+                    continue;
+                }
+                if (retired) {
+                    task.result().completeExceptionally(RETIRED);
+                    continue;
+                }
+                try {
+                    task.command().apply(state);
+                    state.bumpVersion();
+                    EncounterSnapshot snapshot = state.snapshot();
+                    history.accept(EncounterChange.between(task.command(), published, snapshot));
+                    published = snapshot;
+                    task.result().complete(snapshot);
+                } catch (RuntimeException e) {
+                    // Las órdenes validan antes de tocar nada, así que una orden rechazada no deja el estado a medias
+                    task.result().completeExceptionally(e);
+                } catch (Error e) {
+                    task.result().completeExceptionally(e);
+                    throw e;
+                }
+            }
+        } finally {
+            // Se suelta el flag pase lo que pase; si no, el actor no vuelve a vaciar el buzón nunca más.
+            // Si ha llegado algo entre el último poll y soltarlo (o se ha salido por un error), se vuelve a programar
+            scheduled.set(false);
+            if (!mailbox.isEmpty() && scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+    }
+}
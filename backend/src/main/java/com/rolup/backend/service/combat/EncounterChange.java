@@ -0,0 +1,88 @@
+package com.rolup.backend.service.combat;
+
+import com.rolup.backend.model.enums.EncounterEventType;
+import com.rolup.backend.model.enums.EncounterStatus;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Lo que ha cambiado en un encuentro con una orden: la orden en sí y cómo ha quedado lo que ha tocado.
+// Con la foto de la versión sequence - 1 y esto se llega a la de la versión sequence sin volver a aplicar la orden
+// (que puede tirar dados): se sustituyen los combatientes de changed, se quitan los de removed y, si viene order, se
+// reordenan
+public record EncounterChange(long encounterId, long sequence, EncounterEventType type, Long combatantId,
+                              Integer amount, String effectName, EncounterStatus status, int round,
+                              Long activeCombatantId, Delta delta, Instant createdAt) {
+
+    public record Delta(List<EncounterSnapshot.CombatantView> changed, List<Long> removed, List<Long> order) {
+    }
+
+    static EncounterChange between(EncounterCommand command, EncounterSnapshot before, EncounterSnapshot after) {
+        Map<Long, EncounterSnapshot.CombatantView> previous = new HashMap<>();
+        for (EncounterSnapshot.CombatantView view : before.combatants()) previous.put(view.id(), view);
+
+        List<EncounterSnapshot.CombatantView> changed = after.combatants().stream()
+                .filter(view -> !view.equals(previous.remove(view.id())))
+                .toList();
+        Set<Long> removed = previous.keySet(); // Los que quedan no siguen en el encuentro
+
+        List<Long> beforeOrder = before.combatants().stream()
+                .map(EncounterSnapshot.CombatantView::id)
+                .filter(id -> !removed.contains(id))
+                .toList();
+        List<Long> afterOrder = after.combatants().stream().map(EncounterSnapshot.CombatantView::id).toList();
+        Delta delta = new Delta(changed, List.copyOf(removed), afterOrder.equals(beforeOrder) ? null : afterOrder);
+
+        EncounterEventType type;
+        Long combatantId = null;
+        Integer amount = null;
+        String effectName = null;
+        if (command instanceof EncounterCommand.Start) {
+            type = EncounterEventType.COMBAT_STARTED;
+        } else if (command instanceof EncounterCommand.NextTurn) {
+            type = EncounterEventType.TURN_ADVANCED;
+        } else if (command instanceof EncounterCommand.Damage damage) {
+            type = EncounterEventType.DAMAGE_DEALT;
+            combatantId = damage.combatantId();
+            amount = damage.amount();
+        } else if (command instanceof EncounterCommand.Heal heal) {
+            type = EncounterEventType.HEALED;
+            combatantId = heal.combatantId();
+            amount = heal.amount();
+        } else if (command instanceof EncounterCommand.ApplyEffect effect) {
+            type = EncounterEventType.EFFECT_APPLIED;
+            combatantId = effect.combatantId();
+            amount = effect.duration();
+            effectName = effect.name();
+        } else if (command instanceof EncounterCommand.RemoveEffect effect) {
+            type = EncounterEventType.EFFECT_REMOVED;
+            combatantId = effect.combatantId();
+            effectName = effect.name();
+        } else if (command instanceof EncounterCommand.SetInitiative initiative) {
+            type = EncounterEventType.INITIATIVE_SET;
+            combatantId = initiative.combatantId();
+            amount = initiative.initiative();
+        } else if (command instanceof EncounterCommand.AddCombatant add) {
+            type = EncounterEventType.COMBATANT_ADDED;
+            combatantId = add.combatant().id;
+        } else if (command instanceof EncounterCommand.Move move) {
+            type = EncounterEventType.COMBATANT_MOVED;
+            combatantId = move.combatantId();
+        } else if (command instanceof EncounterCommand.AreaEffect area) {
+            type = EncounterEventType.AREA_EFFECT;
+            amount = area.amount();
+            effectName = area.shape().type().name();
+        } else if (command instanceof EncounterCommand.RemoveCombatant remove) {
+            type = EncounterEventType.COMBATANT_REMOVED;
+            combatantId = remove.combatantId();
+        } else {
+            type = EncounterEventType.ENCOUNTER_FINISHED;
+        }
+
+        return new EncounterChange(after.id(), after.version(), type, combatantId, amount, effectName, after.status(),
+                after.round(), after.activeCombatantId(), delta, Instant.now());
+    }
+}
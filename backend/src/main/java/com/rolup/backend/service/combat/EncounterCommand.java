@@ -0,0 +1,88 @@
+package com.rolup.backend.service.combat;
+
+import java.util.Map;
+import java.util.Set;
+
+// Órdenes que se mandan al buzón de un encuentro. Se aplican de una en una en el hilo del encuentro,
+// sin acceder a la base de datos
+public sealed interface EncounterCommand {
+
+    void apply(EncounterState state);
+
+    record Start() implements EncounterCommand {
+        public void apply(EncounterState state) {
+            state.start();
+        }
+    }
+
+    record NextTurn() implements EncounterCommand {
+        public void apply(EncounterState state) {
+            state.nextTurn();
+        }
+    }
+
+    record Damage(long combatantId, int amount) implements EncounterCommand {
+        public void apply(EncounterState state) {
+            state.damage(combatantId, amount);
+        }
+    }
+
+    record Heal(long combatantId, int amount) implements EncounterCommand {
+        public void apply(EncounterState state) {
+            state.heal(combatantId, amount);
+        }
+    }
+
+    record ApplyEffect(long combatantId, String name, String iconUrl, Integer duration, boolean durationIsAssaults,
+                       boolean endsAtTurnStart) implements EncounterCommand {
+        public void apply(EncounterState state) {
+            state.applyEffect(combatantId, name, iconUrl, duration, durationIsAssaults, endsAtTurnStart);
+        }
+    }
+
+    record RemoveEffect(long combatantId, String name) implements EncounterCommand {
+        public void apply(EncounterState state) {
+            state.removeEffect(combatantId, name);
+        }
+    }
+
+    record SetInitiative(long combatantId, int initiative) implements EncounterCommand {
+        public void apply(EncounterState state) {
+            state.setInitiative(combatantId, initiative);
+        }
+    }
+
+    // El EncounterEntity ya está guardado; aquí solo se mete su proyección
+    record AddCombatant(Combatant combatant) implements EncounterCommand {
+        public void apply(EncounterState state) {
+            state.add(combatant);
+        }
+    }
+
+    record RemoveCombatant(long combatantId) implements EncounterCommand {
+        public void apply(EncounterState state) {
+            state.remove(combatantId);
+        }
+    }
+
+    record Move(long combatantId, Integer x, Integer y) implements EncounterCommand {
+        public void apply(EncounterState state) {
+            state.move(combatantId, x, y);
+        }
+    }
+
+    // El daño se tira una vez para todos; saveBonuses es el bonificador a la salvación de cada combatiente (0 si no
+    // viene)
+    record AreaEffect(AreaShape shape, int amount, Integer saveDc, boolean halfOnSave, Map<Long, Integer> saveBonuses,
+                      Set<Long> excluded) implements EncounterCommand {
+        public void apply(EncounterState state) {
+            state.areaEffect(shape, amount, saveDc, halfOnSave, saveBonuses, excluded);
+        }
+    }
+
+    record Finish() implements EncounterCommand {
+        public void apply(EncounterState state) {
+            state.finish();
+        }
+    }
+}
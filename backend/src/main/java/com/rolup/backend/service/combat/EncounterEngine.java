@@ -0,0 +1,147 @@
+package com.rolup.backend.service.combat;
+
+import com.rolup.backend.exception.BadRequestException;
+import com.rolup.backend.model.enums.EncounterStatus;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+// Encuentros en curso en memoria, uno por EncounterActor. Las órdenes se aplican sin tocar la base de datos y
+// el estado se guarda cada pocos segundos a partir de la última foto de cada encuentro (solo si ha cambiado).
+// Un encuentro se carga de la base de datos la primera vez que se usa, así que tras un reinicio sigue donde se quedó
+@Component
+public class EncounterEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(EncounterEngine.class);
+    private static final long IDLE_EVICTION_MS = 30 * 60 * 1000L;
+
+    private final Map<Long, EncounterActor> actors = new ConcurrentHashMap<>();
+    private final EncounterPersistence persistence;
+    private final EncounterEventLog eventLog;
+    private final Executor executor;
+
+    @Autowired
+    public EncounterEngine(EncounterPersistence persistence, EncounterEventLog eventLog,
+                           @Qualifier("applicationTaskExecutor") Executor executor) {
+        this.persistence = persistence;
+        this.eventLog = eventLog;
+        this.executor = executor;
+    }
+
+    public EncounterSnapshot submit(long encounterId, EncounterCommand command) {
+        while (true) {
+            try {
+                return actor(encounterId).tell(command).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof EncounterActor.Retired) continue; // Se ha sacado de memoria: otra vez
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw e;
+            }
+        }
+    }
+
+    public EncounterSnapshot snapshot(long encounterId) {
+        EncounterActor actor = actors.get(encounterId);
+        if (actor != null) return actor.snapshot();
+
+        EncounterState state = persistence.load(encounterId);
+        if (state.status() == EncounterStatus.FINISHED) return state.snapshot(); // Los terminados no se quedan en memoria
+        return actors.computeIfAbsent(encounterId, id -> new EncounterActor(state, executor, eventLog::append)).snapshot();
+    }
+
+    // Foto del encuentro si está en memoria, sin cargarlo (null si no lo está)
+    public EncounterSnapshot liveSnapshot(long encounterId) {
+        EncounterActor actor = actors.get(encounterId);
+        return actor == null ? null : actor.snapshot();
+    }
+
+    // Termina el encuentro, lo guarda ya y lo saca de memoria
+    public EncounterSnapshot finish(long encounterId) {
+        EncounterSnapshot snapshot = submit(encounterId, new EncounterCommand.Finish());
+        EncounterActor actor = actors.get(encounterId);
+        if (actor != null) evict(encounterId, actor);
+        return snapshot;
+    }
+
+    // Al borrar el encuentro (con su historial)
+    public void forget(long encounterId) {
+        actors.remove(encounterId);
+        eventLog.forget(encounterId);
+    }
+
+    // Lo que ha pasado en el encuentro después de la versión after, en orden
+    public List<EncounterChange> history(long encounterId, long after) {
+        return eventLog.since(encounterId, after);
+    }
+
+    private EncounterActor actor(long encounterId) {
+        EncounterActor actor = actors.get(encounterId);
+        while (actor != null && actor.retired()) {
+            actor.awaitEvicted(); // Se está sacando de memoria: no se recarga hasta que se haya guardado
+            actor = actors.get(encounterId);
+        }
+        if (actor != null) return actor;
+
+        EncounterState state = persistence.load(encounterId);
+        if (state.status() == EncounterStatus.FINISHED) {
+            throw new BadRequestException("El encuentro ha terminado");
+        }
+        return actors.computeIfAbsent(encounterId, id -> new EncounterActor(state, executor, eventLog::append));
+    }
+
+    @Scheduled(fixedDelayString = "${rolup.encounters.snapshot-interval-ms:5000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        actors.forEach((id, actor) -> {
+            persist(actor);
+            if (now - actor.lastActivity() > IDLE_EVICTION_MS && actor.snapshot().version() == actor.persistedVersion()) {
+                evict(id, actor); // Se volverá a cargar si alguien lo usa
+            }
+        });
+    }
+
+    // Lo retira (las órdenes que ya estaban en el buzón se aplican), guarda lo que quede y lo saca del mapa.
+    // Si no se ha podido guardar se queda en memoria con otro actor sobre el mismo estado
+    private void evict(long encounterId, EncounterActor actor) {
+        try {
+            actor.retire().join();
+            persist(actor);
+            if (actor.snapshot().version() > actor.persistedVersion()) {
+                actors.replace(encounterId, actor, actor.successor());
+            } else {
+                actors.remove(encounterId, actor);
+            }
+        } finally {
+            actor.evicted();
+        }
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        actors.values().forEach(this::persist);
+    }
+
+    private void persist(EncounterActor actor) {
+        synchronized (actor) {
+            EncounterSnapshot snapshot = actor.snapshot();
+            if (snapshot.version() <= actor.persistedVersion()) return;
+            try {
+                persistence.save(snapshot);
+                actor.markPersisted(snapshot.version());
+            } catch (RuntimeException e) {
+                // Se vuelve a intentar en la siguiente pasada con la foto que haya entonces
+                log.warn("No se ha podido guardar el encuentro {}: {}", snapshot.id(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.rolup.backend.service.combat;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Historial de los encuentros con escritura diferida: el hilo del encuentro solo deja el cambio en un buffer y aquí se
+// insertan por lotes, cada segundo o en cuanto se junta un lote entero.
+// Un cambio no sale del buffer hasta que su lote está guardado, así que leyendo primero el buffer y después la base
+// de datos (since) no se pierde ninguno
+@Component
+public class EncounterEventLog {
+
+    private static final Logger log = LoggerFactory.getLogger(EncounterEventLog.class);
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final ConcurrentLinkedQueue<EncounterChange> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final EncounterPersistence persistence;
+    private final Executor executor;
+    private final int batchSize;
+    private int failures; // Intentos seguidos fallidos del primer lote (solo se toca dentro de flushBatch)
+
+    @Autowired
+    public EncounterEventLog(EncounterPersistence persistence,
+                             @Qualifier("applicationTaskExecutor") Executor executor,
+                             @Value("${rolup.encounters.event-batch-size:50}") int batchSize) {
+        this.persistence = persistence;
+        this.executor = executor;
+        this.batchSize = batchSize;
+    }
+
+    // Lo llama el hilo del encuentro: no toca la base de datos
+    void append(EncounterChange change) {
+        buffer.add(change);
+        if (buffered.incrementAndGet() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    flush();
+                } finally {
+                    flushRequested.set(false);
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rolup.encounters.event-flush-ms:1000}")
+    public void flush() {
+        while (flushBatch()) {
+            // Hasta vaciar el buffer o que falle un lote
+        }
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        flush();
+    }
+
+    // Cambios del encuentro con sequence > after, en orden. Puede haber huecos si se descartó algún lote
+    public List<EncounterChange> since(long encounterId, long after) {
+        TreeMap<Long, EncounterChange> changes = new TreeMap<>();
+        for (EncounterChange change : buffer) {
+            if (change.encounterId() == encounterId && change.sequence() > after) changes.put(change.sequence(), change);
+        }
+        // Lo que se haya guardado desde que se ha leído el buffer sale aquí (repetido, se queda uno)
+        for (EncounterChange change : persistence.loadEvents(encounterId, after)) {
+            changes.putIfAbsent(change.sequence(), change);
+        }
+        return new ArrayList<>(changes.values());
+    }
+
+    // Al borrar el encuentro
+    synchronized void forget(long encounterId) {
+        int before = buffer.size();
+        buffer.removeIf(change -> change.encounterId() == encounterId);
+        buffered.addAndGet(buffer.size() - before);
+        persistence.deleteEvents(encounterId);
+    }
+
+    // Guarda el primer lote del buffer y lo saca de él. true si puede quedar más
+    private synchronized boolean flushBatch() {
+        List<EncounterChange> batch = new ArrayList<>(batchSize);
+        for (EncounterChange change : buffer) {
+            batch.add(change);
+            if (batch.size() == batchSize) break;
+        }
+        if (batch.isEmpty()) return false;
+
+        try {
+            persistence.saveEvents(batch);
+            failures = 0;
+        } catch (RuntimeException e) {
+            if (++failures < MAX_ATTEMPTS) {
+                log.warn("No se ha podido guardar el historial de encuentros, se reintenta: {}", e.getMessage());
+                return false;
+            }
+            // Se guardan de uno en uno para no perder el lote entero por un cambio que no entra
+            failures = 0;
+            int lost = 0;
+            for (EncounterChange change : batch) {
+                try {
+                    persistence.saveEvents(List.of(change));
+                } catch (RuntimeException single) {
+                    lost++;
+                }
+            }
+            if (lost > 0) log.warn("Se descartan {} cambios del historial de encuentros: {}", lost, e.getMessage());
+        }
+
+        // Solo se sacan aquí y en forget (los dos sincronizados), así que los primeros siguen siendo los del lote
+        for (int i = 0; i < batch.size(); i++) buffer.poll();
+        buffered.addAndGet(-batch.size());
+        return batch.size() == batchSize;
+    }
+}
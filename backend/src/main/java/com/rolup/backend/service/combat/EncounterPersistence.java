@@ -0,0 +1,180 @@
+package com.rolup.backend.service.combat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rolup.backend.exception.NotFoundException;
+import com.rolup.backend.model.character_related.Character;
+import com.rolup.backend.model.combat.Effect;
+import com.rolup.backend.model.combat.Encounter;
+import com.rolup.backend.model.combat.EncounterEntity;
+import com.rolup.backend.model.combat.EncounterEvent;
+import com.rolup.backend.repository.EncounterEventRepository;
+import com.rolup.backend.repository.EncounterRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+// Paso entre el estado en memoria de un encuentro y sus filas: cargarlo al empezar a usarlo, guardar las fotos y
+// escribir y leer su historial
+@Component
+public class EncounterPersistence {
+
+    private final EncounterRepository encounterRepository;
+    private final EncounterEventRepository encounterEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public EncounterPersistence(EncounterRepository encounterRepository,
+                                EncounterEventRepository encounterEventRepository,
+                                ObjectMapper objectMapper) {
+        this.encounterRepository = encounterRepository;
+        this.encounterEventRepository = encounterEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional
+    public EncounterState load(long encounterId) {
+        Encounter encounter = encounterRepository.findById(encounterId)
+                .orElseThrow(() -> new NotFoundException("Encuentro no encontrado"));
+
+        EncounterState state = new EncounterState(encounter.getId(), encounter.getName(), encounter.getStatus(),
+                encounter.getTurn().getRound(), encounter.getTurn().getActiveEntityId(), encounter.getVersion());
+        for (EncounterEntity entity : encounter.getEntities()) {
+            state.restore(toCombatant(entity));
+        }
+        // Si el servidor se cayó después de guardar historial y antes de guardar la foto, el encuentro sigue desde la
+        // foto y esas versiones se van a repetir
+        encounterEventRepository.deleteAfter(encounterId, encounter.getVersion());
+        return state;
+    }
+
+    public static Combatant toCombatant(EncounterEntity entity) {
+        Character character = entity.getCharacter();
+        Combatant combatant = new Combatant(entity.getId(), character == null ? null : character.getId(),
+                entity.getName(), entity.getIconUrl(), entity.getInitiative(), entity.getInitiativeBonus(),
+                entity.getCurrentHp(), entity.getMaxHp(), entity.getTempHp(), entity.getArmorClass(), entity.isDefeated(),
+                entity.getPositionX(), entity.getPositionY());
+        for (Effect effect : entity.getEffects()) {
+            combatant.addEffect(effect.getName(), effect.getIconUrl(), effect.getTotalDuration(),
+                    effect.getRemainingTurns(), effect.isTotalDurationIsAssaults(), effect.isEndsAtTurnStart());
+        }
+        return combatant;
+    }
+
+    // Guarda la foto si es más nueva que la guardada. Los PG de los personajes se copian a su ficha
+    @Transactional
+    public void save(EncounterSnapshot snapshot) {
+        Encounter encounter = encounterRepository.findById(snapshot.id()).orElse(null);
+        if (encounter == null || encounter.getVersion() >= snapshot.version()) return; // Borrado o ya guardado
+
+        encounter.setStatus(snapshot.status());
+        encounter.getTurn().setRound(snapshot.round());
+        encounter.getTurn().setActiveEntityId(snapshot.activeCombatantId());
+        encounter.setVersion(snapshot.version());
+        encounter.setUpdatedAt(Instant.now());
+        encounter.getEntities().removeIf(entity -> snapshot.removedCombatantIds().contains(entity.getId()));
+
+        for (EncounterSnapshot.CombatantView view : snapshot.combatants()) {
+            EncounterEntity entity = encounter.getEntities().stream()
+                    .filter(e -> e.getId().equals(view.id()))
+                    .findFirst()
+                    .orElse(null);
+            if (entity == null) continue;
+
+            entity.setInitiative(view.initiative());
+            entity.setCurrentHp(view.currentHp());
+            entity.setTempHp(view.tempHp());
+            entity.setDefeated(view.defeated());
+            entity.setPositionX(view.x());
+            entity.setPositionY(view.y());
+            if (!sameEffects(entity.getEffects(), view.effects())) {
+                entity.getEffects().clear();
+                view.effects().forEach(effect -> entity.getEffects().add(toEffect(effect)));
+            }
+
+            if (entity.getCharacter() != null) {
+                entity.getCharacter().setCurrentHp(view.currentHp());
+                entity.getCharacter().setTempHp(view.tempHp());
+            }
+        }
+    }
+
+    @Transactional
+    public void saveEvents(List<EncounterChange> changes) {
+        encounterEventRepository.saveAll(changes.stream().map(this::toEvent).toList());
+    }
+
+    public List<EncounterChange> loadEvents(long encounterId, long after) {
+        return encounterEventRepository.findByEncounterIdAndSequenceGreaterThanOrderBySequence(encounterId, after)
+                .stream()
+                .map(this::toChange)
+                .toList();
+    }
+
+    public void deleteEvents(long encounterId) {
+        encounterEventRepository.deleteByEncounterId(encounterId);
+    }
+
+    private EncounterEvent toEvent(EncounterChange change) {
+        EncounterEvent event = new EncounterEvent();
+        event.setEncounterId(change.encounterId());
+        event.setSequence(change.sequence());
+        event.setType(change.type());
+        event.setCombatantId(change.combatantId());
+        event.setAmount(change.amount());
+        event.setEffectName(change.effectName());
+        event.setStatus(change.status());
+        event.setRound(change.round());
+        event.setActiveCombatantId(change.activeCombatantId());
+        event.setCreatedAt(change.createdAt());
+        try {
+            event.setDelta(objectMapper.writeValueAsString(change.delta()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el cambio del encuentro", e);
+        }
+        return event;
+    }
+
+    private EncounterChange toChange(EncounterEvent event) {
+        EncounterChange.Delta delta;
+        try {
+            delta = objectMapper.readValue(event.getDelta(), EncounterChange.Delta.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Historial del encuentro " + event.getEncounterId() + " ilegible", e);
+        }
+        return new EncounterChange(event.getEncounterId(), event.getSequence(), event.getType(),
+                event.getCombatantId(), event.getAmount(), event.getEffectName(), event.getStatus(), event.getRound(),
+                event.getActiveCombatantId(), delta, event.getCreatedAt());
+    }
+
+    // Para no borrar y volver a insertar los efectos en cada foto si no han cambiado
+    private static boolean sameEffects(List<Effect> stored, List<EncounterSnapshot.EffectView> current) {
+        if (stored.size() != current.size()) return false;
+        for (int i = 0; i < stored.size(); i++) {
+            Effect effect = stored.get(i);
+            EncounterSnapshot.EffectView view = current.get(i);
+            if (!effect.getName().equals(view.name())
+                    || !Objects.equals(effect.getRemainingTurns(), view.remainingTurns())
+                    || effect.isTotalDurationIsAssaults() != view.totalDurationIsAssaults()
+                    || effect.isEndsAtTurnStart() != view.endsAtTurnStart()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Effect toEffect(EncounterSnapshot.EffectView view) {
+        Effect effect = new Effect();
+        effect.setName(view.name());
+        effect.setIconUrl(view.iconUrl());
+        effect.setRemainingTurns(view.remainingTurns());
+        effect.setTotalDuration(view.totalDuration());
+        effect.setTotalDurationIsAssaults(view.totalDurationIsAssaults());
+        effect.setEndsAtTurnStart(view.endsAtTurnStart());
+        return effect;
+    }
+}
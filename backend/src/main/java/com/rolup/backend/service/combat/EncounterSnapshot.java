@@ -0,0 +1,23 @@
+package com.rolup.backend.service.combat;
+
+import com.rolup.backend.model.enums.EncounterStatus;
+
+import java.util.List;
+import java.util.Set;
+
+// Foto inmutable de un encuentro tras una orden. Es lo que se devuelve al cliente y lo que se guarda en la base
+// de datos, así que leerla no necesita pasar por el hilo del encuentro
+public record EncounterSnapshot(long id, String name, EncounterStatus status, int round, Long activeCombatantId,
+                                long version, List<CombatantView> combatants, Set<Long> removedCombatantIds) {
+
+    // En orden de iniciativa
+    public record CombatantView(long id, Long characterId, String name, String iconUrl, Integer initiative,
+                                int initiativeBonus, int currentHp, int maxHp, int tempHp, int armorClass,
+                                boolean defeated, Integer x, Integer y, List<EffectView> effects) {
+    }
+
+    // remainingTurns y totalDuration van en asaltos si totalDurationIsAssaults
+    public record EffectView(String name, String iconUrl, Integer remainingTurns, Integer totalDuration,
+                             boolean totalDurationIsAssaults, boolean endsAtTurnStart) {
+    }
+}
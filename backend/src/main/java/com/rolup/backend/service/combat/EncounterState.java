@@ -0,0 +1,285 @@
+package com.rolup.backend.service.combat;
+
+import com.rolup.backend.exception.BadRequestException;
+import com.rolup.backend.exception.NotFoundException;
+import com.rolup.backend.model.enums.EncounterStatus;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+// Estado vivo de un encuentro. No es thread-safe: solo lo toca el hilo que está vaciando el buzón de su EncounterActor
+public final class EncounterState {
+
+    public static final int MAX_GRID_SIZE = 1000; // Casillas por lado
+
+    private final long id;
+    private final String name;
+    private EncounterStatus status;
+    private int round;
+    private Long activeId;
+    private long version;
+
+    private final Map<Long, Combatant> combatants = new HashMap<>();
+    private final InitiativeOrder order = new InitiativeOrder();
+    private final Set<Long> removed = new HashSet<>(); // Combatientes quitados, para borrarlos al guardar
+    private final SplittableRandom random = new SplittableRandom();
+    private final EffectWheel wheel;
+    private final SpatialGrid grid = new SpatialGrid();
+
+    public EncounterState(long id, String name, EncounterStatus status, int round, Long activeId, long version) {
+        this.id = id;
+        this.name = name;
+        this.status = status;
+        this.round = round;
+        this.activeId = activeId;
+        this.version = version;
+        this.wheel = new EffectWheel(round);
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public EncounterStatus status() {
+        return status;
+    }
+
+    // Para cargar el estado guardado (sin tirar iniciativa ni tocar el turno). Los efectos que trae se programan en
+    // la rueda con lo que les quedaba
+    public void restore(Combatant combatant) {
+        combatants.put(combatant.id, combatant);
+        order.add(combatant);
+        grid.add(combatant);
+        for (CombatEffect effect : combatant.effects) {
+            wheel.schedule(combatant, effect, effect.startingTurns);
+        }
+    }
+
+    void add(Combatant combatant) {
+        requireNotFinished();
+        if (combatants.containsKey(combatant.id)) {
+            throw new BadRequestException("El combatiente ya está en el encuentro");
+        }
+        if (status == EncounterStatus.ACTIVE && combatant.initiative == null) {
+            combatant.initiative = rollInitiative(combatant);
+        }
+        restore(combatant);
+        if (status == EncounterStatus.ACTIVE && activeId == null) {
+            activeId = combatant.id;
+        }
+    }
+
+    void remove(long combatantId) {
+        requireNotFinished();
+        combatant(combatantId);
+        boolean wasActive = activeId != null && activeId == combatantId;
+        int position = order.positionOf(combatantId);
+        order.remove(combatantId);
+        Combatant combatant = combatants.remove(combatantId);
+        for (CombatEffect effect : combatant.effects) wheel.cancel(effect);
+        wheel.forget(combatantId);
+        grid.remove(combatant);
+        removed.add(combatantId);
+
+        // Se le acaba el turno sin llegar a terminarlo: empieza el del siguiente, que ahora ocupa su posición
+        if (wasActive) {
+            activeId = null;
+            advance(position - 1);
+        }
+    }
+
+    void start() {
+        if (status != EncounterStatus.PREPARING) {
+            throw new BadRequestException("El encuentro ya ha empezado");
+        }
+        if (order.size() == 0) {
+            throw new BadRequestException("El encuentro no tiene combatientes");
+        }
+
+        for (Combatant combatant : new ArrayList<>(combatants.values())) {
+            if (combatant.initiative == null) {
+                combatant.initiative = rollInitiative(combatant);
+                order.reposition(combatant);
+            }
+        }
+        status = EncounterStatus.ACTIVE;
+        round = 1;
+        wheel.roundStarted(round, this::expire);
+
+        Combatant first = order.get(0).skipsTurn() ? following(0) : order.get(0);
+        activeId = first == null ? null : first.id;
+        if (first != null) wheel.turnStarted(first, this::expire);
+    }
+
+    void nextTurn() {
+        requireActive();
+        if (activeId == null) return;
+
+        int position = order.positionOf(activeId);
+        Combatant current = order.get(position);
+        wheel.turnEnded(current, this::expire);
+        advance(position);
+    }
+
+    // Empieza el turno del siguiente con turno después de la posición dada (-1: desde el principio del orden)
+    private void advance(int position) {
+        Combatant next = following(position);
+        if (next == null) return; // No queda nadie con turno
+        if (order.positionOf(next.id) <= position) { // Se ha dado la vuelta
+            round++;
+            wheel.roundStarted(round, this::expire);
+        }
+        activeId = next.id;
+        wheel.turnStarted(next, this::expire);
+    }
+
+    private void expire(EffectWheel.Timer timer) {
+        timer.effect.timer = null;
+        timer.owner.effects.remove(timer.effect);
+    }
+
+    // Siguiente combatiente con turno después de la posición dada, dando la vuelta si hace falta
+    private Combatant following(int position) {
+        for (int step = 1; step <= order.size(); step++) {
+            Combatant candidate = order.get((position + step) % order.size());
+            if (!candidate.skipsTurn()) return candidate;
+        }
+        return null;
+    }
+
+    void damage(long combatantId, int amount) {
+        requireNotFinished();
+        requirePositive(amount);
+        combatant(combatantId).damage(amount);
+    }
+
+    void heal(long combatantId, int amount) {
+        requireNotFinished();
+        requirePositive(amount);
+        combatant(combatantId).heal(amount);
+    }
+
+    void applyEffect(long combatantId, String effectName, String iconUrl, Integer duration, boolean durationIsAssaults,
+                     boolean endsAtTurnStart) {
+        requireNotFinished();
+        if (effectName == null || effectName.isBlank()) {
+            throw new BadRequestException("El efecto necesita un nombre");
+        }
+        if (duration != null && duration < 1) {
+            throw new BadRequestException("La duración debe ser de al menos un turno");
+        }
+        Combatant combatant = combatant(combatantId);
+        CombatEffect effect = new CombatEffect(effectName.trim(), iconUrl, duration, duration, durationIsAssaults,
+                endsAtTurnStart);
+        combatant.effects.add(effect);
+        wheel.schedule(combatant, effect, duration);
+    }
+
+    void removeEffect(long combatantId, String effectName) {
+        requireNotFinished();
+        boolean removedEffect = combatant(combatantId).effects.removeIf(effect -> {
+            if (!effect.name.equalsIgnoreCase(effectName)) return false;
+            wheel.cancel(effect);
+            return true;
+        });
+        if (!removedEffect) {
+            throw new NotFoundException("El combatiente no tiene ese efecto");
+        }
+    }
+
+    void setInitiative(long combatantId, int initiative) {
+        requireNotFinished();
+        Combatant combatant = combatant(combatantId);
+        combatant.initiative = initiative;
+        order.reposition(combatant);
+    }
+
+    // x e y null = quitarlo de la cuadrícula
+    void move(long combatantId, Integer x, Integer y) {
+        requireNotFinished();
+        Combatant combatant = combatant(combatantId);
+        if (x == null || y == null) {
+            grid.remove(combatant);
+            return;
+        }
+        requireOnGrid(x, y);
+        grid.place(combatant, x, y);
+    }
+
+    // Daño en área: a todos los colocados dentro menos los excluidos y las criaturas ya derrotadas, en orden de id.
+    // Con saveDc cada uno tira salvación (d20 + su bonificador) y si la pasa recibe la mitad o nada
+    void areaEffect(AreaShape shape, int amount, Integer saveDc, boolean halfOnSave, Map<Long, Integer> saveBonuses,
+                    Set<Long> excluded) {
+        requireNotFinished();
+        requirePositive(amount);
+        List<Combatant> targets = new ArrayList<>(grid.within(shape));
+        targets.removeIf(target -> excluded.contains(target.id) || target.skipsTurn());
+        targets.sort(Comparator.comparingLong(target -> target.id));
+
+        for (Combatant target : targets) {
+            int dealt = amount;
+            if (saveDc != null && random.nextInt(20) + 1 + saveBonuses.getOrDefault(target.id, 0) >= saveDc) {
+                dealt = halfOnSave ? amount / 2 : 0;
+            }
+            if (dealt > 0) target.damage(dealt);
+        }
+    }
+
+    void finish() {
+        status = EncounterStatus.FINISHED;
+    }
+
+    void bumpVersion() {
+        version++;
+    }
+
+    public EncounterSnapshot snapshot() {
+        List<EncounterSnapshot.CombatantView> views = new ArrayList<>(order.size());
+        for (int i = 0; i < order.size(); i++) {
+            views.add(order.get(i).view(wheel));
+        }
+        return new EncounterSnapshot(id, name, status, round, activeId, version, List.copyOf(views), Set.copyOf(removed));
+    }
+
+    private int rollInitiative(Combatant combatant) {
+        return random.nextInt(20) + 1 + combatant.initiativeBonus;
+    }
+
+    private Combatant combatant(long combatantId) {
+        Combatant combatant = combatants.get(combatantId);
+        if (combatant == null) {
+            throw new NotFoundException("Combatiente no encontrado");
+        }
+        return combatant;
+    }
+
+    public static void requireOnGrid(int x, int y) {
+        if (x < 0 || y < 0 || x >= MAX_GRID_SIZE || y >= MAX_GRID_SIZE) {
+            throw new BadRequestException("La casilla está fuera de la cuadrícula");
+        }
+    }
+
+    private void requireActive() {
+        if (status != EncounterStatus.ACTIVE) {
+            throw new BadRequestException("El encuentro no está en curso");
+        }
+    }
+
+    private void requireNotFinished() {
+        if (status == EncounterStatus.FINISHED) {
+            throw new BadRequestException("El encuentro ha terminado");
+        }
+    }
+
+    private static void requirePositive(int amount) {
+        if (amount < 0) {
+            throw new BadRequestException("La cantidad no puede ser negativa");
+        }
+    }
+}
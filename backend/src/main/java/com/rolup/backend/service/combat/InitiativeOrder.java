@@ -0,0 +1,68 @@
+package com.rolup.backend.service.combat;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+// Orden de iniciativa: array ordenado (mayor iniciativa primero, desempata el bonificador y luego el id) más un
+// índice id -> posición. Buscar la posición de un combatiente es O(1) y meter, quitar o cambiar la iniciativa de
+// uno es una búsqueda binaria y un desplazamiento, que con las decenas de combatientes de un encuentro es lo más rápido
+final class InitiativeOrder {
+
+    private static final Comparator<Combatant> ORDER = Comparator
+            .comparingInt((Combatant c) -> c.initiative == null ? Integer.MIN_VALUE : c.initiative).reversed()
+            .thenComparing(Comparator.comparingInt((Combatant c) -> c.initiativeBonus).reversed())
+            .thenComparingLong(c -> c.id);
+
+    private Combatant[] order = new Combatant[16];
+    private int size;
+    private final Map<Long, Integer> positions = new HashMap<>();
+
+    int size() {
+        return size;
+    }
+
+    Combatant get(int position) {
+        return order[position];
+    }
+
+    // -1 si no está
+    int positionOf(long id) {
+        Integer position = positions.get(id);
+        return position == null ? -1 : position;
+    }
+
+    void add(Combatant combatant) {
+        if (size == order.length) order = Arrays.copyOf(order, size * 2);
+
+        int position = Arrays.binarySearch(order, 0, size, combatant, ORDER);
+        position = position < 0 ? -position - 1 : position;
+        System.arraycopy(order, position, order, position + 1, size - position);
+        order[position] = combatant;
+        size++;
+        reindex(position);
+    }
+
+    void remove(long id) {
+        int position = positionOf(id);
+        if (position < 0) return;
+
+        System.arraycopy(order, position + 1, order, position, size - position - 1);
+        order[--size] = null;
+        positions.remove(id);
+        reindex(position);
+    }
+
+    // Después de cambiar la iniciativa de un combatiente que ya está en el orden
+    void reposition(Combatant combatant) {
+        remove(combatant.id);
+        add(combatant);
+    }
+
+    private void reindex(int from) {
+        for (int i = from; i < size; i++) {
+            positions.put(order[i].id, i);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.rolup.backend.service.combat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Índice de las posiciones de los combatientes: la cuadrícula se divide en zonas de 8x8 casillas y cada zona guarda
+// quién está en ella. Mover a alguien solo toca su zona vieja y la nueva, y buscar quién está en un área solo mira
+// las zonas que toca. Como EncounterState, solo la usa el hilo del encuentro
+final class SpatialGrid {
+
+    private static final int ZONE_SHIFT = 3; // Zonas de 8x8 casillas
+
+    private final Map<Long, List<Combatant>> zones = new HashMap<>();
+
+    // Para los que llegan ya con posición (al cargar el encuentro o al entrar en él)
+    void add(Combatant combatant) {
+        if (combatant.x == null) return;
+        zones.computeIfAbsent(zone(combatant.x, combatant.y), key -> new ArrayList<>(4)).add(combatant);
+    }
+
+    // Lo coloca en (x, y), quitándolo de donde estuviera
+    void place(Combatant combatant, int x, int y) {
+        if (combatant.x != null && zone(combatant.x, combatant.y) == zone(x, y)) {
+            combatant.x = x;
+            combatant.y = y;
+            return;
+        }
+        remove(combatant);
+        combatant.x = x;
+        combatant.y = y;
+        zones.computeIfAbsent(zone(x, y), key -> new ArrayList<>(4)).add(combatant);
+    }
+
+    void remove(Combatant combatant) {
+        if (combatant.x == null) return;
+        long key = zone(combatant.x, combatant.y);
+        List<Combatant> zone = zones.get(key);
+        if (zone != null) {
+            zone.remove(combatant);
+            if (zone.isEmpty()) zones.remove(key);
+        }
+        combatant.x = null;
+        combatant.y = null;
+    }
+
+    // Los combatientes colocados dentro del área
+    List<Combatant> within(AreaShape shape) {
+        List<Combatant> found = new ArrayList<>();
+        int minZoneX = shape.minX() >> ZONE_SHIFT;
+        int maxZoneX = shape.maxX() >> ZONE_SHIFT;
+        int minZoneY = shape.minY() >> ZONE_SHIFT;
+        int maxZoneY = shape.maxY() >> ZONE_SHIFT;
+        for (int zoneX = minZoneX; zoneX <= maxZoneX; zoneX++) {
+            for (int zoneY = minZoneY; zoneY <= maxZoneY; zoneY++) {
+                List<Combatant> zone = zones.get(key(zoneX, zoneY));
+                if (zone == null) continue;
+                for (Combatant combatant : zone) {
+                    if (shape.contains(combatant.x, combatant.y)) found.add(combatant);
+                }
+            }
+        }
+        return found;
+    }
+
+    private static long zone(int x, int y) {
+        return key(x >> ZONE_SHIFT, y >> ZONE_SHIFT);
+    }
+
+    private static long key(int zoneX, int zoneY) {
+        return ((long) zoneX << 32) | (zoneY & 0xFFFFFFFFL);
+    }
+}
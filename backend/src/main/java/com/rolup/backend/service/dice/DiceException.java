@@ -0,0 +1,8 @@
+package com.rolup.backend.service.dice;
+
+// Expresión de dados mal escrita. Extiende IllegalArgumentException para que GlobalExceptionHandler la devuelva como 400
+public class DiceException extends IllegalArgumentException {
+    public DiceException(String message) {
+        super(message);
+    }
+}
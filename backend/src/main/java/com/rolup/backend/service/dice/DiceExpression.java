@@ -0,0 +1,192 @@
+package com.rolup.backend.service.dice;
+
+import com.rolup.backend.model.enums.RollMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Expresión de dados ya parseada ("2d6+3", "4d6kh3", "1d20+5", "2d20kl1", "8d6r1").
+// Los términos se guardan en arrays paralelos y tirar solo recorre esos arrays: sin reservar memoria si no hay
+// que quedarse con parte de los dados, y con un buffer por hilo cuando sí
+public final class DiceExpression {
+
+    public static final int MAX_DICE = 100;   // Por término
+    public static final int MAX_SIDES = 1000;
+
+    private static final ThreadLocal<int[]> SCRATCH = ThreadLocal.withInitial(() -> new int[MAX_DICE]);
+
+    private final String text;
+    private final String normalized; // En minúsculas y sin espacios: "2d6 + 3" y "2D6+3" son la misma
+    private final int[] signs;    // +1 / -1
+    private final int[] counts;   // Nº de dados
+    private final int[] sides;    // Caras
+    private final int[] keeps;    // Con cuántos se queda (== counts si no hay kh/kl/dh/dl)
+    private final boolean[] keepHighest;
+    private final int[] rerolls;  // Se vuelve a tirar una vez si sale <= este valor (0 = nunca)
+    private final int constant;
+    private final int min;
+    private final int max;
+
+    DiceExpression(String text, String normalized, List<int[]> terms, int constant) {
+        this.text = text;
+        this.normalized = normalized;
+        int n = terms.size();
+        this.signs = new int[n];
+        this.counts = new int[n];
+        this.sides = new int[n];
+        this.keeps = new int[n];
+        this.keepHighest = new boolean[n];
+        this.rerolls = new int[n];
+        this.constant = constant;
+
+        int lowest = constant;
+        int highest = constant;
+        for (int i = 0; i < n; i++) {
+            int[] term = terms.get(i);
+            signs[i] = term[0];
+            counts[i] = term[1];
+            sides[i] = term[2];
+            keeps[i] = term[3];
+            keepHighest[i] = term[4] == 1;
+            rerolls[i] = term[5];
+
+            if (signs[i] > 0) {
+                lowest += keeps[i];
+                highest += keeps[i] * sides[i];
+            } else {
+                lowest -= keeps[i] * sides[i];
+                highest -= keeps[i];
+            }
+        }
+        this.min = lowest;
+        this.max = highest;
+    }
+
+    public static DiceExpression parse(String text) {
+        return DiceParser.parse(text);
+    }
+
+    public String text() {
+        return text;
+    }
+
+    public String normalized() {
+        return normalized;
+    }
+
+    // Nº de términos con dados (la constante va aparte)
+    public int terms() {
+        return counts.length;
+    }
+
+    public int sign(int term) {
+        return signs[term];
+    }
+
+    public int count(int term) {
+        return counts[term];
+    }
+
+    public int sides(int term) {
+        return sides[term];
+    }
+
+    public int keep(int term) {
+        return keeps[term];
+    }
+
+    public boolean keepHighest(int term) {
+        return keepHighest[term];
+    }
+
+    public int reroll(int term) {
+        return rerolls[term];
+    }
+
+    public int constant() {
+        return constant;
+    }
+
+    public int min() {
+        return min;
+    }
+
+    public int max() {
+        return max;
+    }
+
+    public int roll(SplittableRandom random) {
+        int total = constant;
+        for (int i = 0; i < counts.length; i++) {
+            total += signs[i] * rollTerm(i, random, null);
+        }
+        return total;
+    }
+
+    // Como roll pero apuntando cada dado que cuenta; para mostrar la tirada, no para tiradas masivas
+    public int roll(SplittableRandom random, List<List<Integer>> dice) {
+        int total = constant;
+        for (int i = 0; i < counts.length; i++) {
+            List<Integer> kept = new ArrayList<>(keeps[i]);
+            total += signs[i] * rollTerm(i, random, kept);
+            dice.add(kept);
+        }
+        return total;
+    }
+
+    public int roll(SplittableRandom random, RollMode mode) {
+        int first = roll(random);
+        return switch (mode) {
+            case NORMAL -> first;
+            case ADVANTAGE -> Math.max(first, roll(random));
+            case DISADVANTAGE -> Math.min(first, roll(random));
+        };
+    }
+
+    private int rollTerm(int i, SplittableRandom random, List<Integer> kept) {
+        int count = counts[i];
+        int faces = sides[i];
+        int reroll = rerolls[i];
+
+        if (keeps[i] == count) {
+            int sum = 0;
+            for (int d = 0; d < count; d++) {
+                int value = die(random, faces, reroll);
+                if (kept != null) kept.add(value);
+                sum += value;
+            }
+            return sum;
+        }
+
+        // Inserción ordenada de mayor a menor en el buffer del hilo (como mucho MAX_DICE dados)
+        int[] rolled = SCRATCH.get();
+        for (int d = 0; d < count; d++) {
+            int value = die(random, faces, reroll);
+            int j = d;
+            while (j > 0 && rolled[j - 1] < value) {
+                rolled[j] = rolled[j - 1];
+                j--;
+            }
+            rolled[j] = value;
+        }
+
+        int from = keepHighest[i] ? 0 : count - keeps[i];
+        int sum = 0;
+        for (int d = from; d < from + keeps[i]; d++) {
+            if (kept != null) kept.add(rolled[d]);
+            sum += rolled[d];
+        }
+        return sum;
+    }
+
+    private static int die(SplittableRandom random, int faces, int reroll) {
+        int value = random.nextInt(faces) + 1;
+        return value <= reroll ? random.nextInt(faces) + 1 : value; // Solo se repite una vez, como en las reglas
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
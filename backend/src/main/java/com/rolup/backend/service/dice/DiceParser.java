@@ -0,0 +1,140 @@
+package com.rolup.backend.service.dice;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Parser de expresiones de dados. Gramática (sin distinguir mayúsculas ni espacios):
+//   expr   := ['+'|'-'] term (('+'|'-') term)*
+//   term   := número | [número] 'd' número mod*
+//   mod    := ('kh' | 'kl' | 'k') [número]   quedarse con los N más altos / bajos (1 por defecto)
+//           | ('dh' | 'dl') [número]         descartar los N más altos / bajos (1 por defecto)
+//           | 'r' [número]                   repetir una vez los dados que saquen <= N (1 por defecto)
+final class DiceParser {
+
+    static final int MAX_LENGTH = 100;
+    private static final int MAX_TERMS = 20;
+    private static final int MAX_CONSTANT = 100_000;
+
+    private final String original;
+    private final String text;
+    private int pos;
+
+    private DiceParser(String original) {
+        this.original = original;
+        this.text = original.toLowerCase().replaceAll("\\s+", "");
+    }
+
+    static DiceExpression parse(String text) {
+        if (text == null || text.isBlank()) {
+            throw new DiceException("La expresión de dados está vacía");
+        }
+        if (text.length() > MAX_LENGTH) {
+            throw new DiceException("La expresión de dados es demasiado larga (máximo " + MAX_LENGTH + " caracteres)");
+        }
+        return new DiceParser(text.trim()).parse();
+    }
+
+    private DiceExpression parse() {
+        List<int[]> terms = new ArrayList<>();
+        int constant = 0;
+
+        int sign = 1;
+        if (peek() == '+' || peek() == '-') {
+            sign = next() == '-' ? -1 : 1;
+        }
+        while (true) {
+            if (!Character.isDigit(peek()) && peek() != 'd') {
+                throw error(pos >= text.length() ? "Falta un término al final" : "Carácter inesperado '" + peek() + "'");
+            }
+
+            int number = Character.isDigit(peek()) ? number() : 1;
+            if (peek() == 'd') {
+                next();
+                terms.add(dice(sign, number));
+                if (terms.size() > MAX_TERMS) throw error("Demasiados términos (máximo " + MAX_TERMS + ")");
+            } else {
+                constant += sign * number;
+                if (Math.abs(constant) > MAX_CONSTANT) throw error("El modificador es demasiado grande");
+            }
+
+            if (pos >= text.length()) break;
+            char op = next();
+            if (op != '+' && op != '-') {
+                pos--;
+                throw error("Carácter inesperado '" + op + "'");
+            }
+            sign = op == '-' ? -1 : 1;
+        }
+        return new DiceExpression(original, text, terms, constant);
+    }
+
+    // [signo, nº de dados, caras, con cuántos se queda, 1 = los más altos, repetir si <=]
+    private int[] dice(int sign, int count) {
+        if (!Character.isDigit(peek())) throw error("Faltan las caras del dado");
+        int sides = number();
+        if (count < 1 || count > DiceExpression.MAX_DICE) {
+            throw error("El número de dados debe estar entre 1 y " + DiceExpression.MAX_DICE);
+        }
+        if (sides < 1 || sides > DiceExpression.MAX_SIDES) {
+            throw error("Las caras del dado deben estar entre 1 y " + DiceExpression.MAX_SIDES);
+        }
+
+        int keep = count;
+        boolean highest = true;
+        boolean keepSet = false;
+        int reroll = 0;
+        while (peek() == 'k' || peek() == 'r' || (peek() == 'd' && (peekAt(1) == 'h' || peekAt(1) == 'l'))) {
+            char mod = next();
+            if (mod == 'r') {
+                reroll = optionalNumber(1);
+                if (reroll >= sides) throw error("No se puede repetir con " + reroll + " o menos en un d" + sides);
+                continue;
+            }
+
+            if (keepSet) throw error("Solo se puede quedar o descartar una vez por término");
+            keepSet = true;
+            char which = peek() == 'h' || peek() == 'l' ? next() : 'h'; // "k3" = "kh3"
+            int n = optionalNumber(1);
+            if (mod == 'k') {
+                keep = n;
+                highest = which == 'h';
+            } else {
+                keep = count - n;
+                highest = which == 'l'; // Descartar los bajos es quedarse con los altos
+            }
+            if (keep < 1 || keep > count) {
+                throw error("Hay que quedarse con entre 1 y " + count + " dados");
+            }
+        }
+        return new int[]{sign, count, sides, keep, highest ? 1 : 0, reroll};
+    }
+
+    private int number() {
+        int start = pos;
+        while (Character.isDigit(peek())) {
+            pos++;
+            if (pos - start > 6) throw error("Número demasiado grande");
+        }
+        return Integer.parseInt(text.substring(start, pos));
+    }
+
+    private int optionalNumber(int defaultValue) {
+        return Character.isDigit(peek()) ? number() : defaultValue;
+    }
+
+    private char peek() {
+        return peekAt(0);
+    }
+
+    private char peekAt(int offset) {
+        return pos + offset < text.length() ? text.charAt(pos + offset) : '\0';
+    }
+
+    private char next() {
+        return text.charAt(pos++);
+    }
+
+    private DiceException error(String message) {
+        return new DiceException(message + " (posición " + (pos + 1) + " de \"" + text + "\")");
+    }
+}
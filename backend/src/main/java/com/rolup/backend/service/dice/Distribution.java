@@ -0,0 +1,121 @@
+package com.rolup.backend.service.dice;
+
+// Distribución de probabilidad exacta de un resultado entero: probabilities[i] es P(X = min + i).
+// Es inmutable, así que se puede cachear y compartir entre hilos
+public final class Distribution {
+
+    private final int min;
+    private final double[] probabilities;
+
+    Distribution(int min, double[] probabilities) {
+        this.min = min;
+        this.probabilities = probabilities;
+    }
+
+    // Un valor fijo (la constante de la expresión)
+    static Distribution constant(int value) {
+        return new Distribution(value, new double[]{1.0});
+    }
+
+    // Un dado de "sides" caras que se repite una vez si saca <= reroll
+    static Distribution die(int sides, int reroll) {
+        double[] p = new double[sides];
+        double face = 1.0 / sides;
+        double repeated = reroll * face; // Probabilidad de tener que repetir
+        for (int v = 1; v <= sides; v++) {
+            p[v - 1] = (v <= reroll ? 0 : face) + repeated * face;
+        }
+        return new Distribution(1, p);
+    }
+
+    public int min() {
+        return min;
+    }
+
+    public int max() {
+        return min + probabilities.length - 1;
+    }
+
+    public int size() {
+        return probabilities.length;
+    }
+
+    public double probability(int value) {
+        int i = value - min;
+        return i < 0 || i >= probabilities.length ? 0 : probabilities[i];
+    }
+
+    public double[] probabilities() {
+        return probabilities.clone();
+    }
+
+    public double mean() {
+        double mean = 0;
+        for (int i = 0; i < probabilities.length; i++) {
+            mean += (min + i) * probabilities[i];
+        }
+        return mean;
+    }
+
+    public double variance() {
+        double mean = mean();
+        double variance = 0;
+        for (int i = 0; i < probabilities.length; i++) {
+            double d = min + i - mean;
+            variance += d * d * probabilities[i];
+        }
+        return variance;
+    }
+
+    // P(X >= target): probabilidad de igualar o superar una CD o una CA
+    public double atLeast(int target) {
+        double p = 0;
+        for (int i = Math.max(0, target - min); i < probabilities.length; i++) {
+            p += probabilities[i];
+        }
+        return Math.min(1.0, p);
+    }
+
+    // Suma de dos variables independientes
+    Distribution plus(Distribution other) {
+        double[] a = probabilities;
+        double[] b = other.probabilities;
+        double[] result = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == 0) continue;
+            for (int j = 0; j < b.length; j++) {
+                result[i + j] += a[i] * b[j];
+            }
+        }
+        return new Distribution(min + other.min, result);
+    }
+
+    Distribution negate() {
+        double[] result = new double[probabilities.length];
+        for (int i = 0; i < probabilities.length; i++) {
+            result[probabilities.length - 1 - i] = probabilities[i];
+        }
+        return new Distribution(-max(), result);
+    }
+
+    // X + offset: mismas probabilidades desde otro mínimo
+    Distribution shift(int offset) {
+        return offset == 0 ? this : new Distribution(min + offset, probabilities);
+    }
+
+    // El mayor (ventaja) o el menor (desventaja) de dos tiradas independientes
+    Distribution bestOfTwo(boolean highest) {
+        double[] result = new double[probabilities.length];
+        double below = 0; // P(X < v)
+        for (int i = 0; i < probabilities.length; i++) {
+            double p = probabilities[i];
+            double above = 1 - below - p; // P(X > v)
+            // max = v: las dos <= v menos las dos < v. min = v: las dos >= v menos las dos > v
+            result[i] = highest
+                    ? (below + p) * (below + p) - below * below
+                    : (above + p) * (above + p) - above * above;
+            below += p;
+        }
+        return new Distribution(min, result);
+    }
+}
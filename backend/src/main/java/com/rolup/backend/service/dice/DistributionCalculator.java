@@ -0,0 +1,148 @@
+package com.rolup.backend.service.dice;
+
+import com.rolup.backend.model.enums.RollMode;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Distribución exacta del total de una expresión de dados, convolucionando la de cada término.
+// NdM se calcula por potencias: d6^20 = d6^16 + d6^4, y cada d6^(2^k) sale de convolucionar la anterior consigo
+// misma, así que 20d6 son 2 convoluciones pequeñas si las potencias ya están en caché. Los términos con kh/kl/dh/dl
+// se calculan con una DP sobre los valores del dado. Se cachean las potencias, los términos y las expresiones enteras
+@Component
+public class DistributionCalculator {
+
+    public static final int MAX_SUPPORT = 10_001;  // Nº de resultados posibles de la expresión
+    private static final long MAX_KEEP_WORK = 200_000_000L;
+    private static final int MAX_CACHED = 1_000;
+
+    private final Map<String, Distribution> powers = new ConcurrentHashMap<>();      // "d6r0^16"
+    private final Map<String, Distribution> terms = new ConcurrentHashMap<>();       // "4d6kh3r0"
+    private final Map<String, Distribution> expressions = new ConcurrentHashMap<>(); // "ADVANTAGE:1d20+5"
+
+    public Distribution of(DiceExpression expression, RollMode mode) {
+        String key = mode + ":" + expression.normalized();
+        Distribution cached = expressions.get(key);
+        if (cached != null) return cached;
+
+        if ((long) expression.max() - expression.min() + 1 > MAX_SUPPORT) {
+            throw new DiceException("La expresión tiene demasiados resultados posibles para calcular su distribución (máximo "
+                    + MAX_SUPPORT + ")");
+        }
+
+        Distribution total = null;
+        for (int i = 0; i < expression.terms(); i++) {
+            Distribution term = term(expression.count(i), expression.sides(i), expression.keep(i),
+                    expression.keepHighest(i), expression.reroll(i));
+            if (expression.sign(i) < 0) term = term.negate();
+            total = total == null ? term : total.plus(term);
+        }
+        // La constante solo mueve los valores, no hace falta convolucionarla
+        total = total == null ? Distribution.constant(expression.constant()) : total.shift(expression.constant());
+        if (mode == RollMode.ADVANTAGE || mode == RollMode.DISADVANTAGE) {
+            total = total.bestOfTwo(mode == RollMode.ADVANTAGE);
+        }
+        return put(expressions, key, total);
+    }
+
+    private Distribution term(int count, int sides, int keep, boolean highest, int reroll) {
+        if (keep == count) return power(sides, reroll, count);
+
+        String key = count + "d" + sides + (highest ? "kh" : "kl") + keep + "r" + reroll;
+        Distribution cached = terms.get(key);
+        if (cached != null) return cached;
+        return put(terms, key, keep(count, sides, keep, highest, reroll));
+    }
+
+    // Suma de n dados iguales por potencias de 2
+    private Distribution power(int sides, int reroll, int n) {
+        Distribution result = null;
+        int exponent = 1;
+        for (int remaining = n; remaining > 0; remaining >>= 1, exponent <<= 1) {
+            if ((remaining & 1) == 0) continue;
+            Distribution factor = powerOfTwo(sides, reroll, exponent);
+            result = result == null ? factor : result.plus(factor);
+        }
+        return result;
+    }
+
+    private Distribution powerOfTwo(int sides, int reroll, int exponent) {
+        String key = "d" + sides + "r" + reroll + "^" + exponent;
+        Distribution cached = powers.get(key);
+        if (cached != null) return cached;
+
+        Distribution value;
+        if (exponent == 1) {
+            value = Distribution.die(sides, reroll);
+        } else {
+            Distribution half = powerOfTwo(sides, reroll, exponent / 2);
+            value = half.plus(half);
+        }
+        return put(powers, key, value);
+    }
+
+    // Suma de los "keep" dados más altos (o más bajos) de "count".
+    // Se recorren los valores del dado empezando por los que se guardan primero; en cada valor se decide cuántos dados
+    // (c) lo sacan, con probabilidad C(libres, c) * p^c, y de esos se guardan los que quepan en los "keep" primeros.
+    // Estado: dp[j][s] = probabilidad de haber repartido j dados con suma guardada s
+    private Distribution keep(int count, int sides, int keep, boolean highest, int reroll) {
+        int maxSum = keep * sides;
+        if ((long) sides * count * count * (maxSum + 1) > MAX_KEEP_WORK) {
+            throw new DiceException("La expresión es demasiado compleja para calcular su distribución exacta");
+        }
+
+        double[] face = Distribution.die(sides, reroll).probabilities();
+        double[][] binomial = binomials(count);
+
+        double[][] dp = new double[count + 1][maxSum + 1];
+        dp[0][0] = 1.0;
+        for (int step = 0; step < sides; step++) {
+            int value = highest ? sides - step : step + 1;
+            double p = face[value - 1];
+            double[][] next = new double[count + 1][maxSum + 1];
+
+            for (int j = 0; j <= count; j++) {
+                int slots = Math.max(0, keep - j); // Cuántos dados quedan por guardar
+                for (int s = 0; s <= maxSum; s++) {
+                    double current = dp[j][s];
+                    if (current == 0) continue;
+
+                    double pc = 1.0;
+                    for (int c = 0; c <= count - j; c++) {
+                        if (c > 0) {
+                            pc *= p;
+                            if (pc == 0) break;
+                        }
+                        next[j + c][s + Math.min(c, slots) * value] += current * binomial[count - j][c] * pc;
+                    }
+                }
+            }
+            dp = next;
+        }
+
+        double[] result = new double[maxSum - keep + 1];
+        System.arraycopy(dp[count], keep, result, 0, result.length);
+        return new Distribution(keep, result);
+    }
+
+    private static double[][] binomials(int n) {
+        double[][] c = new double[n + 1][];
+        for (int i = 0; i <= n; i++) {
+            c[i] = new double[i + 1];
+            c[i][0] = c[i][i] = 1;
+            for (int k = 1; k < i; k++) {
+                c[i][k] = c[i - 1][k - 1] + c[i - 1][k];
+            }
+        }
+        return c;
+    }
+
+    private static Distribution put(Map<String, Distribution> cache, String key, Distribution value) {
+        if (cache.size() >= MAX_CACHED) {
+            cache.clear();
+        }
+        cache.put(key, value);
+        return value;
+    }
+}
@@ -0,0 +1,15 @@
+package com.rolup.backend.service.files;
+
+import org.springframework.http.MediaType;
+
+import java.nio.file.Path;
+
+// Lo que hace falta para servir un archivo sin volver a mirarlo en disco: se guarda en FileStorageService y se
+// comprueba cada pocos segundos (checkedAt, System.nanoTime)
+public record StoredFile(Path path, String canonicalPath, long size, long lastModified, String etag,
+                         MediaType mediaType, long checkedAt) {
+
+    public StoredFile checked(long now) {
+        return new StoredFile(path, canonicalPath, size, lastModified, etag, mediaType, now);
+    }
+}
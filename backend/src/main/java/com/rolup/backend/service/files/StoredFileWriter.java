@@ -0,0 +1,202 @@
+package com.rolup.backend.service.files;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Escribe un archivo subido en la respuesta: validadores (ETag fuerte y Last-Modified) para contestar 304, peticiones
+// Range de uno o varios tramos (multipart/byteranges) y caché larga, porque cada subida tiene un nombre único.
+// El contenido no pasa por la aplicación: si Tomcat admite sendfile se le pasa el archivo y el tramo y lo manda él con
+// FileChannel.transferTo directo al socket; si no (o es pequeño, o hay varios tramos) se copia con transferTo
+@Component
+public class StoredFileWriter {
+
+    // private: solo el navegador; los proxies y CDN de por medio no deben guardar archivos de los usuarios
+    public static final String CACHE_CONTROL = "private, max-age=31536000, immutable";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final long SENDFILE_MIN = 48 * 1024; // Por debajo sale más barato copiarlo (como el DefaultServlet)
+    private static final int MAX_RANGES = 16;           // Con más se manda entero
+
+    public void write(StoredFile file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, file.etag());
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, file.lastModified());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (notModified(file, request)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        boolean head = "HEAD".equalsIgnoreCase(request.getMethod());
+        List<long[]> ranges = ranges(file, request);
+        if (ranges == null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(file.mediaType().toString());
+            response.setContentLengthLong(file.size());
+            if (!head) send(file, 0, file.size(), request, response);
+        } else if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + file.size());
+        } else if (ranges.size() == 1) {
+            long[] range = ranges.get(0);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setContentType(file.mediaType().toString());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(range, file.size()));
+            response.setContentLengthLong(range[1] - range[0] + 1);
+            if (!head) send(file, range[0], range[1] - range[0] + 1, request, response);
+        } else {
+            writeMultipart(file, ranges, head, response);
+        }
+    }
+
+    // If-None-Match manda sobre If-Modified-Since; las fechas HTTP van en segundos
+    private static boolean notModified(StoredFile file, HttpServletRequest request) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) tag = tag.substring(2); // Comparación débil
+                if (tag.equals("*") || tag.equals(file.etag())) return true;
+            }
+            return false;
+        }
+
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && file.lastModified() / 1000 <= ifModifiedSince / 1000;
+    }
+
+    // null: se manda entero (sin Range, If-Range que ya no vale, cabecera mal formada o demasiados tramos).
+    // Vacía: ningún tramo cae dentro del archivo (416). Cada tramo es [primero, último], ambos incluidos
+    private static List<long[]> ranges(StoredFile file, HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !header.startsWith("bytes=")) return null;
+
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null) {
+            if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+                if (!ifRange.equals(file.etag())) return null;
+            } else if (dateHeader(request, HttpHeaders.IF_RANGE) / 1000 != file.lastModified() / 1000) {
+                return null;
+            }
+        }
+
+        String[] specs = header.substring("bytes=".length()).split(",");
+        if (specs.length > MAX_RANGES) return null;
+
+        long size = file.size();
+        List<long[]> ranges = new ArrayList<>(specs.length);
+        try {
+            for (String spec : specs) {
+                spec = spec.trim();
+                int dash = spec.indexOf('-');
+                if (dash < 0) return null;
+
+                long first;
+                long last;
+                if (dash == 0) {
+                    long suffix = Long.parseLong(spec.substring(1));
+                    if (suffix <= 0) continue;
+                    first = Math.max(0, size - suffix);
+                    last = size - 1;
+                } else {
+                    first = Long.parseLong(spec.substring(0, dash));
+                    // "100-" en un archivo de 26 bytes no está mal formado, es un tramo fuera del archivo (416)
+                    last = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+                    if (first < 0 || last < first) return null;
+                    last = Math.min(last, size - 1);
+                }
+                if (first < size) ranges.add(new long[]{first, last});
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return ranges;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static String contentRange(long[] range, long size) {
+        return "bytes " + range[0] + "-" + range[1] + "/" + size;
+    }
+
+    private static void send(StoredFile file, long start, long length, HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        if (length >= SENDFILE_MIN && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.canonicalPath());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            transfer(channel, start, length, Channels.newChannel(response.getOutputStream()));
+        }
+    }
+
+    private static void transfer(FileChannel channel, long start, long length, WritableByteChannel target)
+            throws IOException {
+        long position = start;
+        long end = start + length;
+        while (position < end) {
+            long sent = channel.transferTo(position, end - position, target);
+            if (sent <= 0) throw new IOException("El archivo ha cambiado mientras se mandaba");
+            position += sent;
+        }
+    }
+
+    // Un trozo por tramo con su Content-Type y Content-Range; la longitud total se calcula antes de escribir nada
+    private static void writeMultipart(StoredFile file, List<long[]> ranges, boolean head,
+                                       HttpServletResponse response) throws IOException {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        List<byte[]> headers = new ArrayList<>(ranges.size());
+        long length = 0;
+        for (long[] range : ranges) {
+            byte[] partHeader = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + file.mediaType() + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(range, file.size()) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            headers.add(partHeader);
+            length += partHeader.length + range[1] - range[0] + 1;
+        }
+        byte[] end = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        length += end.length;
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(length);
+        if (head) return;
+
+        ServletOutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            for (int i = 0; i < ranges.size(); i++) {
+                long[] range = ranges.get(i);
+                out.write(headers.get(i));
+                transfer(channel, range[0], range[1] - range[0] + 1, target);
+            }
+        }
+        out.write(end);
+    }
+}
@@ -0,0 +1,106 @@
+package com.rolup.backend.service.formula;
+
+import com.rolup.backend.exception.BadRequestException;
+import com.rolup.backend.model.character_related.Character;
+import com.rolup.backend.model.character_related.CharacterItem;
+import com.rolup.backend.model.item_related.Armor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// Clase de armadura a partir de las armaduras equipadas (Armor.armorClassFormula).
+// Una fórmula normal es la CA base de una armadura ("11 + dexterityMod", "12 + min(dexterityMod, 2)", "18") y se
+// usa la mejor de las equipadas; sin ninguna es 10 + dexterityMod. Las que empiezan por '+' son bonificadores que
+// se suman (escudo "+2", anillo de protección "+1")
+@Component
+public class ArmorClassCalculator {
+
+    private static final int UNARMORED_BASE = 10;
+
+    private final FormulaEngine formulaEngine;
+
+    @Autowired
+    public ArmorClassCalculator(FormulaEngine formulaEngine) {
+        this.formulaEngine = formulaEngine;
+    }
+
+    // Validación al guardar una armadura
+    public void validate(String armorClassFormula) {
+        if (armorClassFormula == null || armorClassFormula.isBlank()) return; // Armadura sin efecto en la CA
+        Formula formula;
+        try {
+            formula = formulaEngine.compile(stripBonusSign(armorClassFormula));
+        } catch (FormulaException e) {
+            throw new BadRequestException("La fórmula de clase de armadura no es válida: " + e.getMessage());
+        }
+        if (formula.variables().contains(StatVariable.ARMOR_CLASS)) {
+            throw new BadRequestException("La fórmula de clase de armadura no puede depender de la propia clase de armadura");
+        }
+    }
+
+    // Recalcula y guarda la CA si no es manual. Devuelve true si ha cambiado
+    public boolean recompute(Character character) {
+        if (character.isArmorClassManual()) return false;
+
+        int armorClass = compute(character, StatSnapshot.of(character));
+        if (armorClass == character.getArmorClass()) return false;
+        character.setArmorClass(armorClass);
+        return true;
+    }
+
+    public int compute(Character character, StatSnapshot snapshot) {
+        int base = UNARMORED_BASE + snapshot.get(StatVariable.DEXTERITY_MOD);
+        boolean wearingArmor = false;
+        int bonus = 0;
+
+        for (CharacterItem ci : character.getCharacterItems()) {
+            Formula formula = equippedFormula(ci);
+            if (formula == null) continue;
+
+            int value = formula.evaluate(snapshot);
+            if (isBonus(((Armor) ci.getItem()).getArmorClassFormula())) {
+                bonus += value;
+            } else if (!wearingArmor || value > base) {
+                base = value; // Con varias armaduras equipadas vale la mejor, no se suman
+                wearingArmor = true;
+            }
+        }
+        return base + bonus;
+    }
+
+    // Estadísticas de las que depende la CA del personaje con lo que lleva equipado ahora mismo.
+    // Solo hace falta recalcular cuando cambia alguna de ellas
+    public Set<StatVariable> dependencies(Character character) {
+        Set<StatVariable> variables = EnumSet.of(StatVariable.DEXTERITY_MOD);
+        for (CharacterItem ci : character.getCharacterItems()) {
+            Formula formula = equippedFormula(ci);
+            if (formula != null) variables.addAll(formula.variables());
+        }
+        return variables;
+    }
+
+    public boolean affectsArmorClass(CharacterItem ci) {
+        return ci.getItem() instanceof Armor armor && armor.getArmorClassFormula() != null
+                && !armor.getArmorClassFormula().isBlank();
+    }
+
+    // Fórmula de un ítem equipado que cuenta para la CA; null si no cuenta o si la fórmula guardada no es válida
+    private Formula equippedFormula(CharacterItem ci) {
+        if (!ci.isEquipped() || !affectsArmorClass(ci)) return null;
+        try {
+            return formulaEngine.compile(stripBonusSign(((Armor) ci.getItem()).getArmorClassFormula()));
+        } catch (FormulaException e) {
+            return null;
+        }
+    }
+
+    private static boolean isBonus(String formula) {
+        return formula.trim().startsWith("+");
+    }
+
+    private static String stripBonusSign(String formula) {
+        return isBonus(formula) ? formula.trim().substring(1) : formula;
+    }
+}
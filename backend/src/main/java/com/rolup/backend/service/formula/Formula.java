@@ -0,0 +1,35 @@
+package com.rolup.backend.service.formula;
+
+import java.util.Collections;
+import java.util.Set;
+
+// Fórmula ya validada y compilada. Es inmutable y se comparte entre hilos (FormulaEngine la cachea por texto)
+public final class Formula {
+
+    private final String text;
+    private final FormulaNode root;
+    private final Set<StatVariable> variables;
+
+    Formula(String text, FormulaNode root, Set<StatVariable> variables) {
+        this.text = text;
+        this.root = root;
+        this.variables = Collections.unmodifiableSet(variables);
+    }
+
+    public int evaluate(StatSnapshot snapshot) {
+        return root.eval(snapshot.values());
+    }
+
+    public String text() {
+        return text;
+    }
+
+    // Estadísticas de las que depende el resultado
+    public Set<StatVariable> variables() {
+        return variables;
+    }
+
+    public boolean isConstant() {
+        return root.isConstant();
+    }
+}
@@ -0,0 +1,52 @@
+package com.rolup.backend.service.formula;
+
+import com.rolup.backend.exception.BadRequestException;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Compila y cachea las fórmulas del catálogo (Skill.autoFormula, Item.maxUsesAutoFormula...).
+// Cada texto se parsea una sola vez; después evaluar es recorrer el árbol sobre un StatSnapshot
+@Component
+public class FormulaEngine {
+
+    private static final int MAX_CACHED = 10_000;
+
+    private final Map<String, Formula> cache = new ConcurrentHashMap<>();
+
+    public Formula compile(String text) {
+        String key = text == null ? "" : text.trim();
+        Formula cached = cache.get(key);
+        if (cached != null) return cached;
+
+        Formula formula = FormulaParser.parse(key);
+        if (cache.size() >= MAX_CACHED) {
+            cache.clear(); // Las fórmulas salen del catálogo, no debería pasar nunca
+        }
+        cache.put(key, formula);
+        return formula;
+    }
+
+    // Validación al guardar: el mensaje dice qué campo está mal
+    public void validate(String text, String fieldName) {
+        try {
+            compile(text);
+        } catch (FormulaException e) {
+            throw new BadRequestException("La fórmula de " + fieldName + " no es válida: " + e.getMessage());
+        }
+    }
+
+    // Usos máximos efectivos: los manuales tal cual, o el resultado de la fórmula para el personaje (nunca negativo).
+    // null si dependen de una fórmula y no hay personaje, o si la fórmula guardada ya no es válida
+    public Integer effectiveMaxUses(boolean autoCalculated, String formula, Integer maxUses, StatSnapshot snapshot) {
+        if (!autoCalculated) return maxUses;
+        if (snapshot == null) return null;
+
+        try {
+            return Math.max(0, compile(formula).evaluate(snapshot));
+        } catch (FormulaException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.rolup.backend.service.formula;
+
+// Fórmula mal escrita. Extiende IllegalArgumentException para que GlobalExceptionHandler la devuelva como 400
+public class FormulaException extends IllegalArgumentException {
+    public FormulaException(String message) {
+        super(message);
+    }
+}
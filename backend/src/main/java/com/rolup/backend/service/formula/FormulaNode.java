@@ -0,0 +1,153 @@
+package com.rolup.backend.service.formula;
+
+// Árbol ya compilado de una fórmula. Cada nodo evalúa directamente sobre el int[] de StatSnapshot,
+// sin boxing ni objetos intermedios
+abstract class FormulaNode {
+
+    abstract int eval(int[] stats);
+
+    boolean isConstant() {
+        return false;
+    }
+
+    static final class Constant extends FormulaNode {
+        private final int value;
+
+        Constant(int value) {
+            this.value = value;
+        }
+
+        @Override
+        int eval(int[] stats) {
+            return value;
+        }
+
+        @Override
+        boolean isConstant() {
+            return true;
+        }
+    }
+
+    static final class Variable extends FormulaNode {
+        private final int index;
+
+        Variable(StatVariable variable) {
+            this.index = variable.ordinal();
+        }
+
+        @Override
+        int eval(int[] stats) {
+            return stats[index];
+        }
+    }
+
+    static final class Negate extends FormulaNode {
+        private final FormulaNode operand;
+
+        Negate(FormulaNode operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        int eval(int[] stats) {
+            return -operand.eval(stats);
+        }
+    }
+
+    static final class Add extends FormulaNode {
+        private final FormulaNode left;
+        private final FormulaNode right;
+
+        Add(FormulaNode left, FormulaNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int eval(int[] stats) {
+            return left.eval(stats) + right.eval(stats);
+        }
+    }
+
+    static final class Subtract extends FormulaNode {
+        private final FormulaNode left;
+        private final FormulaNode right;
+
+        Subtract(FormulaNode left, FormulaNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int eval(int[] stats) {
+            return left.eval(stats) - right.eval(stats);
+        }
+    }
+
+    static final class Multiply extends FormulaNode {
+        private final FormulaNode left;
+        private final FormulaNode right;
+
+        Multiply(FormulaNode left, FormulaNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int eval(int[] stats) {
+            return left.eval(stats) * right.eval(stats);
+        }
+    }
+
+    // División entera redondeando hacia abajo, como en las reglas ("la mitad de tu nivel").
+    // Dividir entre 0 da 0 en vez de romper la ficha
+    static final class Divide extends FormulaNode {
+        private final FormulaNode left;
+        private final FormulaNode right;
+
+        Divide(FormulaNode left, FormulaNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int eval(int[] stats) {
+            int divisor = right.eval(stats);
+            return divisor == 0 ? 0 : Math.floorDiv(left.eval(stats), divisor);
+        }
+    }
+
+    static final class Min extends FormulaNode {
+        private final FormulaNode[] arguments;
+
+        Min(FormulaNode[] arguments) {
+            this.arguments = arguments;
+        }
+
+        @Override
+        int eval(int[] stats) {
+            int result = arguments[0].eval(stats);
+            for (int i = 1; i < arguments.length; i++) {
+                result = Math.min(result, arguments[i].eval(stats));
+            }
+            return result;
+        }
+    }
+
+    static final class Max extends FormulaNode {
+        private final FormulaNode[] arguments;
+
+        Max(FormulaNode[] arguments) {
+            this.arguments = arguments;
+        }
+
+        @Override
+        int eval(int[] stats) {
+            int result = arguments[0].eval(stats);
+            for (int i = 1; i < arguments.length; i++) {
+                result = Math.max(result, arguments[i].eval(stats));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.rolup.backend.service.formula;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Parser descendente recursivo de las fórmulas:
+//   expr    := term (('+' | '-') term)*
+//   term    := unary (('*' | '/') unary)*
+//   unary   := '-' unary | primary
+//   primary := número | variable | ('min' | 'max') '(' expr (',' expr)* ')' | '(' expr ')'
+// Las partes que no dependen de ninguna variable se calculan al compilar
+final class FormulaParser {
+
+    static final int MAX_LENGTH = 200;
+
+    private final String text;
+    private final Set<StatVariable> variables = EnumSet.noneOf(StatVariable.class);
+    private int pos;
+
+    private FormulaParser(String text) {
+        this.text = text;
+    }
+
+    static Formula parse(String text) {
+        if (text == null || text.isBlank()) {
+            throw new FormulaException("La fórmula está vacía");
+        }
+        if (text.length() > MAX_LENGTH) {
+            throw new FormulaException("La fórmula no puede tener más de " + MAX_LENGTH + " caracteres");
+        }
+
+        FormulaParser parser = new FormulaParser(text);
+        FormulaNode root = parser.expression();
+        parser.skipSpaces();
+        if (parser.pos < text.length()) {
+            throw parser.error("Sobra '" + text.charAt(parser.pos) + "'");
+        }
+        return new Formula(text, root, parser.variables);
+    }
+
+    private FormulaNode expression() {
+        FormulaNode node = term();
+        while (true) {
+            if (accept('+')) {
+                FormulaNode right = term();
+                node = fold(new FormulaNode.Add(node, right), node, right);
+            } else if (accept('-')) {
+                FormulaNode right = term();
+                node = fold(new FormulaNode.Subtract(node, right), node, right);
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private FormulaNode term() {
+        FormulaNode node = unary();
+        while (true) {
+            if (accept('*')) {
+                FormulaNode right = unary();
+                node = fold(new FormulaNode.Multiply(node, right), node, right);
+            } else if (accept('/')) {
+                FormulaNode right = unary();
+                node = fold(new FormulaNode.Divide(node, right), node, right);
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private FormulaNode unary() {
+        if (accept('-')) {
+            FormulaNode operand = unary();
+            return fold(new FormulaNode.Negate(operand), operand);
+        }
+        return primary();
+    }
+
+    private FormulaNode primary() {
+        skipSpaces();
+        if (pos >= text.length()) {
+            throw error("Falta un valor al final");
+        }
+
+        char c = text.charAt(pos);
+        if (accept('(')) {
+            FormulaNode inner = expression();
+            expect(')');
+            return inner;
+        }
+        if (Character.isDigit(c)) {
+            return number();
+        }
+        if (Character.isLetter(c)) {
+            return identifier();
+        }
+        throw error("Carácter inesperado '" + c + "'");
+    }
+
+    private FormulaNode number() {
+        int start = pos;
+        while (pos < text.length() && Character.isDigit(text.charAt(pos))) pos++;
+        try {
+            return new FormulaNode.Constant(Integer.parseInt(text.substring(start, pos)));
+        } catch (NumberFormatException e) {
+            throw error("Número demasiado grande");
+        }
+    }
+
+    private FormulaNode identifier() {
+        int start = pos;
+        while (pos < text.length() && (Character.isLetterOrDigit(text.charAt(pos)) || text.charAt(pos) == '_')) pos++;
+        String name = text.substring(start, pos);
+
+        String lower = name.toLowerCase(Locale.ROOT);
+        if (lower.equals("min") || lower.equals("max")) {
+            FormulaNode[] arguments = arguments(name);
+            return fold(lower.equals("min") ? new FormulaNode.Min(arguments) : new FormulaNode.Max(arguments), arguments);
+        }
+
+        StatVariable variable = StatVariable.fromName(name);
+        if (variable == null) {
+            pos = start;
+            throw error("Variable desconocida '" + name + "'");
+        }
+        variables.add(variable);
+        return new FormulaNode.Variable(variable);
+    }
+
+    private FormulaNode[] arguments(String function) {
+        expect('(');
+        List<FormulaNode> arguments = new ArrayList<>();
+        do {
+            arguments.add(expression());
+        } while (accept(','));
+        expect(')');
+        if (arguments.isEmpty()) {
+            throw error(function + " necesita al menos un valor");
+        }
+        return arguments.toArray(new FormulaNode[0]);
+    }
+
+    // Si todos los operandos son constantes el nodo se sustituye por su resultado
+    private static FormulaNode fold(FormulaNode node, FormulaNode... operands) {
+        for (FormulaNode operand : operands) {
+            if (!operand.isConstant()) return node;
+        }
+        return new FormulaNode.Constant(node.eval(null)); // Sin variables no se lee el array
+    }
+
+    private boolean accept(char expected) {
+        skipSpaces();
+        if (pos < text.length() && text.charAt(pos) == expected) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char expected) {
+        if (!accept(expected)) {
+            throw error("Se esperaba '" + expected + "'");
+        }
+    }
+
+    private void skipSpaces() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+    }
+
+    private FormulaException error(String message) {
+        return new FormulaException(message + " (posición " + (pos + 1) + " de \"" + text + "\")");
+    }
+}
@@ -0,0 +1,66 @@
+package com.rolup.backend.service.formula;
+
+import com.rolup.backend.model.character_related.Character;
+
+// Copia de los valores de un personaje que usan las fórmulas, en un int[] indexado por StatVariable.
+// Se crea una vez por personaje y petición; evaluar fórmulas sobre ella no reserva memoria
+public final class StatSnapshot {
+
+    private final int[] values = new int[StatVariable.values().length];
+
+    private StatSnapshot() {
+    }
+
+    public static StatSnapshot of(Character character) {
+        StatSnapshot snapshot = new StatSnapshot();
+        snapshot.set(StatVariable.LEVEL, character.getLevel());
+        snapshot.setAbility(StatVariable.STRENGTH, StatVariable.STRENGTH_MOD, character.getStrength());
+        snapshot.setAbility(StatVariable.DEXTERITY, StatVariable.DEXTERITY_MOD, character.getDexterity());
+        snapshot.setAbility(StatVariable.CONSTITUTION, StatVariable.CONSTITUTION_MOD, character.getConstitution());
+        snapshot.setAbility(StatVariable.INTELLIGENCE, StatVariable.INTELLIGENCE_MOD, character.getIntelligence());
+        snapshot.setAbility(StatVariable.WISDOM, StatVariable.WISDOM_MOD, character.getWisdom());
+        snapshot.setAbility(StatVariable.CHARISMA, StatVariable.CHARISMA_MOD, character.getCharisma());
+        snapshot.set(StatVariable.PROFICIENCY_BONUS, proficiencyBonus(character));
+        snapshot.set(StatVariable.ARMOR_CLASS, character.getArmorClass());
+        snapshot.set(StatVariable.MAX_HP, character.getMaxHp());
+        snapshot.set(StatVariable.SPEED, character.getSpeed());
+        snapshot.set(StatVariable.INITIATIVE, character.getInitiative());
+        snapshot.set(StatVariable.SPELL_CASTING_MODIFIER, character.getSpellCastingModifier());
+        snapshot.set(StatVariable.SPELL_SAVE_DC, character.getSpellSaveDC());
+        return snapshot;
+    }
+
+    public int get(StatVariable variable) {
+        return values[variable.ordinal()];
+    }
+
+    int[] values() {
+        return values;
+    }
+
+    private void set(StatVariable variable, int value) {
+        values[variable.ordinal()] = value;
+    }
+
+    private void setAbility(StatVariable score, StatVariable modifier, int value) {
+        set(score, value);
+        set(modifier, modifier(value));
+    }
+
+    // Modificador de característica: (puntuación - 10) / 2 redondeando hacia abajo
+    public static int modifier(int score) {
+        return Math.floorDiv(score - 10, 2);
+    }
+
+    // Si no es manual se calcula por nivel: +2 en los niveles 1-4, +3 en 5-8...
+    public static int proficiencyBonus(Character character) {
+        if (character.isProficiencyBonusManual() && character.getProficiencyBonus() != null) {
+            return character.getProficiencyBonus();
+        }
+        return proficiencyBonus(character.getLevel());
+    }
+
+    public static int proficiencyBonus(int level) {
+        return 2 + (Math.max(1, level) - 1) / 4;
+    }
+}
@@ -0,0 +1,53 @@
+package com.rolup.backend.service.formula;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Variables que se pueden usar en las fórmulas. El nombre es el del campo de Character (más "Mod" para los
+// modificadores) y la posición en el enum es el índice dentro de StatSnapshot
+public enum StatVariable {
+    LEVEL("level"),
+    STRENGTH("strength"),
+    DEXTERITY("dexterity"),
+    CONSTITUTION("constitution"),
+    INTELLIGENCE("intelligence"),
+    WISDOM("wisdom"),
+    CHARISMA("charisma"),
+    STRENGTH_MOD("strengthMod"),
+    DEXTERITY_MOD("dexterityMod"),
+    CONSTITUTION_MOD("constitutionMod"),
+    INTELLIGENCE_MOD("intelligenceMod"),
+    WISDOM_MOD("wisdomMod"),
+    CHARISMA_MOD("charismaMod"),
+    PROFICIENCY_BONUS("proficiencyBonus"),
+    ARMOR_CLASS("armorClass"),
+    MAX_HP("maxHp"),
+    SPEED("speed"),
+    INITIATIVE("initiative"),
+    SPELL_CASTING_MODIFIER("spellCastingModifier"),
+    SPELL_SAVE_DC("spellSaveDC");
+
+    private static final Map<String, StatVariable> BY_NAME = new HashMap<>();
+
+    static {
+        for (StatVariable variable : values()) {
+            BY_NAME.put(variable.formulaName.toLowerCase(Locale.ROOT), variable);
+        }
+    }
+
+    private final String formulaName;
+
+    StatVariable(String formulaName) {
+        this.formulaName = formulaName;
+    }
+
+    public String formulaName() {
+        return formulaName;
+    }
+
+    // Sin distinguir mayúsculas: "charismaMod" y "CharismaMod" son lo mismo. null si no existe
+    public static StatVariable fromName(String name) {
+        return BY_NAME.get(name.toLowerCase(Locale.ROOT));
+    }
+}
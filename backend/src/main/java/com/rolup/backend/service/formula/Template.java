@@ -0,0 +1,82 @@
+package com.rolup.backend.service.formula;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Plantilla de texto ya compilada: "Cura 1d8 + {wisdomMod} puntos de golpe" queda como segmentos
+// ["Cura 1d8 + ", wisdomMod, " puntos de golpe"].
+// Guarda lo ya renderizado por valores de las estadísticas que usa, así que dos personajes con la misma Sabiduría
+// comparten el texto y solo se vuelve a renderizar cuando cambia alguna de ellas
+public final class Template {
+
+    private static final int MAX_RENDERS = 256;
+
+    private final String text;
+    private final String[] literals;   // literals[i] va antes de formulas[i]; hay un literal más que fórmulas
+    private final Formula[] formulas;
+    private final boolean[] signed;    // {+expr}: se muestra con signo ("+3", "-1")
+    private final StatVariable[] variables;
+    private final Map<Long, Rendered> renders = new ConcurrentHashMap<>();
+
+    private record Rendered(int[] values, String text) {
+    }
+
+    Template(String text, String[] literals, Formula[] formulas, boolean[] signed) {
+        this.text = text;
+        this.literals = literals;
+        this.formulas = formulas;
+        this.signed = signed;
+
+        Set<StatVariable> used = EnumSet.noneOf(StatVariable.class);
+        for (Formula formula : formulas) used.addAll(formula.variables());
+        this.variables = used.toArray(new StatVariable[0]);
+    }
+
+    public String text() {
+        return text;
+    }
+
+    // Estadísticas de las que depende el texto
+    public Set<StatVariable> variables() {
+        return variables.length == 0
+                ? Set.of()
+                : Collections.unmodifiableSet(EnumSet.copyOf(Arrays.asList(variables)));
+    }
+
+    public String render(StatSnapshot snapshot) {
+        if (formulas.length == 0) return literals[0];
+
+        int[] values = new int[variables.length];
+        long key = 17;
+        for (int i = 0; i < variables.length; i++) {
+            values[i] = snapshot.get(variables[i]);
+            key = key * 0x9E3779B97F4A7C15L + values[i];
+        }
+
+        // La clave es un hash: se comprueban los valores para no devolver el texto de otra combinación
+        Rendered cached = renders.get(key);
+        if (cached != null && Arrays.equals(cached.values(), values)) return cached.text();
+
+        String rendered = build(snapshot);
+        if (renders.size() >= MAX_RENDERS) {
+            renders.clear();
+        }
+        renders.put(key, new Rendered(values, rendered));
+        return rendered;
+    }
+
+    private String build(StatSnapshot snapshot) {
+        StringBuilder out = new StringBuilder(text.length() + 8 * formulas.length);
+        for (int i = 0; i < formulas.length; i++) {
+            out.append(literals[i]);
+            int value = formulas[i].evaluate(snapshot);
+            if (signed[i] && value >= 0) out.append('+');
+            out.append(value);
+        }
+        return out.append(literals[formulas.length]).toString();
+    }
+}
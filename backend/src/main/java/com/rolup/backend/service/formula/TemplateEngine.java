@@ -0,0 +1,59 @@
+package com.rolup.backend.service.formula;
+
+import com.rolup.backend.exception.BadRequestException;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Compila y cachea las plantillas de descripciones y resúmenes (Spell.descriptionTemplate, Skill.summaryTemplate,
+// ItemProperty.description...). Cada texto se compila una vez; editar la plantilla cambia el texto y con él la
+// entrada de la caché, así que lo renderizado con la versión anterior no se vuelve a usar
+@Component
+public class TemplateEngine {
+
+    private static final int MAX_CACHED = 10_000;
+
+    private final Map<String, Template> cache = new ConcurrentHashMap<>();
+
+    public Template compile(String text) {
+        Template cached = cache.get(text);
+        if (cached != null) return cached;
+
+        Template template = TemplateParser.parse(text);
+        if (cache.size() >= MAX_CACHED) {
+            cache.clear(); // Las plantillas salen del catálogo, no debería pasar nunca
+        }
+        cache.put(text, template);
+        return template;
+    }
+
+    // Validación al guardar: el mensaje dice qué campo está mal
+    public void validate(String text, String fieldName) {
+        if (text == null) return;
+        try {
+            compile(text);
+        } catch (FormulaException e) {
+            throw new BadRequestException("La plantilla de " + fieldName + " no es válida: " + e.getMessage());
+        }
+    }
+
+    // Al editar solo se valida lo que ha cambiado: un texto guardado antes de que hubiese plantillas puede tener
+    // llaves sueltas y no debe impedir cambiar el resto de campos (al renderizarlo se muestra tal cual)
+    public void validateChanged(String before, String after, String fieldName) {
+        if (!Objects.equals(before, after)) validate(after, fieldName);
+    }
+
+    // Texto para un personaje. null sin personaje (se muestra la plantilla); la plantilla tal cual si la guardada
+    // ya no es válida
+    public String render(String text, StatSnapshot snapshot) {
+        if (text == null || snapshot == null) return null;
+
+        try {
+            return compile(text).render(snapshot);
+        } catch (FormulaException e) {
+            return text;
+        }
+    }
+}
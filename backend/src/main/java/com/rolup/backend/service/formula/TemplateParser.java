@@ -0,0 +1,70 @@
+package com.rolup.backend.service.formula;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Parser de las plantillas de descripciones y resúmenes:
+//   {fórmula}   se sustituye por el resultado de la fórmula para el personaje ("{wisdomMod + 2}")
+//   {+fórmula}  igual pero con signo ("{+dexterityMod}" -> "+3")
+//   {{ y }}     llaves literales
+// El resto del texto se copia tal cual
+final class TemplateParser {
+
+    private TemplateParser() {
+    }
+
+    static Template parse(String text) {
+        List<String> literals = new ArrayList<>();
+        List<Formula> formulas = new ArrayList<>();
+        List<Boolean> signed = new ArrayList<>();
+
+        StringBuilder literal = new StringBuilder();
+        int pos = 0;
+        while (pos < text.length()) {
+            char c = text.charAt(pos);
+            if (c == '}') {
+                if (pos + 1 < text.length() && text.charAt(pos + 1) == '}') {
+                    literal.append('}');
+                    pos += 2;
+                    continue;
+                }
+                throw error(text, pos, "Sobra '}' (usa '}}' para escribir una llave)");
+            }
+            if (c != '{') {
+                literal.append(c);
+                pos++;
+                continue;
+            }
+            if (pos + 1 < text.length() && text.charAt(pos + 1) == '{') {
+                literal.append('{');
+                pos += 2;
+                continue;
+            }
+
+            int end = text.indexOf('}', pos + 1);
+            if (end < 0) throw error(text, pos, "Falta '}' (usa '{{' para escribir una llave)");
+
+            String expression = text.substring(pos + 1, end).trim();
+            boolean plus = expression.startsWith("+");
+            if (plus) expression = expression.substring(1);
+            try {
+                formulas.add(FormulaParser.parse(expression));
+            } catch (FormulaException e) {
+                throw error(text, pos, "Fórmula '" + expression + "' no válida: " + e.getMessage());
+            }
+            signed.add(plus);
+            literals.add(literal.toString());
+            literal.setLength(0);
+            pos = end + 1;
+        }
+        literals.add(literal.toString());
+
+        boolean[] signs = new boolean[signed.size()];
+        for (int i = 0; i < signs.length; i++) signs[i] = signed.get(i);
+        return new Template(text, literals.toArray(new String[0]), formulas.toArray(new Formula[0]), signs);
+    }
+
+    private static FormulaException error(String text, int pos, String message) {
+        return new FormulaException(message + " (posición " + (pos + 1) + " de la plantilla)");
+    }
+}
@@ -0,0 +1,127 @@
+package com.rolup.backend.service.live;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.rolup.backend.dto.characterDTOs.CharacterDTO;
+import com.rolup.backend.dto.characterDTOs.CharacterSyncDTO;
+import com.rolup.backend.exception.NotFoundException;
+import com.rolup.backend.mapper.CharacterMapper;
+import com.rolup.backend.model.character_related.Character;
+import com.rolup.backend.repository.CharacterRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Versiones de las fichas para mandar solo lo que cambia. Por personaje se guarda la última ficha enviada (como árbol
+// JSON) y los últimos cambios como JSON Patch. Un cliente que dice qué versión tiene recibe los cambios desde ahí;
+// si no tiene versión o es más vieja que el historial, la ficha entera.
+// Las versiones salen de un reloj común que empieza en el instante de arranque, así que una versión de antes de
+// reiniciar el servidor nunca coincide con una de ahora y acaba en ficha entera
+@Component
+public class CharacterSync {
+
+    private static final int HISTORY = 32; // Cambios que se guardan por ficha
+
+    private final AtomicLong clock = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final Map<Long, Stream> streams = new ConcurrentHashMap<>();
+    private final CharacterRepository characterRepository;
+    private final ObjectMapper objectMapper;
+
+    private static final class Stream {
+        long version;
+        JsonNode tree;
+        final ArrayDeque<Patch> history = new ArrayDeque<>(); // De más viejo a más nuevo
+    }
+
+    private record Patch(long from, long to, ArrayNode ops) {
+    }
+
+    // Un cambio ya registrado. fromVersion es null si no había versión anterior (solo vale la ficha entera)
+    public record Change(Long fromVersion, long version, ArrayNode ops, JsonNode snapshot) {
+
+        public CharacterSyncDTO patch() {
+            return fromVersion == null ? null : CharacterSyncDTO.patch(fromVersion, version, ops);
+        }
+
+        public CharacterSyncDTO full() {
+            return CharacterSyncDTO.snapshot(version, snapshot);
+        }
+    }
+
+    @Autowired
+    public CharacterSync(CharacterRepository characterRepository, ObjectMapper objectMapper) {
+        this.characterRepository = characterRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // Registra el estado nuevo de la ficha. null si no ha cambiado nada
+    public Change update(CharacterDTO dto) {
+        JsonNode tree = objectMapper.valueToTree(dto);
+        Stream stream = streams.computeIfAbsent(dto.getId(), id -> new Stream());
+        synchronized (stream) {
+            return record(stream, tree);
+        }
+    }
+
+    // Handshake: lo que le falta a un cliente que tiene la versión "since" (null = no tiene nada).
+    // Se lee la ficha de la base de datos por si ha cambiado por un camino que no avisa (p. ej. los PG del encuentro)
+    @Transactional
+    public CharacterSyncDTO sync(Long characterId, Long since) {
+        Character character = characterRepository.findById(characterId)
+                .orElseThrow(() -> new NotFoundException("Personaje no encontrado"));
+        JsonNode tree = objectMapper.valueToTree(CharacterMapper.toDTO(character));
+
+        Stream stream = streams.computeIfAbsent(characterId, id -> new Stream());
+        synchronized (stream) {
+            record(stream, tree);
+            if (since == null) return CharacterSyncDTO.snapshot(stream.version, stream.tree);
+            if (since == stream.version) {
+                return CharacterSyncDTO.patch(since, since, JsonNodeFactory.instance.arrayNode());
+            }
+
+            // Los cambios desde "since" seguidos; aplicados en orden dejan la ficha en la última versión
+            ArrayNode ops = null;
+            for (Iterator<Patch> it = stream.history.iterator(); it.hasNext(); ) {
+                Patch patch = it.next();
+                if (ops != null) {
+                    ops.addAll(patch.ops());
+                } else if (patch.from() == since) {
+                    ops = patch.ops().deepCopy();
+                }
+            }
+            return ops == null
+                    ? CharacterSyncDTO.snapshot(stream.version, stream.tree)
+                    : CharacterSyncDTO.patch(since, stream.version, ops);
+        }
+    }
+
+    public void forget(long characterId) {
+        streams.remove(characterId);
+    }
+
+    private Change record(Stream stream, JsonNode tree) {
+        if (stream.tree == null) {
+            stream.tree = tree;
+            stream.version = clock.incrementAndGet();
+            return new Change(null, stream.version, null, tree);
+        }
+
+        ArrayNode ops = JsonPatch.diff(stream.tree, tree);
+        if (ops.isEmpty()) return null;
+
+        long from = stream.version;
+        stream.tree = tree;
+        stream.version = clock.incrementAndGet();
+        stream.history.addLast(new Patch(from, stream.version, ops));
+        if (stream.history.size() > HISTORY) stream.history.removeFirst();
+        return new Change(from, stream.version, ops, tree);
+    }
+}
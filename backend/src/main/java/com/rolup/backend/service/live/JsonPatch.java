@@ -0,0 +1,60 @@
+package com.rolup.backend.service.live;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Map;
+
+// Diferencia entre dos JSON como JSON Patch (RFC 6902): solo add, remove y replace.
+// Los objetos se comparan campo a campo; los arrays que cambian se mandan enteros (son listas cortas, como los
+// huecos de conjuro, y así el cliente no tiene que casar posiciones)
+final class JsonPatch {
+
+    private JsonPatch() {
+    }
+
+    static ArrayNode diff(JsonNode before, JsonNode after) {
+        ArrayNode ops = JsonNodeFactory.instance.arrayNode();
+        diff("", before, after, ops);
+        return ops;
+    }
+
+    private static void diff(String path, JsonNode before, JsonNode after, ArrayNode ops) {
+        if (before.equals(after)) return;
+        if (!before.isObject() || !after.isObject()) {
+            ops.add(op("replace", path, after));
+            return;
+        }
+
+        for (Map.Entry<String, JsonNode> field : after.properties()) {
+            String child = path + "/" + escape(field.getKey());
+            JsonNode old = before.get(field.getKey());
+            if (old == null) {
+                ops.add(op("add", child, field.getValue()));
+            } else {
+                diff(child, old, field.getValue(), ops);
+            }
+        }
+        for (Map.Entry<String, JsonNode> field : before.properties()) {
+            String name = field.getKey();
+            if (!after.has(name)) {
+                ops.add(op("remove", path + "/" + escape(name), null));
+            }
+        }
+    }
+
+    private static ObjectNode op(String type, String path, JsonNode value) {
+        ObjectNode op = JsonNodeFactory.instance.objectNode();
+        op.put("op", type);
+        op.put("path", path);
+        if (value != null) op.set("value", value);
+        return op;
+    }
+
+    // JSON Pointer: "~" -> "~0", "/" -> "~1"
+    private static String escape(String key) {
+        return key.replace("~", "~0").replace("/", "~1");
+    }
+}
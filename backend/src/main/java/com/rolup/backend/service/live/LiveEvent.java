@@ -0,0 +1,31 @@
+package com.rolup.backend.service.live;
+
+import java.util.Collection;
+import java.util.Map;
+
+// Cambio que se manda por el canal en vivo a los suscritos a un tema ("character:5", "encounter:3").
+// Se publica con el ApplicationEventPublisher y LiveSessionRegistry lo envía cuando termina la transacción.
+// playerPayload es lo que ven los que no son admin; null = lo mismo que payload
+public record LiveEvent(String topic, LiveEventType type, Object payload, Object playerPayload) {
+
+    public static String characterTopic(long characterId) {
+        return "character:" + characterId;
+    }
+
+    public static String encounterTopic(long encounterId) {
+        return "encounter:" + encounterId;
+    }
+
+    public static LiveEvent character(long characterId, LiveEventType type, Object payload) {
+        return new LiveEvent(characterTopic(characterId), type, payload, null);
+    }
+
+    // Para los cambios de conjuros, habilidades e ítems: el cliente vuelve a pedir solo esos
+    public static LiveEvent changed(long characterId, LiveEventType type, Collection<Long> ids) {
+        return character(characterId, type, Map.of("ids", ids));
+    }
+
+    public static LiveEvent encounter(long encounterId, LiveEventType type, Object payload, Object playerPayload) {
+        return new LiveEvent(encounterTopic(encounterId), type, payload, playerPayload);
+    }
+}
@@ -0,0 +1,19 @@
+package com.rolup.backend.service.live;
+
+public enum LiveEventType {
+    CHARACTER_UPDATED,   // Lo publican los servicios con el CharacterDTO; al cliente le llega como uno de estos dos:
+    CHARACTER_PATCH,     // payload: CharacterSyncDTO con el JSON Patch desde fromVersion
+    CHARACTER_SNAPSHOT,  // payload: CharacterSyncDTO con la ficha entera
+    CHARACTER_RESTED,    // payload: CharacterRestDTO (solo lo que ha cambiado)
+    CHARACTER_REWARDED,  // payload: CharacterRewardDTO (experiencia, monedas e ítems recibidos)
+    CHARACTER_DELETED,
+    SPELLS_CHANGED,      // payload: {"ids": [...]} de los conjuros a volver a pedir
+    SKILLS_CHANGED,      // payload: {"ids": [...]} de las habilidades
+    ITEMS_CHANGED,       // payload: {"ids": [...]} de los ítems del catálogo
+    ENCOUNTER_UPDATED,   // payload: EncounterDTO (sin PG ni CA de las criaturas para los jugadores)
+    ENCOUNTER_REPLAY,    // payload: EncounterReplayDTO con el historial desde la versión del cliente (al suscribirse)
+    ENCOUNTER_DELETED,
+    ENCOUNTER_MAP_CHANGED, // payload: {"version": n}; el cliente vuelve a pedir el mapa
+    DOOR_CHANGED,        // payload: DoorDTO
+    FOG_REVEALED         // payload: FogDTO con las casillas que el personaje acaba de descubrir
+}
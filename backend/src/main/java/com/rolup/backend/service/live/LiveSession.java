@@ -0,0 +1,96 @@
+package com.rolup.backend.service.live;
+
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Sesión abierta del canal en vivo con su cola de salida.
+// La cola está acotada y agrupa por clave: si llega otro estado del mismo encuentro o de la misma ficha antes de que
+// se haya mandado el anterior, se queda solo el último. El mensaje se decide al sacarlo de la cola (render), así que
+// una ficha que ha acumulado varios cambios sale como ficha entera en vez de como patches encadenados.
+// Solo un hilo vacía la cola de cada sesión a la vez (draining)
+final class LiveSession {
+
+    // Algo pendiente de mandar. render devuelve null si ya no hay que mandar nada (la sesión tiene algo más nuevo)
+    interface Outgoing {
+        TextMessage render(LiveSession session);
+    }
+
+    enum Offer { QUEUED, COALESCED, OVERFLOW }
+
+    static final String RESYNC_KEY = "#resync";
+
+    final WebSocketSession socket;
+    final String username;
+    final boolean admin;
+    final Set<String> topics = ConcurrentHashMap.newKeySet();
+    final Map<String, Long> versions = new ConcurrentHashMap<>(); // Última versión de cada tema que se le ha mandado
+    final AtomicBoolean draining = new AtomicBoolean();
+    final AtomicLong sent = new AtomicLong();
+    final AtomicLong dropped = new AtomicLong();
+    final AtomicLong resyncs = new AtomicLong();
+
+    private final LinkedHashMap<String, Outgoing> pending = new LinkedHashMap<>();
+
+    LiveSession(WebSocketSession socket, String username, boolean admin) {
+        this.socket = socket;
+        this.username = username;
+        this.admin = admin;
+    }
+
+    // Lo que ya estaba con la misma clave se sustituye sin cambiar de sitio en la cola
+    synchronized Offer offer(String key, Outgoing item, int capacity) {
+        if (pending.containsKey(key)) {
+            pending.put(key, item);
+            return Offer.COALESCED;
+        }
+        if (pending.size() >= capacity) return Offer.OVERFLOW;
+        pending.put(key, item);
+        return Offer.QUEUED;
+    }
+
+    // Cola llena: se tira todo y se pide al cliente que vuelva a pedir el estado de sus temas. Sin versiones conocidas,
+    // lo siguiente de cada ficha sale entero. Devuelve los mensajes tirados (contando el que no ha cabido), o -1 si ya
+    // había un resync sin mandar (el cliente no da abasto)
+    synchronized int resync(Outgoing message) {
+        if (pending.containsKey(RESYNC_KEY)) return -1;
+        int lost = pending.size() + 1;
+        dropped.addAndGet(lost);
+        resyncs.incrementAndGet();
+        pending.clear();
+        versions.clear();
+        pending.put(RESYNC_KEY, message);
+        return lost;
+    }
+
+    synchronized Outgoing poll() {
+        Iterator<Outgoing> it = pending.values().iterator();
+        if (!it.hasNext()) return null;
+        Outgoing item = it.next();
+        it.remove();
+        return item;
+    }
+
+    synchronized int depth() {
+        return pending.size();
+    }
+
+    // Mensaje de estado con versión: solo sale si es más nuevo que lo último que se le ha mandado del tema
+    static Outgoing versioned(String topic, long version, TextMessage message) {
+        return session -> session.advance(topic, version) ? message : null;
+    }
+
+    synchronized boolean advance(String topic, long version) {
+        Long known = versions.get(topic);
+        if (known != null && known >= version) return false;
+        versions.put(topic, version);
+        return true;
+    }
+}
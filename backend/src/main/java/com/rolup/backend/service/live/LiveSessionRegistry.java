@@ -0,0 +1,327 @@
+package com.rolup.backend.service.live;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rolup.backend.dto.liveDTOs.LiveStatsDTO;
+import com.rolup.backend.dto.characterDTOs.CharacterDTO;
+import com.rolup.backend.dto.characterDTOs.CharacterSyncDTO;
+import com.rolup.backend.dto.encounterDTOs.EncounterDTO;
+import com.rolup.backend.dto.encounterDTOs.EncounterReplayDTO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Sesiones del canal en vivo por tema y reparto de los cambios.
+//  - El hilo que hace commit solo deja el evento en una cola; un único hilo de reparto lo serializa (una vez, dos si
+//    los jugadores ven una versión recortada) y lo mete en la cola de salida de cada sesión suscrita, en el mismo
+//    orden en que se publicaron.
+//  - Las colas de salida son acotadas y agrupan por clave (LiveSession): un jugador con mala conexión acumula el
+//    último estado de cada cosa, no todos los intermedios. Si aun así se llena, se vacía y se le pide un resync; si se
+//    vuelve a llenar antes de recibirlo, se cierra la conexión.
+//  - Los envíos salen de un pool propio; cada sesión la vacía un solo hilo a la vez, así que una lenta solo ocupa
+//    uno de sus hilos.
+// Las fichas no se mandan enteras: CharacterSync calcula el JSON Patch y cada sesión recibe el patch si tiene justo la
+// versión anterior, o la ficha entera si no
+@Component
+public class LiveSessionRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveSessionRegistry.class);
+    private static final int BROADCAST_BACKLOG = 10_000;
+
+    private final Map<String, Set<LiveSession>> topics = new ConcurrentHashMap<>();
+    private final Set<LiveSession> sessions = ConcurrentHashMap.newKeySet();
+    private final ObjectMapper objectMapper;
+    private final CharacterSync characterSync;
+    private final int queueCapacity;
+    private final ExecutorService broadcastExecutor;
+    private final ExecutorService sendExecutor;
+    private final AtomicLong sequence = new AtomicLong(); // Claves únicas para lo que no se agrupa
+
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong rejectedEvents = new AtomicLong();
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong closedSlow = new AtomicLong();
+
+    @Autowired
+    public LiveSessionRegistry(ObjectMapper objectMapper, CharacterSync characterSync,
+                               @Value("${rolup.live.queue-capacity:256}") int queueCapacity,
+                               @Value("${rolup.live.send-threads:4}") int sendThreads) {
+        this.objectMapper = objectMapper;
+        this.characterSync = characterSync;
+        this.queueCapacity = queueCapacity;
+        this.broadcastExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(BROADCAST_BACKLOG), threads("live-broadcast-"));
+        this.sendExecutor = Executors.newFixedThreadPool(sendThreads, threads("live-send-"));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        broadcastExecutor.shutdownNow();
+        sendExecutor.shutdownNow();
+    }
+
+    void connected(LiveSession session) {
+        sessions.add(session);
+    }
+
+    void disconnected(LiveSession session) {
+        sessions.remove(session);
+        for (String topic : Set.copyOf(session.topics)) {
+            unsubscribe(session, topic);
+        }
+    }
+
+    void subscribe(LiveSession session, String topic) {
+        topics.computeIfAbsent(topic, t -> ConcurrentHashMap.newKeySet()).add(session);
+        session.topics.add(topic);
+    }
+
+    void unsubscribe(LiveSession session, String topic) {
+        session.topics.remove(topic);
+        session.versions.remove(topic);
+        topics.computeIfPresent(topic, (t, subscribed) -> {
+            subscribed.remove(session);
+            return subscribed.isEmpty() ? null : subscribed;
+        });
+    }
+
+    // Si el cambio viene de una transacción llega al hacer commit; si no (el encuentro en memoria), en el momento.
+    // En los dos casos aquí solo se encola
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLiveEvent(LiveEvent event) {
+        try {
+            broadcastExecutor.execute(() -> broadcast(event));
+        } catch (RejectedExecutionException e) {
+            rejectedEvents.incrementAndGet();
+            log.warn("Canal en vivo saturado, se descarta el evento {} de {}", event.type(), event.topic());
+        }
+    }
+
+    private void broadcast(LiveEvent event) {
+        events.incrementAndGet();
+        try {
+            if (event.type() == LiveEventType.CHARACTER_DELETED) {
+                characterSync.forget(Long.parseLong(event.topic().substring(event.topic().indexOf(':') + 1)));
+            }
+
+            Set<LiveSession> subscribed = topics.get(event.topic());
+            if (subscribed == null || subscribed.isEmpty()) return;
+            String stateKey = event.topic() + "#state";
+
+            if (event.type() == LiveEventType.CHARACTER_UPDATED && event.payload() instanceof CharacterDTO dto) {
+                CharacterSync.Change change = characterSync.update(dto);
+                if (change == null) return; // No ha cambiado nada de la ficha
+
+                TextMessage patch = change.patch() == null ? null : sync(event.topic(), change.patch());
+                Supplier<TextMessage> snapshot = lazy(() -> sync(event.topic(), change.full()));
+                for (LiveSession session : subscribed) {
+                    enqueue(session, stateKey, s -> renderCharacter(s, event.topic(), change.fromVersion(),
+                            change.version(), patch, snapshot));
+                }
+                return;
+            }
+
+            TextMessage full = message(event.type(), event.topic(), event.payload());
+            TextMessage restricted = event.playerPayload() == null
+                    ? full
+                    : message(event.type(), event.topic(), event.playerPayload());
+            for (LiveSession session : subscribed) {
+                TextMessage message = session.admin ? full : restricted;
+                if (event.payload() instanceof EncounterDTO dto && dto.getVersion() != null) {
+                    // Estado entero del encuentro: vale el último
+                    enqueue(session, stateKey, LiveSession.versioned(event.topic(), dto.getVersion(), message));
+                } else {
+                    enqueue(session, uniqueKey(), s -> message);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudo repartir el evento {} de {}", event.type(), event.topic(), e);
+        }
+    }
+
+    // Respuesta al handshake de una ficha (ya viene como patch o como ficha entera)
+    void sendSync(LiveSession session, String topic, CharacterSyncDTO sync) {
+        TextMessage message = sync(topic, sync);
+        if (sync.getFromVersion() != null) {
+            session.versions.putIfAbsent(topic, sync.getFromVersion()); // Es la que dice tener el cliente
+        }
+        enqueue(session, topic + "#state", s -> renderCharacter(s, topic, sync.getFromVersion(), sync.getVersion(),
+                sync.getPatch() == null ? null : message, () -> message));
+    }
+
+    // Al suscribirse a un encuentro: el historial que le falta o, si no, el estado entero
+    void sendEncounter(LiveSession session, String topic, EncounterReplayDTO replay) {
+        TextMessage message = replay.getEvents() != null
+                ? message(LiveEventType.ENCOUNTER_REPLAY, topic, replay)
+                : message(LiveEventType.ENCOUNTER_UPDATED, topic, replay.getSnapshot());
+        if (replay.getFromVersion() != null) {
+            session.versions.putIfAbsent(topic, replay.getFromVersion()); // Es la que dice tener el cliente
+        }
+        enqueue(session, topic + "#state", LiveSession.versioned(topic, replay.getVersion(), message));
+    }
+
+    void reply(LiveSession session, Map<String, Object> body) {
+        TextMessage message = json(body);
+        enqueue(session, uniqueKey(), s -> message);
+    }
+
+    public LiveStatsDTO stats() {
+        List<LiveStatsDTO.SessionStats> perSession = sessions.stream()
+                .map(s -> new LiveStatsDTO.SessionStats(s.socket.getId(), s.username, s.topics.size(), s.depth(),
+                        s.sent.get(), s.dropped.get(), s.resyncs.get()))
+                .sorted(Comparator.comparingInt(LiveStatsDTO.SessionStats::getQueueDepth).reversed())
+                .toList();
+        int queued = perSession.stream().mapToInt(LiveStatsDTO.SessionStats::getQueueDepth).sum();
+        int maxDepth = perSession.isEmpty() ? 0 : perSession.get(0).getQueueDepth();
+        int pendingEvents = ((ThreadPoolExecutor) broadcastExecutor).getQueue().size();
+
+        return new LiveStatsDTO(sessions.size(), topics.size(), queueCapacity, queued, maxDepth, pendingEvents,
+                events.get(), rejectedEvents.get(), enqueued.get(), coalesced.get(), dropped.get(), resyncs.get(),
+                sent.get(), closedSlow.get(), perSession);
+    }
+
+    private void enqueue(LiveSession session, String key, LiveSession.Outgoing item) {
+        switch (session.offer(key, item, queueCapacity)) {
+            case QUEUED -> enqueued.incrementAndGet();
+            case COALESCED -> coalesced.incrementAndGet();
+            case OVERFLOW -> {
+                int lost = session.resync(s -> resyncMessage());
+                if (lost < 0) {
+                    close(session, "Demasiados mensajes pendientes");
+                    return;
+                }
+                dropped.addAndGet(lost);
+                resyncs.incrementAndGet();
+            }
+        }
+        if (session.draining.compareAndSet(false, true)) {
+            sendExecutor.execute(() -> drain(session));
+        }
+    }
+
+    private void drain(LiveSession session) {
+        while (true) {
+            LiveSession.Outgoing item = session.poll();
+            if (item == null) {
+                session.draining.set(false);
+                // Puede haber entrado algo entre el poll y soltar la sesión
+                if (session.depth() == 0 || !session.draining.compareAndSet(false, true)) return;
+                continue;
+            }
+
+            try {
+                TextMessage message = item.render(session);
+                if (message == null) continue;
+                session.socket.sendMessage(message);
+                session.sent.incrementAndGet();
+                sent.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                // Conexión caída o el socket no da abasto (límite de tiempo o de buffer del decorador)
+                log.debug("No se pudo enviar a la sesión {}: {}", session.socket.getId(), e.getMessage());
+                close(session, "No se pudo enviar");
+                session.draining.set(false);
+                return;
+            }
+        }
+    }
+
+    private void close(LiveSession session, String reason) {
+        closedSlow.incrementAndGet();
+        disconnected(session);
+        try {
+            session.socket.close(CloseStatus.SESSION_NOT_RELIABLE.withReason(reason));
+        } catch (IOException | RuntimeException ignored) {
+            // Ya estaba cerrada
+        }
+    }
+
+    // El patch si la sesión tiene justo la versión de la que parte; si no, la ficha entera
+    private static TextMessage renderCharacter(LiveSession session, String topic, Long fromVersion, long version,
+                                               TextMessage patch, Supplier<TextMessage> snapshot) {
+        synchronized (session) {
+            Long known = session.versions.get(topic);
+            if (known != null && known >= version) return null; // Ya tiene algo igual o más nuevo
+            session.versions.put(topic, version);
+            return patch != null && fromVersion.equals(known) ? patch : snapshot.get();
+        }
+    }
+
+    private TextMessage resyncMessage() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("type", "RESYNC"); // El cliente vuelve a suscribirse a sus temas con la versión que tenga
+        return json(body);
+    }
+
+    private TextMessage sync(String topic, CharacterSyncDTO sync) {
+        return message(sync.getPatch() != null ? LiveEventType.CHARACTER_PATCH : LiveEventType.CHARACTER_SNAPSHOT,
+                topic, sync);
+    }
+
+    private TextMessage message(LiveEventType type, String topic, Object payload) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("topic", topic);
+        body.put("type", type);
+        body.put("payload", payload);
+        return json(body);
+    }
+
+    private TextMessage json(Object body) {
+        try {
+            return new TextMessage(objectMapper.writeValueAsString(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el mensaje", e);
+        }
+    }
+
+    private String uniqueKey() {
+        return "#" + sequence.incrementAndGet();
+    }
+
+    private static Supplier<TextMessage> lazy(Supplier<TextMessage> supplier) {
+        TextMessage[] value = new TextMessage[1];
+        return () -> {
+            synchronized (value) {
+                if (value[0] == null) value[0] = supplier.get();
+                return value[0];
+            }
+        };
+    }
+
+    private static ThreadFactory threads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
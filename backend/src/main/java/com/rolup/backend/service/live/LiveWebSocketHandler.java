@@ -0,0 +1,162 @@
+package com.rolup.backend.service.live;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rolup.backend.repository.CharacterRepository;
+import com.rolup.backend.repository.EncounterEntityRepository;
+import com.rolup.backend.repository.EncounterRepository;
+import com.rolup.backend.service.EncounterService;
+import jakarta.websocket.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Canal en vivo (/ws/live?token=<JWT>). El cliente se suscribe a temas con mensajes
+//   {"action": "SUBSCRIBE", "topic": "character:5", "version": 123}   /   {"action": "UNSUBSCRIBE", "topic": "encounter:3"}
+// y recibe {"topic", "type", "payload"} por cada cambio. En las fichas "version" es la que ya tiene el cliente (si
+// tiene alguna): al suscribirse recibe lo que le falta desde ahí; en los encuentros igual, con el historial desde esa
+// versión (o el estado actual si no manda versión). Si el cliente se queda atrás le llega {"type": "RESYNC"} y tiene
+// que volver a suscribirse a sus temas.
+// Un jugador solo puede suscribirse a sus personajes y a los encuentros en los que participa; el admin a todo
+@Component
+public class LiveWebSocketHandler extends TextWebSocketHandler {
+
+    public static final String USERNAME_ATTRIBUTE = "username";
+    public static final String ADMIN_ATTRIBUTE = "isAdmin";
+    private static final String SESSION_ATTRIBUTE = "liveSession";
+    private static final int SEND_TIME_LIMIT_MS = 5_000;
+    private static final int BUFFER_SIZE_LIMIT = 512 * 1024;
+    private static final String BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final LiveSessionRegistry registry;
+    private final CharacterRepository characterRepository;
+    private final EncounterRepository encounterRepository;
+    private final EncounterEntityRepository encounterEntityRepository;
+    private final ObjectMapper objectMapper;
+    private final CharacterSync characterSync;
+    private final EncounterService encounterService;
+
+    @Autowired
+    public LiveWebSocketHandler(LiveSessionRegistry registry,
+                                CharacterRepository characterRepository,
+                                EncounterRepository encounterRepository,
+                                EncounterEntityRepository encounterEntityRepository,
+                                ObjectMapper objectMapper,
+                                CharacterSync characterSync,
+                                EncounterService encounterService) {
+        this.registry = registry;
+        this.characterRepository = characterRepository;
+        this.encounterRepository = encounterRepository;
+        this.encounterEntityRepository = encounterEntityRepository;
+        this.objectMapper = objectMapper;
+        this.characterSync = characterSync;
+        this.encounterService = encounterService;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        // Un envío que no avanza (cliente que no lee) corta a los SEND_TIME_LIMIT_MS en vez de a los 20 s de Tomcat, para
+        // que no tenga ocupado un hilo de envío del registro
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            Session endpoint = nativeSession.getNativeSession(Session.class);
+            if (endpoint != null) endpoint.getUserProperties().put(BLOCKING_SEND_TIMEOUT, (long) SEND_TIME_LIMIT_MS);
+        }
+        // WebSocketSession no admite envíos desde varios hilos a la vez; el decorador los encola
+        WebSocketSession socket = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, BUFFER_SIZE_LIMIT);
+        String username = (String) session.getAttributes().get(USERNAME_ATTRIBUTE);
+        boolean admin = Boolean.TRUE.equals(session.getAttributes().get(ADMIN_ATTRIBUTE));
+        LiveSession live = new LiveSession(socket, username, admin);
+        session.getAttributes().put(SESSION_ATTRIBUTE, live);
+        registry.connected(live);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        LiveSession live = live(session);
+        String action;
+        String topic;
+        Long version;
+        try {
+            JsonNode body = objectMapper.readTree(message.getPayload());
+            action = body.path("action").asText("");
+            topic = body.path("topic").asText("");
+            version = body.path("version").canConvertToLong() ? body.path("version").asLong() : null;
+        } catch (Exception e) {
+            reply(live, "ERROR", null, "Mensaje no válido");
+            return;
+        }
+
+        switch (action.toUpperCase()) {
+            case "SUBSCRIBE" -> {
+                if (!canSubscribe(live, topic)) {
+                    reply(live, "ERROR", topic, "No tienes acceso a este tema");
+                    return;
+                }
+                registry.subscribe(live, topic);
+                reply(live, "SUBSCRIBED", topic, null);
+                if (topic.startsWith("character:")) {
+                    registry.sendSync(live, topic, characterSync.sync(id(topic), version));
+                } else {
+                    registry.sendEncounter(live, topic, encounterService.replay(id(topic), version, live.admin));
+                }
+            }
+            case "UNSUBSCRIBE" -> {
+                registry.unsubscribe(live, topic);
+                reply(live, "UNSUBSCRIBED", topic, null);
+            }
+            default -> reply(live, "ERROR", topic, "Acción desconocida: " + action);
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        LiveSession live = live(session);
+        if (live != null) registry.disconnected(live);
+    }
+
+    private boolean canSubscribe(LiveSession live, String topic) {
+        int separator = topic.indexOf(':');
+        if (separator < 0) return false;
+
+        long id;
+        try {
+            id = id(topic);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+
+        return switch (topic.substring(0, separator)) {
+            case "character" -> live.admin
+                    ? characterRepository.existsById(id)
+                    : characterRepository.existsByIdAndAccountUsername(id, live.username);
+            case "encounter" -> live.admin
+                    ? encounterRepository.existsById(id)
+                    : encounterEntityRepository.existsByEncounterIdAndCharacterAccountUsername(id, live.username);
+            default -> false;
+        };
+    }
+
+    private void reply(LiveSession live, String type, String topic, String error) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("type", type);
+        if (topic != null) body.put("topic", topic);
+        if (error != null) body.put("message", error);
+        registry.reply(live, body);
+    }
+
+    private static long id(String topic) {
+        return Long.parseLong(topic.substring(topic.indexOf(':') + 1));
+    }
+
+    private static LiveSession live(WebSocketSession session) {
+        return (LiveSession) session.getAttributes().get(SESSION_ATTRIBUTE);
+    }
+}
@@ -0,0 +1,174 @@
+package com.rolup.backend.service.sheet;
+
+import com.rolup.backend.model.character_related.Character;
+import com.rolup.backend.model.character_related.CharacterAbilityStatsValue;
+import com.rolup.backend.service.formula.StatSnapshot;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Recalcula las estadísticas derivadas de un personaje a partir de sus características y nivel.
+// Se compara la hoja antes y después de un cambio y solo se recalculan los nodos que dependen de lo que ha cambiado
+// (y los que han cambiado de manual a calculado). Un nodo manual se deja como está y sus dependientes usan su valor
+public final class CharacterSheetGraph {
+
+    private static final SheetNode[] NODES = SheetNode.values();
+    private static final long ALL = (1L << NODES.length) - 1;
+
+    private CharacterSheetGraph() {
+    }
+
+    // Foto de la hoja: valor de cada nodo (por ordinal) y flags manual/proficient como bits
+    public record State(int[] values, long manual, long proficient) {
+    }
+
+    public static State capture(Character character) {
+        int[] values = new int[NODES.length];
+        long manual = 0;
+        long proficient = 0;
+        for (SheetNode node : NODES) {
+            values[node.ordinal()] = read(character, node, values);
+            if (isManual(character, node)) manual |= node.bit();
+            if (node.kind() == SheetNode.Kind.SKILL) {
+                CharacterAbilityStatsValue skill = node.skill(character.getSkills());
+                if (skill != null && skill.isProficient()) proficient |= node.bit();
+            }
+        }
+        return new State(values, manual, proficient);
+    }
+
+    // Recalcula lo afectado por los cambios hechos desde before. Devuelve los nodos que han cambiado con su valor nuevo
+    public static Map<SheetNode, Integer> update(Character character, State before) {
+        State after = capture(character);
+        long flagsChanged = (before.manual() ^ after.manual()) | (before.proficient() ^ after.proficient());
+
+        long dirty = 0;
+        for (SheetNode node : NODES) {
+            int i = node.ordinal();
+            if (before.values()[i] == after.values()[i] && (flagsChanged & node.bit()) == 0) continue;
+
+            dirty |= node.downstream();
+            if (node.kind() == SheetNode.Kind.DERIVED || node.kind() == SheetNode.Kind.SKILL) {
+                dirty |= node.bit(); // Se ha tocado a mano o ha dejado de ser manual: se vuelve a calcular
+            }
+        }
+        return recompute(character, after, dirty);
+    }
+
+    // Recalcula toda la hoja (personaje nuevo)
+    public static Map<SheetNode, Integer> recomputeAll(Character character) {
+        return recompute(character, capture(character), ALL);
+    }
+
+    private static Map<SheetNode, Integer> recompute(Character character, State state, long dirty) {
+        int[] values = state.values();
+        Map<SheetNode, Integer> changes = new EnumMap<>(SheetNode.class);
+
+        // Los bits se recorren de menor a mayor ordinal, que es el orden topológico
+        for (long pending = dirty; pending != 0; pending &= pending - 1) {
+            SheetNode node = NODES[Long.numberOfTrailingZeros(pending)];
+            if (node.kind() == SheetNode.Kind.INPUT || (state.manual() & node.bit()) != 0) continue;
+
+            int value = compute(node, values, (state.proficient() & node.bit()) != 0);
+            if (node.kind() == SheetNode.Kind.MODIFIER) {
+                values[node.ordinal()] = value;
+            } else if (value != values[node.ordinal()] || isUnset(character, node)) {
+                values[node.ordinal()] = value;
+                if (write(character, node, value)) changes.put(node, value);
+            }
+        }
+        return changes;
+    }
+
+    private static int compute(SheetNode node, int[] values, boolean proficient) {
+        return switch (node) {
+            case PROFICIENCY_BONUS -> StatSnapshot.proficiencyBonus(values[SheetNode.LEVEL.ordinal()]);
+            case PASSIVE_PERCEPTION -> 10 + values[SheetNode.PERCEPTION.ordinal()];
+            case INITIATIVE -> values[SheetNode.DEXTERITY_MOD.ordinal()];
+            case MAX_WEIGHT -> values[SheetNode.STRENGTH.ordinal()] * 5; // Igual que la hoja del frontend
+            case SPELL_CASTING_MODIFIER -> spellCastingModifier(values);
+            case SPELL_SAVE_DC -> 8 + spellCastingModifier(values);
+            default -> switch (node.kind()) {
+                case MODIFIER -> StatSnapshot.modifier(values[node.input(0).ordinal()]);
+                case SKILL -> values[node.input(0).ordinal()] + (proficient ? values[SheetNode.PROFICIENCY_BONUS.ordinal()] : 0);
+                default -> throw new IllegalStateException("Nodo sin cálculo: " + node);
+            };
+        };
+    }
+
+    // Modificador de la característica de lanzamiento + competencia (0 si no hay característica elegida)
+    private static int spellCastingModifier(int[] values) {
+        int stat = values[SheetNode.SPELL_CASTING_STAT.ordinal()];
+        if (stat < 0) return 0;
+        return values[SheetNode.STRENGTH_MOD.ordinal() + stat] + values[SheetNode.PROFICIENCY_BONUS.ordinal()];
+    }
+
+    private static int read(Character character, SheetNode node, int[] values) {
+        return switch (node) {
+            case STRENGTH -> character.getStrength();
+            case DEXTERITY -> character.getDexterity();
+            case CONSTITUTION -> character.getConstitution();
+            case INTELLIGENCE -> character.getIntelligence();
+            case WISDOM -> character.getWisdom();
+            case CHARISMA -> character.getCharisma();
+            case LEVEL -> character.getLevel();
+            case SPELL_CASTING_STAT -> character.getSpellCastingStat() == null ? -1 : character.getSpellCastingStat().ordinal();
+            case PROFICIENCY_BONUS -> character.getProficiencyBonus() != null
+                    ? character.getProficiencyBonus()
+                    : StatSnapshot.proficiencyBonus(character); // Sin valor guardado, el de su nivel
+            case INITIATIVE -> character.getInitiative();
+            case MAX_WEIGHT -> character.getMaxWeight();
+            case SPELL_CASTING_MODIFIER -> character.getSpellCastingModifier();
+            case SPELL_SAVE_DC -> character.getSpellSaveDC();
+            default -> switch (node.kind()) {
+                case MODIFIER -> StatSnapshot.modifier(values[node.input(0).ordinal()]);
+                case SKILL -> {
+                    CharacterAbilityStatsValue skill = node.skill(character.getSkills());
+                    yield skill == null || skill.getValue() == null ? 0 : skill.getValue();
+                }
+                default -> throw new IllegalStateException("Nodo sin lectura: " + node);
+            };
+        };
+    }
+
+    private static boolean write(Character character, SheetNode node, int value) {
+        switch (node) {
+            case PROFICIENCY_BONUS -> character.setProficiencyBonus(value);
+            case INITIATIVE -> character.setInitiative(value);
+            case MAX_WEIGHT -> character.setMaxWeight(value);
+            case SPELL_CASTING_MODIFIER -> character.setSpellCastingModifier(value);
+            case SPELL_SAVE_DC -> character.setSpellSaveDC(value);
+            default -> {
+                if (character.getSkills() == null) return false;
+                // Se sustituye el objeto en vez de modificarlo: un personaje nuevo comparte la misma instancia en todas
+                CharacterAbilityStatsValue previous = node.skill(character.getSkills());
+                boolean proficient = previous != null && previous.isProficient();
+                node.setSkill(character.getSkills(), new CharacterAbilityStatsValue(value, false, proficient));
+            }
+        }
+        return true;
+    }
+
+    private static boolean isManual(Character character, SheetNode node) {
+        return switch (node) {
+            case PROFICIENCY_BONUS -> character.isProficiencyBonusManual();
+            case INITIATIVE -> character.isInitiativeManual();
+            case MAX_WEIGHT -> character.isMaxWeightManual();
+            case SPELL_CASTING_MODIFIER -> character.isSpellCastingModifierManual();
+            case SPELL_SAVE_DC -> character.isSpellSaveDCManual();
+            default -> {
+                if (node.kind() != SheetNode.Kind.SKILL) yield false;
+                CharacterAbilityStatsValue skill = node.skill(character.getSkills());
+                yield skill != null && skill.isManual();
+            }
+        };
+    }
+
+    // Habilidades sin valor guardado (null): hay que escribirlas aunque el cálculo dé el 0 que se ha leído
+    private static boolean isUnset(Character character, SheetNode node) {
+        if (node == SheetNode.PROFICIENCY_BONUS) return character.getProficiencyBonus() == null;
+        if (node.kind() != SheetNode.Kind.SKILL) return false;
+        CharacterAbilityStatsValue skill = node.skill(character.getSkills());
+        return skill == null || skill.getValue() == null;
+    }
+}
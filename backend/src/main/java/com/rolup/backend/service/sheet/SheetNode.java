@@ -0,0 +1,163 @@
+package com.rolup.backend.service.sheet;
+
+import com.rolup.backend.model.character_related.CharacterAbilityStats;
+import com.rolup.backend.model.character_related.CharacterAbilityStatsValue;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// Nodos del grafo de estadísticas derivadas de la hoja de personaje.
+// Están declarados en orden topológico (cada nodo después de sus entradas), así recorrerlos por ordinal ya respeta
+// las dependencias. Las entradas son lo que escribe el jugador; los modificadores solo existen en memoria; el resto se
+// guarda en el personaje y respeta su flag "manual"
+public enum SheetNode {
+
+    // Entradas
+    STRENGTH,
+    DEXTERITY,
+    CONSTITUTION,
+    INTELLIGENCE,
+    WISDOM,
+    CHARISMA,
+    LEVEL,
+    SPELL_CASTING_STAT, // Ordinal del Stat elegido, -1 si no hay
+
+    // Modificadores de característica
+    STRENGTH_MOD(Kind.MODIFIER, STRENGTH),
+    DEXTERITY_MOD(Kind.MODIFIER, DEXTERITY),
+    CONSTITUTION_MOD(Kind.MODIFIER, CONSTITUTION),
+    INTELLIGENCE_MOD(Kind.MODIFIER, INTELLIGENCE),
+    WISDOM_MOD(Kind.MODIFIER, WISDOM),
+    CHARISMA_MOD(Kind.MODIFIER, CHARISMA),
+
+    PROFICIENCY_BONUS(Kind.DERIVED, LEVEL),
+
+    // Habilidades: modificador de su característica + competencia si es competente
+    ATHLETICS(Kind.SKILL, CharacterAbilityStats::getAthletics, CharacterAbilityStats::setAthletics,
+            STRENGTH_MOD, PROFICIENCY_BONUS),
+    ACROBATICS(Kind.SKILL, CharacterAbilityStats::getAcrobatics, CharacterAbilityStats::setAcrobatics,
+            DEXTERITY_MOD, PROFICIENCY_BONUS),
+    SLEIGHT_OF_HAND(Kind.SKILL, CharacterAbilityStats::getSleightOfHand, CharacterAbilityStats::setSleightOfHand,
+            DEXTERITY_MOD, PROFICIENCY_BONUS),
+    STEALTH(Kind.SKILL, CharacterAbilityStats::getStealth, CharacterAbilityStats::setStealth,
+            DEXTERITY_MOD, PROFICIENCY_BONUS),
+    ARCANA(Kind.SKILL, CharacterAbilityStats::getArcana, CharacterAbilityStats::setArcana,
+            INTELLIGENCE_MOD, PROFICIENCY_BONUS),
+    HISTORY(Kind.SKILL, CharacterAbilityStats::getHistory, CharacterAbilityStats::setHistory,
+            INTELLIGENCE_MOD, PROFICIENCY_BONUS),
+    INVESTIGATION(Kind.SKILL, CharacterAbilityStats::getInvestigation, CharacterAbilityStats::setInvestigation,
+            INTELLIGENCE_MOD, PROFICIENCY_BONUS),
+    NATURE(Kind.SKILL, CharacterAbilityStats::getNature, CharacterAbilityStats::setNature,
+            INTELLIGENCE_MOD, PROFICIENCY_BONUS),
+    RELIGION(Kind.SKILL, CharacterAbilityStats::getReligion, CharacterAbilityStats::setReligion,
+            INTELLIGENCE_MOD, PROFICIENCY_BONUS),
+    ANIMAL_HANDLING(Kind.SKILL, CharacterAbilityStats::getAnimalHandling, CharacterAbilityStats::setAnimalHandling,
+            WISDOM_MOD, PROFICIENCY_BONUS),
+    INSIGHT(Kind.SKILL, CharacterAbilityStats::getInsight, CharacterAbilityStats::setInsight,
+            WISDOM_MOD, PROFICIENCY_BONUS),
+    MEDICINE(Kind.SKILL, CharacterAbilityStats::getMedicine, CharacterAbilityStats::setMedicine,
+            WISDOM_MOD, PROFICIENCY_BONUS),
+    PERCEPTION(Kind.SKILL, CharacterAbilityStats::getPerception, CharacterAbilityStats::setPerception,
+            WISDOM_MOD, PROFICIENCY_BONUS),
+    SURVIVAL(Kind.SKILL, CharacterAbilityStats::getSurvival, CharacterAbilityStats::setSurvival,
+            WISDOM_MOD, PROFICIENCY_BONUS),
+    DECEPTION(Kind.SKILL, CharacterAbilityStats::getDeception, CharacterAbilityStats::setDeception,
+            CHARISMA_MOD, PROFICIENCY_BONUS),
+    INTIMIDATION(Kind.SKILL, CharacterAbilityStats::getIntimidation, CharacterAbilityStats::setIntimidation,
+            CHARISMA_MOD, PROFICIENCY_BONUS),
+    PERFORMANCE(Kind.SKILL, CharacterAbilityStats::getPerformance, CharacterAbilityStats::setPerformance,
+            CHARISMA_MOD, PROFICIENCY_BONUS),
+    PERSUASION(Kind.SKILL, CharacterAbilityStats::getPersuasion, CharacterAbilityStats::setPersuasion,
+            CHARISMA_MOD, PROFICIENCY_BONUS),
+
+    // Tiradas de salvación: igual que las habilidades
+    SAVING_THROW_STRENGTH(Kind.SKILL, CharacterAbilityStats::getSavingThrowStrength, CharacterAbilityStats::setSavingThrowStrength,
+            STRENGTH_MOD, PROFICIENCY_BONUS),
+    SAVING_THROW_DEXTERITY(Kind.SKILL, CharacterAbilityStats::getSavingThrowDexterity, CharacterAbilityStats::setSavingThrowDexterity,
+            DEXTERITY_MOD, PROFICIENCY_BONUS),
+    SAVING_THROW_CONSTITUTION(Kind.SKILL, CharacterAbilityStats::getSavingThrowConstitution, CharacterAbilityStats::setSavingThrowConstitution,
+            CONSTITUTION_MOD, PROFICIENCY_BONUS),
+    SAVING_THROW_INTELLIGENCE(Kind.SKILL, CharacterAbilityStats::getSavingThrowIntelligence, CharacterAbilityStats::setSavingThrowIntelligence,
+            INTELLIGENCE_MOD, PROFICIENCY_BONUS),
+    SAVING_THROW_WISDOM(Kind.SKILL, CharacterAbilityStats::getSavingThrowWisdom, CharacterAbilityStats::setSavingThrowWisdom,
+            WISDOM_MOD, PROFICIENCY_BONUS),
+    SAVING_THROW_CHARISMA(Kind.SKILL, CharacterAbilityStats::getSavingThrowCharisma, CharacterAbilityStats::setSavingThrowCharisma,
+            CHARISMA_MOD, PROFICIENCY_BONUS),
+
+    // 10 + Percepción (se guarda con las habilidades pero no suma competencia)
+    PASSIVE_PERCEPTION(Kind.SKILL, CharacterAbilityStats::getPassivePerception, CharacterAbilityStats::setPassivePerception,
+            PERCEPTION),
+
+    INITIATIVE(Kind.DERIVED, DEXTERITY_MOD),
+    MAX_WEIGHT(Kind.DERIVED, STRENGTH),
+    // La característica de lanzamiento se elige en la hoja, así que depende de todos los modificadores
+    SPELL_CASTING_MODIFIER(Kind.DERIVED, SPELL_CASTING_STAT, PROFICIENCY_BONUS, STRENGTH_MOD, DEXTERITY_MOD,
+            CONSTITUTION_MOD, INTELLIGENCE_MOD, WISDOM_MOD, CHARISMA_MOD),
+    SPELL_SAVE_DC(Kind.DERIVED, SPELL_CASTING_STAT, PROFICIENCY_BONUS, STRENGTH_MOD, DEXTERITY_MOD,
+            CONSTITUTION_MOD, INTELLIGENCE_MOD, WISDOM_MOD, CHARISMA_MOD);
+
+    public enum Kind {
+        INPUT,    // Lo escribe el jugador
+        MODIFIER, // Calculado, solo en memoria
+        DERIVED,  // Calculado y guardado en un campo del personaje con su flag manual
+        SKILL     // Calculado y guardado en un CharacterAbilityStatsValue (con su manual y proficient)
+    }
+
+    private final Kind kind;
+    private final SheetNode[] inputs;
+    private final Function<CharacterAbilityStats, CharacterAbilityStatsValue> skillGetter;
+    private final BiConsumer<CharacterAbilityStats, CharacterAbilityStatsValue> skillSetter;
+    private long downstream; // Bits (por ordinal) de todos los nodos que dependen de este, directa o indirectamente
+
+    SheetNode() {
+        this(Kind.INPUT);
+    }
+
+    SheetNode(Kind kind, SheetNode... inputs) {
+        this(kind, null, null, inputs);
+    }
+
+    SheetNode(Kind kind,
+              Function<CharacterAbilityStats, CharacterAbilityStatsValue> skillGetter,
+              BiConsumer<CharacterAbilityStats, CharacterAbilityStatsValue> skillSetter,
+              SheetNode... inputs) {
+        this.kind = kind;
+        this.inputs = inputs;
+        this.skillGetter = skillGetter;
+        this.skillSetter = skillSetter;
+    }
+
+    static {
+        // Al ir en orden inverso los dependientes de cada nodo ya tienen calculado su propio cierre
+        SheetNode[] nodes = values();
+        for (int i = nodes.length - 1; i >= 0; i--) {
+            for (SheetNode input : nodes[i].inputs) {
+                input.downstream |= nodes[i].bit() | nodes[i].downstream;
+            }
+        }
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    SheetNode input(int index) {
+        return inputs[index];
+    }
+
+    long bit() {
+        return 1L << ordinal();
+    }
+
+    long downstream() {
+        return downstream;
+    }
+
+    CharacterAbilityStatsValue skill(CharacterAbilityStats skills) {
+        return skills == null ? null : skillGetter.apply(skills);
+    }
+
+    void setSkill(CharacterAbilityStats skills, CharacterAbilityStatsValue value) {
+        skillSetter.accept(skills, value);
+    }
+}
@@ -0,0 +1,306 @@
+package com.rolup.backend.service.simulation;
+
+import com.rolup.backend.service.dice.DiceExpression;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Estado de los combates de un trozo de simulaciones. Se crea una vez por tarea con la plantilla pasada a arrays;
+// cada combate solo vuelve a copiar los PG y los huecos, así que simular no crea objetos
+final class CombatArena {
+
+    private static final int SLOT_LEVELS = 10;
+
+    private final int fighters;
+    private final int party;
+    private final int maxRounds;
+
+    // Plantilla
+    private final int[] startHp;
+    private final int[] maxHp;
+    private final int[] armorClass;
+    private final int[] initiativeBonus;
+    private final int[] saveBonus;
+    private final int[] attackBonus;
+    private final DiceExpression[] damage;
+    private final int[] damageBonus;
+    private final double[] damageAverage;
+    private final int[] attacks;
+    private final int[] startSlots;
+    private final int partyMaxHp;
+
+    private final int[] spellFighter;
+    private final int[] spellLevel;
+    private final DiceExpression[] spellDamage;
+    private final double[] spellAverage;
+    private final int[] spellAttackBonus;
+    private final int[] spellSaveDc;
+    private final boolean[] spellSave;
+    private final boolean[] spellHalfOnSave;
+    private final int[] spellTargets;
+
+    // Lo que cambia en cada combate
+    private final int[] hp;
+    private final int[] slots;
+    private final int[] initiative;
+    private final int[] order;
+    private int partyAlive;
+    private int opponentsAlive;
+
+    CombatArena(SimulationSetup setup) {
+        List<SimulationSetup.Fighter> template = setup.fighters();
+        fighters = template.size();
+        party = setup.partySize();
+        maxRounds = setup.maxRounds();
+
+        startHp = new int[fighters];
+        maxHp = new int[fighters];
+        armorClass = new int[fighters];
+        initiativeBonus = new int[fighters];
+        saveBonus = new int[fighters];
+        attackBonus = new int[fighters];
+        damage = new DiceExpression[fighters];
+        damageBonus = new int[fighters];
+        damageAverage = new double[fighters];
+        attacks = new int[fighters];
+        startSlots = new int[party * SLOT_LEVELS];
+        int totalMaxHp = 0;
+        for (int i = 0; i < fighters; i++) {
+            SimulationSetup.Fighter fighter = template.get(i);
+            startHp[i] = fighter.hp();
+            maxHp[i] = fighter.maxHp();
+            armorClass[i] = fighter.armorClass();
+            initiativeBonus[i] = fighter.initiativeBonus();
+            saveBonus[i] = fighter.saveBonus();
+            attackBonus[i] = fighter.attackBonus();
+            damage[i] = fighter.damage();
+            damageBonus[i] = fighter.damageBonus();
+            damageAverage[i] = average(fighter.damage()) + fighter.damageBonus();
+            attacks[i] = fighter.attacks();
+            if (i < party) {
+                totalMaxHp += fighter.maxHp();
+                int[] fighterSlots = fighter.slots();
+                if (fighterSlots != null) {
+                    System.arraycopy(fighterSlots, 0, startSlots, i * SLOT_LEVELS, Math.min(fighterSlots.length, SLOT_LEVELS));
+                }
+            }
+        }
+        partyMaxHp = Math.max(1, totalMaxHp);
+
+        List<SimulationSetup.SpellAction> spells = setup.spells();
+        int count = spells.size();
+        spellFighter = new int[count];
+        spellLevel = new int[count];
+        spellDamage = new DiceExpression[count];
+        spellAverage = new double[count];
+        spellAttackBonus = new int[count];
+        spellSaveDc = new int[count];
+        spellSave = new boolean[count];
+        spellHalfOnSave = new boolean[count];
+        spellTargets = new int[count];
+        for (int s = 0; s < count; s++) {
+            SimulationSetup.SpellAction spell = spells.get(s);
+            spellFighter[s] = spell.fighter();
+            spellLevel[s] = spell.level();
+            spellDamage[s] = spell.damage();
+            spellAverage[s] = average(spell.damage());
+            spellAttackBonus[s] = spell.attackBonus();
+            spellSaveDc[s] = spell.saveDc();
+            spellSave[s] = spell.save();
+            spellHalfOnSave[s] = spell.halfOnSave();
+            spellTargets[s] = Math.max(1, spell.targets());
+        }
+
+        hp = new int[fighters];
+        slots = new int[startSlots.length];
+        initiative = new int[fighters];
+        order = new int[fighters];
+    }
+
+    private static double average(DiceExpression expression) {
+        return (expression.min() + expression.max()) / 2.0;
+    }
+
+    // Un combate completo, apuntado en tally
+    void simulate(SplittableRandom random, SimulationTally tally) {
+        System.arraycopy(startHp, 0, hp, 0, fighters);
+        System.arraycopy(startSlots, 0, slots, 0, slots.length);
+        partyAlive = 0;
+        opponentsAlive = 0;
+        for (int i = 0; i < fighters; i++) {
+            if (hp[i] <= 0) continue;
+            if (i < party) partyAlive++;
+            else opponentsAlive++;
+        }
+        rollInitiative(random);
+
+        int round = 0;
+        while (round < maxRounds && partyAlive > 0 && opponentsAlive > 0) {
+            round++;
+            for (int turn = 0; turn < fighters && partyAlive > 0 && opponentsAlive > 0; turn++) {
+                int actor = order[turn];
+                if (hp[actor] <= 0) continue;
+                if (actor < party) partyTurn(actor, random);
+                else opponentTurn(actor, random);
+            }
+        }
+
+        tally.simulations++;
+        tally.roundsTotal += round;
+        tally.rounds[round]++;
+        if (opponentsAlive == 0) tally.partyWins++;
+        else if (partyAlive == 0) tally.opponentWins++;
+        else tally.stalemates++;
+
+        int remaining = 0;
+        for (int i = 0; i < party; i++) {
+            int left = Math.max(0, hp[i]);
+            remaining += left;
+            tally.hpTotal[i] += left;
+            tally.hp[i][left]++;
+            if (left > 0) tally.survived[i]++;
+        }
+        tally.partyHp[Math.min(SimulationTally.HP_BUCKETS - 1, remaining * SimulationTally.HP_BUCKETS / partyMaxHp)]++;
+    }
+
+    // d20 + bonus, de mayor a menor (inserción: son pocos y el array ya existe)
+    private void rollInitiative(SplittableRandom random) {
+        for (int i = 0; i < fighters; i++) {
+            initiative[i] = d20(random) + initiativeBonus[i];
+            int j = i;
+            while (j > 0 && initiative[order[j - 1]] < initiative[i]) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = i;
+        }
+    }
+
+    // Lo que más daño espera hacer al enemigo más tocado: su arma o alguno de sus conjuros con huecos libres
+    private void partyTurn(int actor, SplittableRandom random) {
+        int target = weakestOpponent();
+        double best = attacks[actor] * hitChance(attackBonus[actor], armorClass[target]) * damageAverage[actor];
+        int spell = -1;
+        for (int s = 0; s < spellFighter.length; s++) {
+            if (spellFighter[s] != actor) continue;
+            if (spellLevel[s] > 0 && slots[actor * SLOT_LEVELS + spellLevel[s]] <= 0) continue;
+
+            double expected = spellExpected(s, target) * Math.min(spellTargets[s], opponentsAlive);
+            if (expected > best) {
+                best = expected;
+                spell = s;
+            }
+        }
+
+        if (spell < 0) {
+            for (int a = 0; a < attacks[actor] && hp[target] > 0; a++) {
+                attack(actor, target, random);
+            }
+            if (hp[target] <= 0) opponentsAlive--;
+            return;
+        }
+        cast(spell, target, random);
+    }
+
+    private double spellExpected(int spell, int target) {
+        if (!spellSave[spell]) {
+            return hitChance(spellAttackBonus[spell], armorClass[target]) * spellAverage[spell];
+        }
+        double saves = chance(spellSaveDc[spell] - saveBonus[target]);
+        return (1 - saves) * spellAverage[spell] + (spellHalfOnSave[spell] ? saves * spellAverage[spell] / 2 : 0);
+    }
+
+    // Primero el objetivo elegido y después los demás vivos en orden, hasta completar los objetivos del conjuro
+    private void cast(int spell, int first, SplittableRandom random) {
+        int actor = spellFighter[spell];
+        if (spellLevel[spell] > 0) slots[actor * SLOT_LEVELS + spellLevel[spell]]--;
+
+        int left = spellTargets[spell];
+        int target = first;
+        int next = party;
+        while (left > 0 && target >= 0) {
+            int dealt;
+            if (spellSave[spell]) {
+                int rolled = Math.max(0, spellDamage[spell].roll(random));
+                boolean saved = d20(random) + saveBonus[target] >= spellSaveDc[spell];
+                dealt = !saved ? rolled : spellHalfOnSave[spell] ? rolled / 2 : 0;
+            } else {
+                int d20 = d20(random);
+                dealt = hits(d20, spellAttackBonus[spell], armorClass[target])
+                        ? Math.max(0, roll(spellDamage[spell], 0, d20 == 20, random))
+                        : 0;
+            }
+            damage(target, dealt);
+            left--;
+
+            target = -1;
+            while (next < fighters && target < 0) {
+                if (next != first && hp[next] > 0) target = next;
+                next++;
+            }
+        }
+    }
+
+    private void opponentTurn(int actor, SplittableRandom random) {
+        for (int a = 0; a < attacks[actor] && partyAlive > 0; a++) {
+            int target = randomPartyMember(random);
+            attack(actor, target, random);
+            if (hp[target] <= 0) partyAlive--;
+        }
+    }
+
+    // Un ataque del arma (o de la criatura). No toca los contadores de vivos: lo hace quien sabe de qué bando es
+    private void attack(int actor, int target, SplittableRandom random) {
+        int d20 = d20(random);
+        if (!hits(d20, attackBonus[actor], armorClass[target])) return;
+        hp[target] -= Math.max(0, roll(damage[actor], damageBonus[actor], d20 == 20, random));
+    }
+
+    private void damage(int target, int amount) {
+        if (hp[target] <= 0 || amount <= 0) return;
+        hp[target] -= amount;
+        if (hp[target] <= 0) opponentsAlive--;
+    }
+
+    // Un crítico tira los dados dos veces, pero el modificador solo cuenta una
+    private static int roll(DiceExpression expression, int bonus, boolean critical, SplittableRandom random) {
+        int total = expression.roll(random) + bonus;
+        if (critical) total += expression.roll(random) - expression.constant();
+        return total;
+    }
+
+    // 1 natural falla siempre y 20 natural acierta siempre
+    private static boolean hits(int d20, int bonus, int armorClass) {
+        return d20 != 1 && (d20 == 20 || d20 + bonus >= armorClass);
+    }
+
+    // Hace falta sacar CA - bonus; el 1 y el 20 naturales la dejan entre el 5 % y el 95 %
+    private static double hitChance(int bonus, int armorClass) {
+        return Math.max(0.05, Math.min(0.95, chance(armorClass - bonus)));
+    }
+
+    // Probabilidad de sacar needed o más con un d20
+    private static double chance(int needed) {
+        return Math.max(0, Math.min(1, (21 - needed) / 20.0));
+    }
+
+    private static int d20(SplittableRandom random) {
+        return random.nextInt(20) + 1;
+    }
+
+    private int weakestOpponent() {
+        int weakest = -1;
+        for (int i = party; i < fighters; i++) {
+            if (hp[i] > 0 && (weakest < 0 || hp[i] < hp[weakest])) weakest = i;
+        }
+        return weakest;
+    }
+
+    private int randomPartyMember(SplittableRandom random) {
+        int skip = random.nextInt(partyAlive);
+        for (int i = 0; i < party; i++) {
+            if (hp[i] > 0 && skip-- == 0) return i;
+        }
+        throw new IllegalStateException("No queda nadie del grupo");
+    }
+}
@@ -0,0 +1,80 @@
+package com.rolup.backend.service.simulation;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+// Lanza miles de combates en paralelo. Las simulaciones se parten en trozos que se reparten en un pool propio
+// (fork/join, para no quitarle hilos al resto del servidor); cada trozo tiene su generador, separado del de su padre,
+// y su propio estado, así que los hilos no comparten nada hasta sumar los resultados
+@Component
+public class CombatSimulator {
+
+    private static final int LEAF_SIMULATIONS = 1024; // Simulaciones por trozo
+    private static final int DEADLINE_CHECK = 64;     // Cada cuántas se mira el reloj
+
+    private final ForkJoinPool pool;
+
+    public CombatSimulator() {
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("simulation-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    // Hasta iterations combates o hasta que se acabe el tiempo, lo que llegue antes
+    public SimulationTally run(SimulationSetup setup, int iterations, long timeBudgetMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMs);
+        return pool.invoke(new SimulationTask(setup, iterations, new SplittableRandom(), deadline));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static final class SimulationTask extends RecursiveTask<SimulationTally> {
+
+        private final SimulationSetup setup;
+        private final int simulations;
+        private final SplittableRandom random;
+        private final long deadline;
+
+        SimulationTask(SimulationSetup setup, int simulations, SplittableRandom random, long deadline) {
+            this.setup = setup;
+            this.simulations = simulations;
+            this.random = random;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected SimulationTally compute() {
+            if (simulations <= LEAF_SIMULATIONS) {
+                return simulate();
+            }
+
+            int half = simulations / 2;
+            SimulationTask left = new SimulationTask(setup, half, random.split(), deadline);
+            left.fork();
+            SimulationTally tally = new SimulationTask(setup, simulations - half, random, deadline).compute();
+            tally.merge(left.join());
+            return tally;
+        }
+
+        private SimulationTally simulate() {
+            SimulationTally tally = new SimulationTally(setup);
+            CombatArena arena = new CombatArena(setup);
+            for (int i = 0; i < simulations; i++) {
+                if (i % DEADLINE_CHECK == 0 && System.nanoTime() > deadline) break;
+                arena.simulate(random, tally);
+            }
+            return tally;
+        }
+    }
+}
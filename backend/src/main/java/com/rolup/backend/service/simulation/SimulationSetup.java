@@ -0,0 +1,30 @@
+package com.rolup.backend.service.simulation;
+
+import com.rolup.backend.service.dice.DiceExpression;
+
+import java.util.List;
+
+// Combate a simular, ya resuelto a números: los personajes primero y después cada criatura por separado.
+// Es inmutable y lo comparten todos los hilos; cada uno copia lo que cambia (PG y huecos) a sus propios arrays
+public record SimulationSetup(List<Fighter> fighters, List<SpellAction> spells, int maxRounds) {
+
+    // Un participante con su ataque básico (arma o ataque de la criatura). slots: huecos de conjuro por nivel (1-9)
+    public record Fighter(boolean party, Long characterId, String name, int hp, int maxHp, int armorClass,
+                          int initiativeBonus, int saveBonus, int attackBonus, DiceExpression damage, int damageBonus,
+                          int attacks, int[] slots) {
+    }
+
+    // Conjuro de daño de un personaje (fighter es su posición en fighters). Con save, los objetivos tiran salvación
+    // contra saveDc en vez de tirar él para impactar. level 0 = truco, sin gastar huecos
+    public record SpellAction(int fighter, String name, int level, DiceExpression damage, int attackBonus, int saveDc,
+                              boolean save, boolean halfOnSave, int targets) {
+    }
+
+    public int partySize() {
+        int size = 0;
+        for (Fighter fighter : fighters) {
+            if (fighter.party()) size++;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,147 @@
+package com.rolup.backend.service.simulation;
+
+import com.rolup.backend.dto.encounterDTOs.SimulationRequestDTO;
+import com.rolup.backend.exception.BadRequestException;
+import com.rolup.backend.exception.NotFoundException;
+import com.rolup.backend.model.character_related.Character;
+import com.rolup.backend.model.character_related.CharacterItem;
+import com.rolup.backend.model.character_related.CharacterSpell;
+import com.rolup.backend.model.item_related.Weapon;
+import com.rolup.backend.repository.CharacterItemRepository;
+import com.rolup.backend.repository.CharacterRepository;
+import com.rolup.backend.repository.CharacterSpellRepository;
+import com.rolup.backend.service.DiceService;
+import com.rolup.backend.service.dice.DiceExpression;
+import com.rolup.backend.service.formula.StatSnapshot;
+import jakarta.transaction.Transactional;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Pasa el grupo y los enemigos a números (PG, CA, bonificadores y dados ya compilados) en una transacción corta.
+// Lo que devuelve no tiene entidades, así que la simulación se puede hacer después sin tocar la base de datos
+@Component
+public class SimulationSetupLoader {
+
+    private static final int MAX_ROUNDS = 50;
+    private static final Pattern DICE = Pattern.compile("\\d*d\\d+(\\s*[+-]\\s*\\d+)?"); // Daño dentro de un texto, ej: "1d8 cortante"
+
+    private final CharacterRepository characterRepository;
+    private final CharacterItemRepository characterItemRepository;
+    private final CharacterSpellRepository characterSpellRepository;
+    private final DiceService diceService;
+
+    @Autowired
+    public SimulationSetupLoader(CharacterRepository characterRepository,
+                                 CharacterItemRepository characterItemRepository,
+                                 CharacterSpellRepository characterSpellRepository,
+                                 DiceService diceService) {
+        this.characterRepository = characterRepository;
+        this.characterItemRepository = characterItemRepository;
+        this.characterSpellRepository = characterSpellRepository;
+        this.diceService = diceService;
+    }
+
+    @Transactional
+    public SimulationSetup load(SimulationRequestDTO dto) {
+        Set<Long> ids = new LinkedHashSet<>(dto.getCharacterIds());
+        Map<Long, Character> characters = characterRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Character::getId, Function.identity()));
+        if (characters.size() != ids.size()) {
+            throw new NotFoundException("Personaje no encontrado");
+        }
+
+        List<SimulationSetup.Fighter> fighters = new ArrayList<>();
+        for (Long id : ids) {
+            fighters.add(partyMember(characters.get(id), dto));
+        }
+        List<Long> order = new ArrayList<>(ids);
+
+        List<SimulationSetup.SpellAction> spells = new ArrayList<>();
+        for (SimulationRequestDTO.SpellOption option : dto.getSpells()) {
+            int fighter = order.indexOf(option.getCharacterId());
+            if (fighter < 0) {
+                throw new BadRequestException("El conjuro es de un personaje que no está en el grupo");
+            }
+            spells.add(spell(characters.get(option.getCharacterId()), fighter, option));
+        }
+
+        for (SimulationRequestDTO.Opponent opponent : dto.getOpponents()) {
+            DiceExpression damage = diceService.compile(opponent.getDamage());
+            for (int i = 0; i < opponent.getCount(); i++) {
+                String name = opponent.getCount() == 1 ? opponent.getName() : opponent.getName() + " " + (i + 1);
+                fighters.add(new SimulationSetup.Fighter(false, null, name, opponent.getMaxHp(), opponent.getMaxHp(),
+                        opponent.getArmorClass(), opponent.getInitiativeBonus(), opponent.getSaveBonus(),
+                        opponent.getAttackBonus(), damage, 0, opponent.getAttacks(), null));
+            }
+        }
+        return new SimulationSetup(List.copyOf(fighters), List.copyOf(spells), MAX_ROUNDS);
+    }
+
+    // Ataca con el arma equipada que más daño hace (competente, con el mejor de FUE y DES); sin arma, un golpe
+    // desarmado de 1 + FUE
+    private SimulationSetup.Fighter partyMember(Character character, SimulationRequestDTO dto) {
+        int strength = StatSnapshot.modifier(character.getStrength());
+        int modifier = Math.max(strength, StatSnapshot.modifier(character.getDexterity()));
+        int proficiency = StatSnapshot.proficiencyBonus(character);
+
+        DiceExpression damage = null;
+        for (CharacterItem characterItem : characterItemRepository.findByCharacterId(character.getId())) {
+            if (!characterItem.isEquipped()) continue;
+            if (!(Hibernate.unproxy(characterItem.getItem()) instanceof Weapon weapon)) continue;
+
+            DiceExpression weaponDamage = weaponDamage(weapon);
+            if (weaponDamage != null && (damage == null || weaponDamage.max() + weaponDamage.min() > damage.max() + damage.min())) {
+                damage = weaponDamage;
+            }
+        }
+        int damageBonus = modifier;
+        if (damage == null) {
+            damage = diceService.compile("1");
+            damageBonus = strength;
+        }
+
+        int[] slots = new int[10];
+        if (character.getSpellSlots() != null) {
+            for (Character.SpellSlot slot : character.getSpellSlots()) {
+                if (slot.getLevel() < 1 || slot.getLevel() > 9) continue;
+                slots[slot.getLevel()] = dto.isFullHealth() ? slot.getMaxSlots() : slot.getCurrentSlots();
+            }
+        }
+
+        int hp = dto.isFullHealth() ? character.getMaxHp() : character.getCurrentHp();
+        return new SimulationSetup.Fighter(true, character.getId(), character.getName(), hp, character.getMaxHp(),
+                character.getArmorClass(), character.getInitiative(), 0, proficiency + modifier, damage, damageBonus,
+                dto.getAttacksPerTurn().getOrDefault(character.getId(), 1), slots);
+    }
+
+    // El daño del arma es texto libre: se usa entero si es una expresión de dados y si no, los primeros dados que aparezcan
+    private DiceExpression weaponDamage(Weapon weapon) {
+        if (weapon.getDamage() == null || weapon.getDamage().isBlank()) return null;
+        try {
+            return diceService.compile(weapon.getDamage());
+        } catch (BadRequestException e) {
+            Matcher matcher = DICE.matcher(weapon.getDamage());
+            return matcher.find() ? diceService.compile(matcher.group().replace(" ", "")) : null;
+        }
+    }
+
+    private SimulationSetup.SpellAction spell(Character character, int fighter, SimulationRequestDTO.SpellOption option) {
+        CharacterSpell characterSpell = characterSpellRepository.findByCharacterIdAndSpellId(character.getId(), option.getSpellId())
+                .orElseThrow(() -> new NotFoundException("El personaje no tiene este conjuro"));
+        return new SimulationSetup.SpellAction(fighter, characterSpell.getSpell().getName(),
+                characterSpell.getSpell().getLevel(), diceService.compile(option.getDamage()),
+                StatSnapshot.proficiencyBonus(character) + character.getSpellCastingModifier(), character.getSpellSaveDC(),
+                option.isSave(), option.isHalfOnSave(), option.getTargets());
+    }
+}
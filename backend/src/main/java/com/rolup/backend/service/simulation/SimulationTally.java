@@ -0,0 +1,88 @@
+package com.rolup.backend.service.simulation;
+
+// Contadores de un trozo de simulaciones. Cada tarea rellena el suyo sin compartir nada y se suman al juntarlas
+public final class SimulationTally {
+
+    public static final int HP_BUCKETS = 10; // PG que le quedan al grupo, en tramos del 10 %
+
+    long simulations;
+    long partyWins;
+    long opponentWins;
+    long stalemates;       // Se llegó al máximo de asaltos
+    long roundsTotal;
+    final long[] rounds;   // rounds[n] = combates que acabaron en el asalto n
+    final long[] partyHp;  // partyHp[b] = combates en los que al grupo le quedaba entre b*10 % y (b+1)*10 % (el 100 % va en el último)
+    final long[] survived; // Por personaje
+    final long[] hpTotal;  // Por personaje, suma de los PG que le quedan
+    final long[][] hp;     // Por personaje, hp[i][n] = combates en los que acabó con n PG
+
+    SimulationTally(SimulationSetup setup) {
+        int party = setup.partySize();
+        rounds = new long[setup.maxRounds() + 1];
+        partyHp = new long[HP_BUCKETS];
+        survived = new long[party];
+        hpTotal = new long[party];
+        hp = new long[party][];
+        for (int i = 0; i < party; i++) {
+            SimulationSetup.Fighter fighter = setup.fighters().get(i);
+            hp[i] = new long[Math.max(fighter.hp(), fighter.maxHp()) + 1];
+        }
+    }
+
+    void merge(SimulationTally other) {
+        simulations += other.simulations;
+        partyWins += other.partyWins;
+        opponentWins += other.opponentWins;
+        stalemates += other.stalemates;
+        roundsTotal += other.roundsTotal;
+        add(rounds, other.rounds);
+        add(partyHp, other.partyHp);
+        add(survived, other.survived);
+        add(hpTotal, other.hpTotal);
+        for (int i = 0; i < hp.length; i++) add(hp[i], other.hp[i]);
+    }
+
+    private static void add(long[] into, long[] from) {
+        for (int i = 0; i < into.length; i++) into[i] += from[i];
+    }
+
+    public long simulations() {
+        return simulations;
+    }
+
+    public long partyWins() {
+        return partyWins;
+    }
+
+    public long opponentWins() {
+        return opponentWins;
+    }
+
+    public long stalemates() {
+        return stalemates;
+    }
+
+    public long roundsTotal() {
+        return roundsTotal;
+    }
+
+    public long[] rounds() {
+        return rounds;
+    }
+
+    public long[] partyHp() {
+        return partyHp;
+    }
+
+    public long survived(int member) {
+        return survived[member];
+    }
+
+    public long hpTotal(int member) {
+        return hpTotal[member];
+    }
+
+    public long[] hp(int member) {
+        return hp[member];
+    }
+}
@@ -0,0 +1,283 @@
+package com.rolup.backend.service.tiles;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rolup.backend.exception.BadRequestException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Pirámide de teselas (estilo Deep Zoom) de las imágenes grandes que se suben, para que los clientes solo pidan lo
+// que se ve al zoom actual en vez de la imagen entera.
+// Se guarda junto al original: <imagen>_files/<nivel>/<columna>_<fila>.<formato> y un info.json que se escribe al
+// final, así que mientras no existe la pirámide no está lista. El nivel más alto es la imagen a tamaño real y cada
+// nivel es la mitad del siguiente, hasta el 0 (1x1).
+// El tamaño real se lee a franjas para no tener la imagen entera en memoria; lo más grande que se guarda es el nivel
+// de debajo (una cuarta parte)
+@Component
+public class TilePyramidBuilder {
+
+    private static final Logger log = LoggerFactory.getLogger(TilePyramidBuilder.class);
+
+    public static final String TILES_SUFFIX = "_files";
+    public static final int TILE_SIZE = 256;
+    private static final String INFO_FILE = "info.json";
+    private static final int MIN_SIZE = 2048;              // Lado mayor a partir del cual se parte en teselas
+    // Límite de lo que se acepta al subir: el nivel de debajo del tamaño real (una cuarta parte, 4 bytes por píxel)
+    // se queda en ~100 MB y una franja de teselas del tamaño real en ~32 MB
+    public static final long MAX_PIXELS = 100_000_000L;
+    public static final int MAX_SIDE = 32_768;
+    private static final long STRIP_BYTES = 32L * 1024 * 1024;
+    private static final int BACKLOG = 16;                  // Imágenes esperando; las que no caben se quedan sin teselas
+
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final Map<Path, Pyramid> pyramids = new ConcurrentHashMap<>(); // Por imagen, para no leer info.json en cada tesela
+
+    // format: png si la imagen tiene transparencia, jpg si no
+    public record Pyramid(int width, int height, int tileSize, int maxLevel, String format) {
+    }
+
+    @Autowired
+    public TilePyramidBuilder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        // Un solo hilo: partir una imagen grande ya ocupa bastante CPU y memoria
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(BACKLOG),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "tiles-1");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public static Path tilesDirectory(Path image) {
+        return image.resolveSibling(image.getFileName() + TILES_SUFFIX);
+    }
+
+    // Las dimensiones se leen aquí de la cabecera, sin decodificar, para rechazar la subida si la imagen es demasiado
+    // grande; las teselas se generan en segundo plano. Si no es una imagen o es pequeña no se hace nada
+    public void schedule(Path image) throws IOException {
+        int[] size = readSize(image);
+        if (size == null) return;
+
+        int width = size[0];
+        int height = size[1];
+        if ((long) width * height > MAX_PIXELS || Math.max(width, height) > MAX_SIDE) {
+            throw new BadRequestException("La imagen es demasiado grande (" + width + "x" + height + "), como mucho "
+                    + MAX_PIXELS / 1_000_000 + " megapíxeles y " + MAX_SIDE + " píxeles de lado");
+        }
+        if (Math.max(width, height) < MIN_SIZE) return;
+
+        try {
+            executor.execute(() -> build(image));
+        } catch (RejectedExecutionException e) {
+            log.warn("Demasiadas imágenes pendientes, {} se queda sin teselas", image.getFileName());
+        }
+    }
+
+    // {ancho, alto} o null si no es una imagen que se sepa leer
+    private static int[] readSize(Path image) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(image.toFile())) {
+            if (input == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) return null;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return new int[]{reader.getWidth(0), reader.getHeight(0)};
+            } catch (IOException e) {
+                return null; // Cabecera rota: se guarda como cualquier otro archivo
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // null si la imagen no tiene pirámide o todavía no está lista
+    public Pyramid pyramid(Path image) {
+        Pyramid cached = pyramids.get(image);
+        if (cached != null) return cached;
+
+        Path info = tilesDirectory(image).resolve(INFO_FILE);
+        if (!Files.isRegularFile(info)) return null;
+        try {
+            Pyramid pyramid = objectMapper.readValue(info.toFile(), Pyramid.class);
+            pyramids.put(image, pyramid);
+            return pyramid;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void build(Path image) {
+        Path directory = tilesDirectory(image);
+        try (ImageInputStream input = ImageIO.createImageInputStream(image.toFile())) {
+            if (input == null) return;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) return;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, false, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (Math.max(width, height) < MIN_SIZE) return;
+
+                Pyramid pyramid = new Pyramid(width, height, TILE_SIZE, maxLevel(width, height),
+                        hasAlpha(reader) ? "png" : "jpg");
+                long start = System.nanoTime();
+                build(reader, pyramid, directory);
+
+                Path temporary = directory.resolve(INFO_FILE + ".tmp");
+                objectMapper.writeValue(temporary.toFile(), pyramid);
+                Files.move(temporary, directory.resolve(INFO_FILE), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                log.info("Teselas de {} ({}x{}, {} niveles) en {} ms", image.getFileName(), width, height,
+                        pyramid.maxLevel() + 1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            } finally {
+                reader.dispose();
+            }
+        } catch (Exception e) {
+            log.warn("No se han podido generar las teselas de {}", image.getFileName(), e);
+            delete(directory);
+            return;
+        }
+
+        // La han borrado mientras se partía
+        if (!Files.exists(image)) delete(directory);
+    }
+
+    private void build(ImageReader reader, Pyramid pyramid, Path directory) throws IOException {
+        int width = pyramid.width();
+        int height = pyramid.height();
+        int type = "png".equals(pyramid.format()) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        // Tamaño real a franjas de filas de teselas; cada franja se reduce a la mitad sobre el nivel de debajo
+        BufferedImage below = new BufferedImage(half(width), half(height), type);
+        Graphics2D graphics = below.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        try {
+            int rows = (int) Math.max(1, STRIP_BYTES / (4L * width * TILE_SIZE)) * TILE_SIZE;
+            ImageReadParam param = reader.getDefaultReadParam();
+            for (int y = 0; y < height; y += rows) {
+                int stripHeight = Math.min(rows, height - y);
+                param.setSourceRegion(new Rectangle(0, y, width, stripHeight));
+                BufferedImage strip = reader.read(0, param);
+                writeTiles(strip, directory.resolve(String.valueOf(pyramid.maxLevel())), y / TILE_SIZE, type,
+                        pyramid.format());
+                graphics.drawImage(strip, 0, y / 2, below.getWidth(), half(y + stripHeight),
+                        0, 0, width, stripHeight, null);
+            }
+        } finally {
+            graphics.dispose();
+        }
+
+        for (int level = pyramid.maxLevel() - 1; level >= 0; level--) {
+            writeTiles(below, directory.resolve(String.valueOf(level)), 0, type, pyramid.format());
+            if (level > 0) below = halve(below, type);
+        }
+    }
+
+    // firstRow: fila de teselas en la que empieza la imagen (las franjas del tamaño real)
+    private static void writeTiles(BufferedImage image, Path directory, int firstRow, int type, String format)
+            throws IOException {
+        Files.createDirectories(directory);
+        for (int y = 0; y < image.getHeight(); y += TILE_SIZE) {
+            for (int x = 0; x < image.getWidth(); x += TILE_SIZE) {
+                int tileWidth = Math.min(TILE_SIZE, image.getWidth() - x);
+                int tileHeight = Math.min(TILE_SIZE, image.getHeight() - y);
+
+                // Copia al tipo de la pirámide: el escritor de JPEG no admite transparencia ni 16 bits
+                BufferedImage tile = new BufferedImage(tileWidth, tileHeight, type);
+                Graphics2D graphics = tile.createGraphics();
+                graphics.drawImage(image, 0, 0, tileWidth, tileHeight, x, y, x + tileWidth, y + tileHeight, null);
+                graphics.dispose();
+
+                String name = (x / TILE_SIZE) + "_" + (firstRow + y / TILE_SIZE) + "." + format;
+                if (!ImageIO.write(tile, format, directory.resolve(name).toFile())) {
+                    throw new IOException("No hay escritor para " + format);
+                }
+            }
+        }
+    }
+
+    private static BufferedImage halve(BufferedImage image, int type) {
+        BufferedImage half = new BufferedImage(half(image.getWidth()), half(image.getHeight()), type);
+        Graphics2D graphics = half.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, half.getWidth(), half.getHeight(), null);
+        graphics.dispose();
+        return half;
+    }
+
+    private static int half(int size) {
+        return (size + 1) / 2;
+    }
+
+    // Niveles hasta que el lado mayor es 1: ceil(log2(lado))
+    private static int maxLevel(int width, int height) {
+        int size = Math.max(width, height);
+        return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    private static boolean hasAlpha(ImageReader reader) throws IOException {
+        ImageTypeSpecifier type = reader.getRawImageType(0);
+        if (type == null) {
+            Iterator<ImageTypeSpecifier> types = reader.getImageTypes(0);
+            if (!types.hasNext()) return false;
+            type = types.next();
+        }
+        return type.getColorModel().hasAlpha();
+    }
+
+    public void forget(Path image) {
+        pyramids.remove(image);
+        delete(tilesDirectory(image));
+    }
+
+    // Se ha borrado un directorio entero (con sus teselas dentro)
+    public void forgetUnder(Path directory) {
+        pyramids.keySet().removeIf(image -> image.startsWith(directory));
+    }
+
+    private static void delete(Path directory) {
+        if (!Files.isDirectory(directory)) return;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("No se han podido borrar las teselas de {}", directory, e);
+        }
+    }
+}
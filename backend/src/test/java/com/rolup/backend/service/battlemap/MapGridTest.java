@@ -0,0 +1,43 @@
+package com.rolup.backend.service.battlemap;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MapGridTest {
+
+    private static final List<String> ROWS = List.of(
+            "#####",
+            "#.D~#",
+            "#####");
+
+    @Test
+    void rowsRoundTrip() {
+        assertThat(MapGrid.parse(ROWS, 1, 1000).rows()).isEqualTo(ROWS);
+    }
+
+    @Test
+    void unknownCellsAreMasked() {
+        MapGrid grid = MapGrid.parse(ROWS, 1, 1000);
+        BitSet known = new BitSet();
+        known.set(grid.index(0, 1));
+        known.set(grid.index(1, 1));
+
+        assertThat(grid.rows(known)).containsExactly(
+                "     ",
+                "#.   ",
+                "     ");
+    }
+
+    @Test
+    void runsEncodeConsecutiveCells() {
+        BitSet cells = new BitSet();
+        cells.set(2, 5);
+        cells.set(9);
+
+        assertThat(MapGrid.runs(cells)).containsExactly(2, 3, 9, 1);
+    }
+}
@@ -0,0 +1,142 @@
+package com.rolup.backend.service.battlemap;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PathFinderTest {
+
+    private final PathFinder pathFinder = new PathFinder();
+    private final BitSet none = new BitSet();
+
+    private static MapGrid grid(String... rows) {
+        return MapGrid.parse(List.of(rows), 1, 1000);
+    }
+
+    private static BitSet cells(MapGrid grid, int... xy) {
+        BitSet cells = new BitSet();
+        for (int i = 0; i < xy.length; i += 2) cells.set(grid.index(xy[i], xy[i + 1]));
+        return cells;
+    }
+
+    @Test
+    void diagonalsCostTheSameAsStraightSteps() {
+        MapGrid grid = MapGrid.parse(Collections.nCopies(5, "....."), 1, 1000);
+
+        PathFinder.Path path = pathFinder.path(grid, none, none, grid.index(0, 0), grid.index(4, 4));
+
+        assertThat(path.cost()).isEqualTo(20);
+        assertThat(path.cells()).containsExactly(grid.index(0, 0), grid.index(1, 1), grid.index(2, 2),
+                grid.index(3, 3), grid.index(4, 4));
+    }
+
+    @Test
+    void wallCornersCannotBeCut() {
+        MapGrid grid = grid(
+                "..",
+                "#.");
+
+        PathFinder.Path path = pathFinder.path(grid, none, none, grid.index(0, 0), grid.index(1, 1));
+
+        assertThat(path.cost()).isEqualTo(10);
+        assertThat(path.cells()).containsExactly(grid.index(0, 0), grid.index(1, 0), grid.index(1, 1));
+    }
+
+    @Test
+    void closedDoorCornersCannotBeCutEither() {
+        MapGrid closed = grid(
+                ".D",
+                "..");
+        assertThat(pathFinder.path(closed, none, none, closed.index(0, 0), closed.index(1, 1)).cost()).isEqualTo(10);
+
+        MapGrid opened = closed.withDoor(1, 0, true);
+        assertThat(pathFinder.path(opened, none, none, opened.index(0, 0), opened.index(1, 1)).cost()).isEqualTo(5);
+    }
+
+    @Test
+    void closedDoorsBlockAndOpenDoorsLetThrough() {
+        MapGrid grid = grid(
+                "..#..",
+                "..D..",
+                "..#..");
+        int start = grid.index(0, 1);
+        int goal = grid.index(4, 1);
+
+        assertThat(pathFinder.path(grid, none, none, start, goal)).isNull();
+        assertThat(pathFinder.path(grid.withDoor(2, 1, true), none, none, start, goal).cost()).isEqualTo(20);
+    }
+
+    @Test
+    void difficultTerrainCostsDoubleToEnter() {
+        MapGrid row = grid("..~..");
+        assertThat(pathFinder.path(row, none, none, row.index(0, 0), row.index(4, 0)).cost()).isEqualTo(25);
+
+        // Atravesar la franja difícil cuesta 35; rodeándola por arriba, 30
+        MapGrid band = grid(
+                ".....",
+                ".~~~.",
+                ".~~~.");
+        assertThat(pathFinder.path(band, none, none, band.index(0, 2), band.index(4, 2)).cost()).isEqualTo(30);
+    }
+
+    @Test
+    void budgetLimitsTheReachableCells() {
+        MapGrid grid = MapGrid.parse(Collections.nCopies(5, "....."), 1, 1000);
+        int centre = grid.index(2, 2);
+
+        assertThat(pathFinder.reachable(grid, none, none, centre, 0).cardinality()).isEqualTo(1);
+        assertThat(pathFinder.reachable(grid, none, none, centre, 4).cardinality()).isEqualTo(1);
+        assertThat(pathFinder.reachable(grid, none, none, centre, 5).cardinality()).isEqualTo(9);
+        assertThat(pathFinder.reachable(grid, none, none, centre, 10).cardinality()).isEqualTo(25);
+    }
+
+    @Test
+    void budgetCountsDifficultTerrain() {
+        MapGrid grid = grid(".~...");
+
+        BitSet reached = pathFinder.reachable(grid, none, none, grid.index(0, 0), 15);
+
+        assertThat(reached.stream().toArray()).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void alliesCanBeCrossedButNotStoodOn() {
+        MapGrid grid = grid("....");
+        BitSet occupied = cells(grid, 1, 0);
+
+        BitSet reached = pathFinder.reachable(grid, none, occupied, grid.index(0, 0), 10);
+
+        assertThat(reached.stream().toArray()).containsExactly(0, 2);
+        assertThat(pathFinder.path(grid, none, occupied, grid.index(0, 0), grid.index(2, 0)).cost()).isEqualTo(10);
+        assertThat(pathFinder.path(grid, none, occupied, grid.index(0, 0), grid.index(1, 0))).isNull();
+    }
+
+    @Test
+    void enemiesBlockTheWay() {
+        MapGrid grid = grid("....");
+        BitSet enemies = cells(grid, 1, 0);
+
+        assertThat(pathFinder.reachable(grid, enemies, enemies, grid.index(0, 0), 100).stream().toArray())
+                .containsExactly(0);
+        assertThat(pathFinder.path(grid, enemies, enemies, grid.index(0, 0), grid.index(3, 0))).isNull();
+    }
+
+    @Test
+    void pooledSearchesDoNotLeakBetweenGrids() {
+        MapGrid small = grid("...");
+        MapGrid walled = grid(
+                ".#.",
+                ".#.",
+                ".#.");
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(pathFinder.path(small, none, none, 0, 2).cost()).isEqualTo(10);
+            assertThat(pathFinder.path(walled, none, none, walled.index(0, 0), walled.index(2, 0))).isNull();
+            assertThat(pathFinder.reachable(walled, none, none, walled.index(0, 0), 100).cardinality()).isEqualTo(3);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.rolup.backend.service.battlemap;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShadowCasterTest {
+
+    private static MapGrid open(int width, int height) {
+        return MapGrid.parse(Collections.nCopies(height, ".".repeat(width)), 1, 1000);
+    }
+
+    @Test
+    void cornerOfOpenRoomSeesEveryCell() {
+        MapGrid grid = open(10, 10);
+
+        BitSet visible = ShadowCaster.fieldOfView(grid, 0, 0);
+
+        assertThat(visible.cardinality()).isEqualTo(100);
+        assertThat(visible.get(grid.index(9, 9))).isTrue();
+    }
+
+    @Test
+    void wideRoomIsFullyVisibleFromEitherEnd() {
+        MapGrid grid = open(40, 3);
+
+        assertThat(ShadowCaster.fieldOfView(grid, 0, 0).cardinality()).isEqualTo(120);
+        assertThat(ShadowCaster.fieldOfView(grid, 39, 2).cardinality()).isEqualTo(120);
+    }
+
+    @Test
+    void wallHidesWhatIsBehindIt() {
+        MapGrid grid = MapGrid.parse(List.of(
+                ".....",
+                "..#..",
+                "....."), 1, 1000);
+
+        BitSet visible = ShadowCaster.fieldOfView(grid, 0, 1);
+
+        assertThat(visible.get(grid.index(2, 1))).isTrue();  // El muro se ve
+        assertThat(visible.get(grid.index(3, 1))).isFalse(); // Lo de detrás no
+        assertThat(visible.get(grid.index(4, 1))).isFalse();
+        assertThat(visible.get(grid.index(4, 0))).isTrue();
+    }
+
+    @Test
+    void closedDoorBlocksUntilOpened() {
+        MapGrid grid = MapGrid.parse(List.of(
+                "#####",
+                "..D..",
+                "#####"), 1, 1000);
+
+        assertThat(ShadowCaster.fieldOfView(grid, 0, 1).get(grid.index(4, 1))).isFalse();
+
+        MapGrid opened = grid.withDoor(2, 1, true);
+        assertThat(ShadowCaster.fieldOfView(opened, 0, 1).get(opened.index(4, 1))).isTrue();
+    }
+
+    @Test
+    void radiusClipsDistantCells() {
+        MapGrid grid = open(10, 1);
+
+        BitSet visible = ShadowCaster.fieldOfView(grid, 0, 0, 3);
+
+        assertThat(visible.cardinality()).isEqualTo(4);
+    }
+}
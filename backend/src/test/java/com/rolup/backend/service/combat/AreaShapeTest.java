@@ -0,0 +1,119 @@
+package com.rolup.backend.service.combat;
+
+import com.rolup.backend.model.enums.AreaShapeType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AreaShapeTest {
+
+    private static AreaShape cone(int originX, int originY, int targetX, int targetY, int size) {
+        return new AreaShape(AreaShapeType.CONE, originX, originY, targetX, targetY, size, 1);
+    }
+
+    private static AreaShape line(int originX, int originY, int targetX, int targetY, int size, int width) {
+        return new AreaShape(AreaShapeType.LINE, originX, originY, targetX, targetY, size, width);
+    }
+
+    @Test
+    void sphereIncludesCellsWhoseCentreIsWithinTheRadius() {
+        AreaShape sphere = new AreaShape(AreaShapeType.SPHERE, 5, 5, 5, 5, 2, 1);
+
+        assertThat(sphere.contains(5, 5)).isTrue();
+        assertThat(sphere.contains(7, 5)).isTrue();
+        assertThat(sphere.contains(6, 6)).isTrue();
+        assertThat(sphere.contains(7, 6)).isFalse(); // 2.24
+        assertThat(sphere.contains(7, 7)).isFalse();
+    }
+
+    @Test
+    void cubeStartsAtItsTopLeftCorner() {
+        AreaShape cube = new AreaShape(AreaShapeType.CUBE, 2, 2, 2, 2, 3, 1);
+
+        assertThat(cube.contains(2, 2)).isTrue();
+        assertThat(cube.contains(4, 4)).isTrue();
+        assertThat(cube.contains(5, 2)).isFalse();
+        assertThat(cube.contains(1, 2)).isFalse();
+        assertThat(cube.contains(2, 5)).isFalse();
+    }
+
+    @Test
+    void coneIsAsWideAsItIsLongAndExcludesTheOrigin() {
+        AreaShape cone = cone(0, 0, 1, 0, 6);
+
+        assertThat(cone.contains(0, 0)).isFalse();
+        assertThat(cone.contains(1, 0)).isTrue();
+        assertThat(cone.contains(6, 0)).isTrue();
+        assertThat(cone.contains(7, 0)).isFalse();
+        assertThat(cone.contains(3, 1)).isTrue();   // 18° del eje, dentro de los 26.6° del cono
+        assertThat(cone.contains(3, -1)).isTrue();
+        assertThat(cone.contains(3, 2)).isFalse();  // 33.7°
+        assertThat(cone.contains(-1, 0)).isFalse(); // Detrás
+        assertThat(cone.contains(6, 1)).isFalse();  // A 6.08, más largo que el cono
+    }
+
+    @Test
+    void diagonalConeFollowsItsDirection() {
+        AreaShape cone = cone(0, 0, 3, 3, 3);
+
+        assertThat(cone.contains(1, 1)).isTrue();
+        assertThat(cone.contains(2, 2)).isTrue();
+        assertThat(cone.contains(2, 1)).isTrue();   // 18° de la diagonal
+        assertThat(cone.contains(2, 0)).isFalse();  // 45°
+        assertThat(cone.contains(3, 3)).isFalse();  // A 4.24
+    }
+
+    @Test
+    void lineHasALengthAndAWidth() {
+        AreaShape thin = line(0, 0, 10, 0, 5, 1);
+
+        assertThat(thin.contains(0, 0)).isFalse();
+        assertThat(thin.contains(1, 0)).isTrue();
+        assertThat(thin.contains(5, 0)).isTrue();
+        assertThat(thin.contains(6, 0)).isFalse();
+        assertThat(thin.contains(3, 1)).isFalse();
+        assertThat(thin.contains(-1, 0)).isFalse();
+
+        AreaShape wide = line(0, 0, 10, 0, 5, 3);
+        assertThat(wide.contains(3, 1)).isTrue();
+        assertThat(wide.contains(3, -1)).isTrue();
+        assertThat(wide.contains(3, 2)).isFalse();
+    }
+
+    @Test
+    void diagonalLineOnlyTakesTheCellsOnTheDiagonal() {
+        AreaShape line = line(0, 0, 20, 20, 4, 1);
+
+        assertThat(line.contains(1, 1)).isTrue();
+        assertThat(line.contains(2, 2)).isTrue();
+        assertThat(line.contains(3, 3)).isFalse(); // A 4.24
+        assertThat(line.contains(1, 0)).isFalse(); // A 0.71 del eje
+        assertThat(line.contains(0, 1)).isFalse();
+    }
+
+    @Test
+    void boundingBoxHoldsEveryCellInside() {
+        List<AreaShape> shapes = List.of(
+                new AreaShape(AreaShapeType.SPHERE, 3, -2, 3, -2, 4, 1),
+                new AreaShape(AreaShapeType.CUBE, -1, 4, -1, 4, 3, 1),
+                cone(0, 0, -2, 1, 5),
+                cone(2, 2, 2, -7, 4),
+                line(0, 0, -3, -7, 6, 3),
+                line(1, 1, 9, 1, 8, 1));
+
+        for (AreaShape shape : shapes) {
+            int cells = 0;
+            for (int x = -20; x <= 20; x++) {
+                for (int y = -20; y <= 20; y++) {
+                    if (!shape.contains(x, y)) continue;
+                    cells++;
+                    assertThat(x).as("%s x", shape).isBetween(shape.minX(), shape.maxX());
+                    assertThat(y).as("%s y", shape).isBetween(shape.minY(), shape.maxY());
+                }
+            }
+            assertThat(cells).as("%s", shape).isPositive();
+        }
+    }
+}
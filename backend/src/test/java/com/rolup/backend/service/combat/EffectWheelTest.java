@@ -0,0 +1,217 @@
+package com.rolup.backend.service.combat;
+
+import com.rolup.backend.model.enums.EncounterStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EffectWheelTest {
+
+    private final List<String> expired = new ArrayList<>();
+    private final Consumer<EffectWheel.Timer> expire = timer -> {
+        timer.effect.timer = null;
+        expired.add(timer.effect.name);
+    };
+
+    private static Combatant combatant(long id) {
+        return new Combatant(id, null, "C" + id, null, 10, 0, 10, 10, 0, 10, false, null, null);
+    }
+
+    private static CombatEffect effect(String name, int duration, boolean rounds, boolean endsAtTurnStart) {
+        return new CombatEffect(name, null, duration, duration, rounds, endsAtTurnStart);
+    }
+
+    // Un turno completo del combatiente
+    private void turn(EffectWheel wheel, Combatant combatant) {
+        wheel.turnStarted(combatant, expire);
+        wheel.turnEnded(combatant, expire);
+    }
+
+    @Test
+    void turnEffectExpiresAtTheEndOfItsLastTurn() {
+        EffectWheel wheel = new EffectWheel(1);
+        Combatant owner = combatant(1);
+        CombatEffect effect = effect("Bendición", 3, false, false);
+        wheel.schedule(owner, effect, 3);
+
+        turn(wheel, owner);
+        turn(wheel, owner);
+        assertThat(wheel.remaining(effect)).isEqualTo(1);
+
+        wheel.turnStarted(owner, expire);
+        assertThat(expired).isEmpty();
+        wheel.turnEnded(owner, expire);
+        assertThat(expired).containsExactly("Bendición");
+        assertThat(wheel.remaining(effect)).isNull();
+    }
+
+    @Test
+    void turnStartEffectExpiresWhenTheTurnBegins() {
+        EffectWheel wheel = new EffectWheel(1);
+        Combatant owner = combatant(1);
+        wheel.schedule(owner, effect("Aturdido", 1, false, true), 1);
+
+        wheel.turnStarted(owner, expire);
+
+        assertThat(expired).containsExactly("Aturdido");
+    }
+
+    @Test
+    void longTurnDurationsWrapAroundTheSlots() {
+        EffectWheel wheel = new EffectWheel(1);
+        Combatant owner = combatant(1);
+        wheel.schedule(owner, effect("Largo", 10, false, false), 10);   // Misma ranura que el turno 2
+        wheel.schedule(owner, effect("Corto", 2, false, false), 2);
+
+        turn(wheel, owner);
+        turn(wheel, owner);
+        assertThat(expired).containsExactly("Corto"); // El de la vuelta siguiente se salta
+
+        for (int turn = 3; turn < 10; turn++) turn(wheel, owner);
+        assertThat(expired).containsExactly("Corto");
+        turn(wheel, owner);
+        assertThat(expired).containsExactly("Corto", "Largo");
+    }
+
+    @Test
+    void longRoundDurationsWrapAroundTheSlots() {
+        EffectWheel wheel = new EffectWheel(1);
+        Combatant owner = combatant(1);
+        wheel.schedule(owner, effect("Maldición", 17, true, false), 17); // Vence en el asalto 18, ranura 2
+
+        for (long round = 2; round <= 17; round++) {
+            wheel.roundStarted(round, expire);
+            turn(wheel, owner);
+        }
+        assertThat(expired).isEmpty();
+
+        wheel.roundStarted(18, expire);
+        wheel.turnStarted(owner, expire);
+        assertThat(expired).isEmpty();
+        wheel.turnEnded(owner, expire);
+        assertThat(expired).containsExactly("Maldición");
+    }
+
+    @Test
+    void roundEffectExpiresAtTheNextRoundIfItsOwnerHadNoTurn() {
+        EffectWheel wheel = new EffectWheel(1);
+        Combatant owner = combatant(1);
+        wheel.schedule(owner, effect("Niebla", 1, true, false), 1);
+
+        wheel.roundStarted(2, expire);
+        assertThat(expired).isEmpty();
+        wheel.roundStarted(3, expire); // No ha tenido turno en el asalto 2
+
+        assertThat(expired).containsExactly("Niebla");
+    }
+
+    @Test
+    void cancelledEffectNeverExpires() {
+        EffectWheel wheel = new EffectWheel(1);
+        Combatant owner = combatant(1);
+        CombatEffect effect = effect("Escudo", 1, false, false);
+        wheel.schedule(owner, effect, 1);
+
+        wheel.cancel(effect);
+        turn(wheel, owner);
+
+        assertThat(expired).isEmpty();
+        assertThat(wheel.remaining(effect)).isNull();
+    }
+
+    @Test
+    void rehydratedWheelKeepsWhatWasLeft() {
+        EffectWheel wheel = new EffectWheel(7); // Encuentro cargado en el asalto 7
+        Combatant owner = combatant(1);
+        CombatEffect turns = new CombatEffect("Bendición", null, 10, 2, false, false);
+        CombatEffect rounds = new CombatEffect("Niebla", null, 10, 3, true, false);
+        wheel.schedule(owner, turns, turns.startingTurns);
+        wheel.schedule(owner, rounds, rounds.startingTurns);
+
+        assertThat(wheel.remaining(turns)).isEqualTo(2);
+        assertThat(wheel.remaining(rounds)).isEqualTo(3);
+
+        turn(wheel, owner);
+        turn(wheel, owner);
+        assertThat(expired).containsExactly("Bendición");
+
+        wheel.roundStarted(8, expire);
+        wheel.roundStarted(9, expire);
+        assertThat(wheel.remaining(rounds)).isEqualTo(1);
+        wheel.roundStarted(10, expire);
+        turn(wheel, owner);
+        assertThat(expired).containsExactly("Bendición", "Niebla");
+    }
+
+    @Test
+    void restoredStateShowsRemainingDurations() {
+        EncounterState state = new EncounterState(1, "Prueba", EncounterStatus.ACTIVE, 4, 1L, 0);
+        Combatant owner = combatant(1);
+        owner.addEffect("Bendición", null, 10, 2, false, false);
+        owner.addEffect("Concentración", null, null, null, false, false);
+        state.restore(owner);
+
+        List<EncounterSnapshot.EffectView> effects = state.snapshot().combatants().get(0).effects();
+        assertThat(effects).extracting(EncounterSnapshot.EffectView::remainingTurns).containsExactly(2, null);
+    }
+
+    // Encuentro empezado con C1 (iniciativa 20) y C2 (iniciativa 10)
+    private static EncounterState started() {
+        EncounterState state = new EncounterState(1, "Prueba", EncounterStatus.PREPARING, 0, null, 0);
+        state.add(new Combatant(1, null, "C1", null, 20, 0, 10, 10, 0, 10, false, null, null));
+        state.add(new Combatant(2, null, "C2", null, 10, 0, 10, 10, 0, 10, false, null, null));
+        state.start();
+        return state;
+    }
+
+    private static List<String> effects(EncounterSnapshot snapshot, long combatantId) {
+        return snapshot.combatants().stream()
+                .filter(combatant -> combatant.id() == combatantId)
+                .flatMap(combatant -> combatant.effects().stream())
+                .map(EncounterSnapshot.EffectView::name)
+                .toList();
+    }
+
+    @Test
+    void removingTheActiveCombatantStartsTheNextTurn() {
+        EncounterState state = started();
+        state.applyEffect(2, "Aturdido", null, 1, false, true);
+
+        state.remove(1);
+
+        EncounterSnapshot snapshot = state.snapshot();
+        assertThat(snapshot.activeCombatantId()).isEqualTo(2);
+        assertThat(snapshot.round()).isEqualTo(1);
+        assertThat(effects(snapshot, 2)).isEmpty(); // Ha empezado su turno
+    }
+
+    @Test
+    void removingTheLastActiveCombatantStartsANewRound() {
+        EncounterState state = started();
+        state.nextTurn();
+        state.applyEffect(1, "Aturdido", null, 1, false, true);
+
+        state.remove(2);
+
+        EncounterSnapshot snapshot = state.snapshot();
+        assertThat(snapshot.activeCombatantId()).isEqualTo(1);
+        assertThat(snapshot.round()).isEqualTo(2);
+        assertThat(effects(snapshot, 1)).isEmpty();
+    }
+
+    @Test
+    void removingTheOnlyCombatantLeavesNoTurn() {
+        EncounterState state = new EncounterState(1, "Prueba", EncounterStatus.PREPARING, 0, null, 0);
+        state.add(combatant(1));
+        state.start();
+
+        state.remove(1);
+
+        assertThat(state.snapshot().activeCombatantId()).isNull();
+        assertThat(state.snapshot().round()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,119 @@
+package com.rolup.backend.service.combat;
+
+import com.rolup.backend.model.enums.EncounterStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EncounterActorTest {
+
+    // Executor a mano: las tareas se quedan en la cola hasta que el test las ejecuta
+    private final Deque<Runnable> executor = new ArrayDeque<>();
+
+    private static EncounterState state() {
+        return new EncounterState(1, "Prueba", EncounterStatus.PREPARING, 0, null, 0);
+    }
+
+    private void runAll() {
+        Runnable task;
+        while ((task = executor.poll()) != null) task.run();
+    }
+
+    @Test
+    void ordersAreAppliedInOrderWithASingleDrain() {
+        List<Long> versions = new ArrayList<>();
+        EncounterActor actor = new EncounterActor(state(), executor::add, change -> versions.add(change.sequence()));
+
+        CompletableFuture<EncounterSnapshot> first = actor.tell(new EncounterCommand.Finish());
+        CompletableFuture<EncounterSnapshot> second = actor.tell(new EncounterCommand.Finish());
+        assertThat(executor).hasSize(1);
+
+        runAll();
+        assertThat(first.join().version()).isEqualTo(1);
+        assertThat(second.join().version()).isEqualTo(2);
+        assertThat(versions).containsExactly(1L, 2L);
+        assertThat(actor.snapshot().version()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectedOrderFailsItsFutureOnly() {
+        EncounterActor actor = new EncounterActor(state(), executor::add, change -> {
+        });
+
+        CompletableFuture<EncounterSnapshot> start = actor.tell(new EncounterCommand.Start()); // Sin combatientes
+        CompletableFuture<EncounterSnapshot> finish = actor.tell(new EncounterCommand.Finish());
+        runAll();
+
+        assertThat(start).isCompletedExceptionally();
+        assertThat(finish.join().status()).isEqualTo(EncounterStatus.FINISHED);
+    }
+
+    @Test
+    void errorReleasesTheMailboxAndReschedulesPendingOrders() {
+        AtomicBoolean fail = new AtomicBoolean(true);
+        EncounterActor actor = new EncounterActor(state(), executor::add, change -> {
+            if (fail.getAndSet(false)) throw new StackOverflowError();
+        });
+
+        CompletableFuture<EncounterSnapshot> first = actor.tell(new EncounterCommand.Finish());
+        CompletableFuture<EncounterSnapshot> second = actor.tell(new EncounterCommand.Finish());
+        assertThatThrownBy(() -> executor.poll().run()).isInstanceOf(StackOverflowError.class);
+        assertThat(first).isCompletedExceptionally();
+
+        // La orden que quedaba en el buzón se ha vuelto a programar
+        runAll();
+        assertThat(second).isCompleted();
+
+        CompletableFuture<EncounterSnapshot> third = actor.tell(new EncounterCommand.Finish());
+        runAll();
+        assertThat(third).isCompleted();
+    }
+
+    @Test
+    void retiredActorAppliesWhatCameBeforeAndRejectsWhatComesAfter() {
+        EncounterActor actor = new EncounterActor(state(), executor::add, change -> {
+        });
+
+        CompletableFuture<EncounterSnapshot> before = actor.tell(new EncounterCommand.Finish());
+        CompletableFuture<EncounterSnapshot> retire = actor.retire();
+        CompletableFuture<EncounterSnapshot> late = actor.tell(new EncounterCommand.Finish());
+        runAll();
+
+        assertThat(before.join().version()).isEqualTo(1);
+        assertThat(retire.join().version()).isEqualTo(1);
+        assertThat(actor.retired()).isTrue();
+        assertThatThrownBy(late::join).hasCauseInstanceOf(EncounterActor.Retired.class);
+        assertThat(actor.snapshot().version()).isEqualTo(1); // La orden tardía no ha tocado el estado
+
+        // Retirarlo otra vez no falla (flush y finish pueden coincidir)
+        CompletableFuture<EncounterSnapshot> again = actor.retire();
+        runAll();
+        assertThat(again.join().version()).isEqualTo(1);
+    }
+
+    @Test
+    void successorKeepsTheStateAndWhatWasPersisted() {
+        EncounterActor actor = new EncounterActor(state(), executor::add, change -> {
+        });
+        actor.tell(new EncounterCommand.Finish());
+        actor.retire();
+        runAll();
+
+        // No se ha podido guardar: el nuevo actor sigue donde se quedó y sabe que la versión 1 está pendiente
+        EncounterActor successor = actor.successor();
+        assertThat(successor.retired()).isFalse();
+        assertThat(successor.persistedVersion()).isZero();
+
+        CompletableFuture<EncounterSnapshot> next = successor.tell(new EncounterCommand.Finish());
+        runAll();
+        assertThat(next.join().version()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,121 @@
+package com.rolup.backend.service.dice;
+
+import com.rolup.backend.model.enums.RollMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DiceExpressionTest {
+
+    @Test
+    void parsesTermsAndBounds() {
+        DiceExpression expression = DiceExpression.parse("2D6 + 1d4 - 3");
+
+        assertThat(expression.normalized()).isEqualTo("2d6+1d4-3");
+        assertThat(expression.terms()).isEqualTo(2);
+        assertThat(expression.count(0)).isEqualTo(2);
+        assertThat(expression.sides(0)).isEqualTo(6);
+        assertThat(expression.constant()).isEqualTo(-3);
+        assertThat(expression.min()).isEqualTo(0);
+        assertThat(expression.max()).isEqualTo(13);
+    }
+
+    @Test
+    void negativeTermsSwapTheirBounds() {
+        DiceExpression expression = DiceExpression.parse("-1d4+2");
+
+        assertThat(expression.sign(0)).isEqualTo(-1);
+        assertThat(expression.min()).isEqualTo(-2);
+        assertThat(expression.max()).isEqualTo(1);
+    }
+
+    @Test
+    void keepDropAndRerollModifiers() {
+        DiceExpression keepHighest = DiceExpression.parse("4d6kh3");
+        assertThat(keepHighest.keep(0)).isEqualTo(3);
+        assertThat(keepHighest.keepHighest(0)).isTrue();
+        assertThat(keepHighest.min()).isEqualTo(3);
+        assertThat(keepHighest.max()).isEqualTo(18);
+
+        DiceExpression dropLowest = DiceExpression.parse("4d6dl1");
+        assertThat(dropLowest.keep(0)).isEqualTo(3);
+        assertThat(dropLowest.keepHighest(0)).isTrue();
+
+        DiceExpression keepLowest = DiceExpression.parse("2d20kl1");
+        assertThat(keepLowest.keep(0)).isEqualTo(1);
+        assertThat(keepLowest.keepHighest(0)).isFalse();
+
+        assertThat(DiceExpression.parse("2d20k").keep(0)).isEqualTo(1);
+        assertThat(DiceExpression.parse("8d6r").reroll(0)).isEqualTo(1);
+        assertThat(DiceExpression.parse("8d6r2").reroll(0)).isEqualTo(2);
+        assertThat(DiceExpression.parse("d20").count(0)).isEqualTo(1);
+    }
+
+    @Test
+    void rollsStayWithinBounds() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (String text : List.of("1d20+5", "4d6kh3", "2d20kl1", "8d6r1", "-1d4+2", "3d8dh1-1d6")) {
+            DiceExpression expression = DiceExpression.parse(text);
+            for (int i = 0; i < 10_000; i++) {
+                assertThat(expression.roll(random)).isBetween(expression.min(), expression.max());
+            }
+        }
+    }
+
+    @Test
+    void detailedRollListsOnlyTheKeptDice() {
+        DiceExpression expression = DiceExpression.parse("4d6kh3+1");
+        List<List<Integer>> dice = new ArrayList<>();
+
+        int total = expression.roll(new SplittableRandom(3), dice);
+
+        assertThat(dice).hasSize(1);
+        List<Integer> kept = dice.get(0);
+        assertThat(kept).hasSize(3);
+        assertThat(kept).isSortedAccordingTo((a, b) -> b - a);
+        assertThat(total).isEqualTo(kept.stream().mapToInt(Integer::intValue).sum() + 1);
+    }
+
+    @Test
+    void advantageKeepsTheBetterOfTwoRolls() {
+        DiceExpression expression = DiceExpression.parse("1d20+5");
+        for (long seed = 0; seed < 100; seed++) {
+            SplittableRandom plain = new SplittableRandom(seed);
+            int first = expression.roll(plain);
+            int second = expression.roll(plain);
+
+            assertThat(expression.roll(new SplittableRandom(seed), RollMode.ADVANTAGE)).isEqualTo(Math.max(first, second));
+            assertThat(expression.roll(new SplittableRandom(seed), RollMode.DISADVANTAGE)).isEqualTo(Math.min(first, second));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "", "   ", "d", "2d", "1d6+", "1d6+x", "1d6*2",
+            "101d6", "0d6", "1d1001", "1d0",
+            "1d6r6", "4d6kh5", "4d6kh0", "4d6dl4", "4d6kh1dl1",
+            "100001", "1234567"
+    })
+    void rejectsMalformedExpressionsAndLimits(String text) {
+        assertThatThrownBy(() -> DiceExpression.parse(text)).isInstanceOf(DiceException.class);
+    }
+
+    @Test
+    void rejectsTooManyTermsAndTooLongText() {
+        assertThatThrownBy(() -> DiceExpression.parse(String.join("+", Collections.nCopies(21, "1d4"))))
+                .isInstanceOf(DiceException.class)
+                .hasMessageContaining("Demasiados términos");
+        assertThatThrownBy(() -> DiceExpression.parse("1".repeat(DiceParser.MAX_LENGTH + 1)))
+                .isInstanceOf(DiceException.class)
+                .hasMessageContaining("demasiado larga");
+        assertThatThrownBy(() -> DiceExpression.parse(null)).isInstanceOf(DiceException.class);
+    }
+}
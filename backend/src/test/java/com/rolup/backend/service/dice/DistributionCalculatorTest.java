@@ -0,0 +1,162 @@
+package com.rolup.backend.service.dice;
+
+import com.rolup.backend.model.enums.RollMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class DistributionCalculatorTest {
+
+    private static final double EPSILON = 1e-12;
+
+    private final DistributionCalculator calculator = new DistributionCalculator();
+
+    private Distribution of(String text) {
+        return calculator.of(DiceExpression.parse(text), RollMode.NORMAL);
+    }
+
+    private static double total(Distribution distribution) {
+        return Arrays.stream(distribution.probabilities()).sum();
+    }
+
+    // Distribución de "count" dados quedándose con los "keep" más altos o más bajos, contando todas las tiradas
+    private static double[] bruteForceKeep(int count, int sides, int keep, boolean highest) {
+        double[] result = new double[keep * sides + 1];
+        int[] dice = new int[count];
+        int combinations = (int) Math.pow(sides, count);
+        for (int n = 0; n < combinations; n++) {
+            int rest = n;
+            for (int d = 0; d < count; d++) {
+                dice[d] = rest % sides + 1;
+                rest /= sides;
+            }
+            int[] sorted = dice.clone();
+            Arrays.sort(sorted);
+            int sum = 0;
+            for (int k = 0; k < keep; k++) {
+                sum += highest ? sorted[count - 1 - k] : sorted[k];
+            }
+            result[sum] += 1.0 / combinations;
+        }
+        return result;
+    }
+
+    @Test
+    void twoDiceSum() {
+        Distribution distribution = of("2d6");
+
+        assertThat(distribution.min()).isEqualTo(2);
+        assertThat(distribution.max()).isEqualTo(12);
+        assertThat(distribution.probability(7)).isCloseTo(6.0 / 36, within(EPSILON));
+        assertThat(distribution.probability(2)).isCloseTo(1.0 / 36, within(EPSILON));
+        assertThat(distribution.probability(13)).isZero();
+        assertThat(total(distribution)).isCloseTo(1.0, within(EPSILON));
+    }
+
+    @Test
+    void constantShiftsTheDistribution() {
+        Distribution distribution = of("1d20+5");
+
+        assertThat(distribution.min()).isEqualTo(6);
+        assertThat(distribution.max()).isEqualTo(25);
+        assertThat(distribution.atLeast(15)).isCloseTo(11.0 / 20, within(EPSILON));
+        assertThat(distribution.atLeast(1)).isCloseTo(1.0, within(EPSILON));
+        assertThat(distribution.atLeast(26)).isZero();
+
+        Distribution negative = of("-1d4+2");
+        assertThat(negative.min()).isEqualTo(-2);
+        assertThat(negative.max()).isEqualTo(1);
+        assertThat(negative.probability(-2)).isCloseTo(0.25, within(EPSILON));
+
+        assertThat(of("1d6-2").mean()).isCloseTo(1.5, within(EPSILON));
+    }
+
+    @Test
+    void powersMatchTheMeanAndVarianceOfManyDice() {
+        Distribution distribution = of("20d6");
+
+        assertThat(distribution.min()).isEqualTo(20);
+        assertThat(distribution.max()).isEqualTo(120);
+        assertThat(total(distribution)).isCloseTo(1.0, within(1e-9));
+        assertThat(distribution.mean()).isCloseTo(70.0, within(1e-9));
+        assertThat(distribution.variance()).isCloseTo(20 * 35.0 / 12, within(1e-9));
+    }
+
+    @Test
+    void subtractedTermIsMirrored() {
+        Distribution distribution = of("1d4-1d4");
+
+        assertThat(distribution.min()).isEqualTo(-3);
+        assertThat(distribution.max()).isEqualTo(3);
+        assertThat(distribution.mean()).isCloseTo(0.0, within(EPSILON));
+        assertThat(distribution.probability(0)).isCloseTo(4.0 / 16, within(EPSILON));
+        assertThat(distribution.probability(-3)).isCloseTo(distribution.probability(3), within(EPSILON));
+    }
+
+    @Test
+    void rerollMovesProbabilityOffTheLowFaces() {
+        Distribution distribution = of("1d6r1");
+
+        assertThat(distribution.probability(1)).isCloseTo(1.0 / 36, within(EPSILON));
+        assertThat(distribution.probability(6)).isCloseTo(7.0 / 36, within(EPSILON));
+        assertThat(total(distribution)).isCloseTo(1.0, within(EPSILON));
+    }
+
+    @Test
+    void keepHighestMatchesKnownValues() {
+        Distribution distribution = of("4d6kh3");
+
+        assertThat(distribution.min()).isEqualTo(3);
+        assertThat(distribution.max()).isEqualTo(18);
+        assertThat(distribution.probability(18)).isCloseTo(21.0 / 1296, within(EPSILON));
+        assertThat(distribution.probability(3)).isCloseTo(1.0 / 1296, within(EPSILON));
+        assertThat(distribution.mean()).isCloseTo(15869.0 / 1296, within(1e-9));
+    }
+
+    @Test
+    void keepAndDropMatchBruteForce() {
+        assertMatches(of("4d6dl1"), bruteForceKeep(4, 6, 3, true));
+        assertMatches(of("3d8kl2"), bruteForceKeep(3, 8, 2, false));
+        assertMatches(of("5d4dh2"), bruteForceKeep(5, 4, 3, false));
+        assertMatches(of("2d20kh1"), bruteForceKeep(2, 20, 1, true));
+    }
+
+    private static void assertMatches(Distribution distribution, double[] expected) {
+        for (int value = 0; value < expected.length; value++) {
+            assertThat(distribution.probability(value)).as("P(%d)", value).isCloseTo(expected[value], within(EPSILON));
+        }
+        assertThat(total(distribution)).isCloseTo(1.0, within(EPSILON));
+    }
+
+    @Test
+    void advantageAndDisadvantageOfOneDie() {
+        DiceExpression d20 = DiceExpression.parse("1d20");
+        Distribution advantage = calculator.of(d20, RollMode.ADVANTAGE);
+        Distribution disadvantage = calculator.of(d20, RollMode.DISADVANTAGE);
+
+        assertThat(advantage.probability(20)).isCloseTo(39.0 / 400, within(EPSILON));
+        assertThat(advantage.probability(1)).isCloseTo(1.0 / 400, within(EPSILON));
+        assertThat(advantage.mean()).isCloseTo(13.825, within(1e-9));
+        assertThat(disadvantage.mean()).isCloseTo(7.175, within(1e-9));
+        assertThat(total(advantage)).isCloseTo(1.0, within(EPSILON));
+
+        // Ventaja sobre una tirada entera es lo mismo que 2d20kh1
+        assertMatches(advantage, bruteForceKeep(2, 20, 1, true));
+    }
+
+    @Test
+    void equivalentTextsShareTheCachedDistribution() {
+        assertThat(of("2D6 + 3")).isSameAs(of("2d6+3"));
+    }
+
+    @Test
+    void rejectsExpressionsWithTooManyOutcomes() {
+        assertThatThrownBy(() -> of("100d1000"))
+                .isInstanceOf(DiceException.class)
+                .hasMessageContaining(String.valueOf(DistributionCalculator.MAX_SUPPORT));
+    }
+}
@@ -0,0 +1,197 @@
+package com.rolup.backend.service.files;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StoredFileWriterTest {
+
+    private static final String CONTENT = "abcdefghijklmnopqrstuvwxyz";
+    private static final long LAST_MODIFIED = 1_700_000_000_000L;
+    private static final String ETAG = "\"1a-18bcfe56800\"";
+
+    private final StoredFileWriter writer = new StoredFileWriter();
+
+    @TempDir
+    Path directory;
+
+    private StoredFile file;
+
+    @BeforeEach
+    void createFile() throws Exception {
+        file = storedFile(CONTENT.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private StoredFile storedFile(byte[] content) throws Exception {
+        Path path = Files.write(directory.resolve("archivo-" + content.length + ".txt"), content);
+        return new StoredFile(path, path.toRealPath().toString(), content.length, LAST_MODIFIED, ETAG,
+                MediaType.TEXT_PLAIN, 0);
+    }
+
+    private static String httpDate(long millis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(millis).atOffset(ZoneOffset.UTC));
+    }
+
+    private MockHttpServletResponse get(String range, String... headers) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/archivo.txt");
+        if (range != null) request.addHeader(HttpHeaders.RANGE, range);
+        for (int i = 0; i < headers.length; i += 2) request.addHeader(headers[i], headers[i + 1]);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.write(file, request, response);
+        return response;
+    }
+
+    @Test
+    void wholeFileWithValidatorsAndLongCache() throws Exception {
+        MockHttpServletResponse response = get(null);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        assertThat(response.getContentLengthLong()).isEqualTo(CONTENT.length());
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+        assertThat(response.getDateHeader(HttpHeaders.LAST_MODIFIED)).isEqualTo(LAST_MODIFIED);
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("private, max-age=31536000, immutable");
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+    }
+
+    @Test
+    void conditionalRequestsGetNotModified() throws Exception {
+        assertThat(get(null, HttpHeaders.IF_NONE_MATCH, ETAG).getStatus()).isEqualTo(304);
+        assertThat(get(null, HttpHeaders.IF_NONE_MATCH, "\"otro\", W/" + ETAG).getStatus()).isEqualTo(304);
+        assertThat(get(null, HttpHeaders.IF_NONE_MATCH, "*").getStatus()).isEqualTo(304);
+        assertThat(get(null, HttpHeaders.IF_MODIFIED_SINCE, httpDate(LAST_MODIFIED)).getStatus()).isEqualTo(304);
+
+        MockHttpServletResponse notModified = get(null, HttpHeaders.IF_NONE_MATCH, ETAG);
+        assertThat(notModified.getContentAsByteArray()).isEmpty();
+
+        assertThat(get(null, HttpHeaders.IF_NONE_MATCH, "\"otro\"").getStatus()).isEqualTo(200);
+        assertThat(get(null, HttpHeaders.IF_MODIFIED_SINCE, httpDate(LAST_MODIFIED - 60_000)).getStatus()).isEqualTo(200);
+        // If-None-Match manda aunque la fecha diga que no ha cambiado
+        assertThat(get(null, HttpHeaders.IF_NONE_MATCH, "\"otro\"", HttpHeaders.IF_MODIFIED_SINCE,
+                httpDate(LAST_MODIFIED)).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void singleRanges() throws Exception {
+        MockHttpServletResponse first = get("bytes=0-4");
+        assertThat(first.getStatus()).isEqualTo(206);
+        assertThat(first.getContentAsString()).isEqualTo("abcde");
+        assertThat(first.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 0-4/26");
+        assertThat(first.getContentLengthLong()).isEqualTo(5);
+
+        assertThat(get("bytes=-3").getContentAsString()).isEqualTo("xyz");
+        assertThat(get("bytes=20-").getContentAsString()).isEqualTo("uvwxyz");
+        assertThat(get("bytes=-100").getContentAsString()).isEqualTo(CONTENT);
+
+        MockHttpServletResponse clamped = get("bytes=24-100");
+        assertThat(clamped.getContentAsString()).isEqualTo("yz");
+        assertThat(clamped.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 24-25/26");
+    }
+
+    @Test
+    void unsatisfiableRangeGets416() throws Exception {
+        for (String range : new String[]{"bytes=26-30", "bytes=100-", "bytes=-0"}) {
+            MockHttpServletResponse response = get(range);
+
+            assertThat(response.getStatus()).as(range).isEqualTo(416);
+            assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */26");
+            assertThat(response.getContentAsByteArray()).isEmpty();
+        }
+    }
+
+    @Test
+    void malformedOrTooManyRangesSendTheWholeFile() throws Exception {
+        String tooMany = "bytes=" + String.join(",", Collections.nCopies(17, "0-0"));
+        for (String range : new String[]{"bytes=5-2", "bytes=a-b", "bytes=5", "items=0-4", tooMany}) {
+            MockHttpServletResponse response = get(range);
+
+            assertThat(response.getStatus()).as(range).isEqualTo(200);
+            assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    void ifRangeOnlyHonoursTheCurrentValidator() throws Exception {
+        assertThat(get("bytes=0-4", HttpHeaders.IF_RANGE, ETAG).getStatus()).isEqualTo(206);
+        assertThat(get("bytes=0-4", HttpHeaders.IF_RANGE, httpDate(LAST_MODIFIED)).getStatus()).isEqualTo(206);
+
+        // El archivo ha cambiado (o el validador es débil): se manda entero
+        for (String ifRange : new String[]{"\"viejo\"", "W/" + ETAG, httpDate(LAST_MODIFIED - 60_000), "no es una fecha"}) {
+            MockHttpServletResponse response = get("bytes=0-4", HttpHeaders.IF_RANGE, ifRange);
+
+            assertThat(response.getStatus()).as(ifRange).isEqualTo(200);
+            assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    void multipleRangesAreSentAsMultipart() throws Exception {
+        MockHttpServletResponse response = get("bytes=0-1, 24-25");
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentType()).startsWith("multipart/byteranges; boundary=");
+        String boundary = response.getContentType().substring(response.getContentType().indexOf('=') + 1);
+        String body = response.getContentAsString();
+        assertThat(response.getContentLengthLong()).isEqualTo(body.length());
+        assertThat(body).isEqualTo(
+                "\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 0-1/26\r\n\r\nab"
+                        + "\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 24-25/26\r\n\r\nyz"
+                        + "\r\n--" + boundary + "--\r\n");
+    }
+
+    @Test
+    void headSendsHeadersOnly() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("HEAD", "/archivo.txt");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-4");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        writer.write(file, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentLengthLong()).isEqualTo(5);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void largeFilesAreHandedToSendfile() throws Exception {
+        file = storedFile(new byte[64 * 1024]);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/archivo.bin");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=1000-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        writer.write(file, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename")).isEqualTo(file.canonicalPath());
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(1000L);
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(64L * 1024);
+    }
+
+    @Test
+    void smallFilesAreCopiedEvenWithSendfile() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/archivo.txt");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        writer.write(file, request, response);
+
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename")).isNull();
+    }
+}
@@ -0,0 +1,73 @@
+package com.rolup.backend.service.formula;
+
+import com.rolup.backend.exception.BadRequestException;
+import com.rolup.backend.model.character_related.Character;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TemplateEngineTest {
+
+    private final TemplateEngine engine = new TemplateEngine();
+
+    private static StatSnapshot snapshot(int wisdom, int strength) {
+        Character character = new Character();
+        character.setLevel(1);
+        character.setWisdom(wisdom);
+        character.setStrength(strength);
+        return StatSnapshot.of(character);
+    }
+
+    @Test
+    void eachTextIsCompiledOnce() {
+        Template template = engine.compile("Cura {wisdomMod}");
+
+        assertThat(engine.compile("Cura {wisdomMod}")).isSameAs(template);
+        assertThat(engine.compile("Cura {+wisdomMod}")).isNotSameAs(template);
+    }
+
+    @Test
+    void renderedTextIsSharedWhileTheReferencedStatsMatch() {
+        String first = engine.render("Cura {wisdomMod}", snapshot(16, 8));
+
+        // Otra Fuerza no cambia nada: el texto solo depende de la Sabiduría
+        assertThat(engine.render("Cura {wisdomMod}", snapshot(16, 18))).isSameAs(first);
+        assertThat(engine.render("Cura {wisdomMod}", snapshot(17, 8))).isSameAs(first); // Mismo modificador
+
+        String wiser = engine.render("Cura {wisdomMod}", snapshot(18, 8));
+        assertThat(wiser).isEqualTo("Cura 4").isNotSameAs(first);
+        assertThat(engine.render("Cura {wisdomMod}", snapshot(16, 8))).isEqualTo("Cura 3");
+    }
+
+    @Test
+    void invalidStoredTextIsRenderedAsIs() {
+        assertThat(engine.render("Daño {1d6} por asalto }", snapshot(10, 10))).isEqualTo("Daño {1d6} por asalto }");
+        assertThat(engine.render("Cura {wisdomMod}", null)).isNull();
+        assertThat(engine.render(null, snapshot(10, 10))).isNull();
+    }
+
+    @Test
+    void validationNamesTheField() {
+        assertThatThrownBy(() -> engine.validate("Sobra }", "la descripción"))
+                .isInstanceOf(BadRequestException.class).hasMessageStartingWith("La plantilla de la descripción");
+        assertThatCode(() -> engine.validate(null, "el resumen")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void onlyChangedTextsAreValidated() {
+        // Texto antiguo con llaves sueltas que no se toca al editar otros campos
+        assertThatCode(() -> engine.validateChanged("Usa {objeto", "Usa {objeto", "la descripción"))
+                .doesNotThrowAnyException();
+        assertThatCode(() -> engine.validateChanged("Usa {objeto", null, "la descripción"))
+                .doesNotThrowAnyException();
+        assertThatCode(() -> engine.validateChanged("Usa {objeto", "Usa {{objeto}}", "la descripción"))
+                .doesNotThrowAnyException();
+
+        assertThatThrownBy(() -> engine.validateChanged("Usa {objeto", "Usa {objeto}", "la descripción"))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> engine.validateChanged(null, "Sobra }", "el resumen"))
+                .isInstanceOf(BadRequestException.class);
+    }
+}
@@ -0,0 +1,64 @@
+package com.rolup.backend.service.formula;
+
+import com.rolup.backend.model.character_related.Character;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TemplateParserTest {
+
+    private static StatSnapshot snapshot(int wisdom, int dexterity) {
+        Character character = new Character();
+        character.setLevel(5);
+        character.setWisdom(wisdom);
+        character.setDexterity(dexterity);
+        return StatSnapshot.of(character);
+    }
+
+    private static String render(String text, StatSnapshot snapshot) {
+        return TemplateParser.parse(text).render(snapshot);
+    }
+
+    @Test
+    void formulasAreReplacedByTheirValue() {
+        assertThat(render("Cura 1d8 + {wisdomMod} puntos de golpe", snapshot(16, 10)))
+                .isEqualTo("Cura 1d8 + 3 puntos de golpe");
+        assertThat(render("{ wisdomMod + proficiencyBonus }", snapshot(16, 10))).isEqualTo("6");
+        assertThat(render("Sin fórmulas", snapshot(16, 10))).isEqualTo("Sin fórmulas");
+        assertThat(render("", snapshot(16, 10))).isEmpty();
+    }
+
+    @Test
+    void plusFormulasAlwaysShowTheirSign() {
+        assertThat(render("Ataque {+dexterityMod}", snapshot(10, 16))).isEqualTo("Ataque +3");
+        assertThat(render("Ataque {+dexterityMod}", snapshot(10, 10))).isEqualTo("Ataque +0");
+        assertThat(render("Ataque {+dexterityMod}", snapshot(10, 8))).isEqualTo("Ataque -1");
+        assertThat(render("Ataque {dexterityMod}", snapshot(10, 16))).isEqualTo("Ataque 3");
+    }
+
+    @Test
+    void doubledBracesAreLiteral() {
+        assertThat(render("{{wisdomMod}}", snapshot(16, 10))).isEqualTo("{wisdomMod}");
+        assertThat(render("{{{wisdomMod}}}", snapshot(16, 10))).isEqualTo("{3}");
+        assertThat(render("Conjunto }} vacío {{", snapshot(16, 10))).isEqualTo("Conjunto } vacío {");
+    }
+
+    @Test
+    void onlyReferencedStatsAreRecorded() {
+        assertThat(TemplateParser.parse("{wisdomMod} y {+dexterityMod + 1}").variables())
+                .containsExactlyInAnyOrder(StatVariable.WISDOM_MOD, StatVariable.DEXTERITY_MOD);
+        assertThat(TemplateParser.parse("Texto sin fórmulas {{}}").variables()).isEmpty();
+    }
+
+    @Test
+    void strayBracesAndBadFormulasAreRejected() {
+        assertThatThrownBy(() -> TemplateParser.parse("Cierra } sola"))
+                .isInstanceOf(FormulaException.class).hasMessageContaining("posición 8");
+        assertThatThrownBy(() -> TemplateParser.parse("Abre { sin cerrar"))
+                .isInstanceOf(FormulaException.class).hasMessageContaining("Falta '}'");
+        assertThatThrownBy(() -> TemplateParser.parse("{desconocida + 1}"))
+                .isInstanceOf(FormulaException.class).hasMessageContaining("desconocida");
+        assertThatThrownBy(() -> TemplateParser.parse("{}")).isInstanceOf(FormulaException.class);
+    }
+}
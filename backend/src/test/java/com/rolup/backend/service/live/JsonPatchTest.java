@@ -0,0 +1,47 @@
+package com.rolup.backend.service.live;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonPatchTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private JsonNode json(String text) throws Exception {
+        return mapper.readTree(text.replace('\'', '"'));
+    }
+
+    @Test
+    void equalDocumentsGiveNoOperations() throws Exception {
+        assertThat(JsonPatch.diff(json("{'a':1,'b':{'c':2}}"), json("{'b':{'c':2},'a':1}"))).isEmpty();
+    }
+
+    @Test
+    void addReplaceAndRemoveNestedFields() throws Exception {
+        JsonNode ops = JsonPatch.diff(
+                json("{'hp':10,'skills':{'stealth':3},'gone':true}"),
+                json("{'hp':7,'skills':{'stealth':3,'arcana':1}}"));
+
+        assertThat(ops).containsExactlyInAnyOrder(
+                json("{'op':'replace','path':'/hp','value':7}"),
+                json("{'op':'add','path':'/skills/arcana','value':1}"),
+                json("{'op':'remove','path':'/gone'}"));
+    }
+
+    @Test
+    void keysAreEscapedAsJsonPointers() throws Exception {
+        JsonNode ops = JsonPatch.diff(json("{'a/b':1,'c~d':1}"), json("{'a/b':2,'c~d':2}"));
+
+        assertThat(ops.findValuesAsText("path")).containsExactlyInAnyOrder("/a~1b", "/c~0d");
+    }
+
+    @Test
+    void arraysAreReplacedWhole() throws Exception {
+        JsonNode ops = JsonPatch.diff(json("{'coins':[1,2,3]}"), json("{'coins':[1,2,4]}"));
+
+        assertThat(ops).containsExactly(json("{'op':'replace','path':'/coins','value':[1,2,4]}"));
+    }
+}
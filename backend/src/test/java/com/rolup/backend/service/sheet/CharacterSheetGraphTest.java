@@ -0,0 +1,72 @@
+package com.rolup.backend.service.sheet;
+
+import com.rolup.backend.model.character_related.Character;
+import com.rolup.backend.model.character_related.CharacterAbilityStatsValue;
+import com.rolup.backend.service.formula.StatSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CharacterSheetGraphTest {
+
+    private static Character character(int level, int dexterity) {
+        Character character = new Character();
+        character.setLevel(level);
+        character.setDexterity(dexterity);
+        character.getSkills().setAcrobatics(new CharacterAbilityStatsValue(0, false, false));
+        return character;
+    }
+
+    @Test
+    void missingProficiencyBonusIsDerivedFromLevel() {
+        Character character = character(5, 14);
+        character.setProficiencyBonus(null); // Personaje antiguo sin valor guardado
+        CharacterSheetGraph.State before = CharacterSheetGraph.capture(character);
+
+        character.getSkills().getAcrobatics().setProficient(true);
+        CharacterSheetGraph.update(character, before);
+
+        // +2 de destreza y +3 de competencia a nivel 5, igual que StatSnapshot
+        assertThat(StatSnapshot.proficiencyBonus(character)).isEqualTo(3);
+        assertThat(character.getSkills().getAcrobatics().getValue()).isEqualTo(5);
+    }
+
+    @Test
+    void missingProficiencyBonusIsStoredWhenRecomputed() {
+        Character character = character(9, 10);
+        character.setProficiencyBonus(null);
+
+        CharacterSheetGraph.recomputeAll(character);
+
+        assertThat(character.getProficiencyBonus()).isEqualTo(4);
+    }
+
+    @Test
+    void levelChangeRecomputesProficiencyAndDependents() {
+        Character character = character(4, 14);
+        character.getSkills().getAcrobatics().setProficient(true);
+        CharacterSheetGraph.recomputeAll(character);
+        assertThat(character.getSkills().getAcrobatics().getValue()).isEqualTo(4);
+
+        CharacterSheetGraph.State before = CharacterSheetGraph.capture(character);
+        character.setLevel(5);
+        Map<SheetNode, Integer> changes = CharacterSheetGraph.update(character, before);
+
+        assertThat(changes).containsEntry(SheetNode.PROFICIENCY_BONUS, 3).containsEntry(SheetNode.ACROBATICS, 5);
+    }
+
+    @Test
+    void manualProficiencyBonusIsKept() {
+        Character character = character(1, 10);
+        character.setProficiencyBonusManual(true);
+        character.setProficiencyBonus(6);
+        character.getSkills().getAcrobatics().setProficient(true);
+
+        CharacterSheetGraph.recomputeAll(character);
+
+        assertThat(character.getProficiencyBonus()).isEqualTo(6);
+        assertThat(character.getSkills().getAcrobatics().getValue()).isEqualTo(6);
+    }
+}
@@ -0,0 +1,77 @@
+package com.rolup.backend.service.simulation;
+
+import com.rolup.backend.service.dice.DiceExpression;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CombatArenaTest {
+
+    private static final int SIMULATIONS = 10_000;
+
+    private static SimulationSetup.Fighter hero(int attackBonus) {
+        return new SimulationSetup.Fighter(true, 1L, "Guerrera", 30, 30, 16, 2, 2, attackBonus,
+                DiceExpression.parse("1d8"), 3, 1, new int[10]);
+    }
+
+    private static SimulationSetup.Fighter ogre() {
+        return new SimulationSetup.Fighter(false, null, "Ogro", 30, 30, 11, -1, 0, 6,
+                DiceExpression.parse("2d8"), 4, 1, null);
+    }
+
+    private static SimulationTally simulate(SimulationSetup setup) {
+        CombatArena arena = new CombatArena(setup);
+        SimulationTally tally = new SimulationTally(setup);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < SIMULATIONS; i++) arena.simulate(random, tally);
+        return tally;
+    }
+
+    private static double winRate(SimulationTally tally) {
+        return (double) tally.partyWins() / tally.simulations();
+    }
+
+    @Test
+    void everyCombatIsCounted() {
+        SimulationTally tally = simulate(new SimulationSetup(List.of(hero(5), ogre()), List.of(), 50));
+
+        assertThat(tally.simulations()).isEqualTo(SIMULATIONS);
+        assertThat(tally.partyWins() + tally.opponentWins() + tally.stalemates()).isEqualTo(SIMULATIONS);
+        assertThat(tally.survived(0)).isEqualTo(tally.partyWins());
+    }
+
+    @Test
+    void knownMatchupWinsInTheExpectedBand() {
+        // Guerrera (+5, 1d8+3, CA 16) contra un ogro (+6, 2d8+4, CA 11), los dos con 30 PG: ella hace unos 5.6 por
+        // turno (75 % de 7.5) y el ogro unos 7.2 (55 % de 13), así que gana algo más de un tercio de las veces
+        SimulationTally tally = simulate(new SimulationSetup(List.of(hero(5), ogre()), List.of(), 50));
+
+        assertThat(winRate(tally)).isBetween(0.30, 0.42);
+        assertThat(tally.stalemates()).isZero();
+    }
+
+    @Test
+    void betterAttackBonusWinsMore() {
+        double weak = winRate(simulate(new SimulationSetup(List.of(hero(0), ogre()), List.of(), 50)));
+        double strong = winRate(simulate(new SimulationSetup(List.of(hero(10), ogre()), List.of(), 50)));
+
+        assertThat(strong).isGreaterThan(weak + 0.2);
+    }
+
+    @Test
+    void likelyWeaponHitIsPreferredOverAWeakCantrip() {
+        // Con +10 contra CA 11 el arma acierta casi siempre; el truco (1d4, CD 12 sin mitad) hace muy poco.
+        // Como nunca se elige, con la misma semilla sale lo mismo que sin él; si se eligiese, el ogro ganaría casi siempre
+        SimulationSetup.SpellAction cantrip = new SimulationSetup.SpellAction(0, "Truco", 0,
+                DiceExpression.parse("1d4"), 0, 12, true, false, 1);
+        SimulationTally withCantrip = simulate(new SimulationSetup(List.of(hero(10), ogre()), List.of(cantrip), 50));
+        SimulationTally weaponOnly = simulate(new SimulationSetup(List.of(hero(10), ogre()), List.of(), 50));
+
+        assertThat(withCantrip.partyWins()).isEqualTo(weaponOnly.partyWins());
+        assertThat(withCantrip.rounds()).isEqualTo(weaponOnly.rounds());
+        assertThat(winRate(withCantrip)).isBetween(0.45, 0.60);
+    }
+}
@@ -0,0 +1,100 @@
+const API_URL = import.meta.env.VITE_API_URL || 'http://localhost:8080';
+
+export type LiveMessage = {
+  topic: string;
+  type: string;
+  payload: any;
+};
+
+type Handler = (message: LiveMessage) => void;
+
+export type PatchOperation = {
+  op: "add" | "remove" | "replace";
+  path: string;
+  value?: any;
+};
+
+// Aplica un JSON Patch (solo add / remove / replace, que es lo que manda el servidor) sin modificar el original
+export function applyPatch<T>(target: T, operations: PatchOperation[]): T {
+  let result: any = target;
+  for (const { op, path, value } of operations) {
+    if (path === "") {
+      result = value;
+      continue;
+    }
+    const keys = path.slice(1).split("/").map((key) => key.replace(/~1/g, "/").replace(/~0/g, "~"));
+    const root: any = Array.isArray(result) ? [...result] : { ...result };
+    let node = root;
+    for (const key of keys.slice(0, -1)) {
+      node[key] = Array.isArray(node[key]) ? [...node[key]] : { ...node[key] };
+      node = node[key];
+    }
+    const last = keys[keys.length - 1];
+    if (op === "remove") delete node[last];
+    else node[last] = value;
+    result = root;
+  }
+  return result;
+}
+
+// Canal en vivo (/ws/live). Una sola conexión para toda la app; cada pantalla se suscribe a los temas que muestra
+// ("character:5", "encounter:3") y recibe los cambios sin volver a pedir nada. Se reconecta sola y vuelve a suscribirse
+const handlers = new Map<string, Set<Handler>>();
+const versions = new Map<string, () => number | undefined>(); // Versión que ya tiene el cliente de cada ficha
+let socket: WebSocket | null = null;
+let retry = 0;
+
+function connect() {
+  const token = localStorage.getItem("token");
+  if (!token || socket) return;
+
+  socket = new WebSocket(`${API_URL.replace(/^http/, "ws")}/ws/live?token=${encodeURIComponent(token)}`);
+  socket.onopen = () => {
+    retry = 0;
+    handlers.forEach((_, topic) => send("SUBSCRIBE", topic));
+  };
+  socket.onmessage = (event) => {
+    const message = JSON.parse(event.data) as LiveMessage;
+    // El servidor ha tirado lo que tenía pendiente para esta conexión: se vuelve a pedir todo desde lo que hay
+    if (message.type === "RESYNC") {
+      handlers.forEach((_, topic) => send("SUBSCRIBE", topic));
+      return;
+    }
+    handlers.get(message.topic)?.forEach((handler) => handler(message));
+  };
+  socket.onclose = () => {
+    socket = null;
+    if (handlers.size === 0) return;
+    retry = Math.min(retry + 1, 5);
+    setTimeout(connect, 1000 * retry);
+  };
+}
+
+function send(action: "SUBSCRIBE" | "UNSUBSCRIBE", topic: string) {
+  if (socket?.readyState === WebSocket.OPEN) {
+    socket.send(JSON.stringify({ action, topic, version: versions.get(topic)?.() }));
+  }
+}
+
+// Devuelve la función para darse de baja (para el cleanup de useEffect). En las fichas, "version" da la versión que
+// ya tiene la pantalla: al (re)conectarse el servidor manda solo lo que falta desde ahí
+export function subscribeLive(topic: string, handler: Handler, version?: () => number | undefined): () => void {
+  if (version) versions.set(topic, version);
+  let topicHandlers = handlers.get(topic);
+  if (!topicHandlers) {
+    topicHandlers = new Set();
+    handlers.set(topic, topicHandlers);
+    send("SUBSCRIBE", topic);
+  }
+  topicHandlers.add(handler);
+  connect();
+
+  return () => {
+    topicHandlers.delete(handler);
+    if (topicHandlers.size > 0) return;
+    handlers.delete(topic);
+    versions.delete(topic);
+    send("UNSUBSCRIBE", topic);
+    if (handlers.size === 0) socket?.close();
+  };
+}
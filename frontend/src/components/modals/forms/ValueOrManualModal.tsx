@@ -9,6 +9,7 @@ interface ValueOrManualModalProps {
   autoValue: number;
   valueLabel?: string;
   autoValueLabel?: string;
+  showSign?: boolean;
   onSave: (value: { value: number; isManual: boolean }) => void;
   onClose: () => void;
 }
@@ -21,6 +22,7 @@ export default function ValueOrManualModal({
   autoValue,
   valueLabel = "Valor",
   autoValueLabel = "Valor automático",
+  showSign = true,
   onSave,
   onClose,
 }: ValueOrManualModalProps) {
@@ -87,7 +89,7 @@ export default function ValueOrManualModal({
 
           {!isManual && (
             <p className="text-sm text-gray-500">
-              {autoValueLabel}: {autoValue >= 0 ? '+' : ''}{autoValue}
+              {autoValueLabel}: {showSign && autoValue >= 0 ? '+' : ''}{autoValue}
             </p>
           )}
         </div>
@@ -1,6 +1,6 @@
 import type { Source } from "@/types/enums";
 import api from "@/api/axios";
-import type { CharacterDTO, CharacterSummaryDTO } from "@/types/characters";
+import type { CharacterDTO, CharacterSummaryDTO, CharacterSyncDTO } from "@/types/characters";
 
 export const charactersAPI = {
   fetchCharacters: async (): Promise<CharacterSummaryDTO[]> => {
@@ -22,8 +22,15 @@ export const charactersAPI = {
     return response.data;
   },
 
-  updateCharacter: async (id: number, data: Partial<CharacterDTO>): Promise<CharacterDTO> => {
-    const response = await api.patch<CharacterDTO>(`/api/characters/${id}/update`, data);
+  // Sin "since" devuelve la ficha entera; con "since" solo los cambios desde esa versión (o la ficha si es muy vieja)
+  syncCharacter: async (id: number, since?: number): Promise<CharacterSyncDTO> => {
+    const response = await api.get<CharacterSyncDTO>(`/api/characters/${id}/sync`, { params: { since } });
+    return response.data;
+  },
+
+  // Devuelve solo los valores que el servidor ha recalculado (modificadores, CA...)
+  updateCharacter: async (id: number, data: Partial<CharacterDTO>): Promise<Partial<CharacterDTO>> => {
+    const response = await api.patch<Partial<CharacterDTO>>(`/api/characters/${id}/update`, data);
     return response.data;
   },
 
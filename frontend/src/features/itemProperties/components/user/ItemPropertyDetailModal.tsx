@@ -78,7 +78,7 @@ export default function ItemPropertyDetailModal({
           <div>
             <label className="block text-sm font-medium text-gray-700 mb-1">Descripción</label>
             <div className="w-full border border-gray-200 rounded-md px-3 py-2 bg-gray-50 min-h-[100px]">
-              {property.description || "Sin descripción"}
+              {property.renderedDescription || property.description || "Sin descripción"}
             </div>
           </div>
 
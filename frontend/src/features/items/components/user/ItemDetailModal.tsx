@@ -274,7 +274,7 @@ export default function ItemDetailModal({
               <>
                 <h3 className="text-xl font-semibold text-amber-800 mb-4">Descripción</h3>
                 <div className="prose prose-base max-w-none text-gray-700 whitespace-pre-line break-words overflow-wrap-anywhere">
-                  {localItem.descriptionTemplate || "No hay descripción disponible."}
+                  {localItem.renderedDescription || localItem.descriptionTemplate || "No hay descripción disponible."}
                 </div>
 
               </>
@@ -282,7 +282,7 @@ export default function ItemDetailModal({
               <>
                 <h3 className="text-xl font-semibold text-amber-800 mb-4">Resumen</h3>
                 <div className="prose prose-base max-w-none text-gray-700 whitespace-pre-line break-words overflow-wrap-anywhere">
-                  {localItem.summaryTemplate}
+                  {localItem.renderedSummary || localItem.summaryTemplate}
                 </div>
               </>
             )}
@@ -123,14 +123,14 @@ export default function SkillDetailModal({
               <>
                 <h3 className="text-lg font-semibold text-amber-800 mb-2">Descripción</h3>
                 <div className="prose prose-sm max-w-none text-gray-700 whitespace-pre-line">
-                  {selectedSkill.descriptionTemplate || "No hay descripción disponible."}
+                  {selectedSkill.renderedDescription || selectedSkill.descriptionTemplate || "No hay descripción disponible."}
                 </div>
               </>
             ) : (
               <>
                 <h3 className="text-lg font-semibold text-amber-800 mb-2">Resumen</h3>
                 <div className="prose prose-sm max-w-none text-gray-700 whitespace-pre-line">
-                  {selectedSkill.summaryTemplate}
+                  {selectedSkill.renderedSummary || selectedSkill.summaryTemplate}
                 </div>
               </>
             )}
@@ -137,14 +137,14 @@ export default function SpellDetailModal({
               <>
                 <h3 className="text-xl font-semibold text-amber-800 mb-4">Descripción</h3>
                 <div className="prose prose-base max-w-none text-gray-700 whitespace-pre-line">
-                  <TextFormat text={currentSpell.descriptionTemplate || "No hay descripción disponible."} />
+                  <TextFormat text={currentSpell.renderedDescription || currentSpell.descriptionTemplate || "No hay descripción disponible."} />
                 </div>
               </>
             ) : (
               <>
                 <h3 className="text-xl font-semibold text-amber-800 mb-4">Resumen</h3>
                 <div className="prose prose-base max-w-none text-gray-700 whitespace-pre-line">
-                  {currentSpell.summaryTemplate}
+                  {currentSpell.renderedSummary || currentSpell.summaryTemplate}
                 </div>
               </>
             )}
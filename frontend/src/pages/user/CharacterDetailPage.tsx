@@ -1,4 +1,4 @@
-import { useEffect, useState } from "react";
+import { useEffect, useRef, useState } from "react";
 import { charactersAPI } from "@/features/characters/services/characters";
 import { attributeLabels, formatModifier, calculateSkillValue, skillGroups, type CharacterDTO, calculateModifier } from "@/types/characters";
 import EditModal from "@/components/modals/forms/EditModal";
@@ -10,11 +10,13 @@ import SkillEditModal from "@/features/characters/components/user/SkillEditModal
 import CoinsEditModal from "@/features/characters/components/user/CoinsEditModal";
 import LoadingSpinner from "@/components/others/LoadingSpinner";
 import PageHeader from "@/components/others/PageHeader";
+import { applyPatch, subscribeLive } from "@/api/live";
 
 export default function CharacterDetailPage() {
   const { id } = useParams<{ id: string }>();
   const [character, setCharacter] = useState<CharacterDTO | null>(null);
   const [loading, setLoading] = useState(true);
+  const version = useRef<number | undefined>(undefined); // Versión de la ficha que tenemos, para pedir solo los cambios
 
   const [modalOpen, setModalOpen] = useState(false);
 
@@ -27,6 +29,7 @@ export default function CharacterDetailPage() {
     autoValue?: number;
     valueLabel?: string;
     autoValueLabel?: string;
+    showSign?: boolean;
     coinIndex?: number;
   }>(null);
 
@@ -62,8 +65,9 @@ export default function CharacterDetailPage() {
   useEffect(() => {
     const fetchCharacter = async () => {
       try {
-        const data = await charactersAPI.getCharacter(Number(id));
-        setCharacter(data);
+        const data = await charactersAPI.syncCharacter(Number(id));
+        version.current = data.version;
+        setCharacter(data.snapshot ?? null);
       } catch (error) {
         toast.error("Error cargando el personaje", {
           position: "top-center"
@@ -76,6 +80,26 @@ export default function CharacterDetailPage() {
     fetchCharacter();
   }, [id]);
 
+  // Cambios que hace el DM (o un descanso o una recompensa del grupo) mientras la ficha está abierta
+  useEffect(() => {
+    return subscribeLive(`character:${id}`, ({ type, payload }) => {
+      if (type === "CHARACTER_SNAPSHOT") {
+        version.current = payload.version;
+        setCharacter(payload.snapshot);
+      } else if (type === "CHARACTER_PATCH") {
+        version.current = payload.version;
+        setCharacter(prev => prev ? applyPatch(prev, payload.patch) : prev);
+      } else if (type === "CHARACTER_RESTED") {
+        const { characterId, spellSlots, skills, items, itemProperties, ...fields } = payload;
+        setCharacter(prev => prev ? { ...prev, ...fields } : prev);
+      } else if (type === "CHARACTER_REWARDED") {
+        // Trae los totales ya sumados; los ítems se ven al volver a abrir el inventario
+        const { experience, coins } = payload;
+        setCharacter(prev => prev ? { ...prev, experience, coins: coins ?? prev.coins } : prev);
+      }
+    }, () => version.current);
+  }, [id]);
+
   const handleEdit = async (field: keyof CharacterDTO, value: any, isManual?: boolean) => {
     if (!character) return;
 
@@ -86,6 +110,12 @@ export default function CharacterDetailPage() {
         initiative: value,
         initiativeManual: isManual
       };
+    } else if (field === "armorClass") {
+      // Sin marcar como manual el servidor ignora el valor y devuelve la CA calculada
+      updated = {
+        armorClass: value,
+        armorClassManual: isManual
+      };
     } else if (field === "coins") {
       const newCoins = [...(character.coins || [0, 0, 0, 0, 0])];
       if (modalProps?.type === "coin" && modalProps.coinIndex !== undefined) {
@@ -110,8 +140,9 @@ export default function CharacterDetailPage() {
       setCharacter(prev => {
         if (!prev) return prev;
 
+        // Lo enviado más lo que el servidor ha recalculado a partir de ello
         if (updatedCharacter && typeof updatedCharacter === 'object') {
-          return { ...prev, ...updatedCharacter };
+          return { ...prev, ...updated, ...updatedCharacter };
         }
 
         return { ...prev, ...updated };
@@ -234,9 +265,21 @@ export default function CharacterDetailPage() {
             <div className="grid grid-cols-3 gap-3 text-center">
               <div
                 className="rounded-xl bg-white shadow p-3 cursor-pointer hover:bg-gray-100 transition-colors duration-0"
-                onClick={() =>
-                  openEditModal("armorClass", "number", "Clase de Armadura", character.armorClass)
-                }
+                onClick={() => {
+                  setModalProps({
+                    field: "armorClass",
+                    type: "valueOrManual",
+                    title: "Editar Clase de Armadura",
+                    value: {
+                      value: character.armorClass,
+                      isManual: character.armorClassManual,
+                    },
+                    autoValue: character.armorClass,
+                    autoValueLabel: "Valor actual (se recalcula con la armadura equipada)",
+                    showSign: false,
+                  });
+                  setModalOpen(true);
+                }}
               >
                 <h4 className="font-bold text-gray-700">CA</h4>
                 <p className="text-xl">{character.armorClass}</p>
@@ -440,6 +483,7 @@ export default function CharacterDetailPage() {
                 autoValue={modalProps.autoValue ?? 0}
                 valueLabel={modalProps.valueLabel}
                 autoValueLabel={modalProps.autoValueLabel}
+                showSign={modalProps.showSign}
                 onSave={(val) => handleEdit(
                   modalProps.field,
                   val.value,
@@ -1,3 +1,5 @@
+import type { PatchOperation } from "@/api/live";
+
 export type CharacterSummaryDTO = {
   id: number;
   name: string;
@@ -68,6 +70,7 @@ export type CharacterDTO = {
   wisdom: number;
   charisma: number;
   armorClass: number;
+  armorClassManual: boolean;
   currentHp: number;
   maxHp: number;
   tempHp: number;
@@ -104,6 +107,14 @@ export type CharacterDTO = {
   accountId?: number;
 };
 
+// Sincronización por versiones: o patch desde fromVersion, o la ficha entera
+export type CharacterSyncDTO = {
+  version: number;
+  fromVersion?: number;
+  patch?: PatchOperation[];
+  snapshot?: CharacterDTO;
+};
+
 export const attributeLabels: Record<keyof Pick<CharacterDTO, "strength" | "dexterity" | "constitution" | "intelligence" | "wisdom" | "charisma">, string> = {
   strength: "Fuerza",
   dexterity: "Destreza",
@@ -9,6 +9,7 @@ export type ItemPropertyDTO = {
     id: number;
     name: string;
     description: string;
+    renderedDescription?: string; // Descripción ya renderizada para el personaje
     baseMaxUses: number;
     resetOn: ResetOn;
     currentUses: number; // Si no es null, estamos hablando de un CharacterItemProperty
@@ -19,6 +20,8 @@ export type ItemDTO = {
   name: string;
   descriptionTemplate: string;
   summaryTemplate: string;
+  renderedDescription?: string; // Plantillas ya renderizadas para el personaje
+  renderedSummary?: string;
   iconUrl: string;
   cost: CostDTO;
   rarity: Rarity;
@@ -5,6 +5,8 @@ export type SkillDTO = {
   name: string;
   descriptionTemplate: string;
   summaryTemplate: string;
+  renderedDescription?: string; // Plantillas ya renderizadas para el personaje
+  renderedSummary?: string;
   iconUrl: string;
   resetOn: string;
   currentUses: number;
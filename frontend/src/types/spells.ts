@@ -7,6 +7,8 @@ export type SpellDTO = {
   school: School;
   descriptionTemplate: string;
   summaryTemplate: string;
+  renderedDescription?: string; // Plantillas ya renderizadas para el personaje
+  renderedSummary?: string;
   iconUrl: string;
   prepared: boolean;
   favourite: boolean;
@@ -0,0 +1,85 @@
+// Prueba de carga para comparar el backend con hilos de plataforma y con hilos virtuales (ver README).
+// Se lanza igual contra los dos modos, con la misma base de datos y el mismo tamaño de pool:
+//
+//   k6 run loadtest/virtual-threads.js
+//   k6 run -e VUS=400 -e DURATION=60s -e BASE_URL=http://localhost:8080 loadtest/virtual-threads.js
+//
+// Hay dos escenarios a la vez: lecturas de catálogo y ficha (JPA) y logins (BCrypt, mucha CPU por petición).
+// Al final k6 saca las peticiones por segundo (http_reqs) y p(99) de http_req_duration por escenario
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const USERNAME = __ENV.USERNAME || 'DM';
+const PASSWORD = __ENV.PASSWORD || 'DM';
+const VUS = Number(__ENV.VUS || 200);
+const LOGIN_VUS = Number(__ENV.LOGIN_VUS || 20);
+const DURATION = __ENV.DURATION || '30s';
+
+export const options = {
+  scenarios: {
+    reads: {
+      executor: 'ramping-vus',
+      exec: 'reads',
+      startVUs: 0,
+      stages: [
+        { duration: '10s', target: VUS },
+        { duration: DURATION, target: VUS },
+        { duration: '5s', target: 0 },
+      ],
+    },
+    logins: {
+      executor: 'constant-vus',
+      exec: 'logins',
+      vus: LOGIN_VUS,
+      duration: DURATION,
+      startTime: '10s',
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+  thresholds: {
+    // Sin umbral real: solo para que el resumen salga separado por escenario
+    'http_req_duration{scenario:reads}': ['p(99)>=0'],
+    'http_req_duration{scenario:logins}': ['p(99)>=0'],
+    'http_reqs{scenario:reads}': ['count>=0'],
+    'http_reqs{scenario:logins}': ['count>=0'],
+  },
+};
+
+function login() {
+  const response = http.post(`${BASE_URL}/api/auth/login`,
+    JSON.stringify({ username: USERNAME, password: PASSWORD }),
+    { headers: { 'Content-Type': 'application/json' } });
+  check(response, { 'login 200': r => r.status === 200 });
+  return response;
+}
+
+// Un token y un personaje propios de la prueba, para que las lecturas no dependan de los datos que haya
+export function setup() {
+  const token = login().json('token');
+  const headers = { Authorization: `Bearer ${token}`, 'Content-Type': 'application/json' };
+  const created = http.post(`${BASE_URL}/api/characters/create`, JSON.stringify({ name: 'Prueba de carga' }),
+    { headers });
+  check(created, { 'personaje creado': r => r.status === 200 });
+  return { token, characterId: created.json('id') };
+}
+
+export function reads(data) {
+  const params = { headers: { Authorization: `Bearer ${data.token}` } };
+  const responses = http.batch([
+    ['GET', `${BASE_URL}/api/spells/all?characterId=${data.characterId}&limit=50`, null, params],
+    ['GET', `${BASE_URL}/api/characters/${data.characterId}`, null, params],
+  ]);
+  // 503: el limitador del modo de hilos virtuales no ha encontrado sitio a tiempo
+  check(responses[0], { 'conjuros 200': r => r.status === 200 });
+  check(responses[1], { 'ficha 200': r => r.status === 200 });
+}
+
+export function logins() {
+  login();
+}
+
+export function teardown(data) {
+  http.del(`${BASE_URL}/api/characters/${data.characterId}`, null,
+    { headers: { Authorization: `Bearer ${data.token}` } });
+}